@@ -0,0 +1,88 @@
+package com.jd.blockchain.consensus.bftsmart;
+
+import java.util.List;
+
+import utils.io.BytesUtils;
+
+/**
+ * 多个消息合并的有序请求信封；
+ * <p>
+ * 客户端把并发提交的多个交易合并为一个有序请求，节点在共识之后拆分为独立的交易处理，并把各交易的应答按相同的格式合并返回；<br>
+ * 格式：魔数(4 字节) + 消息数量(4 字节) + 依次排列的 [消息长度(4 字节) + 消息内容]；<br>
+ * 交易请求的二进制编码以数据契约编码开头，首字节为 0，与魔数不会混淆；
+ *
+ * @author
+ *
+ */
+public class BftsmartMessageEnvelope {
+
+	private static final int MAGIC = 0x7F424D45;
+
+	private static final int HEADER_SIZE = 8;
+
+	private BftsmartMessageEnvelope() {
+	}
+
+	/**
+	 * 是否为合并的信封；
+	 *
+	 * @param bytes
+	 * @return
+	 */
+	public static boolean isEnvelope(byte[] bytes) {
+		return bytes != null && bytes.length >= HEADER_SIZE && BytesUtils.toInt(bytes, 0) == MAGIC;
+	}
+
+	/**
+	 * 信封编码后的长度；
+	 *
+	 * @param messagesSize 全部消息的长度之和；
+	 * @param count        消息数量；
+	 * @return
+	 */
+	public static int sizeOf(int messagesSize, int count) {
+		return HEADER_SIZE + count * 4 + messagesSize;
+	}
+
+	public static byte[] pack(List<byte[]> messages) {
+		int size = 0;
+		for (byte[] message : messages) {
+			size += message.length;
+		}
+		byte[] envelope = new byte[sizeOf(size, messages.size())];
+		BytesUtils.toBytes(MAGIC, envelope, 0);
+		BytesUtils.toBytes(messages.size(), envelope, 4);
+		int offset = HEADER_SIZE;
+		for (byte[] message : messages) {
+			BytesUtils.toBytes(message.length, envelope, offset);
+			System.arraycopy(message, 0, envelope, offset + 4, message.length);
+			offset += 4 + message.length;
+		}
+		return envelope;
+	}
+
+	public static byte[][] unpack(byte[] envelope) {
+		if (!isEnvelope(envelope)) {
+			throw new IllegalArgumentException("Illegal message envelope!");
+		}
+		int count = BytesUtils.toInt(envelope, 4);
+		if (count < 0 || count > (envelope.length - HEADER_SIZE) / 4) {
+			throw new IllegalArgumentException("Illegal message count of envelope! --" + count);
+		}
+		byte[][] messages = new byte[count][];
+		int offset = HEADER_SIZE;
+		for (int i = 0; i < count; i++) {
+			if (offset + 4 > envelope.length) {
+				throw new IllegalArgumentException("Message envelope is truncated!");
+			}
+			int length = BytesUtils.toInt(envelope, offset);
+			if (length < 0 || length > envelope.length - offset - 4) {
+				throw new IllegalArgumentException("Message envelope is truncated!");
+			}
+			messages[i] = new byte[length];
+			System.arraycopy(envelope, offset + 4, messages[i], 0, length);
+			offset += 4 + length;
+		}
+		return messages;
+	}
+}
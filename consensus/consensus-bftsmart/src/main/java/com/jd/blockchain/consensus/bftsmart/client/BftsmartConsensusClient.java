@@ -15,6 +15,8 @@ public class BftsmartConsensusClient implements ConsensusClient, ConsensusManage
 
     private BftsmartServiceProxyPool serviceProxyPool;
 
+    private volatile BftsmartOrderedCoalescer orderedCoalescer;
+
     private BftsmartClientSettings clientSettings;
 
     public BftsmartConsensusClient(BftsmartClientSettings clientSettings) {
@@ -48,6 +50,9 @@ public class BftsmartConsensusClient implements ConsensusClient, ConsensusManage
     	if (serviceProxyPool == null) {
             logger.info("Connect consensus client : {}", clientSettings.getClientId());
     		this.serviceProxyPool = new BftsmartServiceProxyPool(clientSettings);
+    		if (BftsmartOrderedCoalescer.isEnabled()) {
+    		    this.orderedCoalescer = new BftsmartOrderedCoalescer(serviceProxyPool);
+            }
 		}
     }
 
@@ -56,6 +61,11 @@ public class BftsmartConsensusClient implements ConsensusClient, ConsensusManage
         logger.info("Close consensus client : {}", clientSettings.getClientId());
     	BftsmartServiceProxyPool serviceProxyPool = this.serviceProxyPool;
     	this.serviceProxyPool = null;
+        BftsmartOrderedCoalescer orderedCoalescer = this.orderedCoalescer;
+        this.orderedCoalescer = null;
+        if (orderedCoalescer != null) {
+            orderedCoalescer.close();
+        }
         if (serviceProxyPool != null) {
             serviceProxyPool.close();
         }
@@ -76,6 +86,12 @@ public class BftsmartConsensusClient implements ConsensusClient, ConsensusManage
 		protected BftsmartServiceProxyPool getServiceProxyPool() {
 			return ensureConnected();
 		}
+
+		@Override
+		protected BftsmartOrderedCoalescer getOrderedCoalescer() {
+			ensureConnected();
+			return orderedCoalescer;
+		}
     	
     }
     
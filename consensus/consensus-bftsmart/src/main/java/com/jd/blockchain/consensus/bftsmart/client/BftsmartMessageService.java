@@ -1,5 +1,7 @@
 package com.jd.blockchain.consensus.bftsmart.client;
 
+import java.util.concurrent.ExecutionException;
+
 import bftsmart.tom.AsynchServiceProxy;
 import utils.concurrent.AsyncFuture;
 import utils.concurrent.CompletableAsyncFuture;
@@ -16,11 +18,44 @@ public abstract class BftsmartMessageService implements MessageService {
 
 	protected abstract BftsmartServiceProxyPool getServiceProxyPool();
 
+	/**
+	 * 有序请求的合并器；未开启合并时返回 null；
+	 *
+	 * @return
+	 */
+	protected BftsmartOrderedCoalescer getOrderedCoalescer() {
+		return null;
+	}
+
 	@Override
 	public AsyncFuture<byte[]> sendOrdered(byte[] message) {
+		BftsmartOrderedCoalescer coalescer = getOrderedCoalescer();
+		if (coalescer != null) {
+			return sendCoalescedMessage(coalescer, message);
+		}
 		return sendOrderedMessage(message);
 	}
 
+	private AsyncFuture<byte[]> sendCoalescedMessage(BftsmartOrderedCoalescer coalescer, byte[] message) {
+		CompletableAsyncFuture<byte[]> asyncFuture = new CompletableAsyncFuture<>();
+		try {
+			// 与逐个提交一样等待应答，视图过期的异常同样直接抛出；
+			asyncFuture.complete(coalescer.submit(message).get());
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof ViewObsoleteException) {
+				throw (ViewObsoleteException) cause;
+			}
+			asyncFuture.error(cause);
+			throw new RuntimeException(cause);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			asyncFuture.error(e);
+			throw new RuntimeException(e);
+		}
+		return asyncFuture;
+	}
+
 	private AsyncFuture<byte[]> sendOrderedMessage(byte[] message) {
 		BftsmartServiceProxyPool asyncPeerProxyPool = getServiceProxyPool();
 		
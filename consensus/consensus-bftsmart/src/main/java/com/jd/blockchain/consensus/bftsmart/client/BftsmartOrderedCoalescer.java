@@ -0,0 +1,210 @@
+package com.jd.blockchain.consensus.bftsmart.client;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.jd.blockchain.consensus.bftsmart.BftsmartMessageEnvelope;
+
+import bftsmart.tom.AsynchServiceProxy;
+
+/**
+ * 有序请求的客户端合并器；
+ * <p>
+ * 把并发提交的多个有序消息合并为一个 {@link BftsmartMessageEnvelope} 信封，通过一次有序请求提交，再把信封中的各个应答分发给对应的提交者；<br>
+ * 合并的数量、字节数以及等待时间都有上限；只有一个消息时按原样提交；
+ * <p>
+ * 默认关闭，通过系统属性 {@link #ENABLED_PROPERTY} 开启；开启之前所有共识节点都必须已经支持拆分信封；
+ *
+ * @author
+ *
+ */
+public class BftsmartOrderedCoalescer {
+
+	public static final String ENABLED_PROPERTY = "bftsmart.client.coalesce";
+
+	private static final boolean ENABLED = Boolean.getBoolean(ENABLED_PROPERTY);
+
+	/**
+	 * 一个信封中的最大消息数量；
+	 */
+	private static final int MAX_COUNT = Integer.getInteger(ENABLED_PROPERTY + ".max-count", 64);
+
+	/**
+	 * 一个信封的最大字节数；
+	 */
+	private static final int MAX_BYTES = Integer.getInteger(ENABLED_PROPERTY + ".max-bytes", 4 * 1024 * 1024);
+
+	/**
+	 * 收到第一个消息之后等待更多消息的最长时间；
+	 */
+	private static final int LINGER_MILLIS = Integer.getInteger(ENABLED_PROPERTY + ".linger-ms", 2);
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(BftsmartOrderedCoalescer.class);
+
+	private final BftsmartServiceProxyPool proxyPool;
+
+	private final LinkedBlockingQueue<PendingMessage> queue = new LinkedBlockingQueue<>();
+
+	/**
+	 * 发送信封的线程；每个线程占用一个代理，数量与代理池的上限一致；
+	 */
+	private final ExecutorService senders;
+
+	private final Thread collector;
+
+	private volatile boolean running = true;
+
+	/**
+	 * 超出当前信封上限、留给下一个信封的消息；
+	 */
+	private PendingMessage carried;
+
+	public BftsmartOrderedCoalescer(BftsmartServiceProxyPool proxyPool) {
+		this.proxyPool = proxyPool;
+		int senderCount = Math.max(1, proxyPool.getMaxTotal());
+		// 发送线程全部忙碌时由合并线程等待，期间到达的消息合并到下一个信封；
+		this.senders = new ThreadPoolExecutor(senderCount, senderCount, 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+				r -> {
+					Thread thread = new Thread(r, "bftsmart-coalesce-sender");
+					thread.setDaemon(true);
+					return thread;
+				}, (r, executor) -> {
+					try {
+						if (!executor.isShutdown()) {
+							executor.getQueue().put(r);
+						}
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				});
+		this.collector = new Thread(this::collect, "bftsmart-coalesce-collector");
+		this.collector.setDaemon(true);
+		this.collector.start();
+	}
+
+	/**
+	 * 是否开启了有序请求的合并；
+	 *
+	 * @return
+	 */
+	public static boolean isEnabled() {
+		return ENABLED;
+	}
+
+	/**
+	 * 提交一个有序消息；
+	 *
+	 * @param message
+	 * @return 消息的应答；
+	 */
+	public CompletableFuture<byte[]> submit(byte[] message) {
+		PendingMessage pending = new PendingMessage(message);
+		if (!running) {
+			pending.future.completeExceptionally(new IllegalStateException("Coalescer has been closed!"));
+			return pending.future;
+		}
+		queue.add(pending);
+		return pending.future;
+	}
+
+	public void close() {
+		running = false;
+		collector.interrupt();
+		senders.shutdown();
+		List<PendingMessage> remains = new ArrayList<>();
+		queue.drainTo(remains);
+		for (PendingMessage pending : remains) {
+			pending.future.completeExceptionally(new IllegalStateException("Coalescer has been closed!"));
+		}
+	}
+
+	private void collect() {
+		while (running) {
+			try {
+				List<PendingMessage> batch = nextBatch();
+				senders.execute(() -> send(batch));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			} catch (Exception e) {
+				LOGGER.error("Error occurred while coalescing ordered messages! --" + e.getMessage(), e);
+			}
+		}
+	}
+
+	private List<PendingMessage> nextBatch() throws InterruptedException {
+		List<PendingMessage> batch = new ArrayList<>();
+		PendingMessage first = carried != null ? carried : queue.take();
+		carried = null;
+		batch.add(first);
+		int bytes = first.message.length;
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(LINGER_MILLIS);
+		while (batch.size() < MAX_COUNT) {
+			long remaining = deadline - System.nanoTime();
+			PendingMessage next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+			if (next == null) {
+				break;
+			}
+			if (BftsmartMessageEnvelope.sizeOf(bytes + next.message.length, batch.size() + 1) > MAX_BYTES) {
+				carried = next;
+				break;
+			}
+			batch.add(next);
+			bytes += next.message.length;
+		}
+		return batch;
+	}
+
+	private void send(List<PendingMessage> batch) {
+		AsynchServiceProxy asynchServiceProxy = null;
+		try {
+			asynchServiceProxy = proxyPool.borrowObject();
+			if (batch.size() == 1) {
+				PendingMessage pending = batch.get(0);
+				pending.future.complete(asynchServiceProxy.invokeOrdered(pending.message));
+				return;
+			}
+			List<byte[]> messages = new ArrayList<>(batch.size());
+			for (PendingMessage pending : batch) {
+				messages.add(pending.message);
+			}
+			byte[] result = asynchServiceProxy.invokeOrdered(BftsmartMessageEnvelope.pack(messages));
+			byte[][] responses = BftsmartMessageEnvelope.unpack(result);
+			if (responses.length != batch.size()) {
+				throw new IllegalStateException("The count of responses mismatch with the count of messages! --"
+						+ responses.length + " != " + batch.size());
+			}
+			for (int i = 0; i < responses.length; i++) {
+				batch.get(i).future.complete(responses[i]);
+			}
+		} catch (Exception e) {
+			for (PendingMessage pending : batch) {
+				pending.future.completeExceptionally(e);
+			}
+		} finally {
+			if (asynchServiceProxy != null) {
+				proxyPool.returnObject(asynchServiceProxy);
+			}
+		}
+	}
+
+	private static class PendingMessage {
+
+		private final byte[] message;
+
+		private final CompletableFuture<byte[]> future = new CompletableFuture<>();
+
+		PendingMessage(byte[] message) {
+			this.message = message;
+		}
+	}
+}
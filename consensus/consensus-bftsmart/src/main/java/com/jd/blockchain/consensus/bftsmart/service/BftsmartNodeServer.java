@@ -13,6 +13,7 @@ import com.jd.binaryproto.BinaryProtocol;
 import com.jd.blockchain.consensus.*;
 import com.jd.blockchain.consensus.bftsmart.BftsmartConsensusProvider;
 import com.jd.blockchain.consensus.bftsmart.BftsmartConsensusViewSettings;
+import com.jd.blockchain.consensus.bftsmart.BftsmartMessageEnvelope;
 import com.jd.blockchain.consensus.bftsmart.BftsmartNodeSettings;
 import com.jd.blockchain.consensus.bftsmart.BftsmartTopology;
 import com.jd.blockchain.consensus.service.Communication;
@@ -366,7 +367,9 @@ public class BftsmartNodeServer extends DefaultRecoverable implements NodeServer
 			}
 
 			int msgId = 0;
-			for (byte[] txContent : manageConsensusCmds) {
+			byte[][] txCommands = unpackCommands(manageConsensusCmds.toArray(new byte[manageConsensusCmds.size()][]),
+					new int[manageConsensusCmds.size()]);
+			for (byte[] txContent : txCommands) {
 				messageHandle.processOrdered(msgId++, txContent, context);
 			}
 			messageHandle.completeBatch(context);
@@ -554,13 +557,24 @@ public class BftsmartNodeServer extends DefaultRecoverable implements NodeServer
 	 */
 	@Override
 	public BatchAppResultImpl preComputeAppHash(int cid, byte[][] commands, long timestamp) {
-		List<AsyncFuture<byte[]>> asyncFutureLinkedList = new ArrayList<>(commands.length);
+		// 客户端合并提交的信封拆分为独立的交易，应答再按信封重新合并；
+		int[] envelopeSizes = new int[commands.length];
+		byte[][] txCommands = unpackCommands(commands, envelopeSizes);
+		List<AsyncFuture<byte[]>> asyncFutureLinkedList = new ArrayList<>(txCommands.length);
 		List<byte[]> responseLinkedList = new ArrayList<>();
 		StateSnapshot newStateSnapshot, preStateSnapshot, genisStateSnapshot;
 		BatchAppResultImpl result;
 		String batchId = "";
 		int msgId = 0;
 		byte[] cidBytes = BytesUtils.toBytes(cid);
+		// 在等待前一批次提交的同时并行解码和验签；
+		if (txCommands.length > 0 && messageHandle instanceof MessagePreprocessor) {
+			try {
+				((MessagePreprocessor) messageHandle).preprocess(realmName, txCommands);
+			} catch (Exception e) {
+				LOGGER.warn("Error occurred while preprocessing messages! --" + e.getMessage(), e);
+			}
+		}
 		batchHandleLock.lock();
 		try {
 			if (commands.length == 0) {
@@ -584,7 +598,7 @@ public class BftsmartNodeServer extends DefaultRecoverable implements NodeServer
 								"The time[{}] of the last block is mismatch with the current[{}] for time tolerance[{}] !!!",
 								preBlockTimestamp, timestamp, timeTolerance);
 						// 设置返回的应答信息
-						for (byte[] command : commands) {
+						for (byte[] command : txCommands) {
 							// 状态设置为共识错误
 							responseLinkedList
 									.add(createAppResponse(command, TransactionState.CONSENSUS_TIMESTAMP_ERROR));
@@ -594,7 +608,8 @@ public class BftsmartNodeServer extends DefaultRecoverable implements NodeServer
 						// 回滚该操作
 						messageHandle.rollbackBatch(TransactionState.CONSENSUS_TIMESTAMP_ERROR.CODE, context);
 						// 返回成功，但需要设置当前的状态
-						return BatchAppResultImpl.createSuccess(responseLinkedList, cidBytes, batchId, cidBytes);
+						return BatchAppResultImpl.createSuccess(packResponses(responseLinkedList, envelopeSizes),
+								cidBytes, batchId, cidBytes);
 					} else {
 						LOGGER.debug("Last block's timestamp = {}, current timestamp = {}, time tolerance = {} !",
 								preBlockTimestamp, timestamp, timeTolerance);
@@ -603,7 +618,7 @@ public class BftsmartNodeServer extends DefaultRecoverable implements NodeServer
 
 				// 创世区块的状态快照
 				genisStateSnapshot = messageHandle.getGenesisStateSnapshot(realmName);
-				for (byte[] txContent : commands) {
+				for (byte[] txContent : txCommands) {
 					AsyncFuture<byte[]> asyncFuture = messageHandle.processOrdered(msgId++, txContent, context);
 					asyncFutureLinkedList.add(asyncFuture);
 				}
@@ -613,21 +628,25 @@ public class BftsmartNodeServer extends DefaultRecoverable implements NodeServer
 					responseLinkedList.add(asyncFuture.get());
 				}
 
-				result = BatchAppResultImpl.createSuccess(responseLinkedList, newStateSnapshot.getSnapshot(), batchId,
-						genisStateSnapshot.getSnapshot());
+				result = BatchAppResultImpl.createSuccess(packResponses(responseLinkedList, envelopeSizes),
+						newStateSnapshot.getSnapshot(), batchId, genisStateSnapshot.getSnapshot());
 			}
 		} catch (BlockRollbackException e) {
 			LOGGER.error("Error occurred while pre compute app! --" + e.getMessage(), e);
-			for (byte[] command : commands) {
+			responseLinkedList.clear();
+			for (byte[] command : txCommands) {
 				responseLinkedList.add(createAppResponse(command, e.getState()));
 			}
-			result = BatchAppResultImpl.createFailure(responseLinkedList, cidBytes, batchId, cidBytes);
+			result = BatchAppResultImpl.createFailure(packResponses(responseLinkedList, envelopeSizes), cidBytes,
+					batchId, cidBytes);
 		} catch (Exception e) {
 			LOGGER.error("Error occurred while pre compute app! --" + e.getMessage(), e);
-			for (byte[] command : commands) {
+			responseLinkedList.clear();
+			for (byte[] command : txCommands) {
 				responseLinkedList.add(createAppResponse(command, TransactionState.IGNORED_BY_BLOCK_FULL_ROLLBACK));
 			}
-			result = BatchAppResultImpl.createFailure(responseLinkedList, cidBytes, batchId, cidBytes);
+			result = BatchAppResultImpl.createFailure(packResponses(responseLinkedList, envelopeSizes), cidBytes,
+					batchId, cidBytes);
 		} finally {
 			batchHandleLock.unlock();
 		}
@@ -635,6 +654,71 @@ public class BftsmartNodeServer extends DefaultRecoverable implements NodeServer
 		return result;
 	}
 
+	/**
+	 * 把请求列表中的信封拆分为独立的交易；
+	 * 
+	 * @param commands      共识的请求列表；
+	 * @param envelopeSizes 输出各请求包含的交易数量，非信封的请求为 -1；
+	 * @return 拆分后的交易列表；
+	 */
+	private byte[][] unpackCommands(byte[][] commands, int[] envelopeSizes) {
+		List<byte[]> txCommands = null;
+		for (int i = 0; i < commands.length; i++) {
+			byte[][] messages = null;
+			if (BftsmartMessageEnvelope.isEnvelope(commands[i])) {
+				try {
+					messages = BftsmartMessageEnvelope.unpack(commands[i]);
+				} catch (IllegalArgumentException e) {
+					LOGGER.warn("Error occurred while unpacking message envelope! --" + e.getMessage(), e);
+				}
+			}
+			if (messages == null) {
+				envelopeSizes[i] = -1;
+				if (txCommands != null) {
+					txCommands.add(commands[i]);
+				}
+				continue;
+			}
+			if (txCommands == null) {
+				txCommands = new ArrayList<>(commands.length + messages.length);
+				txCommands.addAll(Arrays.asList(commands).subList(0, i));
+			}
+			envelopeSizes[i] = messages.length;
+			txCommands.addAll(Arrays.asList(messages));
+		}
+		return txCommands == null ? commands : txCommands.toArray(new byte[txCommands.size()][]);
+	}
+
+	/**
+	 * 按请求列表中的信封把交易应答重新合并，使应答与请求一一对应；
+	 * 
+	 * @param responses     拆分后各交易的应答；
+	 * @param envelopeSizes 各请求包含的交易数量，非信封的请求为 -1；
+	 * @return
+	 */
+	private List<byte[]> packResponses(List<byte[]> responses, int[] envelopeSizes) {
+		if (responses.size() == envelopeSizes.length) {
+			boolean packed = false;
+			for (int size : envelopeSizes) {
+				packed |= size >= 0;
+			}
+			if (!packed) {
+				return responses;
+			}
+		}
+		List<byte[]> packedResponses = new ArrayList<>(envelopeSizes.length);
+		int offset = 0;
+		for (int size : envelopeSizes) {
+			if (size < 0) {
+				packedResponses.add(responses.get(offset++));
+			} else {
+				packedResponses.add(BftsmartMessageEnvelope.pack(responses.subList(offset, offset + size)));
+				offset += size;
+			}
+		}
+		return packedResponses;
+	}
+
 	// Block full rollback responses, generated in pre compute phase, due to tx
 	// exception
 	private byte[] createAppResponse(byte[] command, TransactionState transactionState) {
@@ -651,20 +735,34 @@ public class BftsmartNodeServer extends DefaultRecoverable implements NodeServer
 	public List<byte[]> updateAppResponses(List<byte[]> asyncResponseLinkedList, byte[] commonHash,
 			boolean isConsistent) {
 		List<byte[]> updatedResponses = new ArrayList<>();
-		TxResponseMessage resp = null;
 		for (int i = 0; i < asyncResponseLinkedList.size(); i++) {
-			TransactionResponse txResponse = BinaryProtocol.decode(asyncResponseLinkedList.get(i));
-			if (isConsistent) {
-				resp = new TxResponseMessage(txResponse.getContentHash());
+			byte[] response = asyncResponseLinkedList.get(i);
+			if (BftsmartMessageEnvelope.isEnvelope(response)) {
+				byte[][] responses = BftsmartMessageEnvelope.unpack(response);
+				List<byte[]> updatedEnvelope = new ArrayList<>(responses.length);
+				for (byte[] txResponse : responses) {
+					updatedEnvelope.add(updateAppResponse(txResponse, commonHash, isConsistent));
+				}
+				updatedResponses.add(BftsmartMessageEnvelope.pack(updatedEnvelope));
 			} else {
-				resp = new TxResponseMessage(Crypto.resolveAsHashDigest(commonHash));
+				updatedResponses.add(updateAppResponse(response, commonHash, isConsistent));
 			}
-			resp.setExecutionState(TransactionState.IGNORED_BY_BLOCK_FULL_ROLLBACK);
-			updatedResponses.add(BinaryProtocol.encode(resp, TransactionResponse.class));
 		}
 		return updatedResponses;
 	}
 
+	private byte[] updateAppResponse(byte[] response, byte[] commonHash, boolean isConsistent) {
+		TransactionResponse txResponse = BinaryProtocol.decode(response);
+		TxResponseMessage resp;
+		if (isConsistent) {
+			resp = new TxResponseMessage(txResponse.getContentHash());
+		} else {
+			resp = new TxResponseMessage(Crypto.resolveAsHashDigest(commonHash));
+		}
+		resp.setExecutionState(TransactionState.IGNORED_BY_BLOCK_FULL_ROLLBACK);
+		return BinaryProtocol.encode(resp, TransactionResponse.class);
+	}
+
 	/**
 	 *
 	 * Decision has been made at the consensus stage， commit block
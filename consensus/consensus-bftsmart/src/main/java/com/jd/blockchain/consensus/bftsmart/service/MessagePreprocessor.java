@@ -0,0 +1,19 @@
+package com.jd.blockchain.consensus.bftsmart.service;
+
+/**
+ * 共识消息的预处理；
+ * <p>
+ * {@link BftsmartNodeServer} 在一个批次取得执行锁之前调用，使与账本状态无关的解码和验签可以与前一批次的提交重叠进行；<br>
+ * 由消息处理器（MessageHandle）选择性实现；预处理不得改变消息的执行结果；
+ */
+public interface MessagePreprocessor {
+
+	/**
+	 * 预处理即将按顺序执行的消息；
+	 *
+	 * @param realmName 账本；
+	 * @param messages  消息列表；
+	 */
+	void preprocess(String realmName, byte[][] messages);
+
+}
@@ -0,0 +1,64 @@
+package test.com.jd.blockchain.consensus.bftsmart;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.jd.blockchain.consensus.bftsmart.BftsmartMessageEnvelope;
+
+/**
+ * 有序请求信封的编解码测试；
+ *
+ */
+public class BftsmartMessageEnvelopeTest {
+
+	@Test
+	public void testPackAndUnpack() {
+		Random random = new Random();
+		List<byte[]> messages = new ArrayList<>();
+		int size = 0;
+		for (int i = 0; i < 10; i++) {
+			byte[] message = new byte[random.nextInt(256)];
+			random.nextBytes(message);
+			messages.add(message);
+			size += message.length;
+		}
+		// 包含空消息；
+		messages.add(new byte[0]);
+
+		byte[] envelope = BftsmartMessageEnvelope.pack(messages);
+		assertEquals(BftsmartMessageEnvelope.sizeOf(size, messages.size()), envelope.length);
+		assertTrue(BftsmartMessageEnvelope.isEnvelope(envelope));
+
+		byte[][] unpacked = BftsmartMessageEnvelope.unpack(envelope);
+		assertEquals(messages.size(), unpacked.length);
+		for (int i = 0; i < unpacked.length; i++) {
+			assertArrayEquals(messages.get(i), unpacked[i]);
+		}
+	}
+
+	@Test
+	public void testIllegalEnvelope() {
+		assertFalse(BftsmartMessageEnvelope.isEnvelope(null));
+		assertFalse(BftsmartMessageEnvelope.isEnvelope(new byte[3]));
+		// 数据契约编码的首字节为 0，不会被识别为信封；
+		assertFalse(BftsmartMessageEnvelope.isEnvelope(new byte[64]));
+
+		List<byte[]> messages = new ArrayList<>();
+		messages.add(new byte[] { 1, 2, 3 });
+		messages.add(new byte[] { 4, 5 });
+		byte[] envelope = BftsmartMessageEnvelope.pack(messages);
+		byte[] truncated = new byte[envelope.length - 1];
+		System.arraycopy(envelope, 0, truncated, 0, truncated.length);
+		try {
+			BftsmartMessageEnvelope.unpack(truncated);
+			fail("Truncated envelope should be rejected!");
+		} catch (IllegalArgumentException e) {
+			// 预期的异常；
+		}
+	}
+}
@@ -3,9 +3,11 @@ package com.jd.blockchain.consensus.mq;
 import com.jd.blockchain.consensus.mq.consumer.ActiveMQConsumer;
 import com.jd.blockchain.consensus.mq.consumer.MQConsumer;
 import com.jd.blockchain.consensus.mq.consumer.RabbitMQConsumer;
+import com.jd.blockchain.consensus.mq.consumer.ShmConsumer;
 import com.jd.blockchain.consensus.mq.producer.ActiveMQProducer;
 import com.jd.blockchain.consensus.mq.producer.MQProducer;
 import com.jd.blockchain.consensus.mq.producer.RabbitMQProducer;
+import com.jd.blockchain.consensus.mq.producer.ShmProducer;
 import com.jd.blockchain.consensus.mq.server.ActiveMQMessageDispatcher;
 import com.jd.blockchain.consensus.mq.server.MQMessageDispatcher;
 import com.jd.blockchain.consensus.mq.server.RabbitMQMessageDispatcher;
@@ -17,6 +19,8 @@ public class MQFactory {
 
   public static final String RABBITMQ_PREFIX = "rabbitmq://";
   public static final String ACTIVEMQ_PREFIX = "activemq://";
+  // 同一主机上基于共享内存日志的传输，例如：shm:///dev/shm/jdchain
+  public static final String SHM_PREFIX = "shm://";
 
   public static MQMessageDispatcher newQueueDispatcher(
       MQServerSettings settings,
@@ -25,7 +29,8 @@ public class MQFactory {
     String server = settings.getConsensusSettings().getNetworkSettings().getServer();
     if (server.startsWith(RABBITMQ_PREFIX)) {
       return new RabbitMQMessageDispatcher(server, settings, messageHandle, stateMachineReplicator);
-    } else if (server.startsWith(ACTIVEMQ_PREFIX)) {
+    } else if (server.startsWith(ACTIVEMQ_PREFIX) || server.startsWith(SHM_PREFIX)) {
+      // 共享内存日志与 ActiveMQ 一样采用主题模式，提议与交易在同一主题中排序
       return new ActiveMQMessageDispatcher(server, settings, messageHandle, stateMachineReplicator);
     }
 
@@ -39,6 +44,8 @@ public class MQFactory {
     } else if (server.startsWith(ACTIVEMQ_PREFIX)) {
       return ActiveMQProducer.newTopicProducer(
           getMQServerURI(ACTIVEMQ_PREFIX, server), topic, true);
+    } else if (server.startsWith(SHM_PREFIX)) {
+      return ShmProducer.newTopicProducer(getMQServerURI(SHM_PREFIX, server), topic);
     }
 
     return null;
@@ -51,6 +58,9 @@ public class MQFactory {
     } else if (server.startsWith(ACTIVEMQ_PREFIX)) {
       return ActiveMQConsumer.newTopicConsumer(
           clientId, getMQServerURI(ACTIVEMQ_PREFIX, server), topic, true);
+    } else if (server.startsWith(SHM_PREFIX)) {
+      return ShmConsumer.newTopicConsumer(
+          clientId, getMQServerURI(SHM_PREFIX, server), topic, true);
     }
 
     return null;
@@ -63,6 +73,8 @@ public class MQFactory {
     } else if (server.startsWith(ACTIVEMQ_PREFIX)) {
       return ActiveMQProducer.newTopicProducer(
           getMQServerURI(ACTIVEMQ_PREFIX, server), topic, true);
+    } else if (server.startsWith(SHM_PREFIX)) {
+      return ShmProducer.newTopicProducer(getMQServerURI(SHM_PREFIX, server), topic);
     }
 
     return null;
@@ -124,6 +136,8 @@ public class MQFactory {
     } else if (server.startsWith(ACTIVEMQ_PREFIX)) {
       return ActiveMQProducer.newTopicProducer(
           getMQServerURI(ACTIVEMQ_PREFIX, server), topic, durable);
+    } else if (server.startsWith(SHM_PREFIX)) {
+      return ShmProducer.newTopicProducer(getMQServerURI(SHM_PREFIX, server), topic);
     }
 
     return null;
@@ -150,6 +164,9 @@ public class MQFactory {
     } else if (server.startsWith(ACTIVEMQ_PREFIX)) {
       return ActiveMQConsumer.newTopicConsumer(
           clientId, getMQServerURI(ACTIVEMQ_PREFIX, server), topic, durable);
+    } else if (server.startsWith(SHM_PREFIX)) {
+      return ShmConsumer.newTopicConsumer(
+          clientId, getMQServerURI(SHM_PREFIX, server), topic, durable);
     }
 
     return null;
@@ -162,6 +179,8 @@ public class MQFactory {
     } else if (server.startsWith(ACTIVEMQ_PREFIX)) {
       return ActiveMQConsumer.newTopicConsumer(
           getMQServerURI(ACTIVEMQ_PREFIX, server), topic, durable);
+    } else if (server.startsWith(SHM_PREFIX)) {
+      return ShmConsumer.newTopicConsumer(getMQServerURI(SHM_PREFIX, server), topic, durable);
     }
 
     return null;
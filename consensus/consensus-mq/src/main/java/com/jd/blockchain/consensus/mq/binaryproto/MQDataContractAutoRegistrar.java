@@ -25,7 +25,9 @@ public class MQDataContractAutoRegistrar implements DataContractAutoRegistrar {
 
         DataContractRegistry.register(MQEvent.class);
         DataContractRegistry.register(TxEvent.class, TxEvent::newArray);
-        DataContractRegistry.register(TxResult.class);
+        DataContractRegistry.register(TxResult.class, TxResult::newArray);
+        DataContractRegistry.register(TxBatchEvent.class);
+        DataContractRegistry.register(TxResultBatch.class);
         DataContractRegistry.register(ProposeEvent.class);
         DataContractRegistry.register(ExtendEvent.class);
         DataContractRegistry.register(ExtendResult.class);
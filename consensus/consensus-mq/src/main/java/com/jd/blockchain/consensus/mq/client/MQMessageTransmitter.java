@@ -6,19 +6,26 @@ import com.jd.binaryproto.BinaryProtocol;
 import com.jd.blockchain.consensus.MessageService;
 import com.jd.blockchain.consensus.mq.consumer.MQConsumer;
 import com.jd.blockchain.consensus.mq.event.ExtendMessage;
+import com.jd.blockchain.consensus.mq.event.TxBatchMessage;
 import com.jd.blockchain.consensus.mq.event.TxMessage;
 import com.jd.blockchain.consensus.mq.event.binaryproto.ExtendResult;
 import com.jd.blockchain.consensus.mq.event.binaryproto.MQEvent;
+import com.jd.blockchain.consensus.mq.event.binaryproto.TxEvent;
 import com.jd.blockchain.consensus.mq.event.binaryproto.TxResult;
+import com.jd.blockchain.consensus.mq.event.binaryproto.TxResultBatch;
 import com.jd.blockchain.consensus.mq.producer.MQProducer;
 import utils.concurrent.AsyncFuture;
 import utils.concurrent.CompletableAsyncFuture;
+import utils.concurrent.NamedThreadFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
@@ -37,6 +44,25 @@ public class MQMessageTransmitter implements MessageTransmitter, MessageService,
     private final Cache<String, CompletableAsyncFuture> messageFuture =
             CacheBuilder.newBuilder().expireAfterWrite(2, TimeUnit.MINUTES).build();
 
+    /**
+     * 系统属性，交易合并发送的等待时间，单位毫秒；默认为 0 ，即逐笔发送；
+     */
+    public static final String TX_LINGER = "mq.tx.linger";
+
+    /**
+     * 系统属性，一个消息中合并发送的最大交易数，默认 100 ；
+     */
+    public static final String TX_BATCH_SIZE = "mq.tx.batch-size";
+
+    private final long txLingerMillis = Long.getLong(TX_LINGER, 0);
+
+    private final int txBatchSize = Integer.getInteger(TX_BATCH_SIZE, 100);
+
+    private final List<TxEvent> pendingTxs = new ArrayList<>();
+
+    private final ScheduledThreadPoolExecutor lingerExecutor =
+            new ScheduledThreadPoolExecutor(1, new NamedThreadFactory("mq-tx-linger", true));
+
     private MQProducer txProducer;
     private MQProducer msgProducer;
     private MQConsumer txResultConsumer;
@@ -70,7 +96,11 @@ public class MQMessageTransmitter implements MessageTransmitter, MessageService,
             String msgKey = messageKey();
             CompletableAsyncFuture<byte[]> future = new CompletableAsyncFuture<>();
             messageFuture.put(msgKey, future);
-            publishMessage(txProducer, new TxMessage(msgKey, message));
+            if (txLingerMillis > 0) {
+                lingerTx(new TxMessage(msgKey, message));
+            } else {
+                publishMessage(txProducer, new TxMessage(msgKey, message));
+            }
             return future;
         } catch (Exception e) {
             throw new RuntimeException(e);
@@ -100,20 +130,13 @@ public class MQMessageTransmitter implements MessageTransmitter, MessageService,
                 this.txResultConsumer.connect(
                         msg -> {
                             try {
-                                TxResult resultMessage = BinaryProtocol.decode(msg);
-                                if (resultMessage != null) {
-                                    String msgKey = resultMessage.getKey();
-                                    if (LOGGER.isDebugEnabled()) {
-                                        LOGGER.debug("receive tx result message, key: {}", msgKey);
-                                    }
-                                    CompletableAsyncFuture future = messageFuture.getIfPresent(msgKey);
-                                    if (future != null) {
-                                        if (LOGGER.isDebugEnabled()) {
-                                            LOGGER.debug("complete tx result message, key: {}", msgKey);
-                                        }
-                                        future.complete(resultMessage.getResult());
+                                MQEvent resultMessage = BinaryProtocol.decode(msg);
+                                if (resultMessage instanceof TxResultBatch) {
+                                    for (TxResult result : ((TxResultBatch) resultMessage).getResults()) {
+                                        onTxResult(result);
                                     }
-                                    messageFuture.invalidate(msgKey);
+                                } else if (resultMessage instanceof TxResult) {
+                                    onTxResult((TxResult) resultMessage);
                                 }
                             } catch (Exception e) {
                                 LOGGER.error("handle tx result message error", e);
@@ -152,6 +175,82 @@ public class MQMessageTransmitter implements MessageTransmitter, MessageService,
         }
     }
 
+    private void onTxResult(TxResult resultMessage) {
+        String msgKey = resultMessage.getKey();
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("receive tx result message, key: {}", msgKey);
+        }
+        CompletableAsyncFuture future = messageFuture.getIfPresent(msgKey);
+        if (future != null) {
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("complete tx result message, key: {}", msgKey);
+            }
+            future.complete(resultMessage.getResult());
+        }
+        messageFuture.invalidate(msgKey);
+    }
+
+    /**
+     * 在合并窗口内缓存待发送的交易，窗口结束或达到合并上限时一次发送；
+     */
+    private void lingerTx(TxEvent tx) throws Exception {
+        List<TxEvent> batch = null;
+        synchronized (pendingTxs) {
+            pendingTxs.add(tx);
+            if (pendingTxs.size() >= txBatchSize) {
+                batch = drainPendingTxs();
+            } else if (pendingTxs.size() == 1) {
+                lingerExecutor.schedule(this::flushPendingTxs, txLingerMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (null != batch) {
+            publishTxs(batch);
+        }
+    }
+
+    private void flushPendingTxs() {
+        List<TxEvent> batch;
+        synchronized (pendingTxs) {
+            batch = drainPendingTxs();
+        }
+        publishTxs(batch);
+    }
+
+    /**
+     * 发送合并的交易；发送失败时批次内全部交易的请求都以异常结束；
+     */
+    private void publishTxs(List<TxEvent> batch) {
+        try {
+            publishBatch(batch);
+        } catch (Exception e) {
+            LOGGER.error("publish tx batch error", e);
+            for (TxEvent tx : batch) {
+                CompletableAsyncFuture future = messageFuture.getIfPresent(tx.getKey());
+                if (future != null) {
+                    future.error(e);
+                }
+                messageFuture.invalidate(tx.getKey());
+            }
+        }
+    }
+
+    private List<TxEvent> drainPendingTxs() {
+        List<TxEvent> batch = new ArrayList<>(pendingTxs);
+        pendingTxs.clear();
+        return batch;
+    }
+
+    private void publishBatch(List<TxEvent> txs) throws Exception {
+        if (txs.isEmpty()) {
+            return;
+        }
+        if (txs.size() == 1) {
+            publishMessage(txProducer, txs.get(0));
+        } else {
+            publishMessage(txProducer, new TxBatchMessage(txs));
+        }
+    }
+
     @Override
     public void publishMessage(MQProducer producer, MQEvent event) throws Exception {
         producer.publish(BinaryProtocol.encode(event));
@@ -161,6 +260,8 @@ public class MQMessageTransmitter implements MessageTransmitter, MessageService,
     public void close() {
         try {
             messageExecutor.shutdownNow();
+            lingerExecutor.shutdown();
+            flushPendingTxs();
             if (null != txProducer) {
                 txProducer.close();
             }
@@ -0,0 +1,142 @@
+package com.jd.blockchain.consensus.mq.consumer;
+
+import com.jd.blockchain.consensus.mq.shm.ShmJournal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.UUID;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 基于共享内存日志的消费者；由独立的线程轮询日志，空闲时逐步退避；
+ * <p>
+ * 持久订阅的读取位置保存在主题目录下以客户端标识命名的文件中，重启后从上次的位置继续消费；
+ * 非持久订阅以及首次订阅从日志的末尾开始消费；
+ */
+public class ShmConsumer implements MQConsumer {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ShmConsumer.class);
+
+  private static final int SPIN_TRIES = 100;
+  private static final int YIELD_TRIES = 200;
+  private static final long PARK_NANOS = 50_000L;
+
+  private String clientId;
+  private String uri;
+  private String topic;
+  private boolean durable;
+
+  private volatile boolean running;
+  private ShmJournal journal;
+  private MQHandler msgHandler;
+  private RandomAccessFile offsetFile;
+  private MappedByteBuffer offset;
+  private Thread poller;
+
+  private ShmConsumer() {}
+
+  public static ShmConsumer newTopicConsumer(int clientId, String uri, String topic, boolean durable) {
+    ShmConsumer consumer = new ShmConsumer();
+    consumer.uri = uri;
+    consumer.topic = topic;
+    consumer.clientId = clientId + "";
+    consumer.durable = durable;
+    LOGGER.debug("new topic consumer: {}-{}", consumer.topic, consumer.clientId);
+    return consumer;
+  }
+
+  public static ShmConsumer newTopicConsumer(String uri, String topic, boolean durable) {
+    ShmConsumer consumer = new ShmConsumer();
+    consumer.uri = uri;
+    consumer.topic = topic;
+    consumer.clientId = UUID.randomUUID().toString();
+    consumer.durable = durable;
+    LOGGER.debug("new topic consumer: {}-{}", consumer.topic, consumer.clientId);
+    return consumer;
+  }
+
+  @Override
+  public void connect(MQHandler msgHandler) throws Exception {
+    this.journal = ShmJournal.open(uri, topic);
+    this.msgHandler = msgHandler;
+  }
+
+  @Override
+  public void start() throws Exception {
+    long[] position = new long[] {startPosition()};
+    running = true;
+    poller = new Thread(() -> poll(position), "shm-consumer-" + topic + "-" + clientId);
+    poller.setDaemon(true);
+    poller.start();
+  }
+
+  private long startPosition() throws IOException {
+    if (!durable) {
+      return journal.tail();
+    }
+    offsetFile = new RandomAccessFile(journal.offsetFile(clientId), "rw");
+    offset = offsetFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, 8);
+    long position = offset.getLong(0);
+    if (position == 0) {
+      position = journal.tail();
+      offset.putLong(0, position);
+    }
+    return position;
+  }
+
+  private void poll(long[] position) {
+    int idle = 0;
+    while (running) {
+      byte[] msg;
+      try {
+        msg = journal.read(position);
+      } catch (Exception e) {
+        LOGGER.error("read shm journal error", e);
+        return;
+      }
+      if (null == msg) {
+        idle++;
+        if (idle > SPIN_TRIES + YIELD_TRIES) {
+          LockSupport.parkNanos(PARK_NANOS);
+        } else if (idle > SPIN_TRIES) {
+          Thread.yield();
+        }
+        continue;
+      }
+      idle = 0;
+      if (null != msgHandler) {
+        try {
+          msgHandler.handle(msg);
+        } catch (Exception e) {
+          LOGGER.warn("shm message error", e);
+        }
+      }
+      if (null != offset) {
+        offset.putLong(0, position[0]);
+      }
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    running = false;
+    try {
+      if (null != poller) {
+        poller.join(1000);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    if (null != offsetFile) {
+      offsetFile.close();
+    }
+    if (null != journal) {
+      journal.release();
+      journal = null;
+    }
+  }
+}
@@ -0,0 +1,24 @@
+package com.jd.blockchain.consensus.mq.event;
+
+import com.jd.blockchain.consensus.mq.event.binaryproto.TxBatchEvent;
+import com.jd.blockchain.consensus.mq.event.binaryproto.TxEvent;
+
+import java.util.List;
+
+public class TxBatchMessage implements TxBatchEvent {
+
+  private TxEvent[] txs;
+
+  public TxBatchMessage(List<TxEvent> txs) {
+    this.txs = txs.toArray(new TxEvent[txs.size()]);
+  }
+
+  @Override
+  public TxEvent[] getTxs() {
+    return txs;
+  }
+
+  public void setTxs(TxEvent[] txs) {
+    this.txs = txs;
+  }
+}
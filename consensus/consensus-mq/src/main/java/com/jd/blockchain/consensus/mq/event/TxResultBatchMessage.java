@@ -0,0 +1,24 @@
+package com.jd.blockchain.consensus.mq.event;
+
+import com.jd.blockchain.consensus.mq.event.binaryproto.TxResult;
+import com.jd.blockchain.consensus.mq.event.binaryproto.TxResultBatch;
+
+import java.util.List;
+
+public class TxResultBatchMessage implements TxResultBatch {
+
+  private TxResult[] results;
+
+  public TxResultBatchMessage(List<TxResult> results) {
+    this.results = results.toArray(new TxResult[results.size()]);
+  }
+
+  @Override
+  public TxResult[] getResults() {
+    return results;
+  }
+
+  public void setResults(TxResult[] results) {
+    this.results = results;
+  }
+}
@@ -0,0 +1,15 @@
+package com.jd.blockchain.consensus.mq.event.binaryproto;
+
+import com.jd.binaryproto.DataContract;
+import com.jd.binaryproto.DataField;
+import com.jd.blockchain.consts.DataCodes;
+
+/**
+ * 客户端在一个消息中合并提交的多笔交易；节点按顺序拆分为单笔交易处理；
+ */
+@DataContract(code = DataCodes.CONSENSUS_MQ | 0x41)
+public interface TxBatchEvent extends MQEvent {
+
+  @DataField(order = 0, refContract = true, list = true)
+  TxEvent[] getTxs();
+}
@@ -13,4 +13,8 @@ public interface TxResult extends MQEvent {
 
   @DataField(order = 1, primitiveType = PrimitiveType.BYTES)
   byte[] getResult();
+
+  static TxResult[] newArray(int size) {
+    return new TxResult[size];
+  }
 }
@@ -0,0 +1,15 @@
+package com.jd.blockchain.consensus.mq.event.binaryproto;
+
+import com.jd.binaryproto.DataContract;
+import com.jd.binaryproto.DataField;
+import com.jd.blockchain.consts.DataCodes;
+
+/**
+ * 一个区块内全部交易的执行结果；客户端按 {@link TxResult#getKey()} 分发给各自的请求；
+ */
+@DataContract(code = DataCodes.CONSENSUS_MQ | 0x42)
+public interface TxResultBatch extends MQEvent {
+
+  @DataField(order = 0, refContract = true, list = true)
+  TxResult[] getResults();
+}
@@ -0,0 +1,52 @@
+package com.jd.blockchain.consensus.mq.producer;
+
+import com.jd.blockchain.consensus.mq.shm.ShmJournal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+
+/**
+ * 基于共享内存日志的生产者，只用于同一主机上的节点和客户端；
+ */
+public class ShmProducer implements MQProducer {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ShmProducer.class);
+
+  private String uri;
+  private String topic;
+
+  private volatile boolean running;
+  private ShmJournal journal;
+
+  private ShmProducer() {}
+
+  public static ShmProducer newTopicProducer(String uri, String topic) {
+    ShmProducer producer = new ShmProducer();
+    producer.uri = uri;
+    producer.topic = topic;
+    LOGGER.debug("new topic producer: {}-{}", producer.uri, producer.topic);
+    return producer;
+  }
+
+  @Override
+  public void connect() throws Exception {
+    this.journal = ShmJournal.open(uri, topic);
+    this.running = true;
+  }
+
+  @Override
+  public void publish(byte[] message) throws Exception {
+    if (running) {
+      journal.append(message);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (running) {
+      running = false;
+      journal.release();
+    }
+  }
+}
@@ -35,6 +35,10 @@ import java.util.concurrent.locks.ReentrantLock;
 public abstract class AbstractMQMessageDispatcher implements MQMessageDispatcher {
 
     static final Logger LOGGER = LoggerFactory.getLogger(AbstractMQMessageDispatcher.class);
+    /**
+     * 系统属性，为 true 时按区块合并推送交易结果；默认逐笔推送，开启之前所有客户端都必须已经能够解析 {@link TxResultBatch}；
+     */
+    public static final String BATCH_TX_RESULT = "mq.tx-result.batch";
     protected volatile long latestHeight;
     protected volatile byte[] latestHash;
     protected MessageHandle messageHandle;
@@ -85,6 +89,8 @@ public abstract class AbstractMQMessageDispatcher implements MQMessageDispatcher
     protected ScheduledThreadPoolExecutor proposeExecutor;
     protected ScheduledThreadPoolExecutor pingExecutor;
     protected ExecutorService resultExecutor;
+    // 是否按区块合并推送交易结果
+    protected final boolean batchTxResult = Boolean.getBoolean(BATCH_TX_RESULT);
 
     public AbstractMQMessageDispatcher(
             String server,
@@ -145,7 +151,15 @@ public abstract class AbstractMQMessageDispatcher implements MQMessageDispatcher
             txConsumer.connect(
                     msg -> {
                         try {
-                            onTx(BinaryProtocol.decode(msg));
+                            MQEvent event = BinaryProtocol.decode(msg);
+                            if (event instanceof TxBatchEvent) {
+                                // 客户端合并提交的交易，按顺序拆分处理
+                                for (TxEvent tx : ((TxBatchEvent) event).getTxs()) {
+                                    onTx(tx);
+                                }
+                            } else {
+                                onTx(event);
+                            }
                         } catch (Exception e) {
                             LOGGER.warn("parse tx message error", e);
                         }
@@ -268,25 +282,42 @@ public abstract class AbstractMQMessageDispatcher implements MQMessageDispatcher
         return txResponseMap;
     }
 
+    /**
+     * 编码交易结果消息；合并时整个区块的结果编码为一条 {@link TxResultBatch} 消息，否则每个结果编码为一条 {@link TxResult} 消息；
+     */
+    static List<byte[]> encodeTxResults(List<TxResult> results, boolean batch) {
+        List<byte[]> messages = new ArrayList<>();
+        if (batch && results.size() > 1) {
+            messages.add(BinaryProtocol.encode(new TxResultBatchMessage(results)));
+        } else {
+            for (TxResult result : results) {
+                messages.add(BinaryProtocol.encode(result));
+            }
+        }
+        return messages;
+    }
+
     private void publishTxResult(boolean isProposer, Map<String, AsyncFuture<byte[]>> txResponseMap) {
         // 仅区块提议者推送交易结果
         if (isProposer && txResponseMap != null && !txResponseMap.isEmpty()) {
+            List<TxResult> results = new ArrayList<>(txResponseMap.size());
             for (Map.Entry<String, AsyncFuture<byte[]>> entry : txResponseMap.entrySet()) {
-                final String txKey = entry.getKey();
-                final byte[] result = entry.getValue().get();
-                resultExecutor.execute(
-                        () -> {
-                            try {
-                                // 通过消息队列发送交易执行结果
-                                txResultProducer.publish(BinaryProtocol.encode(new TxResultMessage(txKey, result)));
-                                if (LOGGER.isDebugEnabled()) {
-                                    LOGGER.debug("publish tx result message, key: {}", txKey);
-                                }
-                            } catch (Exception e) {
-                                LOGGER.error("publish tx result message exception", e);
-                            }
-                        });
+                results.add(new TxResultMessage(entry.getKey(), entry.getValue().get()));
             }
+            resultExecutor.execute(
+                    () -> {
+                        try {
+                            // 通过消息队列发送交易执行结果，整个区块的结果合并为一条消息
+                            for (byte[] message : encodeTxResults(results, batchTxResult)) {
+                                txResultProducer.publish(message);
+                            }
+                            if (LOGGER.isDebugEnabled()) {
+                                LOGGER.debug("publish tx result message, size: {}", results.size());
+                            }
+                        } catch (Exception e) {
+                            LOGGER.error("publish tx result message exception", e);
+                        }
+                    });
         }
     }
 
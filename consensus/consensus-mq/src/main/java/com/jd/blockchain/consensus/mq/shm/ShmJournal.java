@@ -0,0 +1,437 @@
+package com.jd.blockchain.consensus.mq.shm;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sun.misc.Unsafe;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 基于内存映射文件的追加式消息日志，同一主机上的多个进程可以共享同一个主题；
+ * <p>
+ * 每个主题对应一个目录，由固定大小的分段文件组成，文件名为分段序号；分段的结构：<br>
+ * 头部（64 字节）：写入位置（8 字节）+ 封闭标记（4 字节）；<br>
+ * 记录：记录头（4 字节，消息长度 + 1 ；0 表示尚未写入，-1 表示分段结束）+ 消息，按 4 字节对齐；
+ * <p>
+ * 写入时先写消息再写记录头，读取方轮询记录头，因此读取不需要加锁；
+ * 映射内存的读写没有 volatile 语义，写入方在消息和记录头之间插入 store fence ，读取方在记录头和消息之间插入 load fence ，
+ * 保证读取到记录头时消息已经完整可见；屏障是处理器级别的，同样适用于映射同一文件的多个进程；
+ * 多个进程之间的写入通过主题目录下的文件锁互斥；
+ * <p>
+ * 持久订阅者的读取位置保存在主题目录下的 {@link #offsetFile(String)} 中；每次封闭分段时删除低于全部持久订阅者读取位置的分段，
+ * 并至少保留当前写入分段的前一个分段，供落后的非持久订阅者读取；订阅者落后超过保留范围时跳到最早的分段继续读取；
+ * 为持久订阅者保留的已封闭分段最多为 {@link #RETAIN_SEGMENTS_PARAM} 个，停止消费的持久订阅不会无限占用共享内存，
+ * 超出时记录落后的订阅者并清理其未读取的分段；
+ * <p>
+ * 写入方以主题目录下的最新分段为准，空闲的写入方不会重建已被其它进程清理的分段；
+ */
+public class ShmJournal {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ShmJournal.class);
+
+	public static final String SEGMENT_SIZE_PARAM = "segment-size";
+
+	public static final String RETAIN_SEGMENTS_PARAM = "retain-segments";
+
+	private static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+	private static final int DEFAULT_RETAIN_SEGMENTS = 16;
+
+	static final int HEADER_SIZE = 64;
+
+	private static final int WRITE_POSITION = 0;
+
+	private static final int SEALED = 8;
+
+	private static final int RECORD_HEADER = 4;
+
+	static final int END_OF_SEGMENT = -1;
+
+	private static final String SEGMENT_SUFFIX = ".seg";
+
+	private static final String LOCK_FILE = "append.lock";
+
+	private static final String OFFSET_SUFFIX = ".offset";
+
+	private static final Unsafe UNSAFE = loadUnsafe();
+
+	private static final Map<String, ShmJournal> JOURNALS = new HashMap<>();
+
+	private final File dir;
+
+	private final int segmentSize;
+
+	private final int retainSegments;
+
+	private final ReentrantLock appendLock = new ReentrantLock();
+
+	private final Map<Integer, MappedByteBuffer> segments = new HashMap<>();
+
+	private RandomAccessFile lockFile;
+
+	private int appendSegment;
+
+	private int references;
+
+	ShmJournal(File dir, int segmentSize, int retainSegments) throws IOException {
+		if (segmentSize <= HEADER_SIZE + RECORD_HEADER * 2) {
+			throw new IllegalArgumentException("Segment size is too small! --" + segmentSize);
+		}
+		if (retainSegments < 1) {
+			throw new IllegalArgumentException("Retained segments must be positive! --" + retainSegments);
+		}
+		this.dir = dir;
+		this.segmentSize = segmentSize;
+		this.retainSegments = retainSegments;
+		if (!dir.isDirectory() && !dir.mkdirs()) {
+			throw new IOException("Cannot create journal directory! --" + dir);
+		}
+		this.lockFile = new RandomAccessFile(new File(dir, LOCK_FILE), "rw");
+		this.appendSegment = Math.max(0, latestSegment());
+	}
+
+	/**
+	 * 按服务地址打开主题的日志；
+	 *
+	 * @param uri   日志根目录，可以带参数：segment-size 指定分段文件的大小，单位 MB ，默认 64 ；
+	 *              retain-segments 指定为持久订阅者最多保留的已封闭分段数，默认 16 ；
+	 *              例如：/dev/shm/jdchain?segment-size=128&retain-segments=8
+	 * @param topic 主题；
+	 * @return
+	 */
+	public static ShmJournal open(String uri, String topic) throws IOException {
+		String baseDir = uri;
+		int segmentSize = DEFAULT_SEGMENT_SIZE;
+		int retainSegments = DEFAULT_RETAIN_SEGMENTS;
+		int queryIndex = uri.indexOf('?');
+		if (queryIndex >= 0) {
+			baseDir = uri.substring(0, queryIndex);
+			for (String param : uri.substring(queryIndex + 1).split("&")) {
+				String[] kv = param.split("=", 2);
+				if (kv.length == 2 && SEGMENT_SIZE_PARAM.equals(kv[0])) {
+					segmentSize = Integer.parseInt(kv[1]) * 1024 * 1024;
+				} else if (kv.length == 2 && RETAIN_SEGMENTS_PARAM.equals(kv[0])) {
+					retainSegments = Integer.parseInt(kv[1]);
+				} else {
+					throw new IllegalArgumentException("Unsupported shm journal parameter! --" + param);
+				}
+			}
+		}
+		return open(baseDir, topic, segmentSize, retainSegments);
+	}
+
+	/**
+	 * 打开主题的日志；同一个进程内共享同一个实例，通过 {@link #release()} 释放；
+	 *
+	 * @param baseDir     日志根目录；
+	 * @param topic       主题；
+	 * @param segmentSize 分段文件的字节数；只在创建分段时生效；
+	 * @return
+	 */
+	public static ShmJournal open(String baseDir, String topic, int segmentSize) throws IOException {
+		return open(baseDir, topic, segmentSize, DEFAULT_RETAIN_SEGMENTS);
+	}
+
+	/**
+	 * 打开主题的日志；同一个进程内共享同一个实例，通过 {@link #release()} 释放；
+	 *
+	 * @param baseDir        日志根目录；
+	 * @param topic          主题；
+	 * @param segmentSize    分段文件的字节数；只在创建分段时生效；
+	 * @param retainSegments 为持久订阅者最多保留的已封闭分段数；
+	 * @return
+	 */
+	public static ShmJournal open(String baseDir, String topic, int segmentSize, int retainSegments)
+			throws IOException {
+		File dir = new File(baseDir, topic).getCanonicalFile();
+		synchronized (JOURNALS) {
+			ShmJournal journal = JOURNALS.get(dir.getPath());
+			if (journal == null) {
+				journal = new ShmJournal(dir, segmentSize, retainSegments);
+				JOURNALS.put(dir.getPath(), journal);
+			}
+			journal.references++;
+			return journal;
+		}
+	}
+
+	public void release() throws IOException {
+		synchronized (JOURNALS) {
+			if (--references > 0) {
+				return;
+			}
+			JOURNALS.remove(dir.getPath(), this);
+		}
+		appendLock.lock();
+		try {
+			lockFile.close();
+			synchronized (segments) {
+				segments.clear();
+			}
+		} finally {
+			appendLock.unlock();
+		}
+	}
+
+	/**
+	 * 追加一条消息；
+	 *
+	 * @param message
+	 */
+	public void append(byte[] message) throws IOException {
+		int recordSize = align(RECORD_HEADER + message.length);
+		if (HEADER_SIZE + recordSize + RECORD_HEADER > segmentSize) {
+			throw new IllegalArgumentException("Message is too large for journal segment! --" + message.length);
+		}
+		appendLock.lock();
+		try (FileLock lock = lockFile.getChannel().lock()) {
+			// 其它进程可能已经写入了更新的分段并清理了缓存的写入分段，不能重建已清理的分段；
+			appendSegment = Math.max(appendSegment, latestSegment());
+			MappedByteBuffer segment = segment(appendSegment, true);
+			// 其它进程可能已经封闭了当前分段；
+			while (segment.getInt(SEALED) != 0) {
+				segment = segment(++appendSegment, true);
+			}
+			int position = (int) segment.getLong(WRITE_POSITION);
+			if (position + recordSize + RECORD_HEADER > segmentSize) {
+				segment.putInt(position, END_OF_SEGMENT);
+				segment.putInt(SEALED, 1);
+				segment = segment(++appendSegment, true);
+				position = HEADER_SIZE;
+				retain();
+			}
+			ByteBuffer record = segment.duplicate();
+			record.position(position + RECORD_HEADER);
+			record.put(message);
+			// 消息写入完成之后再写记录头；
+			UNSAFE.storeFence();
+			segment.putInt(position, message.length + 1);
+			segment.putLong(WRITE_POSITION, position + recordSize);
+		} finally {
+			appendLock.unlock();
+		}
+	}
+
+	/**
+	 * 当前的末尾位置，由分段序号和分段内的偏移组成；
+	 */
+	public long tail() throws IOException {
+		appendLock.lock();
+		try (FileLock lock = lockFile.getChannel().lock()) {
+			int index = Math.max(0, latestSegment());
+			MappedByteBuffer segment = segment(index, true);
+			return position(index, (int) segment.getLong(WRITE_POSITION));
+		} finally {
+			appendLock.unlock();
+		}
+	}
+
+	/**
+	 * 从指定位置读取一条消息；
+	 *
+	 * @param position 读取位置，由 {@link #position(int, int)} 编码；读取成功后更新为下一条消息的位置；
+	 * @return 消息内容；如果尚无新消息，返回 null ；
+	 */
+	public byte[] read(long[] position) throws IOException {
+		int index = segmentIndex(position[0]);
+		int offset = segmentOffset(position[0]);
+		MappedByteBuffer segment = segment(index, false);
+		if (segment == null) {
+			// 落后的分段已被清理，跳到最早的分段；
+			int earliest = earliestSegment();
+			if (earliest > index) {
+				position[0] = position(earliest, HEADER_SIZE);
+				return read(position);
+			}
+			return null;
+		}
+		int header = segment.getInt(offset);
+		if (header == 0) {
+			return null;
+		}
+		if (header == END_OF_SEGMENT) {
+			if (segment(index + 1, false) == null) {
+				return null;
+			}
+			if (!segmentFile(index).exists()) {
+				// 分段已被其它进程清理，释放映射；
+				synchronized (segments) {
+					segments.remove(index);
+				}
+			}
+			position[0] = position(index + 1, HEADER_SIZE);
+			return read(position);
+		}
+		// 读取记录头之后再读取消息；
+		UNSAFE.loadFence();
+		byte[] message = new byte[header - 1];
+		ByteBuffer record = segment.duplicate();
+		record.position(offset + RECORD_HEADER);
+		record.get(message);
+		position[0] = position(index, offset + align(RECORD_HEADER + message.length));
+		return message;
+	}
+
+	public File getDirectory() {
+		return dir;
+	}
+
+	/**
+	 * 持久订阅者保存读取位置的文件，内容为 8 字节的读取位置；
+	 *
+	 * @param clientId 订阅者标识；
+	 * @return
+	 */
+	public File offsetFile(String clientId) {
+		return new File(dir, clientId + OFFSET_SUFFIX);
+	}
+
+	public static long position(int segment, int offset) {
+		return ((long) segment << 32) | (offset & 0xFFFFFFFFL);
+	}
+
+	static int segmentIndex(long position) {
+		return (int) (position >>> 32);
+	}
+
+	static int segmentOffset(long position) {
+		return (int) position;
+	}
+
+	private static int align(int size) {
+		return (size + 3) & ~3;
+	}
+
+	private int latestSegment() {
+		int latest = -1;
+		String[] names = dir.list();
+		if (names != null) {
+			for (String name : names) {
+				latest = Math.max(latest, segmentIndex(name));
+			}
+		}
+		return latest;
+	}
+
+	private int earliestSegment() {
+		int earliest = -1;
+		String[] names = dir.list();
+		if (names != null) {
+			for (String name : names) {
+				int index = segmentIndex(name);
+				if (index >= 0 && (earliest < 0 || index < earliest)) {
+					earliest = index;
+				}
+			}
+		}
+		return earliest;
+	}
+
+	/**
+	 * 删除低于全部持久订阅者读取位置的分段，至少保留当前写入分段的前一个分段，最多保留 {@link #retainSegments} 个已封闭分段；
+	 * 调用时须持有写入锁；
+	 */
+	private void retain() throws IOException {
+		String[] names = dir.list();
+		if (names == null) {
+			return;
+		}
+		int limit = appendSegment - retainSegments;
+		int boundary = appendSegment - 1;
+		for (String name : names) {
+			if (name.endsWith(OFFSET_SUFFIX)) {
+				int index = segmentIndex(readOffset(new File(dir, name)));
+				if (index < limit) {
+					LOGGER.warn("Durable subscriber [{}] of shm journal [{}] is {} segments behind, unread segments before {} are deleted!",
+							name.substring(0, name.length() - OFFSET_SUFFIX.length()), dir, appendSegment - index, limit);
+				}
+				boundary = Math.min(boundary, Math.max(limit, index));
+			}
+		}
+		for (String name : names) {
+			int index = segmentIndex(name);
+			if (index >= 0 && index < boundary) {
+				synchronized (segments) {
+					segments.remove(index);
+				}
+				Files.deleteIfExists(segmentFile(index).toPath());
+			}
+		}
+	}
+
+	private static long readOffset(File file) throws IOException {
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+			return raf.length() < 8 ? 0 : raf.readLong();
+		}
+	}
+
+	/**
+	 * 分段文件的序号；不是分段文件时返回 -1 ；
+	 */
+	private static int segmentIndex(String fileName) {
+		if (fileName.endsWith(SEGMENT_SUFFIX)) {
+			try {
+				return Integer.parseInt(fileName.substring(0, fileName.length() - SEGMENT_SUFFIX.length()));
+			} catch (NumberFormatException e) {
+				// 忽略其它文件；
+			}
+		}
+		return -1;
+	}
+
+	private File segmentFile(int index) {
+		return new File(dir, String.format("%010d%s", index, SEGMENT_SUFFIX));
+	}
+
+	private MappedByteBuffer segment(int index, boolean create) throws IOException {
+		synchronized (segments) {
+			MappedByteBuffer segment = segments.get(index);
+			if (segment != null) {
+				return segment;
+			}
+			File file = segmentFile(index);
+			if (!create && !file.exists()) {
+				return null;
+			}
+			try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+				boolean created = raf.length() == 0;
+				if (created) {
+					if (!create) {
+						// 写入方刚刚创建文件，尚未初始化；
+						return null;
+					}
+					raf.setLength(segmentSize);
+				}
+				segment = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, raf.length());
+				if (created) {
+					segment.putLong(WRITE_POSITION, HEADER_SIZE);
+				} else if (segment.getLong(WRITE_POSITION) == 0) {
+					return null;
+				}
+			}
+			segments.put(index, segment);
+			return segment;
+		}
+	}
+
+	private static Unsafe loadUnsafe() {
+		try {
+			Field field = Unsafe.class.getDeclaredField("theUnsafe");
+			field.setAccessible(true);
+			return (Unsafe) field.get(null);
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Cannot access memory fences for shm journal! --" + e.getMessage(), e);
+		}
+	}
+}
@@ -0,0 +1,175 @@
+package com.jd.blockchain.consensus.mq.client;
+
+import com.jd.binaryproto.BinaryProtocol;
+import com.jd.blockchain.consensus.mq.consumer.MQConsumer;
+import com.jd.blockchain.consensus.mq.consumer.MQHandler;
+import com.jd.blockchain.consensus.mq.event.TxResultBatchMessage;
+import com.jd.blockchain.consensus.mq.event.TxResultMessage;
+import com.jd.blockchain.consensus.mq.event.binaryproto.MQEvent;
+import com.jd.blockchain.consensus.mq.event.binaryproto.TxBatchEvent;
+import com.jd.blockchain.consensus.mq.event.binaryproto.TxEvent;
+import com.jd.blockchain.consensus.mq.event.binaryproto.TxResult;
+import com.jd.blockchain.consensus.mq.producer.MQProducer;
+import org.junit.After;
+import org.junit.Test;
+import utils.concurrent.AsyncFuture;
+import utils.io.BytesUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * 客户端合并发送交易，以及合并和逐笔两种交易结果消息的处理；
+ */
+public class MQMessageTransmitterTest {
+
+    private MQMessageTransmitter transmitter;
+
+    @After
+    public void tearDown() {
+        System.clearProperty(MQMessageTransmitter.TX_LINGER);
+        System.clearProperty(MQMessageTransmitter.TX_BATCH_SIZE);
+        if (null != transmitter) {
+            transmitter.close();
+        }
+    }
+
+    /**
+     * 合并窗口内的交易作为一条消息发送，以合并的结果消息返回；
+     */
+    @Test
+    public void testBatchTxResult() throws Exception {
+        FakeProducer producer = new FakeProducer(false);
+        FakeConsumer consumer = new FakeConsumer();
+        transmitter = newTransmitter(producer, consumer, 2);
+
+        AsyncFuture<byte[]> f1 = transmitter.sendOrdered(BytesUtils.toBytes("tx1"));
+        AsyncFuture<byte[]> f2 = transmitter.sendOrdered(BytesUtils.toBytes("tx2"));
+
+        assertEquals(1, producer.messages.size());
+        MQEvent event = BinaryProtocol.decode(producer.messages.get(0));
+        assertTrue(event instanceof TxBatchEvent);
+        TxEvent[] txs = ((TxBatchEvent) event).getTxs();
+        assertEquals(2, txs.length);
+
+        List<TxResult> results = new ArrayList<>();
+        for (TxEvent tx : txs) {
+            results.add(new TxResultMessage(tx.getKey(), tx.getMessage()));
+        }
+        consumer.handler.handle(BinaryProtocol.encode(new TxResultBatchMessage(results)));
+
+        assertEquals("tx1", BytesUtils.toString(get(f1)));
+        assertEquals("tx2", BytesUtils.toString(get(f2)));
+    }
+
+    /**
+     * 服务端未设置 mq.tx-result.batch 时逐笔返回结果，合并发送的交易同样可以完成；
+     */
+    @Test
+    public void testSingleTxResult() throws Exception {
+        FakeProducer producer = new FakeProducer(false);
+        FakeConsumer consumer = new FakeConsumer();
+        transmitter = newTransmitter(producer, consumer, 2);
+
+        AsyncFuture<byte[]> f1 = transmitter.sendOrdered(BytesUtils.toBytes("tx1"));
+        AsyncFuture<byte[]> f2 = transmitter.sendOrdered(BytesUtils.toBytes("tx2"));
+
+        TxBatchEvent event = BinaryProtocol.decode(producer.messages.get(0));
+        for (TxEvent tx : event.getTxs()) {
+            consumer.handler.handle(BinaryProtocol.encode(new TxResultMessage(tx.getKey(), tx.getMessage())));
+        }
+
+        assertEquals("tx1", BytesUtils.toString(get(f1)));
+        assertEquals("tx2", BytesUtils.toString(get(f2)));
+    }
+
+    /**
+     * 达到合并上限时同步发送的批次失败，批次内全部交易的请求都以异常结束；
+     */
+    @Test
+    public void testBatchPublishError() throws Exception {
+        FakeProducer producer = new FakeProducer(true);
+        transmitter = newTransmitter(producer, new FakeConsumer(), 2);
+
+        AsyncFuture<byte[]> f1 = transmitter.sendOrdered(BytesUtils.toBytes("tx1"));
+        AsyncFuture<byte[]> f2 = transmitter.sendOrdered(BytesUtils.toBytes("tx2"));
+
+        assertError(f1);
+        assertError(f2);
+    }
+
+    private MQMessageTransmitter newTransmitter(MQProducer producer, MQConsumer consumer, int batchSize)
+            throws Exception {
+        // 合并窗口足够长，只由合并上限触发发送；
+        System.setProperty(MQMessageTransmitter.TX_LINGER, "60000");
+        System.setProperty(MQMessageTransmitter.TX_BATCH_SIZE, String.valueOf(batchSize));
+        MQMessageTransmitter transmitter = new MQMessageTransmitter()
+                .setTxProducer(producer)
+                .setTxResultConsumer(consumer);
+        transmitter.connect();
+        return transmitter;
+    }
+
+    private static byte[] get(AsyncFuture<byte[]> future) throws Exception {
+        return CompletableFuture.supplyAsync(future::get).get(10, TimeUnit.SECONDS);
+    }
+
+    private static void assertError(AsyncFuture<byte[]> future) throws Exception {
+        try {
+            get(future);
+            fail("The future should be completed exceptionally!");
+        } catch (ExecutionException e) {
+            // 预期的异常；
+        }
+    }
+
+    private static class FakeProducer implements MQProducer {
+
+        private final List<byte[]> messages = new ArrayList<>();
+
+        private final boolean failing;
+
+        FakeProducer(boolean failing) {
+            this.failing = failing;
+        }
+
+        @Override
+        public void connect() {
+        }
+
+        @Override
+        public void publish(byte[] message) throws Exception {
+            if (failing) {
+                throw new IllegalStateException("Publish error!");
+            }
+            messages.add(message);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static class FakeConsumer implements MQConsumer {
+
+        private MQHandler handler;
+
+        @Override
+        public void connect(MQHandler msgQueueHandler) {
+            this.handler = msgQueueHandler;
+        }
+
+        @Override
+        public void start() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
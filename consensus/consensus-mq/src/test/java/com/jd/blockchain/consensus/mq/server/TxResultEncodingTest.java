@@ -0,0 +1,93 @@
+package com.jd.blockchain.consensus.mq.server;
+
+import com.jd.binaryproto.BinaryProtocol;
+import com.jd.blockchain.consensus.mq.event.TxBatchMessage;
+import com.jd.blockchain.consensus.mq.event.TxMessage;
+import com.jd.blockchain.consensus.mq.event.TxResultMessage;
+import com.jd.blockchain.consensus.mq.event.binaryproto.MQEvent;
+import com.jd.blockchain.consensus.mq.event.binaryproto.TxBatchEvent;
+import com.jd.blockchain.consensus.mq.event.binaryproto.TxEvent;
+import com.jd.blockchain.consensus.mq.event.binaryproto.TxResult;
+import com.jd.blockchain.consensus.mq.event.binaryproto.TxResultBatch;
+import org.junit.Test;
+import utils.io.BytesUtils;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 合并的交易消息和交易结果消息的编解码；
+ */
+public class TxResultEncodingTest {
+
+    @Test
+    public void testTxBatchEvent() {
+        List<TxEvent> txs = Arrays.asList(
+                new TxMessage("k1", BytesUtils.toBytes("tx1")),
+                new TxMessage("k2", BytesUtils.toBytes("tx2")));
+        MQEvent event = BinaryProtocol.decode(BinaryProtocol.encode(new TxBatchMessage(txs)));
+
+        assertTrue(event instanceof TxBatchEvent);
+        TxEvent[] decoded = ((TxBatchEvent) event).getTxs();
+        assertEquals(2, decoded.length);
+        assertEquals("k1", decoded[0].getKey());
+        assertArrayEquals(BytesUtils.toBytes("tx1"), decoded[0].getMessage());
+        assertEquals("k2", decoded[1].getKey());
+        assertArrayEquals(BytesUtils.toBytes("tx2"), decoded[1].getMessage());
+    }
+
+    /**
+     * 设置 mq.tx-result.batch 时整个区块的结果合并为一条消息；
+     */
+    @Test
+    public void testBatchTxResult() {
+        List<byte[]> messages = AbstractMQMessageDispatcher.encodeTxResults(results(), true);
+
+        assertEquals(1, messages.size());
+        MQEvent event = BinaryProtocol.decode(messages.get(0));
+        assertTrue(event instanceof TxResultBatch);
+        TxResult[] decoded = ((TxResultBatch) event).getResults();
+        assertEquals(2, decoded.length);
+        assertEquals("k1", decoded[0].getKey());
+        assertArrayEquals(BytesUtils.toBytes("r1"), decoded[0].getResult());
+        assertEquals("k2", decoded[1].getKey());
+        assertArrayEquals(BytesUtils.toBytes("r2"), decoded[1].getResult());
+    }
+
+    /**
+     * 未设置 mq.tx-result.batch 时每个结果单独发送，兼容未升级的客户端；
+     */
+    @Test
+    public void testSingleTxResult() {
+        List<byte[]> messages = AbstractMQMessageDispatcher.encodeTxResults(results(), false);
+
+        assertEquals(2, messages.size());
+        for (int i = 0; i < messages.size(); i++) {
+            MQEvent event = BinaryProtocol.decode(messages.get(i));
+            assertTrue(event instanceof TxResult);
+            assertFalse(event instanceof TxResultBatch);
+            assertEquals("k" + (i + 1), ((TxResult) event).getKey());
+            assertArrayEquals(BytesUtils.toBytes("r" + (i + 1)), ((TxResult) event).getResult());
+        }
+    }
+
+    /**
+     * 只有一个结果时不合并；
+     */
+    @Test
+    public void testSingleResultNotBatched() {
+        List<byte[]> messages = AbstractMQMessageDispatcher.encodeTxResults(
+                Arrays.asList(new TxResultMessage("k1", BytesUtils.toBytes("r1"))), true);
+
+        assertEquals(1, messages.size());
+        assertFalse(BinaryProtocol.decode(messages.get(0)) instanceof TxResultBatch);
+    }
+
+    private List<TxResult> results() {
+        return Arrays.asList(
+                new TxResultMessage("k1", BytesUtils.toBytes("r1")),
+                new TxResultMessage("k2", BytesUtils.toBytes("r2")));
+    }
+}
@@ -0,0 +1,223 @@
+package com.jd.blockchain.consensus.mq.shm;
+
+import com.jd.blockchain.consensus.mq.consumer.ShmConsumer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import utils.io.BytesUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class ShmJournalTest {
+
+	private static final String TOPIC = "test-topic";
+
+	private static final int SEGMENT_SIZE = 256;
+
+	private File baseDir;
+
+	@Before
+	public void setUp() throws IOException {
+		baseDir = Files.createTempDirectory("shm-journal").toFile();
+	}
+
+	@After
+	public void tearDown() {
+		deleteDir(baseDir);
+	}
+
+	@Test
+	public void testAppendAndRead() throws IOException {
+		ShmJournal journal = ShmJournal.open(baseDir.getPath(), TOPIC, SEGMENT_SIZE);
+		try {
+			long[] position = new long[] { journal.tail() };
+			assertNull(journal.read(position));
+
+			journal.append(BytesUtils.toBytes("m1"));
+			journal.append(new byte[0]);
+			journal.append(BytesUtils.toBytes("message-3"));
+
+			assertEquals("m1", BytesUtils.toString(journal.read(position)));
+			assertEquals(0, journal.read(position).length);
+			assertEquals("message-3", BytesUtils.toString(journal.read(position)));
+			assertNull(journal.read(position));
+			assertEquals(journal.tail(), position[0]);
+		} finally {
+			journal.release();
+		}
+	}
+
+	@Test
+	public void testSegmentRollOver() throws IOException {
+		ShmJournal journal = ShmJournal.open(baseDir.getPath(), TOPIC, SEGMENT_SIZE);
+		try {
+			long start = journal.tail();
+			// 持久订阅者停留在第一个分段，分段不会被清理；
+			writeOffset(journal.offsetFile("reader"), start);
+			for (int i = 0; i < 20; i++) {
+				journal.append(BytesUtils.toBytes(String.format("message-%02d-0123456789", i)));
+			}
+			int tailSegment = ShmJournal.segmentIndex(journal.tail());
+			assertTrue(tailSegment > 1);
+
+			long[] position = new long[] { start };
+			for (int i = 0; i < 20; i++) {
+				assertEquals(String.format("message-%02d-0123456789", i), BytesUtils.toString(journal.read(position)));
+			}
+			assertNull(journal.read(position));
+			assertEquals(tailSegment + 1, segmentCount());
+		} finally {
+			journal.release();
+		}
+	}
+
+	@Test
+	public void testRetention() throws IOException {
+		ShmJournal journal = ShmJournal.open(baseDir.getPath(), TOPIC, SEGMENT_SIZE);
+		try {
+			File offsetFile = journal.offsetFile("reader");
+			writeOffset(offsetFile, ShmJournal.position(2, ShmJournal.HEADER_SIZE));
+			for (int i = 0; i < 40; i++) {
+				journal.append(BytesUtils.toBytes(String.format("message-%02d-0123456789", i)));
+			}
+			int tailSegment = ShmJournal.segmentIndex(journal.tail());
+			assertTrue(tailSegment > 4);
+			// 低于持久订阅者读取位置的分段被清理；
+			assertFalse(segmentFile(1).exists());
+			assertTrue(segmentFile(2).exists());
+
+			// 没有持久订阅者时保留当前写入分段的前一个分段；
+			assertTrue(offsetFile.delete());
+			for (int i = 0; i < 10; i++) {
+				journal.append(BytesUtils.toBytes(String.format("message-%02d-0123456789", i)));
+			}
+			tailSegment = ShmJournal.segmentIndex(journal.tail());
+			assertEquals(2, segmentCount());
+			assertTrue(segmentFile(tailSegment - 1).exists());
+
+			// 落后的读取方跳到最早的分段；
+			long[] position = new long[] { ShmJournal.position(0, ShmJournal.HEADER_SIZE) };
+			assertNotNull(journal.read(position));
+			assertEquals(tailSegment - 1, ShmJournal.segmentIndex(position[0]));
+		} finally {
+			journal.release();
+		}
+	}
+
+	@Test
+	public void testRetentionLimit() throws IOException {
+		ShmJournal journal = ShmJournal.open(baseDir.getPath(), TOPIC, SEGMENT_SIZE, 2);
+		try {
+			// 停止消费的持久订阅者最多占用 2 个已封闭分段；
+			writeOffset(journal.offsetFile("stale-reader"), ShmJournal.position(0, ShmJournal.HEADER_SIZE));
+			for (int i = 0; i < 40; i++) {
+				journal.append(BytesUtils.toBytes(String.format("message-%02d-0123456789", i)));
+			}
+			int tailSegment = ShmJournal.segmentIndex(journal.tail());
+			assertTrue(tailSegment > 4);
+			assertFalse(segmentFile(0).exists());
+			assertEquals(3, segmentCount());
+			assertTrue(segmentFile(tailSegment - 2).exists());
+
+			// 落后的持久订阅者跳到最早的分段；
+			long[] position = new long[] { ShmJournal.position(0, ShmJournal.HEADER_SIZE) };
+			assertNotNull(journal.read(position));
+			assertEquals(tailSegment - 2, ShmJournal.segmentIndex(position[0]));
+		} finally {
+			journal.release();
+		}
+	}
+
+	@Test
+	public void testIdleProducer() throws IOException {
+		// 两个实例模拟共享同一主题的两个进程；
+		File dir = new File(baseDir, TOPIC).getCanonicalFile();
+		ShmJournal idle = new ShmJournal(dir, SEGMENT_SIZE, 1);
+		ShmJournal active = new ShmJournal(dir, SEGMENT_SIZE, 1);
+		try {
+			idle.append(BytesUtils.toBytes("idle-0"));
+			for (int i = 0; i < 40; i++) {
+				active.append(BytesUtils.toBytes(String.format("message-%02d-0123456789", i)));
+			}
+			int tailSegment = ShmJournal.segmentIndex(active.tail());
+			assertTrue(tailSegment > 4);
+			assertFalse(segmentFile(1).exists());
+
+			// 空闲的写入方追加到最新的分段，不会重建已被清理的分段；
+			idle.append(BytesUtils.toBytes("idle-1"));
+			assertFalse(segmentFile(1).exists());
+			assertEquals(2, segmentCount());
+			assertEquals(tailSegment, ShmJournal.segmentIndex(idle.tail()));
+
+			long[] position = new long[] { ShmJournal.position(tailSegment, ShmJournal.HEADER_SIZE) };
+			String last = null;
+			for (byte[] msg = active.read(position); msg != null; msg = active.read(position)) {
+				last = BytesUtils.toString(msg);
+			}
+			assertEquals("idle-1", last);
+		} finally {
+			idle.release();
+			active.release();
+		}
+	}
+
+	@Test
+	public void testOffsetResume() throws Exception {
+		String uri = baseDir.getPath() + "?segment-size=1";
+		ShmJournal journal = ShmJournal.open(uri, TOPIC);
+		try {
+			BlockingQueue<String> received = new LinkedBlockingQueue<>();
+			ShmConsumer consumer = ShmConsumer.newTopicConsumer(1, uri, TOPIC, true);
+			consumer.connect(msg -> received.add(BytesUtils.toString(msg)));
+			consumer.start();
+			journal.append(BytesUtils.toBytes("m1"));
+			journal.append(BytesUtils.toBytes("m2"));
+			assertEquals("m1", received.poll(10, TimeUnit.SECONDS));
+			assertEquals("m2", received.poll(10, TimeUnit.SECONDS));
+			consumer.close();
+
+			// 停止期间写入的消息在重新订阅后继续消费；
+			journal.append(BytesUtils.toBytes("m3"));
+			consumer = ShmConsumer.newTopicConsumer(1, uri, TOPIC, true);
+			consumer.connect(msg -> received.add(BytesUtils.toString(msg)));
+			consumer.start();
+			assertEquals("m3", received.poll(10, TimeUnit.SECONDS));
+			assertNull(received.poll(200, TimeUnit.MILLISECONDS));
+			consumer.close();
+		} finally {
+			journal.release();
+		}
+	}
+
+	private File segmentFile(int index) {
+		return new File(new File(baseDir, TOPIC), String.format("%010d.seg", index));
+	}
+
+	private int segmentCount() {
+		return new File(baseDir, TOPIC).list((dir, name) -> name.endsWith(".seg")).length;
+	}
+
+	private static void writeOffset(File file, long position) throws IOException {
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			raf.writeLong(position);
+		}
+	}
+
+	private static void deleteDir(File dir) {
+		File[] files = dir.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				deleteDir(file);
+			}
+		}
+		dir.delete();
+	}
+}
@@ -21,6 +21,7 @@ import com.jd.blockchain.consensus.raft.manager.RaftConsensusView;
 import com.jd.blockchain.consensus.raft.rpc.QueryManagerInfoRequest;
 import com.jd.blockchain.consensus.raft.rpc.QueryManagerInfoRequestProcessor;
 import com.jd.blockchain.consensus.raft.rpc.RpcResponse;
+import com.jd.blockchain.consensus.raft.rpc.SubmitTxBatchRequest;
 import com.jd.blockchain.consensus.raft.rpc.SubmitTxRequest;
 import com.jd.blockchain.consensus.raft.settings.RaftClientSettings;
 import com.jd.blockchain.consensus.raft.settings.RaftConsensusSettings;
@@ -49,9 +50,9 @@ public class RaftMessageService implements MessageService, ConsensusManageServic
     private final ReentrantLock lock = new ReentrantLock();
     private final String groupId;
 
-    private PeerId leader;
+    private volatile PeerId leader;
     private Configuration configuration;
-    private long lastLeaderUpdateTimestamp;
+    private volatile long lastLeaderUpdateTimestamp;
     private long lastConfigurationUpdateTimestamp;
 
     private final ScheduledExecutorService refreshLeaderExecutorService;
@@ -68,6 +69,8 @@ public class RaftMessageService implements MessageService, ConsensusManageServic
     private volatile boolean isReloadMonitorNode = true;
     private final Object monitorLock = new Object();
 
+    private volatile RaftTxBatcher txBatcher;
+
     public RaftMessageService(String groupId, RaftClientSettings settings) {
 
         RaftConsensusSettings consensusSettings = (RaftConsensusSettings) settings.getViewSettings();
@@ -112,6 +115,9 @@ public class RaftMessageService implements MessageService, ConsensusManageServic
         RouteTable.getInstance().updateConfiguration(groupId, configuration);
         refresh();
         refreshLeaderExecutorService.scheduleAtFixedRate(this::refresh, refreshLeaderMs, refreshLeaderMs, TimeUnit.MILLISECONDS);
+        if (RaftTxBatcher.isEnabled()) {
+            this.txBatcher = new RaftTxBatcher(this);
+        }
         isStart = true;
     }
 
@@ -172,10 +178,37 @@ public class RaftMessageService implements MessageService, ConsensusManageServic
         this.lastLeaderUpdateTimestamp = System.currentTimeMillis();
     }
 
+    /**
+     * 根据请求应答中的主节点信息立即更新主节点，不必等待定时刷新
+     *
+     * @param leaderEndpoint
+     */
+    private void updateLeader(String leaderEndpoint) {
+        if (leaderEndpoint == null || leaderEndpoint.isEmpty()) {
+            return;
+        }
+        PeerId peerId = PeerId.parsePeer(leaderEndpoint);
+        if (peerId == null || peerId.equals(this.leader)) {
+            return;
+        }
+        LoggerUtils.infoIfEnabled(LOGGER, "leader changed by response. from {} to {}", this.leader, peerId);
+        this.leader = peerId;
+        RouteTable.getInstance().updateLeader(this.groupId, peerId);
+        this.lastLeaderUpdateTimestamp = System.currentTimeMillis();
+    }
+
+    Endpoint getLeaderEndpoint() {
+        PeerId currentLeader = this.leader;
+        return currentLeader == null ? null : currentLeader.getEndpoint();
+    }
 
     @Override
     public AsyncFuture<byte[]> sendOrdered(byte[] message) {
         ensureConnected();
+        RaftTxBatcher batcher = this.txBatcher;
+        if (batcher != null) {
+            return batcher.submit(message);
+        }
         CompletableAsyncFuture<byte[]> asyncFuture = new CompletableAsyncFuture<>();
         try {
             int retry = 0;
@@ -220,6 +253,7 @@ public class RaftMessageService implements MessageService, ConsensusManageServic
             }
 
             RpcResponse response = (RpcResponse) o;
+            updateLeader(response.getLeaderEndpoint());
             if (response.isRedirect()) {
                 LoggerUtils.debugIfEnabled(LOGGER, "request should redirect to leader. current peer: {} , redirect leader: {}", endpoint, response.getLeaderEndpoint());
                 try {
@@ -239,6 +273,66 @@ public class RaftMessageService implements MessageService, ConsensusManageServic
         }, rpcTimeoutMs);
     }
 
+    /**
+     * 发送批量交易请求，各交易的应答分别完成对应的 future；请求结束时调用 onComplete
+     */
+    void sendBatchRequest(Endpoint endpoint, SubmitTxBatchRequest batchRequest, int retry,
+                          List<CompletableAsyncFuture<byte[]>> futures, Runnable onComplete) {
+
+        if (retry >= MAX_RETRY_TIMES) {
+            completeBatch(futures, new RuntimeException("raft client send request exceed max retries"), onComplete);
+            return;
+        }
+
+        if (endpoint == null) {
+            completeBatch(futures, new RuntimeException("raft client send request find leader endpoint is null"), onComplete);
+            return;
+        }
+
+        try {
+            clientService.getRpcClient().invokeAsync(endpoint, batchRequest, (o, throwable) -> {
+
+                LoggerUtils.debugIfEnabled(LOGGER, "raft client send request: {} response: {} throwable: {}", batchRequest, o, throwable);
+
+                if (throwable != null) {
+                    LOGGER.error("raft client send request error, request: {}", batchRequest, throwable);
+                    completeBatch(futures, throwable, onComplete);
+                    return;
+                }
+
+                RpcResponse response = (RpcResponse) o;
+                updateLeader(response.getLeaderEndpoint());
+                if (response.isRedirect()) {
+                    LoggerUtils.debugIfEnabled(LOGGER, "request should redirect to leader. current peer: {} , redirect leader: {}", endpoint, response.getLeaderEndpoint());
+                    sendBatchRequest(JRaftUtils.getEndPoint(response.getLeaderEndpoint()), batchRequest, retry + 1, futures, onComplete);
+                    return;
+                }
+
+                List<RpcResponse> responses = response.getResponses();
+                for (int i = 0; i < futures.size(); i++) {
+                    RpcResponse txResponse = responses != null && responses.size() == futures.size() ? responses.get(i) : null;
+                    if (response.isSuccess() && txResponse != null && txResponse.isSuccess()) {
+                        futures.get(i).complete(txResponse.getResult());
+                    } else {
+                        futures.get(i).complete(null);
+                    }
+                }
+                onComplete.run();
+
+            }, rpcTimeoutMs);
+        } catch (Exception e) {
+            LOGGER.error("raft client send request error, request: {}", batchRequest, e);
+            completeBatch(futures, e, onComplete);
+        }
+    }
+
+    private void completeBatch(List<CompletableAsyncFuture<byte[]>> futures, Throwable error, Runnable onComplete) {
+        for (CompletableAsyncFuture<byte[]> future : futures) {
+            future.error(error);
+        }
+        onComplete.run();
+    }
+
 
     private void ensureConnected() {
 
@@ -408,6 +502,12 @@ public class RaftMessageService implements MessageService, ConsensusManageServic
     }
 
     public void close() {
+        RaftTxBatcher batcher = this.txBatcher;
+        this.txBatcher = null;
+        if (batcher != null) {
+            batcher.close();
+        }
+
         if (this.refreshLeaderExecutorService != null) {
             this.refreshLeaderExecutorService.shutdownNow();
         }
@@ -0,0 +1,153 @@
+package com.jd.blockchain.consensus.raft.client;
+
+import com.alipay.sofa.jraft.util.Endpoint;
+import com.jd.blockchain.consensus.raft.rpc.SubmitTxBatchRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import utils.concurrent.CompletableAsyncFuture;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 客户端交易批量提交
+ * <p>
+ * 把并发提交的交易合并为一个 {@link SubmitTxBatchRequest} 发送到主节点，批次受交易数量、字节数以及等待时间限制；
+ * 每个主节点上同时未应答的批次数量有上限，达到上限时后续交易继续合并到下一个批次
+ * <p>
+ * 默认关闭，通过系统属性 {@link #ENABLED_PROPERTY} 开启；开启之前所有共识节点都必须已经支持批量提交请求
+ */
+class RaftTxBatcher {
+
+    public static final String ENABLED_PROPERTY = "raft.client.batch";
+
+    private static final boolean ENABLED = Boolean.getBoolean(ENABLED_PROPERTY);
+
+    private static final int MAX_COUNT = Integer.getInteger(ENABLED_PROPERTY + ".max-count", 128);
+
+    private static final int MAX_BYTES = Integer.getInteger(ENABLED_PROPERTY + ".max-bytes", 4 * 1024 * 1024);
+
+    private static final int LINGER_MILLIS = Integer.getInteger(ENABLED_PROPERTY + ".linger-ms", 2);
+
+    private static final int MAX_IN_FLIGHT = Integer.getInteger(ENABLED_PROPERTY + ".window", 4);
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RaftTxBatcher.class);
+
+    private final RaftMessageService messageService;
+
+    private final LinkedBlockingQueue<PendingTx> queue = new LinkedBlockingQueue<>();
+
+    // 每个主节点的未应答批次窗口
+    private final Map<Endpoint, Semaphore> windows = new ConcurrentHashMap<>();
+
+    private final Thread collector;
+
+    private volatile boolean running = true;
+
+    // 超出当前批次上限、留给下一个批次的交易
+    private PendingTx carried;
+
+    RaftTxBatcher(RaftMessageService messageService) {
+        this.messageService = messageService;
+        this.collector = new Thread(this::collect, "RAFT-CLIENT-BATCH");
+        this.collector.setDaemon(true);
+        this.collector.start();
+    }
+
+    static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    CompletableAsyncFuture<byte[]> submit(byte[] tx) {
+        PendingTx pending = new PendingTx(tx);
+        if (!running) {
+            pending.future.error(new RaftClientRequestException("Client has closed"));
+            return pending.future;
+        }
+        queue.add(pending);
+        return pending.future;
+    }
+
+    void close() {
+        running = false;
+        collector.interrupt();
+        List<PendingTx> remains = new ArrayList<>();
+        queue.drainTo(remains);
+        for (PendingTx pending : remains) {
+            pending.future.error(new RaftClientRequestException("Client has closed"));
+        }
+    }
+
+    private void collect() {
+        while (running) {
+            try {
+                List<PendingTx> batch = nextBatch();
+                Endpoint leader = messageService.getLeaderEndpoint();
+                Semaphore window = null;
+                if (leader != null) {
+                    window = windows.computeIfAbsent(leader, k -> new Semaphore(Math.max(1, MAX_IN_FLIGHT)));
+                    window.acquire();
+                }
+                send(leader, batch, window);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                LOGGER.error("raft client batch tx error", e);
+            }
+        }
+    }
+
+    private List<PendingTx> nextBatch() throws InterruptedException {
+        List<PendingTx> batch = new ArrayList<>();
+        PendingTx first = carried != null ? carried : queue.take();
+        carried = null;
+        batch.add(first);
+        int bytes = first.tx.length;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(LINGER_MILLIS);
+        while (batch.size() < MAX_COUNT) {
+            long remaining = deadline - System.nanoTime();
+            PendingTx next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+            if (next == null) {
+                break;
+            }
+            if (bytes + next.tx.length > MAX_BYTES) {
+                carried = next;
+                break;
+            }
+            batch.add(next);
+            bytes += next.tx.length;
+        }
+        return batch;
+    }
+
+    private void send(Endpoint leader, List<PendingTx> batch, Semaphore window) {
+        List<byte[]> txs = new ArrayList<>(batch.size());
+        List<CompletableAsyncFuture<byte[]>> futures = new ArrayList<>(batch.size());
+        for (PendingTx pending : batch) {
+            txs.add(pending.tx);
+            futures.add(pending.future);
+        }
+        messageService.sendBatchRequest(leader, new SubmitTxBatchRequest(txs), 0, futures, () -> {
+            if (window != null) {
+                window.release();
+            }
+        });
+    }
+
+    private static class PendingTx {
+
+        private final byte[] tx;
+
+        private final CompletableAsyncFuture<byte[]> future = new CompletableAsyncFuture<>();
+
+        PendingTx(byte[] tx) {
+            this.tx = tx;
+        }
+    }
+}
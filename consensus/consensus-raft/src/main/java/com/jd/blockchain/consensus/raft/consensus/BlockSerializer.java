@@ -1,9 +1,23 @@
 package com.jd.blockchain.consensus.raft.consensus;
 
+import java.nio.ByteBuffer;
+
 public interface BlockSerializer {
 
     byte[] serialize(Block block);
 
     Block deserialize(byte[] blockBytes);
 
+    /**
+     * 从 raft 日志的数据中反序列化区块；实现可以直接引用缓冲区中的数据，避免复制整个日志；
+     *
+     * @param buffer 区块数据，从 position 到 limit；
+     * @return
+     */
+    default Block deserialize(ByteBuffer buffer) {
+        byte[] blockBytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(blockBytes);
+        return deserialize(blockBytes);
+    }
+
 }
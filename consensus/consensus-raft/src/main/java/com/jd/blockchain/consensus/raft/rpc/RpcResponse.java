@@ -1,7 +1,8 @@
 package com.jd.blockchain.consensus.raft.rpc;
 
 import java.io.Serializable;
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.List;
 
 public class RpcResponse implements Serializable {
 
@@ -19,6 +20,8 @@ public class RpcResponse implements Serializable {
 
     private String leaderEndpoint;
 
+    private List<RpcResponse> responses;
+
     public static RpcResponse success(byte[] result){
         RpcResponse txResponse = new RpcResponse();
         txResponse.setSuccess(true);
@@ -45,6 +48,14 @@ public class RpcResponse implements Serializable {
         return txResponse;
     }
 
+    public static RpcResponse batch(List<RpcResponse> responses){
+        RpcResponse txResponse = new RpcResponse();
+        txResponse.setSuccess(true);
+        txResponse.setRedirect(false);
+        txResponse.setResponses(new ArrayList<>(responses));
+        return txResponse;
+    }
+
     public byte[] getResult() {
         return result;
     }
@@ -85,6 +96,19 @@ public class RpcResponse implements Serializable {
         this.leaderEndpoint = leaderEndpoint;
     }
 
+    /**
+     * 批量请求中各交易的应答，与请求中的交易一一对应
+     *
+     * @return
+     */
+    public List<RpcResponse> getResponses() {
+        return responses;
+    }
+
+    public void setResponses(List<RpcResponse> responses) {
+        this.responses = responses;
+    }
+
     public int getErrorCode() {
         return errorCode;
     }
@@ -102,6 +126,7 @@ public class RpcResponse implements Serializable {
                 ", success=" + success +
                 ", isRedirect=" + isRedirect +
                 ", leaderEndpoint='" + leaderEndpoint + '\'' +
+                ", responses[size]=" + (responses == null ? "null" : responses.size()) +
                 '}';
     }
 }
@@ -0,0 +1,33 @@
+package com.jd.blockchain.consensus.raft.rpc;
+
+import java.io.Serializable;
+import java.util.List;
+
+public class SubmitTxBatchRequest implements Serializable {
+
+    private static final long serialVersionUID = 6325120823480212931L;
+
+    private List<byte[]> txs;
+
+    public List<byte[]> getTxs() {
+        return txs;
+    }
+
+    public void setTxs(List<byte[]> txs) {
+        this.txs = txs;
+    }
+
+    public SubmitTxBatchRequest() {
+    }
+
+    public SubmitTxBatchRequest(List<byte[]> txs) {
+        this.txs = txs;
+    }
+
+    @Override
+    public String toString() {
+        return "SubmitTxBatchRequest{" +
+                "txs[size]=" + (txs == null ? "null" : txs.size()) +
+                '}';
+    }
+}
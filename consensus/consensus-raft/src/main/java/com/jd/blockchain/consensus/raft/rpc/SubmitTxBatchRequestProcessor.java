@@ -0,0 +1,18 @@
+package com.jd.blockchain.consensus.raft.rpc;
+
+import com.jd.blockchain.consensus.raft.server.RaftNodeServerService;
+
+import java.util.concurrent.Executor;
+
+public class SubmitTxBatchRequestProcessor extends BaseRpcProcessor<SubmitTxBatchRequest> {
+
+    public SubmitTxBatchRequestProcessor(RaftNodeServerService nodeServerService, Executor executor) {
+        super(nodeServerService, executor);
+    }
+
+    @Override
+    protected void processRequest(SubmitTxBatchRequest request, RpcResponseClosure done) {
+        getNodeServerService().handleSubmitTxBatchRequest(request, done);
+    }
+
+}
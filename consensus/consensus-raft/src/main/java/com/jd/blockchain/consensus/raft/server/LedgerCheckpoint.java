@@ -0,0 +1,101 @@
+package com.jd.blockchain.consensus.raft.server;
+
+import com.jd.blockchain.ledger.core.LedgerManager;
+import com.jd.blockchain.ledger.core.LedgerRepository;
+import com.jd.blockchain.storage.service.KVStorageService;
+import com.jd.blockchain.storage.service.impl.rocksdb.RocksDBStorageService;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import utils.Bytes;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 账本存储的检查点，作为 raft 快照的一部分传输给落后的节点；
+ * <p>
+ * 检查点只包含当前账本存储前缀下的数据，同一个数据库中其它账本的数据不会随快照传输；
+ * <p>
+ * 目前只支持 RocksDB 存储；其它存储返回 {@link #isSupported()} 为 false ，快照中只记录区块高度，由节点逐块同步；
+ */
+public class LedgerCheckpoint {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LedgerCheckpoint.class);
+
+    /**
+     * 检查点在快照目录中的子目录名；
+     */
+    public static final String CHECKPOINT_DIR = "checkpoint";
+
+    private final LedgerRepository ledgerRepository;
+
+    private final RocksDBStorageService storageService;
+
+    public LedgerCheckpoint(LedgerRepository ledgerRepository, KVStorageService storageService) {
+        this.ledgerRepository = ledgerRepository;
+        this.storageService = storageService instanceof RocksDBStorageService ? (RocksDBStorageService) storageService : null;
+    }
+
+    public boolean isSupported() {
+        return storageService != null;
+    }
+
+    /**
+     * 在快照目录中创建账本存储的检查点，只导出当前账本的数据；
+     *
+     * @param snapshotPath 快照目录；
+     * @return 检查点的全部文件相对于快照目录的路径；
+     */
+    public List<String> save(String snapshotPath) throws IOException {
+        File checkpointDir = new File(snapshotPath, CHECKPOINT_DIR);
+        if (checkpointDir.exists()) {
+            FileUtils.deleteDirectory(checkpointDir);
+        }
+        long count = storageService.checkpoint(checkpointDir.getAbsolutePath(), getLedgerPrefix());
+        LOGGER.info("save ledger checkpoint to {}, entries: {}", checkpointDir, count);
+
+        Path base = new File(snapshotPath).toPath();
+        try (Stream<Path> files = Files.walk(checkpointDir.toPath())) {
+            return files.filter(Files::isRegularFile)
+                    .map(path -> base.relativize(path).toString())
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * 快照目录中是否包含检查点；
+     *
+     * @param snapshotPath
+     * @return
+     */
+    public static boolean exists(String snapshotPath) {
+        return new File(snapshotPath, CHECKPOINT_DIR).isDirectory();
+    }
+
+    /**
+     * 将快照中的检查点安装到当前账本，只导入当前账本的数据；
+     *
+     * @param snapshotPath 快照目录；
+     * @return 安装后的账本最新区块高度；
+     */
+    public long install(String snapshotPath) {
+        String checkpointDir = new File(snapshotPath, CHECKPOINT_DIR).getAbsolutePath();
+        long count = storageService.ingest(checkpointDir, getLedgerPrefix());
+
+        // 存储被改写，清除账本的数据缓存并重新加载最新状态；
+        ledgerRepository.clearCache();
+        long height = ledgerRepository.retrieveLatestBlock().getHeight();
+        LOGGER.info("install ledger checkpoint from {}, entries: {}, latest block height: {}", checkpointDir, count, height);
+        return height;
+    }
+
+    private Bytes getLedgerPrefix() {
+        return Bytes.fromString(LedgerManager.getLedgerStoragePrefix(ledgerRepository.getHash()));
+    }
+}
@@ -16,11 +16,13 @@ import com.jd.blockchain.consensus.raft.util.LoggerUtils;
 import com.jd.blockchain.crypto.HashDigest;
 import com.jd.blockchain.ledger.LedgerBlock;
 import com.jd.blockchain.ledger.core.LedgerRepository;
+import com.jd.blockchain.storage.service.KVStorageService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -32,15 +34,22 @@ public class RaftConsensusStateMachine extends StateMachineAdapter {
     private final BlockSerializer serializer;
     private final BlockSyncer blockSyncer;
     private final LedgerRepository ledgerRepository;
+    private final LedgerCheckpoint ledgerCheckpoint;
 
     private final AtomicBoolean isLeader = new AtomicBoolean(false);
     private final AtomicLong currentBlockHeight = new AtomicLong(1);
 
     public RaftConsensusStateMachine(BlockCommitter committer, BlockSerializer serializer, BlockSyncer blockSyncer, LedgerRepository ledgerRepository) {
+        this(committer, serializer, blockSyncer, ledgerRepository, null);
+    }
+
+    public RaftConsensusStateMachine(BlockCommitter committer, BlockSerializer serializer, BlockSyncer blockSyncer, LedgerRepository ledgerRepository,
+                                     KVStorageService storageService) {
         this.committer = committer;
         this.serializer = serializer;
         this.ledgerRepository = ledgerRepository;
         this.blockSyncer = blockSyncer;
+        this.ledgerCheckpoint = new LedgerCheckpoint(ledgerRepository, storageService);
     }
 
     public void onStart() {
@@ -63,7 +72,7 @@ public class RaftConsensusStateMachine extends StateMachineAdapter {
                         block = closure.getBlock();
                     } else {
                         final ByteBuffer data = iterator.getData();
-                        block = serializer.deserialize(data.array());
+                        block = serializer.deserialize(data);
                     }
 
                     LoggerUtils.debugIfEnabled(LOGGER, "apply state machine log index: {} term: {}, block: {}", iterator.getIndex(), iterator.getTerm(), block);
@@ -102,11 +111,32 @@ public class RaftConsensusStateMachine extends StateMachineAdapter {
     public void onSnapshotSave(SnapshotWriter writer, Closure done) {
         long height = this.currentBlockHeight.get();
 
+        // 检查点必须在状态机线程中创建，保证与快照的区块高度一致；
+        List<String> checkpointFiles = null;
+        if (ledgerCheckpoint.isSupported()) {
+            try {
+                checkpointFiles = ledgerCheckpoint.save(writer.getPath());
+            } catch (Exception e) {
+                LOGGER.error("create ledger checkpoint error, snapshot only records block height", e);
+            }
+        }
+        final List<String> files = checkpointFiles;
+
         Utils.runInThread(() -> {
             final RaftSnapshotFile snapshot = new RaftSnapshotFile(writer.getPath());
 
             RaftSnapshotFile.RaftSnapshotData snapshotData = new RaftSnapshotFile.RaftSnapshotData();
             snapshotData.setHeight(height);
+            snapshotData.setCheckpoint(files != null);
+
+            if (files != null) {
+                for (String file : files) {
+                    if (!writer.addFile(file)) {
+                        done.run(new Status(RaftError.EIO, "fail add checkpoint file %s to writer", file));
+                        return;
+                    }
+                }
+            }
 
             if (snapshot.save(snapshotData)) {
                 if (writer.addFile(snapshot.getName())) {
@@ -145,6 +175,10 @@ public class RaftConsensusStateMachine extends StateMachineAdapter {
                 return true;
             }
 
+            if (load.isCheckpoint() && installCheckpoint(reader, snapshotHeight)) {
+                return true;
+            }
+
             try {
                 catchUp(snapshotHeight);
             } catch (BlockSyncException e) {
@@ -163,6 +197,30 @@ public class RaftConsensusStateMachine extends StateMachineAdapter {
 
     }
 
+    /**
+     * 安装快照中的账本检查点，代替逐块同步；raft 随后只重放快照之后的日志；
+     *
+     * @return 安装失败时返回 false ，由调用方退回逐块同步；
+     */
+    private boolean installCheckpoint(SnapshotReader reader, long snapshotHeight) {
+        if (!ledgerCheckpoint.isSupported() || !LedgerCheckpoint.exists(reader.getPath())) {
+            LOGGER.warn("ledger checkpoint not supported or not found in {}, sync blocks instead", reader.getPath());
+            return false;
+        }
+        try {
+            long height = ledgerCheckpoint.install(reader.getPath());
+            if (height != snapshotHeight) {
+                LOGGER.error("ledger height: {} after installing checkpoint does not match snapshot height: {}", height, snapshotHeight);
+                return false;
+            }
+            this.currentBlockHeight.set(height);
+            return true;
+        } catch (Exception e) {
+            LOGGER.error("install ledger checkpoint from {} error, sync blocks instead", reader.getPath(), e);
+            return false;
+        }
+    }
+
     private void catchUp(long maxHeight) throws BlockSyncException {
         HashDigest ledger = ledgerRepository.getHash();
         while (this.currentBlockHeight.get() < maxHeight) {
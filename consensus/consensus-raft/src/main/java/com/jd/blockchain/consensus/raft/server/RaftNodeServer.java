@@ -127,7 +127,8 @@ public class RaftNodeServer implements NodeServer {
         this.blockSyncer = new BlockSyncService(ledgerRepository, this.rpcClient, this.serverSettings.getRaftNetworkSettings().getRpcRequestTimeoutMs());
         messageBus.register(BLOCK_CATCH_UP_TOPIC, (Subcriber) this.blockSyncer);
 
-        this.stateMachine = new RaftConsensusStateMachine(this.blockCommitter, this.blockSerializer, this.blockSyncer, ledgerRepository);
+        this.stateMachine = new RaftConsensusStateMachine(this.blockCommitter, this.blockSerializer, this.blockSyncer, ledgerRepository,
+                LedgerManageUtils.getLedgerManager().getStorageService(this.ledgerHashDigest));
         this.nodeOptions.setFsm(stateMachine);
 
         RaftNodeServerContext.getInstance().init(this);
@@ -234,6 +235,7 @@ public class RaftNodeServer implements NodeServer {
         this.rpcServer = rpcServer;
         Executor executor = JRaftUtils.createExecutor("RPC-PROCESSOR-EXECUTORS-", this.nodeOptions.getRpcProcessorThreadPoolSize());
         rpcServer.registerProcessor(new SubmitTxRequestProcessor(this.raftNodeServerService, executor));
+        rpcServer.registerProcessor(new SubmitTxBatchRequestProcessor(this.raftNodeServerService, executor));
         rpcServer.registerProcessor(new ParticipantNodeAddRequestProcessor(this.raftNodeServerService, executor));
         rpcServer.registerProcessor(new ParticipantNodeRemoveRequestProcessor(this.raftNodeServerService, executor));
         rpcServer.registerProcessor(new ParticipantNodeTransferRequestProcessor(this.raftNodeServerService, executor));
@@ -4,12 +4,15 @@ import com.alipay.sofa.jraft.Closure;
 import com.jd.blockchain.consensus.raft.rpc.ParticipantNodeAddRequest;
 import com.jd.blockchain.consensus.raft.rpc.ParticipantNodeRemoveRequest;
 import com.jd.blockchain.consensus.raft.rpc.ParticipantNodeTransferRequest;
+import com.jd.blockchain.consensus.raft.rpc.SubmitTxBatchRequest;
 import com.jd.blockchain.consensus.raft.rpc.SubmitTxRequest;
 
 public interface RaftNodeServerService {
 
     void handleSubmitTxRequest(SubmitTxRequest submitTxRequest, Closure done);
 
+    void handleSubmitTxBatchRequest(SubmitTxBatchRequest submitTxBatchRequest, Closure done);
+
     void publishBlockEvent();
 
     RaftNodeServer getNodeServer();
@@ -22,6 +22,7 @@ import org.slf4j.LoggerFactory;
 
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
@@ -67,35 +68,76 @@ public class RaftNodeServerServiceImpl implements RaftNodeServerService {
             return;
         }
 
-        applyRequest(submitTxRequest, responseClosure, (req, closure) -> {
-            int retryTimes = 0;
-            try {
-                final EventTranslator<SubmitTx> translator = (event, sequence) -> {
-                    event.reset();
-                    event.setDone(responseClosure);
-                    event.setValues(submitTxRequest.getTx());
-                };
-                while (true) {
-                    if (this.submitTxQueue.tryPublishEvent(translator)) {
-                        break;
-                    } else {
-                        retryTimes++;
-                        if (retryTimes > MAX_SUBMIT_RETRY_TIMES) {
-                            LOGGER.error("node {} submit request is overload.", nodeServer.getNode().getNodeId());
-                            responseClosure.run(new Status(RaftError.EBUSY, "node has too many tasks."));
-                            return;
+        applyRequest(submitTxRequest, responseClosure, (req, closure) -> publishTx(submitTxRequest.getTx(), closure));
+    }
+
+    /**
+     * 批量提交的交易逐个进入同一个交易队列，由区块提议统一打包；全部交易应答后一次返回
+     */
+    @Override
+    public void handleSubmitTxBatchRequest(SubmitTxBatchRequest submitTxBatchRequest, Closure done) {
+
+        RpcResponseClosure responseClosure = (RpcResponseClosure) done;
+
+        List<byte[]> txs = submitTxBatchRequest.getTxs();
+        if (txs == null || txs.isEmpty()) {
+            done.run(new Status(RaftError.EREQUEST, "txs is empty"));
+            return;
+        }
+
+        applyRequest(submitTxBatchRequest, responseClosure, (req, closure) -> {
+            RpcResponse[] responses = new RpcResponse[txs.size()];
+            AtomicInteger remaining = new AtomicInteger(txs.size());
+            for (int i = 0; i < txs.size(); i++) {
+                final int index = i;
+                RpcResponseClosure txClosure = new RpcResponseClosure(req) {
+                    @Override
+                    public void run(Status status) {
+                        responses[index] = getResponse(status);
+                        if (remaining.decrementAndGet() == 0) {
+                            closure.setResponse(RpcResponse.batch(Arrays.asList(responses)));
+                            closure.run(Status.OK());
                         }
-                        ThreadHelper.onSpinWait();
                     }
+                };
+                byte[] tx = txs.get(i);
+                if (tx == null || tx.length == 0) {
+                    txClosure.run(new Status(RaftError.EREQUEST, "tx is empty"));
+                } else {
+                    publishTx(tx, txClosure);
                 }
-
-            } catch (final Exception e) {
-                LoggerUtils.errorIfEnabled(LOGGER, "fail to publish request:{} error", req, e);
-                responseClosure.run(new Status(RaftError.EPERM, "publish tx error: %s", e.getMessage()));
             }
         });
     }
 
+    private void publishTx(byte[] tx, RpcResponseClosure responseClosure) {
+        int retryTimes = 0;
+        try {
+            final EventTranslator<SubmitTx> translator = (event, sequence) -> {
+                event.reset();
+                event.setDone(responseClosure);
+                event.setValues(tx);
+            };
+            while (true) {
+                if (this.submitTxQueue.tryPublishEvent(translator)) {
+                    break;
+                } else {
+                    retryTimes++;
+                    if (retryTimes > MAX_SUBMIT_RETRY_TIMES) {
+                        LOGGER.error("node {} submit request is overload.", nodeServer.getNode().getNodeId());
+                        responseClosure.run(new Status(RaftError.EBUSY, "node has too many tasks."));
+                        return;
+                    }
+                    ThreadHelper.onSpinWait();
+                }
+            }
+
+        } catch (final Exception e) {
+            LoggerUtils.errorIfEnabled(LOGGER, "fail to publish request:{} error", responseClosure.getRequest(), e);
+            responseClosure.run(new Status(RaftError.EPERM, "publish tx error: %s", e.getMessage()));
+        }
+    }
+
     @Override
     public void publishBlockEvent() {
         if (nodeServer.isLeader()) {
@@ -170,7 +212,12 @@ public class RaftNodeServerServiceImpl implements RaftNodeServerService {
                 }
                 LoggerUtils.debugIfEnabled(LOGGER, "request:{} to leader:{}, result is: {}", txRequest, leader, o);
 
-                responseClosure.setResponse((RpcResponse) o);
+                // 携带当前主节点，客户端据此更新主节点，后续请求不再经过转发
+                RpcResponse response = (RpcResponse) o;
+                if (response.getLeaderEndpoint() == null) {
+                    response.setLeaderEndpoint(leader.getEndpoint().toString());
+                }
+                responseClosure.setResponse(response);
                 responseClosure.run(Status.OK());
 
             }, nodeServer.getServerSettings().getRaftNetworkSettings().getRpcRequestTimeoutMs());
@@ -57,6 +57,8 @@ public class RaftSnapshotFile {
 
         private long appliedIndex;
 
+        private boolean checkpoint;
+
         public RaftSnapshotData() {
         }
 
@@ -76,6 +78,17 @@ public class RaftSnapshotFile {
             this.appliedIndex = appliedIndex;
         }
 
+        /**
+         * 快照是否包含账本存储的检查点；
+         */
+        public boolean isCheckpoint() {
+            return checkpoint;
+        }
+
+        public void setCheckpoint(boolean checkpoint) {
+            this.checkpoint = checkpoint;
+        }
+
     }
 
 
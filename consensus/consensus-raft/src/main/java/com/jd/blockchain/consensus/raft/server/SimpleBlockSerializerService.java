@@ -4,15 +4,139 @@ import com.alipay.remoting.exception.CodecException;
 import com.alipay.remoting.serialization.SerializerManager;
 import com.jd.blockchain.consensus.raft.consensus.Block;
 import com.jd.blockchain.consensus.raft.consensus.BlockSerializer;
+import com.jd.blockchain.crypto.Crypto;
+import com.jd.blockchain.crypto.HashDigest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * 区块的序列化服务；
+ * <p>
+ * 默认以 Hessian2 格式写入 raft 日志；通过系统属性 {@link #COMPACT_ENCODING} 开启紧凑的二进制格式：<br>
+ * MAGIC(1) + VERSION(1) + proposalTimestamp(8) + height(8) + preBlockHash(2+n) + currentBlockHash(2+n) + 交易数(4) + [交易长度(4) + 交易]...
+ * <p>
+ * 反序列化时自动识别两种格式：紧凑格式直接引用日志的缓冲区，只建立交易的偏移索引，交易内容在访问时才复制；
+ * 首字节不是 MAGIC 的数据按 Hessian2 格式解析；
+ * <p>
+ * 开启紧凑格式之前所有共识节点都必须已经升级到能够识别该格式的版本；
+ */
 public class SimpleBlockSerializerService implements BlockSerializer {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(SimpleBlockSerializerService.class);
 
+    public static final String COMPACT_ENCODING = "raft.block.compact";
+
+    /**
+     * Hessian2 序列化的对象总是以类定义“C”或对象引用开头，不会以该字节开头；
+     */
+    static final byte MAGIC = (byte) 0xB7;
+
+    static final byte VERSION = 1;
+
+    private static final int HEADER_SIZE = 1 + 1 + 8 + 8;
+
+    private final boolean compactEncoding;
+
+    public SimpleBlockSerializerService() {
+        this(Boolean.getBoolean(COMPACT_ENCODING));
+    }
+
+    public SimpleBlockSerializerService(boolean compactEncoding) {
+        this.compactEncoding = compactEncoding;
+    }
+
     @Override
     public byte[] serialize(Block block) {
+        if (!compactEncoding) {
+            return serializeHessian(block);
+        }
+
+        byte[] preHash = hashBytes(block.getPreBlockHash());
+        byte[] currentHash = hashBytes(block.getCurrentBlockHash());
+        List<byte[]> txs = block.getTxs();
+
+        int size = HEADER_SIZE + 2 + preHash.length + 2 + currentHash.length + 4;
+        for (byte[] tx : txs) {
+            size += 4 + tx.length;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.put(MAGIC);
+        buffer.put(VERSION);
+        buffer.putLong(block.getProposalTimestamp());
+        buffer.putLong(block.getHeight());
+        buffer.putShort((short) preHash.length);
+        buffer.put(preHash);
+        buffer.putShort((short) currentHash.length);
+        buffer.put(currentHash);
+        buffer.putInt(txs.size());
+        for (byte[] tx : txs) {
+            buffer.putInt(tx.length);
+            buffer.put(tx);
+        }
+        return buffer.array();
+    }
+
+    @Override
+    public Block deserialize(byte[] blockBytes) {
+        return deserialize(ByteBuffer.wrap(blockBytes));
+    }
+
+    @Override
+    public Block deserialize(ByteBuffer buffer) {
+        if (buffer.remaining() < HEADER_SIZE || buffer.get(buffer.position()) != MAGIC) {
+            return deserializeHessian(buffer);
+        }
+
+        ByteBuffer data = buffer.slice();
+        data.position(1);
+        byte version = data.get();
+        if (version != VERSION) {
+            throw new IllegalStateException("Unsupported block encoding version! --[version=" + version + "]");
+        }
+
+        Block block = new Block();
+        block.setProposalTimestamp(data.getLong());
+        block.setHeight(data.getLong());
+        block.setPreBlockHash(readHash(data));
+        block.setCurrentBlockHash(readHash(data));
+
+        int count = data.getInt();
+        if (count < 0) {
+            throw new IllegalStateException("Illegal block tx count! --[count=" + count + "]");
+        }
+        int[] offsets = new int[count];
+        for (int i = 0; i < count; i++) {
+            int length = data.getInt();
+            if (length < 0 || length > data.remaining()) {
+                throw new IllegalStateException("Illegal block tx length! --[index=" + i + ", length=" + length + "]");
+            }
+            offsets[i] = data.position();
+            data.position(data.position() + length);
+        }
+        block.setTxs(new TxList(data, offsets));
+        return block;
+    }
+
+    private static byte[] hashBytes(HashDigest hash) {
+        return hash == null ? new byte[0] : hash.toBytes();
+    }
+
+    private static HashDigest readHash(ByteBuffer data) {
+        int length = data.getShort() & 0xFFFF;
+        if (length == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        data.get(bytes);
+        return Crypto.resolveAsHashDigest(bytes);
+    }
+
+    private byte[] serializeHessian(Block block) {
         try {
             return SerializerManager.getSerializer(SerializerManager.Hessian2).serialize(block);
         } catch (CodecException e) {
@@ -21,8 +145,15 @@ public class SimpleBlockSerializerService implements BlockSerializer {
         }
     }
 
-    @Override
-    public Block deserialize(byte[] blockBytes) {
+    private Block deserializeHessian(ByteBuffer buffer) {
+        byte[] blockBytes;
+        if (buffer.hasArray() && buffer.arrayOffset() == 0 && buffer.position() == 0
+                && buffer.remaining() == buffer.array().length) {
+            blockBytes = buffer.array();
+        } else {
+            blockBytes = new byte[buffer.remaining()];
+            buffer.duplicate().get(blockBytes);
+        }
         try {
             return SerializerManager.getSerializer(SerializerManager.Hessian2).deserialize(blockBytes, Block.class.getName());
         } catch (CodecException e) {
@@ -30,4 +161,34 @@ public class SimpleBlockSerializerService implements BlockSerializer {
             throw new RuntimeException(e);
         }
     }
+
+    /**
+     * 引用日志缓冲区的交易列表；每次访问时复制对应的交易内容；
+     */
+    private static final class TxList extends AbstractList<byte[]> {
+
+        private final ByteBuffer data;
+
+        private final int[] offsets;
+
+        TxList(ByteBuffer data, int[] offsets) {
+            this.data = data;
+            this.offsets = offsets;
+        }
+
+        @Override
+        public byte[] get(int index) {
+            int offset = offsets[index];
+            byte[] tx = new byte[data.getInt(offset - 4)];
+            ByteBuffer view = data.duplicate();
+            view.position(offset);
+            view.get(tx);
+            return tx;
+        }
+
+        @Override
+        public int size() {
+            return offsets.length;
+        }
+    }
 }
@@ -77,6 +77,11 @@ public class BlockProposerServiceTest {
             return null;
         }
 
+        @Override
+        public void clearCache() {
+
+        }
+
         @Override
         public void close() {
 
@@ -7,6 +7,8 @@ import com.jd.blockchain.consensus.raft.consensus.BlockSerializer;
 import junit.framework.TestCase;
 import org.junit.Assert;
 
+import java.nio.ByteBuffer;
+
 import static com.jd.blockchain.consensus.raft.server.BlockProposerServiceTest.mockLedgerRepository;
 
 public class SimpleBlockSerializerServiceTest extends TestCase {
@@ -27,4 +29,45 @@ public class SimpleBlockSerializerServiceTest extends TestCase {
 
     }
 
+
+    public void testCompactEncoding() {
+
+        Block block = blockProposer.proposeBlock(Lists.newArrayList(new byte[]{1, 2}, new byte[0], new byte[]{3, 4, 5}));
+
+        byte[] serialize = new SimpleBlockSerializerService(true).serialize(block);
+        Assert.assertEquals(SimpleBlockSerializerService.MAGIC, serialize[0]);
+
+        // 带偏移的缓冲区，模拟 raft 日志中的数据；
+        byte[] padded = new byte[serialize.length + 3];
+        System.arraycopy(serialize, 0, padded, 3, serialize.length);
+        ByteBuffer buffer = ByteBuffer.wrap(padded);
+        buffer.position(3);
+
+        Block block1 = blockSerializer.deserialize(buffer);
+
+        Assert.assertEquals(3, buffer.position());
+        Assert.assertEquals(block.getHeight(), block1.getHeight());
+        Assert.assertEquals(block.getProposalTimestamp(), block1.getProposalTimestamp());
+        Assert.assertEquals(block.getPreBlockHash(), block1.getPreBlockHash());
+        Assert.assertEquals(block.getCurrentBlockHash(), block1.getCurrentBlockHash());
+        Assert.assertEquals(block.getTxs().size(), block1.getTxs().size());
+        for (int i = 0; i < block.getTxs().size(); i++) {
+            Assert.assertArrayEquals(block.getTxs().get(i), block1.getTxs().get(i));
+        }
+    }
+
+    public void testLegacyEncoding() {
+
+        Block block = blockProposer.proposeBlock(Lists.newArrayList(new byte[]{1, 2}));
+
+        byte[] serialize = blockSerializer.serialize(block);
+        Assert.assertNotEquals(SimpleBlockSerializerService.MAGIC, serialize[0]);
+
+        Block block1 = blockSerializer.deserialize(ByteBuffer.wrap(serialize));
+
+        Assert.assertEquals(block.getHeight(), block1.getHeight());
+        Assert.assertEquals(block.getPreBlockHash(), block1.getPreBlockHash());
+        Assert.assertArrayEquals(block.getTxs().get(0), block1.getTxs().get(0));
+    }
+
 }
\ No newline at end of file
@@ -49,6 +49,12 @@ public class GatewayConfigProperties {
 	public static final String PEER_CONNECTION_PING = "peer.connection.ping";
 	// 节点连接认证（毫秒），及时感知连接合法性，0及负值表示关闭。对于不存在节点变更的场景可关闭
 	public static final String PEER_CONNECTION_AUTH = "peer.connection.auth";
+	// 只读副本节点的查询服务地址列表，格式为 host:port ，以英文逗号分隔；查询请求优先路由到副本
+	public static final String PEER_REPLICAS = PEER_PREFIX + "replicas";
+	// 只读副本节点的服务是否启用安全证书；
+	public static final String PEER_REPLICAS_SECURE = PEER_REPLICAS + ".secure";
+	// 副本可以落后于共识节点的最大区块数，超出时查询路由到共识节点，默认0
+	public static final String PEER_REPLICAS_MAX_LAG = PEER_REPLICAS + ".max-lag";
 
 	// 数据检索服务URL地址
 	public static final String DATA_RETRIEVAL_URL="data.retrieval.url";
@@ -80,6 +86,8 @@ public class GatewayConfigProperties {
 	private int awareTopologyInterval;
 	private int peerConnectionPing;
 	private int peerConnectionAuth;
+	private NetworkAddress[] replicaAddresses = new NetworkAddress[0];
+	private int replicaMaxLag;
 
 	private String dataRetrievalUrl;
 	private String schemaRetrievalUrl;
@@ -175,6 +183,25 @@ public class GatewayConfigProperties {
 		configProps.setPeerConnectionPing(getInt(props, PEER_CONNECTION_PING, false));
 		configProps.setPeerConnectionAuth(getInt(props, PEER_CONNECTION_AUTH, false));
 
+		String replicas = getProperty(props, PEER_REPLICAS, false);
+		if (replicas != null) {
+			boolean replicasSecure = getBoolean(props, PEER_REPLICAS_SECURE, false, false);
+			List<NetworkAddress> replicaAddresses = new ArrayList<>();
+			for (String replica : replicas.split(",")) {
+				replica = replica.trim();
+				if (replica.length() == 0) {
+					continue;
+				}
+				int index = replica.lastIndexOf(':');
+				if (index <= 0) {
+					throw new IllegalArgumentException("Illegal property[" + PEER_REPLICAS + "]! --" + replica);
+				}
+				replicaAddresses.add(new NetworkAddress(replica.substring(0, index), getInt(replica.substring(index + 1)), replicasSecure));
+			}
+			configProps.setReplicaAddresses(replicaAddresses.toArray(new NetworkAddress[replicaAddresses.size()]));
+		}
+		configProps.setReplicaMaxLag(getInt(props, PEER_REPLICAS_MAX_LAG, false));
+
 		String dataRetrievalUrl = getProperty(props, DATA_RETRIEVAL_URL, false);
 		configProps.dataRetrievalUrl = dataRetrievalUrl;
 
@@ -288,6 +315,22 @@ public class GatewayConfigProperties {
 		this.peerConnectionAuth = peerConnectionAuth;
 	}
 
+	public NetworkAddress[] getReplicaAddresses() {
+		return replicaAddresses;
+	}
+
+	public void setReplicaAddresses(NetworkAddress[] replicaAddresses) {
+		this.replicaAddresses = replicaAddresses;
+	}
+
+	public int getReplicaMaxLag() {
+		return replicaMaxLag;
+	}
+
+	public void setReplicaMaxLag(int replicaMaxLag) {
+		this.replicaMaxLag = replicaMaxLag;
+	}
+
 	// ------------------------------------------------------------
 
 	public static class HttpConfig {
@@ -0,0 +1,194 @@
+package com.jd.blockchain.gateway.service;
+
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.jd.blockchain.crypto.HashDigest;
+import com.jd.blockchain.sdk.LedgerInitAttributes;
+
+import utils.Bytes;
+
+/**
+ * 网关查询缓存
+ * <p>
+ * 1. 反编译后的合约入口类源码，按账本、合约地址缓存，并记录所对应的合约版本；合约升级后版本变化即视为失效；<br>
+ * 2. 账本的基本配置，按账本、最新区块的管理数据根哈希缓存；参与方或配置变化后根哈希随之变化即视为失效；
+ * <p>
+ * 缓存容量通过系统属性配置：gateway.query-cache.contracts（默认 256）、gateway.query-cache.ledger-settings（默认 64）；
+ * 命中率等统计信息定期输出到日志
+ */
+public class GatewayQueryCache {
+
+	public static final String CONTRACTS_SIZE = "gateway.query-cache.contracts";
+
+	public static final String LEDGER_SETTINGS_SIZE = "gateway.query-cache.ledger-settings";
+
+	private static final long STATS_LOG_INTERVAL = TimeUnit.MINUTES.toMillis(10);
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(GatewayQueryCache.class);
+
+	private final Cache<ContractKey, ContractSource> contractSources;
+
+	private final Cache<SettingsKey, LedgerInitAttributes> ledgerSettings;
+
+	private volatile long lastStatsLogTime = System.currentTimeMillis();
+
+	public GatewayQueryCache() {
+		this(Integer.getInteger(CONTRACTS_SIZE, 256), Integer.getInteger(LEDGER_SETTINGS_SIZE, 64));
+	}
+
+	public GatewayQueryCache(int contractsSize, int ledgerSettingsSize) {
+		this.contractSources = CacheBuilder.newBuilder().maximumSize(contractsSize).recordStats().build();
+		this.ledgerSettings = CacheBuilder.newBuilder().maximumSize(ledgerSettingsSize).recordStats().build();
+	}
+
+	/**
+	 * 获取合约指定版本反编译后的源码，缓存中没有或版本不一致时重新反编译；反编译失败的结果不缓存
+	 *
+	 * @param ledgerHash 账本
+	 * @param address    合约地址
+	 * @param version    合约版本
+	 * @param decompiler 反编译
+	 * @return
+	 */
+	public String getContractSource(HashDigest ledgerHash, Bytes address, long version, Supplier<String> decompiler) {
+		ContractKey key = new ContractKey(ledgerHash, address);
+		ContractSource cached = contractSources.getIfPresent(key);
+		if (cached != null && cached.version == version) {
+			logStatsIfDue();
+			return cached.source;
+		}
+		String source = decompiler.get();
+		if (source != null) {
+			contractSources.put(key, new ContractSource(version, source));
+		}
+		logStatsIfDue();
+		return source;
+	}
+
+	/**
+	 * 获取账本的基本配置
+	 *
+	 * @param ledgerHash       账本
+	 * @param adminAccountHash 最新区块的管理数据根哈希
+	 * @param loader           加载账本的基本配置
+	 * @return
+	 */
+	public LedgerInitAttributes getLedgerSettings(HashDigest ledgerHash, HashDigest adminAccountHash,
+			Supplier<LedgerInitAttributes> loader) {
+		try {
+			return ledgerSettings.get(new SettingsKey(ledgerHash, adminAccountHash), loader::get);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException(e.getCause().getMessage(), e.getCause());
+		} finally {
+			logStatsIfDue();
+		}
+	}
+
+	public long getContractSourcesSize() {
+		return contractSources.size();
+	}
+
+	public CacheStats getContractSourcesStats() {
+		return contractSources.stats();
+	}
+
+	public long getLedgerSettingsSize() {
+		return ledgerSettings.size();
+	}
+
+	public CacheStats getLedgerSettingsStats() {
+		return ledgerSettings.stats();
+	}
+
+	private void logStatsIfDue() {
+		long now = System.currentTimeMillis();
+		if (now - lastStatsLogTime < STATS_LOG_INTERVAL) {
+			return;
+		}
+		lastStatsLogTime = now;
+		CacheStats contractStats = contractSources.stats();
+		CacheStats settingsStats = ledgerSettings.stats();
+		LOGGER.info("Query cache stats, contracts: size={}, hitRate={}, ledger settings: size={}, hitRate={}",
+				contractSources.size(), String.format("%.3f", contractStats.hitRate()), ledgerSettings.size(),
+				String.format("%.3f", settingsStats.hitRate()));
+	}
+
+	private static class ContractSource {
+
+		private final long version;
+
+		private final String source;
+
+		ContractSource(long version, String source) {
+			this.version = version;
+			this.source = source;
+		}
+	}
+
+	private static class ContractKey {
+
+		private final HashDigest ledgerHash;
+
+		private final Bytes address;
+
+		ContractKey(HashDigest ledgerHash, Bytes address) {
+			this.ledgerHash = ledgerHash;
+			this.address = address;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof ContractKey)) {
+				return false;
+			}
+			ContractKey that = (ContractKey) o;
+			return ledgerHash.equals(that.ledgerHash) && address.equals(that.address);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(ledgerHash, address);
+		}
+	}
+
+	private static class SettingsKey {
+
+		private final HashDigest ledgerHash;
+
+		private final HashDigest adminAccountHash;
+
+		SettingsKey(HashDigest ledgerHash, HashDigest adminAccountHash) {
+			this.ledgerHash = ledgerHash;
+			this.adminAccountHash = adminAccountHash;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof SettingsKey)) {
+				return false;
+			}
+			SettingsKey that = (SettingsKey) o;
+			return ledgerHash.equals(that.ledgerHash) && adminAccountHash.equals(that.adminAccountHash);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(ledgerHash, adminAccountHash);
+		}
+	}
+}
@@ -27,6 +27,7 @@ import com.jd.blockchain.contract.OnLineContractProcessor;
 import com.jd.blockchain.crypto.HashDigest;
 import com.jd.blockchain.ledger.ContractInfo;
 import com.jd.blockchain.ledger.LedgerAdminInfo;
+import com.jd.blockchain.ledger.LedgerBlock;
 import com.jd.blockchain.ledger.LedgerMetadata_V2;
 import com.jd.blockchain.ledger.ParticipantNode;
 import com.jd.blockchain.sdk.DecompliedContractInfo;
@@ -56,6 +57,8 @@ public class GatewayQueryServiceHandler implements GatewayQueryService {
 	@Autowired
 	private LedgersService peerService;
 
+	private final GatewayQueryCache queryCache = new GatewayQueryCache();
+
 	@Override
 	public HashDigest[] getLedgersHash(int fromIndex, int count) {
 		HashDigest[] ledgersHashs = peerService.getLedgerHashs();
@@ -74,6 +77,16 @@ public class GatewayQueryServiceHandler implements GatewayQueryService {
 
 	@Override
 	public LedgerInitAttributes getLedgerBaseSettings(HashDigest ledgerHash) {
+		// 管理数据根哈希不变时账本的基本配置不变，直接使用缓存
+		LedgerBlock latestBlock = peerService.getQueryService(ledgerHash).getLatestBlock(ledgerHash);
+		if (latestBlock == null || latestBlock.getAdminAccountHash() == null) {
+			return loadLedgerBaseSettings(ledgerHash);
+		}
+		return queryCache.getLedgerSettings(ledgerHash, latestBlock.getAdminAccountHash(),
+				() -> loadLedgerBaseSettings(ledgerHash));
+	}
+
+	private LedgerInitAttributes loadLedgerBaseSettings(HashDigest ledgerHash) {
 		LedgerAdminInfo ledgerAdminInfo = peerService.getQueryService(ledgerHash).getLedgerAdminInfo(ledgerHash);
 		return initLedgerBaseSettings(ledgerAdminInfo);
 	}
@@ -81,23 +94,39 @@ public class GatewayQueryServiceHandler implements GatewayQueryService {
 	@Override
 	public DecompliedContractInfo getContractSettings(HashDigest ledgerHash, String address) {
 		ContractInfo contractInfo = peerService.getQueryService(ledgerHash).getContract(ledgerHash, address);
-		return contractSettings(contractInfo);
+		return contractSettings(ledgerHash, contractInfo);
 	}
 
-	private DecompliedContractInfo contractSettings(ContractInfo contractInfo) {
+	private DecompliedContractInfo contractSettings(HashDigest ledgerHash, ContractInfo contractInfo) {
 		DecompliedContractInfo contractSettings = new DecompliedContractInfo(contractInfo);
-		byte[] chainCodeBytes = contractInfo.getChainCode();
+		// 同一版本的合约只反编译一次
+		String mainClassJava = queryCache.getContractSource(ledgerHash, contractInfo.getAddress(),
+				contractInfo.getChainCodeVersion(), () -> decompile(contractInfo));
+		if (mainClassJava != null) {
+			contractSettings.setChainCode(mainClassJava);
+		}
+
+		return contractSettings;
+	}
 
+	private String decompile(ContractInfo contractInfo) {
 		try {
 			// 将反编译chainCode
-			String mainClassJava = CONTRACT_PROCESSOR.decompileEntranceClass(chainCodeBytes, contractInfo.getLang());
-			contractSettings.setChainCode(mainClassJava);
+			return CONTRACT_PROCESSOR.decompileEntranceClass(contractInfo.getChainCode(), contractInfo.getLang());
 		} catch (Exception e) {
 			// 打印日志
 			logger.error(String.format("Decompile contract[%s] error !!!", contractInfo.getAddress().toBase58()), e);
+			return null;
 		}
+	}
 
-		return contractSettings;
+	/**
+	 * 查询缓存，可用于获取缓存的容量以及命中率
+	 *
+	 * @return
+	 */
+	public GatewayQueryCache getQueryCache() {
+		return queryCache;
 	}
 
 	/**
@@ -2,33 +2,22 @@ package com.jd.blockchain.gateway.service;
 
 import com.jd.blockchain.consensus.NodeNetworkAddresses;
 import com.jd.blockchain.crypto.HashDigest;
-import com.jd.blockchain.sdk.service.PeerAuthenticator;
 import com.jd.blockchain.sdk.service.PeerBlockchainServiceFactory;
-import com.jd.blockchain.setting.GatewayAuthResponse;
-import com.jd.blockchain.setting.LedgerIncomingSettings;
 import com.jd.blockchain.transaction.BlockchainQueryService;
 import com.jd.blockchain.transaction.TransactionService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import utils.net.NetworkAddress;
 
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Random;
-import java.util.Set;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
-
 /**
  * 共识节点连接
+ * <p>
+ * 账本在某个节点上的连接状态；底层连接由 {@link PeerConnection} 在同一节点的所有账本之间共享
  */
 public class LedgerPeerConnectionManager {
     // ping 定时周期，秒
     public static final int PING_INTERVAL = 2000;
     private static final Logger logger = LoggerFactory.getLogger(LedgerPeerConnectionManager.class);
-    private ScheduledExecutorService executorService;
 
     // 账本
     private HashDigest ledger;
@@ -37,30 +26,22 @@ public class LedgerPeerConnectionManager {
     private LedgerPeerConnectionListener connectionListener;
     // 是否有效
     private volatile State state;
-    // 连接工厂
-    private volatile PeerBlockchainServiceFactory blockchainServiceFactory;
+    // 节点共享连接
+    private volatile PeerConnection connection;
     // 账本变化监听
     private LedgersListener ledgersListener;
     // 最新区块高度
     private volatile long latestHeight;
-    // 可访问的账本列表
-    private Set<HashDigest> accessibleLedgers;
 
     private LedgersManagerContext context;
 
-    private PeerAuthenticator authenticator;
-
     public LedgerPeerConnectionManager(HashDigest ledger, NetworkAddress peerAddress, LedgersManagerContext context, LedgersListener ledgersListener) {
-        this.executorService = Executors.newScheduledThreadPool(2);
         this.latestHeight = -1;
         this.state = State.UNAVAILABLE;
         this.ledger = ledger;
-        this.accessibleLedgers = new HashSet<>();
-        this.accessibleLedgers.add(ledger);
         this.peerAddress = peerAddress;
         this.ledgersListener = ledgersListener;
         this.context = context;
-        this.authenticator = new PeerAuthenticator(peerAddress, context.getConsensusSslSecurity(), context.getKeyPair(), context.getSessionCredentialProvider());
     }
 
     public void setConnectionListener(LedgerPeerConnectionListener connectionListener) {
@@ -75,7 +56,13 @@ public class LedgerPeerConnectionManager {
         return peerAddress;
     }
 
+    private PeerBlockchainServiceFactory getBlockchainServiceFactory() {
+        PeerConnection conn = connection;
+        return null != conn ? conn.getBlockchainServiceFactory() : null;
+    }
+
     public BlockchainQueryService getQueryService() {
+        PeerBlockchainServiceFactory blockchainServiceFactory = getBlockchainServiceFactory();
         if (null != blockchainServiceFactory) {
             return blockchainServiceFactory.getBlockchainService();
         }
@@ -84,10 +71,11 @@ public class LedgerPeerConnectionManager {
     }
 
     public boolean connected() {
-        return null != blockchainServiceFactory;
+        return null != getBlockchainServiceFactory();
     }
 
     public TransactionService getTransactionService() {
+        PeerBlockchainServiceFactory blockchainServiceFactory = getBlockchainServiceFactory();
         if (null != blockchainServiceFactory) {
             return blockchainServiceFactory.getTransactionService();
         }
@@ -96,34 +84,26 @@ public class LedgerPeerConnectionManager {
     }
 
     public NodeNetworkAddresses loadMonitors() {
-        if (!connected()) {
-            connectTask();
-        }
-        return connected() ? blockchainServiceFactory.getMonitorServiceMap().get(ledger).loadMonitors() : null;
+        PeerConnection conn = connection;
+        return null != conn ? conn.loadMonitors(ledger) : null;
     }
 
+    /**
+     * 注册到节点的共享连接，由共享连接执行有效性检测、重连以及认证
+     */
     public synchronized void startTimerTask() {
-        int randomDelay = new Random().nextInt(500);
-        // 启动有效性检测或重连
-        executorService.scheduleWithFixedDelay(() -> {
-            try {
-                if (connected()) {
-                    pingTask();
-                } else {
-                    connectTask();
-                }
-            } catch (Exception e) {
-                logger.error("Ping or Reconnect {}-{} error", ledger, peerAddress, e);
-            }
-        }, randomDelay, context.getPeerConnectionPin() > 0 ? context.getPeerConnectionPin() : PING_INTERVAL, TimeUnit.MILLISECONDS);
+        if (null == connection) {
+            connection = context.getPeerConnectionPool().register(this, ledgersListener);
+        }
+    }
 
-        // 认证线程
-        if (context.getPeerConnectionAuth() > 0) {
-            executorService.scheduleWithFixedDelay(() -> {
-                if (connected()) {
-                    authTask();
-                }
-            }, 2 * randomDelay, context.getPeerConnectionAuth(), TimeUnit.MILLISECONDS);
+    /**
+     * 在共享连接上重新建立到节点的连接
+     */
+    public void reconnect() {
+        PeerConnection conn = connection;
+        if (null != conn) {
+            conn.reconnect();
         }
     }
 
@@ -158,143 +138,45 @@ public class LedgerPeerConnectionManager {
         }
     }
 
-    public synchronized void close() {
-        try {
-            executorService.shutdownNow();
-            if (null != blockchainServiceFactory) {
-                blockchainServiceFactory.close();
-            }
-            blockchainServiceFactory = null;
-            connectionListener = null;
-            ledgersListener = null;
-            logger.info("Shutdown {}:{}", ledger, peerAddress);
-        } catch (Exception e) {
-            logger.error("Shutdown {}:{}", ledger, peerAddress, e);
-        }
+    void setState(State state) {
+        this.state = state;
     }
 
     /**
-     * 连接
+     * 更新有效性检测查询到的最新区块高度
+     *
+     * @param height 最新区块高度，查询失败时为-1
      */
-    private synchronized void connectTask() {
-        logger.debug("Connect {}-{}", ledger, peerAddress);
-        try {
-            Set<HashDigest> ledgers = new HashSet<>(Arrays.asList(connect()));
-            logger.info("Connect {}-{}:{}", ledger, peerAddress, ledgers);
-            if (ledgers.contains(ledger)) {
-                state = State.AVAILABLE;
-                if (null != connectionListener) {
-                    connectionListener.connected(peerAddress);
-                }
-            } else {
-                state = State.UnAuthorized;
-            }
-
-            // 触发账本变化处理
-            if (accessibleLedgers.size() != ledgers.size() || !accessibleLedgers.containsAll(ledgers)) {
-                notifyLedgersChange(ledgers);
-                accessibleLedgers = ledgers;
-            }
-
-        } catch (Exception e) {
-            state = State.UNAVAILABLE;
-            logger.error("Connect {}-{} error", ledger, peerAddress, e);
+    void updateLatestHeight(long height) {
+        boolean wasAvailable = isAvailable();
+        latestHeight = height;
+        state = height >= 0 ? State.AVAILABLE : State.UNAVAILABLE;
+        if (!wasAvailable && isAvailable()) {
+            notifyConnected();
         }
     }
 
-    public synchronized HashDigest[] connect() {
-        PeerBlockchainServiceFactory factory = PeerBlockchainServiceFactory.connect(context.getKeyPair(), peerAddress, context.getManageSslSecurity(),
-                context.getConsensusSslSecurity(), context.getSessionCredentialProvider(), context.getClientManager());
-        if (null != blockchainServiceFactory) {
-            blockchainServiceFactory.close();
+    void notifyConnected() {
+        LedgerPeerConnectionListener listener = connectionListener;
+        if (null != listener) {
+            listener.connected(peerAddress);
         }
-        blockchainServiceFactory = factory;
-        return factory.getLedgerHashs();
     }
 
-    /**
-     * 认证
-     */
-    private synchronized void authTask() {
-        logger.debug("Auth {}-{}", ledger, peerAddress);
+    public synchronized void close() {
         try {
-            GatewayAuthResponse authResponse = auth();
-            Set<HashDigest> ledgers = Arrays.stream(authResponse.getLedgers()).map(LedgerIncomingSettings::getLedgerHash).collect(Collectors.toSet());
-            if (ledgers.contains(ledger)) {
-                state = State.AVAILABLE;
-            } else {
-                logger.warn("Auth {}-{} response no ledger", ledger, peerAddress);
-                state = State.UnAuthorized;
-            }
-
-            if (accessibleLedgers.size() != ledgers.size() || !accessibleLedgers.containsAll(ledgers)) {
-                if (isAvailable()) {
-                    // 重新建立连接信息
-                    try {
-                        logger.info("Auth {}-{} recreate connection", ledger, peerAddress);
-                        blockchainServiceFactory.close();
-                        blockchainServiceFactory = PeerBlockchainServiceFactory.create(context.getKeyPair(), peerAddress, context.getManageSslSecurity(), context.getConsensusSslSecurity(),
-                                authResponse.getLedgers(), context.getSessionCredentialProvider(), context.getClientManager());
-                    } catch (Exception e) {
-                        logger.warn("Auth {}-{} recreate connection", ledger, peerAddress, e);
-                    }
-                }
-
-                // 触发账本变化处理
-                notifyLedgersChange(ledgers);
-                accessibleLedgers = ledgers;
+            if (null != connection) {
+                context.getPeerConnectionPool().unregister(this);
             }
-
+            connection = null;
+            connectionListener = null;
+            ledgersListener = null;
+            logger.info("Shutdown {}:{}", ledger, peerAddress);
         } catch (Exception e) {
-            state = State.UNAVAILABLE;
-            logger.error("Auth {}-{} error", ledger, peerAddress, e);
-        }
-    }
-
-    public GatewayAuthResponse auth() {
-        return authenticator.request();
-    }
-
-    /**
-     * 账本变化处理
-     *
-     * @param ledgers
-     */
-    private void notifyLedgersChange(Set<HashDigest> ledgers) {
-        Set<HashDigest> ledgersToAdd = new HashSet<>();
-        ledgersToAdd.addAll(ledgers);
-        ledgersToAdd.remove(ledger);
-        if (null != ledgersListener && ledgersToAdd.size() > 0) {
-            logger.info("Ledgers update {}->{}, only for adding", accessibleLedgers, ledgers);
-            executorService.execute(() -> {
-                ledgersListener.LedgersUpdated(ledgersToAdd, context.getKeyPair(), peerAddress);
-            });
-        }
-    }
-
-    /**
-     * 有效性检测
-     * <p>
-     * 通过查询账本信息检测有效性，并更新最新区块高度信息
-     */
-    private synchronized void pingTask() {
-        if (isAuthorized()) {
-            logger.debug("Ping {}-{}", ledger, peerAddress);
-            try {
-                latestHeight = ping();
-                state = latestHeight >= 0 ? State.AVAILABLE : State.UNAVAILABLE;
-            } catch (Exception e) {
-                latestHeight = -1;
-                state = State.UNAVAILABLE;
-                logger.error("Ping {}-{} error", ledger, peerAddress, e);
-            }
+            logger.error("Shutdown {}:{}", ledger, peerAddress, e);
         }
     }
 
-    public long ping() {
-        return blockchainServiceFactory.getBlockchainService().getLedger(ledger).getLatestBlockHeight();
-    }
-
     /**
      * 节点连接状态
      */
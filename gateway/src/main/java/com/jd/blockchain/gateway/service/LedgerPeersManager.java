@@ -33,6 +33,8 @@ public class LedgerPeersManager implements LedgerPeerConnectionListener {
     private LedgersListener ledgersListener;
     // 连接列表
     private Map<NetworkAddress, LedgerPeerConnectionManager> connections;
+    // 只读副本连接列表
+    private List<LedgerReplicaConnection> replicas;
 
     private ReadWriteLock connectionsLock = new ReentrantReadWriteLock();
 
@@ -49,6 +51,13 @@ public class LedgerPeersManager implements LedgerPeerConnectionListener {
             manager.setConnectionListener(this);
             connections.put(manager.getPeerAddress(), manager);
         }
+        this.replicas = new ArrayList<>();
+        NetworkAddress[] replicaAddresses = context.getReplicaAddresses();
+        if (null != replicaAddresses) {
+            for (NetworkAddress address : replicaAddresses) {
+                replicas.add(new LedgerReplicaConnection(ledger, address, context));
+            }
+        }
     }
 
     public LedgerPeerConnectionManager newPeerConnectionManager(NetworkAddress peerAddress) {
@@ -78,6 +87,11 @@ public class LedgerPeersManager implements LedgerPeerConnectionListener {
                 }
 
                 if (highestHeight > -1) {
+                    // 优先使用未落后的只读副本
+                    BlockchainQueryService replicaQueryService = getReplicaQueryService(highestHeight);
+                    if (null != replicaQueryService) {
+                        return replicaQueryService;
+                    }
                     Set<NetworkAddress> selectedConnections = connectionGroupByHeight.get(highestHeight);
                     return connections.get(new ArrayList(selectedConnections).get(new Random().nextInt(selectedConnections.size()))).getQueryService();
                 }
@@ -97,6 +111,29 @@ public class LedgerPeersManager implements LedgerPeerConnectionListener {
         throw new IllegalStateException("No available query service for ledger: " + ledger);
     }
 
+    /**
+     * 随机选择一个落后于共识节点不超过配置区块数的只读副本
+     *
+     * @param highestHeight 共识节点的最新区块高度
+     * @return 没有可用副本时返回 null
+     */
+    private BlockchainQueryService getReplicaQueryService(long highestHeight) {
+        if (replicas.isEmpty()) {
+            return null;
+        }
+        List<BlockchainQueryService> selectedReplicas = new ArrayList<>();
+        for (LedgerReplicaConnection replica : replicas) {
+            BlockchainQueryService queryService = replica.getQueryService();
+            if (null != queryService && replica.getLatestHeight() >= highestHeight - context.getReplicaMaxLag()) {
+                selectedReplicas.add(queryService);
+            }
+        }
+        if (selectedReplicas.isEmpty()) {
+            return null;
+        }
+        return selectedReplicas.get(new Random().nextInt(selectedReplicas.size()));
+    }
+
     public TransactionService getTransactionService() {
         int retryTimes = 10;
         while (retryTimes > 0) {
@@ -170,6 +207,9 @@ public class LedgerPeersManager implements LedgerPeerConnectionListener {
         for (LedgerPeerConnectionManager manager : connections.values()) {
             manager.startTimerTask();
         }
+        for (LedgerReplicaConnection replica : replicas) {
+            replica.startTimerTask();
+        }
 
         if (context.isAwareTopology()) {
             // 启动定期拓扑感知
@@ -309,6 +349,10 @@ public class LedgerPeersManager implements LedgerPeerConnectionListener {
                 LedgerPeerConnectionManager connectionManager = newPeerConnectionManager(address);
                 connectionManager.setConnectionListener(this);
                 connectionManager.startTimerTask();
+                if (force) {
+                    // 节点连接在账本之间共享，强制更新时重新建立连接
+                    connectionManager.reconnect();
+                }
                 newConnections.put(address, connectionManager);
             }
 
@@ -329,6 +373,9 @@ public class LedgerPeersManager implements LedgerPeerConnectionListener {
             for (Map.Entry<NetworkAddress, LedgerPeerConnectionManager> entry : connections.entrySet()) {
                 entry.getValue().close();
             }
+            for (LedgerReplicaConnection replica : replicas) {
+                replica.close();
+            }
 
             executorService.shutdownNow();
 
@@ -0,0 +1,113 @@
+package com.jd.blockchain.gateway.service;
+
+import com.jd.blockchain.crypto.HashDigest;
+import com.jd.blockchain.sdk.proxy.HttpBlockchainBrowserService;
+import com.jd.blockchain.transaction.BlockchainQueryService;
+import com.jd.httpservice.agent.HttpServiceAgent;
+import com.jd.httpservice.agent.ServiceConnection;
+import com.jd.httpservice.agent.ServiceConnectionManager;
+import com.jd.httpservice.agent.ServiceEndpoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import utils.net.NetworkAddress;
+
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 只读副本节点连接
+ * <p>
+ * 副本节点不参与共识，只提供查询服务，因此不需要接入认证；定期查询副本的最新区块高度，用于判断副本是否落后
+ */
+public class LedgerReplicaConnection {
+
+    private static final Logger logger = LoggerFactory.getLogger(LedgerReplicaConnection.class);
+
+    private ScheduledExecutorService executorService;
+
+    // 账本
+    private HashDigest ledger;
+    // 副本节点地址
+    private NetworkAddress replicaAddress;
+
+    private LedgersManagerContext context;
+
+    private volatile ServiceConnection connection;
+
+    private volatile BlockchainQueryService queryService;
+    // 最新区块高度，不可用时为-1
+    private volatile long latestHeight;
+
+    public LedgerReplicaConnection(HashDigest ledger, NetworkAddress replicaAddress, LedgersManagerContext context) {
+        this.executorService = Executors.newSingleThreadScheduledExecutor();
+        this.latestHeight = -1;
+        this.ledger = ledger;
+        this.replicaAddress = replicaAddress;
+        this.context = context;
+    }
+
+    public NetworkAddress getReplicaAddress() {
+        return replicaAddress;
+    }
+
+    public BlockchainQueryService getQueryService() {
+        return queryService;
+    }
+
+    /**
+     * 最新区块高度
+     *
+     * @return 最新区块高度，处于不可用状态时返回-1
+     */
+    public long getLatestHeight() {
+        return latestHeight;
+    }
+
+    public synchronized void startTimerTask() {
+        int randomDelay = new Random().nextInt(500);
+        executorService.scheduleWithFixedDelay(() -> pingTask(), randomDelay,
+                context.getPeerConnectionPin() > 0 ? context.getPeerConnectionPin() : LedgerPeerConnectionManager.PING_INTERVAL,
+                TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void close() {
+        executorService.shutdownNow();
+        closeConnection();
+        logger.info("Shutdown replica {}:{}", ledger, replicaAddress);
+    }
+
+    /**
+     * 有效性检测
+     * <p>
+     * 通过查询账本信息检测有效性，并更新最新区块高度信息
+     */
+    private synchronized void pingTask() {
+        try {
+            if (null == queryService) {
+                ServiceEndpoint endpoint = new ServiceEndpoint(replicaAddress);
+                endpoint.setSslSecurity(context.getManageSslSecurity());
+                connection = ServiceConnectionManager.connect(endpoint);
+                queryService = HttpServiceAgent.createService(HttpBlockchainBrowserService.class, connection, null);
+            }
+            latestHeight = queryService.getLedger(ledger).getLatestBlockHeight();
+        } catch (Exception e) {
+            latestHeight = -1;
+            closeConnection();
+            logger.error("Ping replica {}-{} error", ledger, replicaAddress, e);
+        }
+    }
+
+    private void closeConnection() {
+        queryService = null;
+        if (null != connection) {
+            try {
+                connection.close();
+            } catch (Exception e) {
+                logger.warn("Close replica connection {}-{} error", ledger, replicaAddress, e);
+            }
+            connection = null;
+        }
+    }
+}
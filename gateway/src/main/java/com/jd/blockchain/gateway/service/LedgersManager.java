@@ -362,6 +362,9 @@ public class LedgersManager implements LedgersService, LedgersListener, EventLis
                     logger.error("Close peersService {} error", peersService.getLedger(), e);
                 }
             }
+            if (null != context) {
+                context.getPeerConnectionPool().close();
+            }
         } finally {
             ledgersLock.writeLock().unlock();
         }
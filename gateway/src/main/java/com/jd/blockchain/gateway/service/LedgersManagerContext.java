@@ -5,6 +5,7 @@ import com.jd.blockchain.gateway.GatewayConfigProperties;
 import com.jd.blockchain.gateway.service.topology.LedgerPeersTopologyStorage;
 import com.jd.blockchain.sdk.service.ConsensusClientManager;
 import com.jd.blockchain.sdk.service.SessionCredentialProvider;
+import utils.net.NetworkAddress;
 import utils.net.SSLSecurity;
 
 /**
@@ -17,6 +18,8 @@ public class LedgersManagerContext {
     private ConsensusClientManager clientManager;
     private SessionCredentialProvider sessionCredentialProvider;
     private LedgerPeersTopologyStorage topologyStorage;
+    // 共识节点共享连接
+    private PeerConnectionPool peerConnectionPool;
 
     // peer管理服务TLS配置信息
     private SSLSecurity manageSslSecurity;
@@ -32,6 +35,11 @@ public class LedgersManagerContext {
         this.topologyStorage = topologyStorage;
         this.manageSslSecurity = manageSslSecurity;
         this.consensusSslSecurity = consensusSslSecurity;
+        this.peerConnectionPool = new PeerConnectionPool(this);
+    }
+
+    public PeerConnectionPool getPeerConnectionPool() {
+        return peerConnectionPool;
     }
 
     public ConsensusClientManager getClientManager() {
@@ -101,4 +109,12 @@ public class LedgersManagerContext {
     public int getPeerConnectionAuth() {
         return this.configProperties.getPeerConnectionAuth();
     }
+
+    public NetworkAddress[] getReplicaAddresses() {
+        return this.configProperties.getReplicaAddresses();
+    }
+
+    public int getReplicaMaxLag() {
+        return this.configProperties.getReplicaMaxLag();
+    }
 }
@@ -0,0 +1,283 @@
+package com.jd.blockchain.gateway.service;
+
+import com.jd.blockchain.consensus.NodeNetworkAddresses;
+import com.jd.blockchain.crypto.HashDigest;
+import com.jd.blockchain.sdk.service.PeerAuthenticator;
+import com.jd.blockchain.sdk.service.PeerBlockchainServiceFactory;
+import com.jd.blockchain.setting.GatewayAuthResponse;
+import com.jd.blockchain.setting.LedgerIncomingSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import utils.net.NetworkAddress;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 共识节点连接，同一节点上的所有账本共用一个连接
+ * <p>
+ * 各账本通过 {@link LedgerPeerConnectionManager} 注册到连接上；连接的有效性检测、重连以及认证由共享的定时线程统一执行，
+ * 一次检测依次查询该节点上所有已注册账本的最新区块高度；节点可访问的账本发生变化时更新当前连接，不再由每个账本分别重建
+ */
+public class PeerConnection {
+
+    private static final Logger logger = LoggerFactory.getLogger(PeerConnection.class);
+
+    // 所连接节点地址等信息
+    private NetworkAddress peerAddress;
+
+    private LedgersManagerContext context;
+
+    private ScheduledExecutorService executorService;
+
+    private PeerAuthenticator authenticator;
+
+    // 账本变化监听
+    private volatile LedgersListener ledgersListener;
+
+    // 连接工厂
+    private volatile PeerBlockchainServiceFactory blockchainServiceFactory;
+
+    // 已注册的账本连接
+    private Set<LedgerPeerConnectionManager> members = new CopyOnWriteArraySet<>();
+
+    // 可访问的账本列表
+    private volatile Set<HashDigest> accessibleLedgers = new HashSet<>();
+
+    private List<ScheduledFuture<?>> timerTasks = new ArrayList<>();
+
+    public PeerConnection(NetworkAddress peerAddress, LedgersManagerContext context, ScheduledExecutorService executorService,
+                          LedgersListener ledgersListener) {
+        this.peerAddress = peerAddress;
+        this.context = context;
+        this.executorService = executorService;
+        this.ledgersListener = ledgersListener;
+        this.authenticator = new PeerAuthenticator(peerAddress, context.getConsensusSslSecurity(), context.getKeyPair(), context.getSessionCredentialProvider());
+    }
+
+    public NetworkAddress getPeerAddress() {
+        return peerAddress;
+    }
+
+    public PeerBlockchainServiceFactory getBlockchainServiceFactory() {
+        return blockchainServiceFactory;
+    }
+
+    public boolean connected() {
+        return null != blockchainServiceFactory;
+    }
+
+    void register(LedgerPeerConnectionManager member) {
+        members.add(member);
+        Set<HashDigest> ledgers = accessibleLedgers;
+        if (connected() && !ledgers.isEmpty() && !ledgers.contains(member.getLedger())) {
+            member.setState(LedgerPeerConnectionManager.State.UnAuthorized);
+        }
+    }
+
+    void unregister(LedgerPeerConnectionManager member) {
+        members.remove(member);
+    }
+
+    boolean isIdle() {
+        return members.isEmpty();
+    }
+
+    public synchronized void startTimerTask() {
+        int randomDelay = new Random().nextInt(500);
+        // 启动有效性检测或重连
+        timerTasks.add(executorService.scheduleWithFixedDelay(() -> {
+            try {
+                if (connected()) {
+                    pingTask();
+                } else {
+                    connectTask();
+                }
+            } catch (Exception e) {
+                logger.error("Ping or Reconnect {} error", peerAddress, e);
+            }
+        }, randomDelay, context.getPeerConnectionPin() > 0 ? context.getPeerConnectionPin() : LedgerPeerConnectionManager.PING_INTERVAL, TimeUnit.MILLISECONDS));
+
+        // 认证线程
+        if (context.getPeerConnectionAuth() > 0) {
+            timerTasks.add(executorService.scheduleWithFixedDelay(() -> {
+                if (connected()) {
+                    authTask();
+                }
+            }, 2 * randomDelay, context.getPeerConnectionAuth(), TimeUnit.MILLISECONDS));
+        }
+    }
+
+    /**
+     * 在共享的定时线程中重新建立连接
+     */
+    public void reconnect() {
+        executorService.execute(this::connectTask);
+    }
+
+    public synchronized void close() {
+        try {
+            for (ScheduledFuture<?> task : timerTasks) {
+                task.cancel(true);
+            }
+            timerTasks.clear();
+            if (null != blockchainServiceFactory) {
+                blockchainServiceFactory.close();
+            }
+            blockchainServiceFactory = null;
+            ledgersListener = null;
+            logger.info("Shutdown {}", peerAddress);
+        } catch (Exception e) {
+            logger.error("Shutdown {}", peerAddress, e);
+        }
+    }
+
+    public NodeNetworkAddresses loadMonitors(HashDigest ledger) {
+        if (!connected()) {
+            connectTask();
+        }
+        PeerBlockchainServiceFactory factory = blockchainServiceFactory;
+        return null != factory ? factory.getMonitorServiceMap().get(ledger).loadMonitors() : null;
+    }
+
+    /**
+     * 连接
+     */
+    synchronized void connectTask() {
+        logger.debug("Connect {}", peerAddress);
+        try {
+            PeerBlockchainServiceFactory factory = PeerBlockchainServiceFactory.connect(context.getKeyPair(), peerAddress, context.getManageSslSecurity(),
+                    context.getConsensusSslSecurity(), context.getSessionCredentialProvider(), context.getClientManager());
+            if (null != blockchainServiceFactory) {
+                blockchainServiceFactory.close();
+            }
+            blockchainServiceFactory = factory;
+            Set<HashDigest> ledgers = new HashSet<>(Arrays.asList(factory.getLedgerHashs()));
+            logger.info("Connect {}:{}", peerAddress, ledgers);
+            for (LedgerPeerConnectionManager member : members) {
+                if (ledgers.contains(member.getLedger())) {
+                    member.setState(LedgerPeerConnectionManager.State.AVAILABLE);
+                    member.notifyConnected();
+                } else {
+                    member.setState(LedgerPeerConnectionManager.State.UnAuthorized);
+                }
+            }
+
+            // 触发账本变化处理
+            if (accessibleLedgers.size() != ledgers.size() || !accessibleLedgers.containsAll(ledgers)) {
+                notifyLedgersChange(ledgers);
+                accessibleLedgers = ledgers;
+            }
+
+        } catch (Exception e) {
+            for (LedgerPeerConnectionManager member : members) {
+                member.setState(LedgerPeerConnectionManager.State.UNAVAILABLE);
+            }
+            logger.error("Connect {} error", peerAddress, e);
+        }
+    }
+
+    /**
+     * 认证
+     */
+    private synchronized void authTask() {
+        logger.debug("Auth {}", peerAddress);
+        try {
+            GatewayAuthResponse authResponse = authenticator.request();
+            Set<HashDigest> ledgers = Arrays.stream(authResponse.getLedgers()).map(LedgerIncomingSettings::getLedgerHash).collect(Collectors.toSet());
+            for (LedgerPeerConnectionManager member : members) {
+                if (ledgers.contains(member.getLedger())) {
+                    member.setState(LedgerPeerConnectionManager.State.AVAILABLE);
+                } else {
+                    logger.warn("Auth {}-{} response no ledger", member.getLedger(), peerAddress);
+                    member.setState(LedgerPeerConnectionManager.State.UnAuthorized);
+                }
+            }
+
+            if (accessibleLedgers.size() != ledgers.size() || !accessibleLedgers.containsAll(ledgers)) {
+                if (!ledgers.isEmpty()) {
+                    // 按最新的账本列表更新连接，所有账本共用
+                    try {
+                        logger.info("Auth {} update connection for ledgers {}", peerAddress, ledgers);
+                        PeerBlockchainServiceFactory factory = PeerBlockchainServiceFactory.create(context.getKeyPair(), peerAddress, context.getManageSslSecurity(),
+                                context.getConsensusSslSecurity(), authResponse.getLedgers(), context.getSessionCredentialProvider(), context.getClientManager());
+                        PeerBlockchainServiceFactory oldFactory = blockchainServiceFactory;
+                        blockchainServiceFactory = factory;
+                        if (null != oldFactory) {
+                            oldFactory.close();
+                        }
+                    } catch (Exception e) {
+                        logger.warn("Auth {} update connection", peerAddress, e);
+                    }
+                }
+
+                // 触发账本变化处理
+                notifyLedgersChange(ledgers);
+                accessibleLedgers = ledgers;
+            }
+
+        } catch (Exception e) {
+            for (LedgerPeerConnectionManager member : members) {
+                member.setState(LedgerPeerConnectionManager.State.UNAVAILABLE);
+            }
+            logger.error("Auth {} error", peerAddress, e);
+        }
+    }
+
+    /**
+     * 账本变化处理，只处理新增的账本
+     *
+     * @param ledgers
+     */
+    private void notifyLedgersChange(Set<HashDigest> ledgers) {
+        Set<HashDigest> ledgersToAdd = new HashSet<>(ledgers);
+        for (LedgerPeerConnectionManager member : members) {
+            ledgersToAdd.remove(member.getLedger());
+        }
+        LedgersListener listener = ledgersListener;
+        if (null != listener && ledgersToAdd.size() > 0) {
+            logger.info("Ledgers update {}->{}, only for adding", accessibleLedgers, ledgers);
+            executorService.execute(() -> {
+                listener.LedgersUpdated(ledgersToAdd, context.getKeyPair(), peerAddress);
+            });
+        }
+    }
+
+    /**
+     * 有效性检测
+     * <p>
+     * 通过当前连接依次查询所有已注册账本的最新区块高度，每个账本只查询一次
+     */
+    private synchronized void pingTask() {
+        Map<HashDigest, List<LedgerPeerConnectionManager>> membersByLedger = new HashMap<>();
+        for (LedgerPeerConnectionManager member : members) {
+            if (member.isAuthorized()) {
+                membersByLedger.computeIfAbsent(member.getLedger(), k -> new ArrayList<>()).add(member);
+            }
+        }
+        for (Map.Entry<HashDigest, List<LedgerPeerConnectionManager>> entry : membersByLedger.entrySet()) {
+            logger.debug("Ping {}-{}", entry.getKey(), peerAddress);
+            long latestHeight;
+            try {
+                latestHeight = blockchainServiceFactory.getBlockchainService().getLedger(entry.getKey()).getLatestBlockHeight();
+            } catch (Exception e) {
+                latestHeight = -1;
+                logger.error("Ping {}-{} error", entry.getKey(), peerAddress, e);
+            }
+            for (LedgerPeerConnectionManager member : entry.getValue()) {
+                member.updateLatestHeight(latestHeight);
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.jd.blockchain.gateway.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import utils.net.NetworkAddress;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * 共识节点连接池，每个节点一个共享连接，所有连接共用一组定时线程
+ * <p>
+ * 账本连接注册时获取或创建节点连接，最后一个账本连接注销时关闭节点连接
+ */
+public class PeerConnectionPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(PeerConnectionPool.class);
+
+    private LedgersManagerContext context;
+
+    private ScheduledExecutorService executorService;
+
+    private Map<NetworkAddress, PeerConnection> connections = new HashMap<>();
+
+    public PeerConnectionPool(LedgersManagerContext context) {
+        this.context = context;
+        this.executorService = Executors.newScheduledThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * 把账本连接注册到对应节点的共享连接上，节点连接不存在时创建并启动定时任务
+     *
+     * @param member
+     * @param ledgersListener 账本变化监听
+     * @return
+     */
+    public synchronized PeerConnection register(LedgerPeerConnectionManager member, LedgersListener ledgersListener) {
+        PeerConnection connection = connections.get(member.getPeerAddress());
+        if (null == connection) {
+            connection = new PeerConnection(member.getPeerAddress(), context, executorService, ledgersListener);
+            connections.put(member.getPeerAddress(), connection);
+            connection.register(member);
+            connection.startTimerTask();
+            logger.info("Open peer connection {}", member.getPeerAddress());
+        } else {
+            connection.register(member);
+        }
+        return connection;
+    }
+
+    /**
+     * 注销账本连接，节点上不再有账本时关闭节点连接
+     *
+     * @param member
+     */
+    public synchronized void unregister(LedgerPeerConnectionManager member) {
+        PeerConnection connection = connections.get(member.getPeerAddress());
+        if (null == connection) {
+            return;
+        }
+        connection.unregister(member);
+        if (connection.isIdle()) {
+            connections.remove(member.getPeerAddress());
+            connection.close();
+        }
+    }
+
+    public synchronized void close() {
+        for (PeerConnection connection : connections.values()) {
+            connection.close();
+        }
+        connections.clear();
+        executorService.shutdownNow();
+    }
+}
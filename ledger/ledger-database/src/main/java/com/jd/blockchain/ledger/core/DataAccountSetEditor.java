@@ -5,6 +5,7 @@ import com.jd.blockchain.crypto.PubKey;
 import com.jd.blockchain.ledger.BlockchainIdentity;
 import com.jd.blockchain.ledger.CryptoSetting;
 import com.jd.blockchain.ledger.DigitalSignature;
+import com.jd.blockchain.ledger.LedgerBlock;
 import com.jd.blockchain.ledger.LedgerDataStructure;
 import com.jd.blockchain.ledger.MerkleProof;
 import com.jd.blockchain.ledger.cache.DataAccountCache;
@@ -28,25 +29,25 @@ public class DataAccountSetEditor implements Transactional, DataAccountSet {
 
 	public DataAccountSetEditor(CryptoSetting cryptoSetting, String prefix, ExPolicyKVStorage exStorage,
 			VersioningKVStorage verStorage, AccountAccessPolicy accessPolicy, LedgerDataStructure dataStructure,
-			DataAccountCache cache) {
+			boolean kvProof, DataAccountCache cache) {
 		this.cache = cache;
 		if (dataStructure.equals(LedgerDataStructure.MERKLE_TREE)) {
 			accountSet = new MerkleAccountSetEditor(cryptoSetting, Bytes.fromString(prefix), exStorage, verStorage, cache, accessPolicy);
 		} else {
-			accountSet = new KvAccountSetEditor(cryptoSetting, Bytes.fromString(prefix), exStorage, verStorage, accessPolicy, DatasetType.DATAS);
+			accountSet = new KvAccountSetEditor(cryptoSetting, Bytes.fromString(prefix), exStorage, verStorage, accessPolicy, DatasetType.DATAS, kvProof);
 		}
 	}
 
 	public DataAccountSetEditor(long preBlockHeight, HashDigest dataRootHash, CryptoSetting cryptoSetting, String prefix,
 									  ExPolicyKVStorage exStorage, VersioningKVStorage verStorage, boolean readonly, LedgerDataStructure dataStructure,
-								DataAccountCache cache, AccountAccessPolicy accessPolicy) {
+								boolean kvProof, DataAccountCache cache, AccountAccessPolicy accessPolicy) {
 		this.cache = cache;
 		if (dataStructure.equals(LedgerDataStructure.MERKLE_TREE)) {
 			accountSet = new MerkleAccountSetEditor(dataRootHash, cryptoSetting, Bytes.fromString(prefix), exStorage, verStorage,
 					readonly, cache, accessPolicy);
 		} else {
 			accountSet = new KvAccountSetEditor(preBlockHeight, dataRootHash, cryptoSetting, Bytes.fromString(prefix), exStorage, verStorage,
-					readonly, accessPolicy, DatasetType.DATAS);
+					readonly, accessPolicy, DatasetType.DATAS, kvProof);
 		}
 	}
 
@@ -82,6 +83,42 @@ public class DataAccountSetEditor implements Transactional, DataAccountSet {
 		return accountSet.getProof(address);
 	}
 
+	/**
+	 * 返回数据账户中指定键值从写入的值到区块哈希的证明；
+	 * <p>
+	 * 仅支持采用 {@link KvAccumulator} 的 KV 结构账本；
+	 *
+	 * @param block   当前数据账户集所属的区块；
+	 * @param address 数据账户地址；
+	 * @param key     键；
+	 * @param version 版本；-1 表示最新版本；
+	 * @return 不支持证明，或者账户、数据不存在时返回 null；
+	 */
+	public KvDataProof getKvDataProof(LedgerBlock block, Bytes address, Bytes key, long version) {
+		if (!(accountSet instanceof KvAccountSetEditor)) {
+			return null;
+		}
+		if (!block.getDataAccountSetHash().equals(getRootHash())) {
+			throw new IllegalArgumentException("The data account set doesn't belong to the specified block! --"
+					+ block.getHeight());
+		}
+		KvAccountSetEditor kvAccountSet = (KvAccountSetEditor) accountSet;
+		KvAccumulatorProof accountProof = kvAccountSet.getAccountProof(address);
+		if (accountProof == null) {
+			return null;
+		}
+		// 按证明的账户版本加载账户，使数据的证明与账户快照一致；
+		KvComplecatedAccount kvAccount = (KvComplecatedAccount) kvAccountSet.getAccount(address,
+				accountProof.getVersion());
+		KvAccumulatorProof dataProof = kvAccount.getDataProof(key, version);
+		if (dataProof == null) {
+			return null;
+		}
+		byte[] value = kvAccount.getDataDataset().getValue(key, dataProof.getVersion());
+		byte[] accountSnapshot = kvAccountSet.getAccountSnapshot(address, accountProof.getVersion());
+		return new KvDataProof(value, dataProof, accountSnapshot, accountProof, block);
+	}
+
 	public DataAccount register(Bytes address, PubKey pubKey, DigitalSignature addressSignature) {
 		// TODO: 未实现对地址签名的校验和记录；
 		if(logger.isDebugEnabled()){
@@ -0,0 +1,21 @@
+package com.jd.blockchain.ledger.core;
+
+/**
+ * 查询的历史版本已被存储清理；
+ * <p>
+ * 存储可以配置只保留最近若干区块内可见的历史版本，更早的版本被删除后不再可以查询；与数据缺失或被篡改相区分；
+ *
+ */
+public class DataPrunedException extends RuntimeException {
+
+	private static final long serialVersionUID = -2710511167046780109L;
+
+	public DataPrunedException(String message) {
+		super(message);
+	}
+
+	public DataPrunedException(String message, Throwable cause) {
+		super(message, cause);
+	}
+
+}
@@ -1,7 +1,11 @@
 package com.jd.blockchain.ledger.core;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import com.jd.blockchain.crypto.HashDigest;
 import com.jd.blockchain.ledger.MerkleProof;
+import com.jd.blockchain.storage.service.VersioningKVStorage;
 
 import utils.Bytes;
 import utils.DataEntry;
@@ -43,6 +47,26 @@ public class DatasetHelper {
 		}
 	};
 
+	/**
+	 * 从多版本存储中读取指定版本的数据；
+	 * <p>
+	 * 版本是连续递增的，存储中已有更新的版本而指定的版本不存在时，表示该历史版本已被存储清理，抛出
+	 * {@link DataPrunedException} ，与数据不存在相区分；最新版本不会被清理；
+	 * 
+	 * @param storage 多版本存储；
+	 * @param key     存储中的键；
+	 * @param version 版本；
+	 * @return 数据；不存在时返回 null ；
+	 */
+	public static byte[] getVersionedValue(VersioningKVStorage storage, Bytes key, long version) {
+		byte[] value = storage.get(key, version);
+		if (value == null && version >= 0 && version < storage.getVersion(key)) {
+			throw new DataPrunedException(
+					"The historical version has been pruned from storage! --[key=" + key + "][version=" + version + "]");
+		}
+		return value;
+	}
+
 	/**
 	 * 适配两个不同类型参数的数据集；
 	 * 
@@ -105,6 +129,31 @@ public class DatasetHelper {
 		return new DatasetUpdatingMonitor<K, V>(dataset, listener);
 	}
 
+	/**
+	 * 批量读取多个键的最新数据项；
+	 * <p>
+	 * 数据集支持批量读取时一次遍历定位全部的键，否则逐个键读取；
+	 * 
+	 * @param <K>     键 类型；
+	 * @param <V>     值 类型；
+	 * @param dataset 数据集；为 null 时全部返回 null；
+	 * @param keys    键；
+	 * @return 与 keys 顺序一致，不存在的键对应 null；
+	 */
+	@SuppressWarnings("unchecked")
+	public static <K, V> DataEntry<K, V>[] getDataEntries(Dataset<K, V> dataset, List<K> keys) {
+		if (dataset instanceof IteratorDataset) {
+			return ((IteratorDataset<K, V>) dataset).getDataEntries(keys);
+		}
+		DataEntry<K, V>[] entries = new DataEntry[keys.size()];
+		if (dataset != null) {
+			for (int i = 0; i < entries.length; i++) {
+				entries[i] = dataset.getDataEntry(keys.get(i));
+			}
+		}
+		return entries;
+	}
+
 	/**
 	 * 数据修改监听器；
 	 * 
@@ -213,6 +262,11 @@ public class DatasetHelper {
 			return dataset.getDataEntries(fromIndex, count);
 		}
 
+		@Override
+		public DataEntry<K, V>[] getDataEntries(List<K> keys) {
+			return dataset.getDataEntries(keys);
+		}
+
 		@Override
 		public SkippingIterator<DataEntry<K, V>> idIterator() {
 			return dataset.idIterator();
@@ -363,6 +417,24 @@ public class DatasetHelper {
 			return (DataEntry<K2, V2>[]) dataset.getDataEntries(fromIndex, count);
 		}
 
+		@SuppressWarnings("unchecked")
+		@Override
+		public DataEntry<K2, V2>[] getDataEntries(List<K2> keys) {
+			List<K1> encodedKeys = new ArrayList<K1>(keys.size());
+			for (K2 key : keys) {
+				encodedKeys.add(keyMapper.encode(key));
+			}
+			DataEntry<K1, V1>[] entries = dataset.getDataEntries(encodedKeys);
+			DataEntry<K2, V2>[] results = new DataEntry[entries.length];
+			for (int i = 0; i < entries.length; i++) {
+				if (entries[i] != null) {
+					V2 v = valueMapper.decode(entries[i].getValue());
+					results[i] = new KeyValueEntry<K2, V2>(keys.get(i), v, entries[i].getVersion());
+				}
+			}
+			return results;
+		}
+
 		@Override
 		public boolean isUpdated() {
 			return dataset.isUpdated();
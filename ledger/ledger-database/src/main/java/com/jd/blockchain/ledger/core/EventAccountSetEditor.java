@@ -28,25 +28,26 @@ public class EventAccountSetEditor implements EventAccountSet, Transactional {
     private EventAccountCache cache;
 
     public EventAccountSetEditor(CryptoSetting cryptoSetting, String prefix, ExPolicyKVStorage exStorage,
-                           VersioningKVStorage verStorage, AccountAccessPolicy accessPolicy, LedgerDataStructure dataStructure, EventAccountCache cache) {
+                           VersioningKVStorage verStorage, AccountAccessPolicy accessPolicy, LedgerDataStructure dataStructure,
+                           boolean kvProof, EventAccountCache cache) {
         this.cache = cache;
         if (dataStructure.equals(LedgerDataStructure.MERKLE_TREE)) {
             accountSet = new MerkleAccountSetEditor(cryptoSetting, Bytes.fromString(prefix), exStorage, verStorage, cache, accessPolicy);
         } else {
-            accountSet = new KvAccountSetEditor(cryptoSetting, Bytes.fromString(prefix), exStorage, verStorage, accessPolicy, DatasetType.EVENTS);
+            accountSet = new KvAccountSetEditor(cryptoSetting, Bytes.fromString(prefix), exStorage, verStorage, accessPolicy, DatasetType.EVENTS, kvProof);
         }
     }
 
     public EventAccountSetEditor(long preBlockHeight, HashDigest dataRootHash, CryptoSetting cryptoSetting, String prefix,
                                        ExPolicyKVStorage exStorage, VersioningKVStorage verStorage, boolean readonly, LedgerDataStructure dataStructure,
-                                 EventAccountCache cache, AccountAccessPolicy accessPolicy) {
+                                 boolean kvProof, EventAccountCache cache, AccountAccessPolicy accessPolicy) {
         this.cache = cache;
         if (dataStructure.equals(LedgerDataStructure.MERKLE_TREE)) {
             accountSet = new MerkleAccountSetEditor(dataRootHash, cryptoSetting, Bytes.fromString(prefix), exStorage, verStorage,
                     readonly, cache, accessPolicy);
         } else {
             accountSet = new KvAccountSetEditor(preBlockHeight, dataRootHash, cryptoSetting, Bytes.fromString(prefix), exStorage, verStorage,
-                    readonly, accessPolicy, DatasetType.EVENTS);
+                    readonly, accessPolicy, DatasetType.EVENTS, kvProof);
         }
     }
 
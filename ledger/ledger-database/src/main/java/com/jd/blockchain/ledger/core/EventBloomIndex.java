@@ -0,0 +1,217 @@
+package com.jd.blockchain.ledger.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.jd.blockchain.storage.service.VersioningKVStorage;
+
+import utils.Bytes;
+import utils.io.BytesUtils;
+
+/**
+ * 区块事件的布隆过滤器索引；
+ * <p>
+ * 每个区块记录一个布隆过滤器，包含区块中发布的系统事件名、用户事件账户地址以及用户事件账户地址与事件名的组合；<br>
+ * 订阅者查询可能包含匹配事件的区块高度，跳过其余的区块，不必读取事件数据集；
+ * 布隆过滤器存在误判，返回的区块不一定包含匹配的事件，但不会遗漏包含匹配事件的区块；
+ * <p>
+ * 索引存储在独立的键空间中，不参与账本的默克尔哈希计算，因此不影响区块哈希；<br>
+ * 索引键的多个版本构成一个只追加的列表，每个区块一个版本，按区块高度递增排列；
+ * <p>
+ * 索引默认关闭，通过系统属性 {@link #ENABLED_PROPERTY} 开启；开启之前生成的区块不会补建索引；
+ */
+public class EventBloomIndex {
+
+	public static final String ENABLED_PROPERTY = "ledger.event-bloom";
+
+	private static final boolean ENABLED = Boolean.getBoolean(ENABLED_PROPERTY);
+
+	/**
+	 * 布隆过滤器的位数；
+	 */
+	private static final int BLOOM_BITS = 2048;
+
+	/**
+	 * 每个元素的哈希次数；
+	 */
+	private static final int BLOOM_HASHES = 4;
+
+	private static final byte SYSTEM_EVENT_TAG = 0;
+
+	private static final byte ACCOUNT_TAG = 1;
+
+	private static final byte ACCOUNT_EVENT_TAG = 2;
+
+	private static final Bytes BLOOM_PREFIX = Bytes.fromString("EB" + LedgerConsts.KEY_SEPERATOR);
+
+	private final Bytes bloomKey;
+
+	private final VersioningKVStorage storage;
+
+	/**
+	 * 当前区块的布隆过滤器；没有事件时为 null ；
+	 */
+	private long[] pendingBloom;
+
+	/**
+	 * @param keyPrefix 账本数据前缀；
+	 * @param storage   索引的存储；写入时为当前区块的存储，查询时为账本的存储；
+	 */
+	public EventBloomIndex(String keyPrefix, VersioningKVStorage storage) {
+		this.bloomKey = Bytes.fromString(keyPrefix).concat(BLOOM_PREFIX);
+		this.storage = storage;
+	}
+
+	/**
+	 * 是否开启了事件索引；
+	 *
+	 * @return
+	 */
+	public static boolean isEnabled() {
+		return ENABLED;
+	}
+
+	/**
+	 * 记录当前区块发布的事件；
+	 *
+	 * @param eventAccount 用户事件账户地址；系统事件为 null ；
+	 * @param eventName    事件名；
+	 */
+	public void addEvent(Bytes eventAccount, String eventName) {
+		if (pendingBloom == null) {
+			pendingBloom = new long[BLOOM_BITS / 64];
+		}
+		if (eventAccount == null) {
+			put(pendingBloom, item(null, eventName));
+		} else {
+			put(pendingBloom, item(eventAccount, null));
+			put(pendingBloom, item(eventAccount, eventName));
+		}
+	}
+
+	/**
+	 * 把当前区块的索引写入存储；
+	 *
+	 * @param blockHeight 区块高度；
+	 */
+	public void commit(long blockHeight) {
+		byte[] entry;
+		if (pendingBloom == null) {
+			entry = BytesUtils.toBytes(blockHeight);
+		} else {
+			entry = new byte[8 + pendingBloom.length * 8];
+			BytesUtils.toBytes(blockHeight, entry, 0);
+			for (int i = 0; i < pendingBloom.length; i++) {
+				BytesUtils.toBytes(pendingBloom[i], entry, 8 + i * 8);
+			}
+		}
+		pendingBloom = null;
+
+		long v = storage.set(bloomKey, entry, storage.getVersion(bloomKey));
+		if (v < 0) {
+			throw new IllegalStateException("Event bloom index conflict! --" + blockHeight);
+		}
+	}
+
+	/**
+	 * 查询在区块高度区间 [fromHeight, toHeight) 内可能包含匹配事件的区块高度；
+	 *
+	 * @param eventAccount 用户事件账户地址；为 null 时查询系统事件；
+	 * @param eventName    事件名；查询用户事件时可以为 null ，表示账户下的任意事件；
+	 * @param fromHeight   起始区块高度（含）；
+	 * @param toHeight     结束区块高度（不含）；
+	 * @param count        最大数量；下一页从返回的最后一个高度加 1 开始查询；
+	 * @return 按高度递增排列的区块高度；
+	 */
+	public long[] getBlockHeights(Bytes eventAccount, String eventName, long fromHeight, long toHeight, int count) {
+		if (eventAccount == null && eventName == null) {
+			throw new IllegalArgumentException("Event name and event account are both null!");
+		}
+		if (count <= 0 || count > LedgerConsts.MAX_LIST_COUNT) {
+			throw new IllegalArgumentException("Count exceed the upper limit[" + LedgerConsts.MAX_LIST_COUNT + "]!");
+		}
+		byte[] item = item(eventAccount, eventName);
+		List<Long> heights = new ArrayList<>();
+		long total = storage.getVersion(bloomKey) + 1;
+		for (long i = lowerBound(fromHeight, total); i < total && heights.size() < count; i++) {
+			byte[] entry = storage.get(bloomKey, i);
+			long height = BytesUtils.toLong(entry, 0);
+			if (height >= toHeight) {
+				break;
+			}
+			if (entry.length > 8 && mightContain(entry, item)) {
+				heights.add(height);
+			}
+		}
+		long[] result = new long[heights.size()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = heights.get(i);
+		}
+		return result;
+	}
+
+	/**
+	 * 第一个高度不小于指定值的索引位置；
+	 */
+	private long lowerBound(long height, long total) {
+		long low = 0;
+		long high = total;
+		while (low < high) {
+			long mid = (low + high) >>> 1;
+			if (BytesUtils.toLong(storage.get(bloomKey, mid), 0) < height) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	private static byte[] item(Bytes eventAccount, String eventName) {
+		if (eventAccount == null) {
+			return BytesUtils.concat(new byte[] { SYSTEM_EVENT_TAG }, BytesUtils.toBytes(eventName));
+		}
+		if (eventName == null) {
+			return BytesUtils.concat(new byte[] { ACCOUNT_TAG }, eventAccount.toBytes());
+		}
+		byte[] address = eventAccount.toBytes();
+		return BytesUtils.concat(new byte[] { ACCOUNT_EVENT_TAG, (byte) address.length }, address,
+				BytesUtils.toBytes(eventName));
+	}
+
+	private static void put(long[] bloom, byte[] item) {
+		long hash = fnv1a(item);
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32) | 1;
+		for (int i = 0; i < BLOOM_HASHES; i++) {
+			int bit = Math.floorMod(h1 + i * h2, BLOOM_BITS);
+			bloom[bit >>> 6] |= 1L << (bit & 63);
+		}
+	}
+
+	private static boolean mightContain(byte[] entry, byte[] item) {
+		long hash = fnv1a(item);
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32) | 1;
+		for (int i = 0; i < BLOOM_HASHES; i++) {
+			int bit = Math.floorMod(h1 + i * h2, BLOOM_BITS);
+			long word = BytesUtils.toLong(entry, 8 + (bit >>> 6) * 8);
+			if ((word & (1L << (bit & 63))) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * 64 位 FNV-1a 哈希；
+	 */
+	private static long fnv1a(byte[] bytes) {
+		long hash = 0xcbf29ce484222325L;
+		for (byte b : bytes) {
+			hash ^= b & 0xFF;
+			hash *= 0x100000001b3L;
+		}
+		return hash;
+	}
+}
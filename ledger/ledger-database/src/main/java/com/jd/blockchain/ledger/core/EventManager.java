@@ -42,6 +42,7 @@ public class EventManager implements EventOperationHandle {
             if (v < 0) {
                 throw new DataVersionConflictException();
             }
+            ((LedgerEventSetEditor) txCtx.getEventSet()).onPublished(address, event.getName());
         }
     }
 
@@ -54,6 +55,7 @@ public class EventManager implements EventOperationHandle {
         if (v < 0) {
             throw new DataVersionConflictException();
         }
+        ((LedgerEventSetEditor) txCtx.getEventSet()).onPublished(null, eventName);
 
         return v;
     }
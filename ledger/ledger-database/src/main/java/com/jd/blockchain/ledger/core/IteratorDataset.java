@@ -1,5 +1,7 @@
 package com.jd.blockchain.ledger.core;
 
+import java.util.List;
+
 import utils.DataEntry;
 import utils.Dataset;
 import utils.SkippingIterator;
@@ -35,4 +37,19 @@ public interface IteratorDataset<K, V> extends Transactional, MerkleProvable<K>,
 	 */
 	SkippingIterator<DataEntry<K, V>> kvIteratorDesc();
 
+	/**
+	 * 批量读取多个键的最新数据项；
+	 * 
+	 * @param keys
+	 * @return 与 keys 顺序一致，不存在的键对应 null；
+	 */
+	@SuppressWarnings("unchecked")
+	default DataEntry<K, V>[] getDataEntries(List<K> keys) {
+		DataEntry<K, V>[] entries = new DataEntry[keys.size()];
+		for (int i = 0; i < entries.length; i++) {
+			entries[i] = getDataEntry(keys.get(i));
+		}
+		return entries;
+	}
+
 }
\ No newline at end of file
@@ -61,6 +61,11 @@ public class KvAccountSetEditor implements BaseAccountSetEditor{
 
 	private AccountAccessPolicy accessPolicy;
 
+	/**
+	 * 账户集及其账户的数据集是否以 {@link KvAccumulator} 计算根哈希；
+	 */
+	private final boolean kvProof;
+
 	@Override
 	public boolean isReadonly() {
 		return kvDataset.isReadonly();
@@ -69,20 +74,22 @@ public class KvAccountSetEditor implements BaseAccountSetEditor{
 	private static final Bytes ACCOUNTSET_SEQUENCE_KEY_PREFIX = Bytes.fromString("SQ" + LedgerConsts.KEY_SEPERATOR);
 
 	public KvAccountSetEditor(CryptoSetting cryptoSetting, Bytes keyPrefix, ExPolicyKVStorage exStorage,
-							  VersioningKVStorage verStorage, AccountAccessPolicy accessPolicy, DatasetType datasetType) {
-		this(-1, null, cryptoSetting, keyPrefix, exStorage, verStorage, false, accessPolicy, datasetType);
+							  VersioningKVStorage verStorage, AccountAccessPolicy accessPolicy, DatasetType datasetType,
+							  boolean kvProof) {
+		this(-1, null, cryptoSetting, keyPrefix, exStorage, verStorage, false, accessPolicy, datasetType, kvProof);
 	}
 
 	public KvAccountSetEditor(long preBlockHeight, HashDigest rootHash, CryptoSetting cryptoSetting, Bytes keyPrefix,
 							  ExPolicyKVStorage exStorage, VersioningKVStorage verStorage, boolean readonly,
-							  AccountAccessPolicy accessPolicy, DatasetType datasetType) {
+							  AccountAccessPolicy accessPolicy, DatasetType datasetType, boolean kvProof) {
 		this.keyPrefix = keyPrefix;
 		this.cryptoSetting = cryptoSetting;
 		this.baseExStorage = exStorage;
 		this.baseVerStorage = verStorage;
 		this.preBlockHeight = preBlockHeight;
+		this.kvProof = kvProof;
 		this.kvDataset = new KvDataset(preBlockHeight, rootHash, datasetType, cryptoSetting, keyPrefix, this.baseExStorage,
-				this.baseVerStorage, readonly);
+				this.baseVerStorage, readonly, kvProof);
 
 		this.accessPolicy = accessPolicy;
 	}
@@ -97,6 +104,27 @@ public class KvAccountSetEditor implements BaseAccountSetEditor{
 		return kvDataset.getProof(key);
 	}
 
+	/**
+	 * 返回账户的最新快照在账户集根哈希下的存在性证明；
+	 *
+	 * @param address
+	 * @return 未采用累加器或者账户不存在时返回 null；
+	 */
+	public KvAccumulatorProof getAccountProof(Bytes address) {
+		return ((KvDataset) kvDataset).getKvProof(address, -1);
+	}
+
+	/**
+	 * 返回账户集中记录的指定版本的账户快照，即编码后的账户根哈希；
+	 *
+	 * @param address
+	 * @param version
+	 * @return
+	 */
+	byte[] getAccountSnapshot(Bytes address, long version) {
+		return kvDataset.getValue(address, version);
+	}
+
 
 	@Override
 	public SkippingIterator<BlockchainIdentity> identityIterator() {
@@ -455,14 +483,15 @@ public class KvAccountSetEditor implements BaseAccountSetEditor{
 
 		public InnerSimpleAccount(BlockchainIdentity accountID, CryptoSetting cryptoSetting, Bytes keyPrefix,
 				ExPolicyKVStorage exStorage, VersioningKVStorage verStorage) {
-			super(preBlockHeight, accountID, cryptoSetting, keyPrefix, exStorage, verStorage);
+			super(preBlockHeight, accountID, cryptoSetting, keyPrefix, exStorage, verStorage, kvProof);
 			this.version = -1;
 		}
 
 		public InnerSimpleAccount(BlockchainIdentity accountID, long version, HashDigest headerRootHash, HashDigest dataRootHash,
 				CryptoSetting cryptoSetting, Bytes keyPrefix, ExPolicyKVStorage exStorage,
 				VersioningKVStorage verStorage, boolean readonly) {
-			super(preBlockHeight, accountID, headerRootHash, dataRootHash, cryptoSetting, keyPrefix, exStorage, verStorage, readonly);
+			super(preBlockHeight, accountID, headerRootHash, dataRootHash, cryptoSetting, keyPrefix, exStorage, verStorage, readonly,
+					kvProof);
 			this.version = version;
 		}
 
@@ -0,0 +1,295 @@
+package com.jd.blockchain.ledger.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.jd.blockchain.crypto.Crypto;
+import com.jd.blockchain.crypto.HashDigest;
+import com.jd.blockchain.crypto.HashFunction;
+import com.jd.blockchain.storage.service.VersioningKVStorage;
+
+import utils.Bytes;
+import utils.io.BytesUtils;
+
+/**
+ * KV 数据集的只追加认证累加器，结构为默克尔山脉（Merkle Mountain Range）；
+ * <p>
+ * 每一次写入 KV 产生一个叶子，叶子按写入顺序追加；每次提交把新叶子并入山脉，山峰从右向左依次合并得到数据集的根哈希；<br>
+ * 节点按追加顺序编号存储，只追加不修改，一次追加只需要读取当前的山峰并写入 O(log n) 个新节点；<br>
+ * 每个根哈希都记录了对应的叶子数量，因此可以针对任意一个历史根哈希生成证明；
+ * <p>
+ * 哈希规则：<br>
+ * 叶子哈希 = H(0x00 || version || H(value) || key)；<br>
+ * 中间节点 = H(0x01 || left || right)；<br>
+ * 根哈希 = 山峰从右向左按中间节点的规则依次合并；
+ * <p>
+ * 是否采用由账本的结构版本决定（{@link LedgerStructureConfig#isKvProofEnabled(long)}），在初始化账本时确定；
+ * <p>
+ * 注：此实现不是线程安全的；
+ */
+public class KvAccumulator {
+
+	private static final byte LEAF_TAG = 0;
+
+	private static final byte NODE_TAG = 1;
+
+	private static final Bytes KEY_PREFIX = Bytes.fromString("MR" + LedgerConsts.KEY_SEPERATOR);
+
+	private static final Bytes NODE_PREFIX = Bytes.fromString("N" + LedgerConsts.KEY_SEPERATOR);
+
+	private static final Bytes ROOT_PREFIX = Bytes.fromString("R" + LedgerConsts.KEY_SEPERATOR);
+
+	private static final Bytes LEAF_PREFIX = Bytes.fromString("L" + LedgerConsts.KEY_SEPERATOR);
+
+	private final HashFunction hashFunction;
+
+	private final Bytes nodePrefix;
+
+	private final Bytes rootPrefix;
+
+	private final Bytes leafPrefix;
+
+	private final VersioningKVStorage storage;
+
+	/**
+	 * 尚未提交的写入；
+	 */
+	private final List<PendingLeaf> pendingLeaves = new ArrayList<>();
+
+	/**
+	 * @param hashFunction 哈希函数；
+	 * @param keyPrefix    数据集的前缀；
+	 * @param storage      累加器节点的存储；
+	 */
+	public KvAccumulator(HashFunction hashFunction, Bytes keyPrefix, VersioningKVStorage storage) {
+		// 不以数据集的前缀开头，避免与数据集中的 key 冲突；
+		Bytes prefix = KEY_PREFIX.concat(keyPrefix);
+		this.hashFunction = hashFunction;
+		this.nodePrefix = prefix.concat(NODE_PREFIX);
+		this.rootPrefix = prefix.concat(ROOT_PREFIX);
+		this.leafPrefix = prefix.concat(LEAF_PREFIX);
+		this.storage = storage;
+	}
+
+	/**
+	 * 记录一次写入；
+	 *
+	 * @param key     写入的 key，含数据集的前缀；
+	 * @param version 写入后的版本；
+	 * @param value   写入的值；
+	 */
+	public void add(Bytes key, long version, byte[] value) {
+		pendingLeaves.add(new PendingLeaf(key, version, hashFunction.hash(value)));
+	}
+
+	public boolean isUpdated() {
+		return !pendingLeaves.isEmpty();
+	}
+
+	public void cancel() {
+		pendingLeaves.clear();
+	}
+
+	/**
+	 * 把尚未提交的写入追加到累加器，并返回新的根哈希；
+	 *
+	 * @param originRoot 追加前的根哈希；
+	 * @return 追加后的根哈希；没有新的写入时返回 originRoot ；
+	 */
+	public HashDigest commit(HashDigest originRoot) {
+		if (pendingLeaves.isEmpty()) {
+			return originRoot;
+		}
+
+		long leafCount = 0;
+		List<HashDigest> peaks = new ArrayList<>();
+		List<Integer> heights = new ArrayList<>();
+		if (originRoot != null) {
+			leafCount = getLeafCount(originRoot);
+			if (leafCount < 0) {
+				// 不是由累加器生成的根哈希作为第一个叶子；
+				leafCount = 0;
+			} else {
+				loadPeaks(leafCount, peaks, heights);
+			}
+		}
+		long nodeCount = nodeCount(leafCount);
+		if (originRoot != null && leafCount == 0) {
+			writeNode(nodeCount++, originRoot);
+			peaks.add(originRoot);
+			heights.add(0);
+			leafCount++;
+		}
+
+		for (PendingLeaf leaf : pendingLeaves) {
+			writeLeafIndex(leaf.key, leaf.version, leafCount);
+			HashDigest node = leafHash(hashFunction, leaf.key, leaf.version, leaf.dataHash);
+			writeNode(nodeCount++, node);
+			leafCount++;
+
+			int height = 0;
+			while (!heights.isEmpty() && heights.get(heights.size() - 1) == height) {
+				HashDigest left = peaks.remove(peaks.size() - 1);
+				heights.remove(heights.size() - 1);
+				node = nodeHash(hashFunction, left, node);
+				writeNode(nodeCount++, node);
+				height++;
+			}
+			peaks.add(node);
+			heights.add(height);
+		}
+		pendingLeaves.clear();
+
+		HashDigest root = bagPeaks(hashFunction, peaks.toArray(new HashDigest[peaks.size()]));
+		Bytes rootKey = rootPrefix.concat(new Bytes(root.toBytes()));
+		storage.set(rootKey, BytesUtils.toBytes(leafCount), storage.getVersion(rootKey));
+		return root;
+	}
+
+	/**
+	 * 返回指定版本的写入在指定根哈希下的证明；
+	 *
+	 * @param root    根哈希；
+	 * @param key     写入的 key，含数据集的前缀；
+	 * @param version 写入后的版本；
+	 * @param value   写入的值；
+	 * @return 写入不存在，或者在根哈希之后写入时返回 null；
+	 */
+	public KvAccumulatorProof getProof(HashDigest root, Bytes key, long version, byte[] value) {
+		if (root == null) {
+			return null;
+		}
+		long leafCount = getLeafCount(root);
+		if (leafCount < 0) {
+			return null;
+		}
+		byte[] indexBytes = storage.get(leafPrefix.concat(Bytes.fromLong(version)).concat(key), -1);
+		if (indexBytes == null) {
+			return null;
+		}
+		long leafIndex = BytesUtils.toLong(indexBytes);
+		if (leafIndex >= leafCount) {
+			return null;
+		}
+		List<HashDigest> peaks = new ArrayList<>();
+		List<HashDigest> path = new ArrayList<>();
+		int peakIndex = -1;
+		long start = 0;
+		long offset = 0;
+		for (int h = 63; h >= 0; h--) {
+			if ((leafCount & (1L << h)) == 0) {
+				continue;
+			}
+			long size = 1L << h;
+			long peakPos = offset + (size << 1) - 2;
+			peaks.add(readNode(peakPos));
+			if (peakIndex < 0 && leafIndex < start + size) {
+				peakIndex = peaks.size() - 1;
+				collectPath(peakPos, offset, h, leafIndex - start, path);
+			}
+			start += size;
+			offset += (size << 1) - 1;
+		}
+		return new KvAccumulatorProof(root, key, version, hashFunction.hash(value), leafIndex, leafCount,
+				path.toArray(new HashDigest[path.size()]), peaks.toArray(new HashDigest[peaks.size()]), peakIndex);
+	}
+
+	/**
+	 * 从山峰向下搜索叶子，按从叶子到山峰的顺序记录兄弟节点；
+	 */
+	private void collectPath(long rootPos, long offset, int height, long localIndex, List<HashDigest> path) {
+		while (height > 0) {
+			long half = 1L << (height - 1);
+			long leftRoot = offset + (half << 1) - 2;
+			long rightRoot = rootPos - 1;
+			if (localIndex < half) {
+				path.add(0, readNode(rightRoot));
+				rootPos = leftRoot;
+			} else {
+				path.add(0, readNode(leftRoot));
+				rootPos = rightRoot;
+				offset = leftRoot + 1;
+				localIndex -= half;
+			}
+			height--;
+		}
+	}
+
+	private long getLeafCount(HashDigest root) {
+		byte[] bytes = storage.get(rootPrefix.concat(new Bytes(root.toBytes())), -1);
+		return bytes == null ? -1 : BytesUtils.toLong(bytes);
+	}
+
+	private void loadPeaks(long leafCount, List<HashDigest> peaks, List<Integer> heights) {
+		long offset = 0;
+		for (int h = 63; h >= 0; h--) {
+			if ((leafCount & (1L << h)) == 0) {
+				continue;
+			}
+			long size = (2L << h) - 1;
+			peaks.add(readNode(offset + size - 1));
+			heights.add(h);
+			offset += size;
+		}
+	}
+
+	private void writeLeafIndex(Bytes key, long version, long leafIndex) {
+		Bytes indexKey = leafPrefix.concat(Bytes.fromLong(version)).concat(key);
+		storage.set(indexKey, BytesUtils.toBytes(leafIndex), storage.getVersion(indexKey));
+	}
+
+	private void writeNode(long position, HashDigest hash) {
+		Bytes nodeKey = nodePrefix.concat(Bytes.fromLong(position));
+		long v = storage.set(nodeKey, hash.toBytes(), storage.getVersion(nodeKey));
+		if (v < 0) {
+			throw new IllegalStateException("Accumulator node conflict! --" + nodeKey);
+		}
+	}
+
+	private HashDigest readNode(long position) {
+		byte[] bytes = storage.get(nodePrefix.concat(Bytes.fromLong(position)), -1);
+		if (bytes == null) {
+			throw new DataExistException("Accumulator node does not exist! --" + position);
+		}
+		return Crypto.resolveAsHashDigest(bytes);
+	}
+
+	/**
+	 * 叶子数量对应的节点数量；
+	 */
+	private static long nodeCount(long leafCount) {
+		return (leafCount << 1) - Long.bitCount(leafCount);
+	}
+
+	static HashDigest leafHash(HashFunction hashFunction, Bytes key, long version, HashDigest dataHash) {
+		return hashFunction.hash(BytesUtils.concat(new byte[] { LEAF_TAG }, BytesUtils.toBytes(version),
+				dataHash.toBytes(), key.toBytes()));
+	}
+
+	static HashDigest nodeHash(HashFunction hashFunction, HashDigest left, HashDigest right) {
+		return hashFunction.hash(BytesUtils.concat(new byte[] { NODE_TAG }, left.toBytes(), right.toBytes()));
+	}
+
+	static HashDigest bagPeaks(HashFunction hashFunction, HashDigest[] peaks) {
+		HashDigest root = peaks[peaks.length - 1];
+		for (int i = peaks.length - 2; i >= 0; i--) {
+			root = nodeHash(hashFunction, peaks[i], root);
+		}
+		return root;
+	}
+
+	private static class PendingLeaf {
+
+		private final Bytes key;
+
+		private final long version;
+
+		private final HashDigest dataHash;
+
+		PendingLeaf(Bytes key, long version, HashDigest dataHash) {
+			this.key = key;
+			this.version = version;
+			this.dataHash = dataHash;
+		}
+	}
+}
@@ -0,0 +1,179 @@
+package com.jd.blockchain.ledger.core;
+
+import com.jd.blockchain.crypto.Crypto;
+import com.jd.blockchain.crypto.HashDigest;
+import com.jd.blockchain.crypto.HashFunction;
+
+import utils.Bytes;
+
+/**
+ * KV 数据集中一次写入的存在性证明，由 {@link KvAccumulator} 生成；
+ * <p>
+ * 证明包括写入的 key、版本与值的哈希，从叶子到所在山峰的兄弟节点，以及全部的山峰；<br>
+ * 验证时从叶子依次计算到山峰，再把全部山峰合并，结果应当等于数据集的根哈希；
+ */
+public class KvAccumulatorProof {
+
+	private final HashDigest rootHash;
+
+	private final Bytes key;
+
+	private final long version;
+
+	private final HashDigest dataHash;
+
+	private final long leafIndex;
+
+	private final long leafCount;
+
+	private final HashDigest[] path;
+
+	private final HashDigest[] peaks;
+
+	private final int peakIndex;
+
+	public KvAccumulatorProof(HashDigest rootHash, Bytes key, long version, HashDigest dataHash, long leafIndex,
+			long leafCount, HashDigest[] path, HashDigest[] peaks, int peakIndex) {
+		this.rootHash = rootHash;
+		this.key = key;
+		this.version = version;
+		this.dataHash = dataHash;
+		this.leafIndex = leafIndex;
+		this.leafCount = leafCount;
+		this.path = path;
+		this.peaks = peaks;
+		this.peakIndex = peakIndex;
+	}
+
+	/**
+	 * 证明所针对的数据集根哈希；
+	 *
+	 * @return
+	 */
+	public HashDigest getRootHash() {
+		return rootHash;
+	}
+
+	/**
+	 * 写入的 key，含数据集的前缀；
+	 *
+	 * @return
+	 */
+	public Bytes getKey() {
+		return key;
+	}
+
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * 写入的值的哈希；
+	 *
+	 * @return
+	 */
+	public HashDigest getDataHash() {
+		return dataHash;
+	}
+
+	/**
+	 * 写入在累加器中的叶子序号；
+	 *
+	 * @return
+	 */
+	public long getLeafIndex() {
+		return leafIndex;
+	}
+
+	/**
+	 * 根哈希对应的叶子总数；
+	 *
+	 * @return
+	 */
+	public long getLeafCount() {
+		return leafCount;
+	}
+
+	/**
+	 * 从叶子到所在山峰的兄弟节点；
+	 *
+	 * @return
+	 */
+	public HashDigest[] getPath() {
+		return path;
+	}
+
+	/**
+	 * 从左到右排列的全部山峰；
+	 *
+	 * @return
+	 */
+	public HashDigest[] getPeaks() {
+		return peaks;
+	}
+
+	/**
+	 * 叶子所在的山峰在 {@link #getPeaks()} 中的位置；
+	 *
+	 * @return
+	 */
+	public int getPeakIndex() {
+		return peakIndex;
+	}
+
+	/**
+	 * 验证证明与指定的值一致，并且能够推导出根哈希；
+	 *
+	 * @param value 写入的值；
+	 * @return
+	 */
+	public boolean verify(byte[] value) {
+		HashFunction hashFunction = Crypto.getHashFunction(rootHash.getAlgorithm());
+		return dataHash.equals(hashFunction.hash(value)) && verify();
+	}
+
+	/**
+	 * 验证证明能够推导出根哈希；
+	 *
+	 * @return
+	 */
+	public boolean verify() {
+		if (leafIndex < 0 || leafIndex >= leafCount || peakIndex < 0 || peakIndex >= peaks.length
+				|| peaks.length != Long.bitCount(leafCount)) {
+			return false;
+		}
+		// 根据叶子总数确定叶子所在的山峰及其高度；
+		long start = 0;
+		int peak = 0;
+		int height = -1;
+		for (int h = 63; h >= 0; h--) {
+			if ((leafCount & (1L << h)) == 0) {
+				continue;
+			}
+			if (leafIndex < start + (1L << h)) {
+				height = h;
+				break;
+			}
+			start += 1L << h;
+			peak++;
+		}
+		if (peak != peakIndex || path.length != height) {
+			return false;
+		}
+
+		HashFunction hashFunction = Crypto.getHashFunction(rootHash.getAlgorithm());
+		long localIndex = leafIndex - start;
+		HashDigest node = KvAccumulator.leafHash(hashFunction, key, version, dataHash);
+		for (int i = 0; i < path.length; i++) {
+			if (((localIndex >>> i) & 1) == 0) {
+				node = KvAccumulator.nodeHash(hashFunction, node, path[i]);
+			} else {
+				node = KvAccumulator.nodeHash(hashFunction, path[i], node);
+			}
+		}
+		if (!node.equals(peaks[peakIndex])) {
+			return false;
+		}
+		return rootHash.equals(KvAccumulator.bagPeaks(hashFunction, peaks));
+	}
+}
@@ -64,12 +64,13 @@ public class KvComplecatedAccount implements CompositeAccount, HashProvable, Acc
 	 * @param keyPrefix     Prefix of all keys in this account's dataset;
 	 * @param exStorage     The base storage for existance operation;
 	 * @param verStorage    The base storage for versioning operation;
+	 * @param kvProof       Whether the datasets are accumulated by {@link KvAccumulator};
 	 */
 	public KvComplecatedAccount(long preblockHeight, BlockchainIdentity accountID, CryptoSetting cryptoSetting, Bytes keyPrefix,
-								ExPolicyKVStorage exStorage, VersioningKVStorage verStorage) {
+								ExPolicyKVStorage exStorage, VersioningKVStorage verStorage, boolean kvProof) {
 		this.preblockHeight = preblockHeight;
 		// 初始化数据集；
-		initializeDatasets(null, null, cryptoSetting, keyPrefix, exStorage, verStorage, false);
+		initializeDatasets(null, null, cryptoSetting, keyPrefix, exStorage, verStorage, false, kvProof);
 
 //		initPubKey(accountID.getPubKey());
 
@@ -90,9 +91,10 @@ public class KvComplecatedAccount implements CompositeAccount, HashProvable, Acc
 	 * @param exStorage     The base storage for existance operation;
 	 * @param verStorage    The base storage for versioning operation;
 	 * @param readonly      Readonly about this account's dataset;
+	 * @param kvProof       Whether the datasets are accumulated by {@link KvAccumulator};
 	 */
 	public KvComplecatedAccount(long preblockHeight, BlockchainIdentity accountID, HashDigest headerRoot, HashDigest dataRoot, CryptoSetting cryptoSetting,
-								Bytes keyPrefix, ExPolicyKVStorage exStorage, VersioningKVStorage verStorage, boolean readonly) {
+								Bytes keyPrefix, ExPolicyKVStorage exStorage, VersioningKVStorage verStorage, boolean readonly, boolean kvProof) {
 //		if (headerRoot == null && dataRoot == null) {
 //			throw new IllegalArgumentException(
 //					"Specified a null header-root hash and data-root hash for account[" + accountID.getAddress().toBase58() + "]!");
@@ -101,7 +103,7 @@ public class KvComplecatedAccount implements CompositeAccount, HashProvable, Acc
 		this.preblockHeight = preblockHeight;
 
 		// 初始化数据集；
-		initializeDatasets(headerRoot, dataRoot, cryptoSetting, keyPrefix, exStorage, verStorage, readonly);
+		initializeDatasets(headerRoot, dataRoot, cryptoSetting, keyPrefix, exStorage, verStorage, readonly, kvProof);
 
 		// 初始化账户的身份；
 //		PubKey pubKey = loadPubKey();
@@ -109,7 +111,7 @@ public class KvComplecatedAccount implements CompositeAccount, HashProvable, Acc
 	}
 
 	private void initializeDatasets(HashDigest headerRoot, HashDigest dataRoot, CryptoSetting cryptoSetting,
-			Bytes keyPrefix, ExPolicyKVStorage exStorage, VersioningKVStorage verStorage, boolean readonly) {
+			Bytes keyPrefix, ExPolicyKVStorage exStorage, VersioningKVStorage verStorage, boolean readonly, boolean kvProof) {
 
 		// 初始化数据修改监听器；
 		DataChangedListener<String, TypedValue> dataChangedListenerHeader = new DataChangedListener<String, TypedValue>() {
@@ -144,13 +146,14 @@ public class KvComplecatedAccount implements CompositeAccount, HashProvable, Acc
 //		HashDigest headerRoot = loadHeaderRoot();
 		Bytes headerPrefix = keyPrefix.concat(HEADER_PREFIX);
 		this.headerDataset = new KvDataset(preblockHeight, headerRoot, DatasetType.HDKVS, cryptoSetting, headerPrefix, exStorage, verStorage,
-				readonly);
+				readonly, kvProof);
 		this.typedHeader = DatasetHelper.listen(DatasetHelper.map(headerDataset, valueMapper), dataChangedListenerHeader);
 
 		// 加载“主数据集”
 //		HashDigest dataRoot = loadDataRoot();
 		Bytes dataPrefix = keyPrefix.concat(DATA_PREFIX);
-		this.dataDataset = new KvDataset(preblockHeight, dataRoot, DatasetType.DTKVS, cryptoSetting, dataPrefix, exStorage, verStorage, readonly);
+		this.dataDataset = new KvDataset(preblockHeight, dataRoot, DatasetType.DTKVS, cryptoSetting, dataPrefix, exStorage, verStorage, readonly,
+				kvProof);
 		this.typedData = DatasetHelper.listen(DatasetHelper.map(dataDataset, valueMapper), dataChangedListenerData);
 	}
 
@@ -203,6 +206,17 @@ public class KvComplecatedAccount implements CompositeAccount, HashProvable, Acc
 		return dataDataset;
 	}
 
+	/**
+	 * 返回数据集中指定键值在账户数据根哈希下的存在性证明；
+	 *
+	 * @param key
+	 * @param version 版本；-1 表示最新版本；
+	 * @return 未采用累加器或者数据不存在时返回 null；
+	 */
+	public KvAccumulatorProof getDataProof(Bytes key, long version) {
+		return ((KvDataset) dataDataset).getKvProof(key, version);
+	}
+
 	@Override
 	public BaseDataset<String, TypedValue> getDataset() {
 		return typedData;
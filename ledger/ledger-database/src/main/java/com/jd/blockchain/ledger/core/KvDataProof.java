@@ -0,0 +1,103 @@
+package com.jd.blockchain.ledger.core;
+
+import com.jd.binaryproto.BinaryProtocol;
+import com.jd.blockchain.crypto.Crypto;
+import com.jd.blockchain.crypto.HashDigest;
+import com.jd.blockchain.crypto.HashFunction;
+import com.jd.blockchain.ledger.AccountSnapshot;
+import com.jd.blockchain.ledger.BlockBody;
+import com.jd.blockchain.ledger.LedgerBlock;
+
+/**
+ * KV 结构的账本中，数据账户的一个键值从写入的值到区块哈希的完整证明，由 {@link DataAccountSetEditor} 生成；
+ * <p>
+ * 证明由三段组成：<br>
+ * 1. 键值在账户数据集中的证明 {@link #getDataProof()} ，推导出账户的数据根哈希；<br>
+ * 2. 账户快照 {@link #getAccountSnapshot()} 在数据账户集中的证明 {@link #getAccountProof()} ，快照记录了账户的数据根哈希，推导出数据账户集的根哈希；<br>
+ * 3. 区块 {@link #getBlock()} ，其数据账户集根哈希与第 2 段一致，区块体的哈希即区块哈希；
+ */
+public class KvDataProof {
+
+	private final byte[] value;
+
+	private final KvAccumulatorProof dataProof;
+
+	private final byte[] accountSnapshot;
+
+	private final KvAccumulatorProof accountProof;
+
+	private final LedgerBlock block;
+
+	public KvDataProof(byte[] value, KvAccumulatorProof dataProof, byte[] accountSnapshot,
+			KvAccumulatorProof accountProof, LedgerBlock block) {
+		this.value = value;
+		this.dataProof = dataProof;
+		this.accountSnapshot = accountSnapshot;
+		this.accountProof = accountProof;
+		this.block = block;
+	}
+
+	/**
+	 * 写入的值，即数据集中存储的原始字节；
+	 *
+	 * @return
+	 */
+	public byte[] getValue() {
+		return value;
+	}
+
+	/**
+	 * 键值在账户数据集中的证明；
+	 *
+	 * @return
+	 */
+	public KvAccumulatorProof getDataProof() {
+		return dataProof;
+	}
+
+	/**
+	 * 编码后的账户快照，即数据账户集中记录的账户根哈希；
+	 *
+	 * @return
+	 */
+	public byte[] getAccountSnapshot() {
+		return accountSnapshot;
+	}
+
+	/**
+	 * 账户快照在数据账户集中的证明；
+	 *
+	 * @return
+	 */
+	public KvAccumulatorProof getAccountProof() {
+		return accountProof;
+	}
+
+	/**
+	 * 证明所针对的区块；
+	 *
+	 * @return
+	 */
+	public LedgerBlock getBlock() {
+		return block;
+	}
+
+	/**
+	 * 验证从写入的值到区块哈希的每一段都一致；
+	 *
+	 * @return
+	 */
+	public boolean verify() {
+		if (!dataProof.verify(value) || !accountProof.verify(accountSnapshot)) {
+			return false;
+		}
+		AccountSnapshot snapshot = BinaryProtocol.decode(accountSnapshot, AccountSnapshot.class);
+		if (!dataProof.getRootHash().equals(snapshot.getDataRootHash())
+				|| !accountProof.getRootHash().equals(block.getDataAccountSetHash())) {
+			return false;
+		}
+		HashDigest blockHash = block.getHash();
+		HashFunction hashFunction = Crypto.getHashFunction(blockHash.getAlgorithm());
+		return blockHash.equals(hashFunction.hash(BinaryProtocol.encode(block, BlockBody.class)));
+	}
+}
@@ -47,6 +47,11 @@ public class KvDataset implements BaseDataset<Bytes, byte[]> {
 
 	private BufferedKVStorage valueStorage;
 
+	/**
+	 * KV 写入的认证累加器；未开启时为 null，根哈希按 {@link KvTree} 计算；
+	 */
+	private KvAccumulator accumulator;
+
 	private HashDigest rootHash;
 
 	private HashDigest originHash;
@@ -116,6 +121,16 @@ public class KvDataset implements BaseDataset<Bytes, byte[]> {
 	 */
 	public KvDataset(long preBlockHeight, HashDigest prevRootHash, DatasetType type, CryptoSetting setting, Bytes keyPrefix,
 					 ExPolicyKVStorage exPolicyStorage, VersioningKVStorage versioningStorage, boolean readonly) {
+		this(preBlockHeight, prevRootHash, type, setting, keyPrefix, exPolicyStorage, versioningStorage, readonly, false);
+	}
+
+	/**
+	 * 从指定的根哈希构建的 KvDataset；
+	 *
+	 * @param kvProof 是否以 {@link KvAccumulator} 计算根哈希；由账本的结构版本决定，同一个数据集必须始终保持一致；
+	 */
+	public KvDataset(long preBlockHeight, HashDigest prevRootHash, DatasetType type, CryptoSetting setting, Bytes keyPrefix,
+					 ExPolicyKVStorage exPolicyStorage, VersioningKVStorage versioningStorage, boolean readonly, boolean kvProof) {
 		// 把存储数据值、Merkle节点的 key 分别加入独立的前缀，避免针对 key 的注入攻击；
 //		this.dataKeyPrefix = keyPrefix.concat(DATA_PREFIX);
 		this.dataKeyPrefix = keyPrefix;
@@ -125,6 +140,10 @@ public class KvDataset implements BaseDataset<Bytes, byte[]> {
 		// 缓冲对KV的写入；
 		this.valueStorage = new BufferedKVStorage(this.DEFAULT_HASH_FUNCTION, exPolicyStorage, versioningStorage, false);
 
+		if (kvProof) {
+			this.accumulator = new KvAccumulator(this.DEFAULT_HASH_FUNCTION, keyPrefix, valueStorage);
+		}
+
 		this.preBlockHeight = preBlockHeight;
 
 		this.rootHash = prevRootHash;
@@ -242,6 +261,9 @@ public class KvDataset implements BaseDataset<Bytes, byte[]> {
 			}
 
 		}
+		if (accumulator != null) {
+			accumulator.add(key, newVersion, value);
+		}
 		return newVersion;
 	}
 
@@ -273,7 +295,7 @@ public class KvDataset implements BaseDataset<Bytes, byte[]> {
 		}
 		version = version < 0 ? latestVersion : version;
 		Bytes dataKey = encodeDataKey(key);
-		byte[] value = valueStorage.get(dataKey, version);
+		byte[] value = DatasetHelper.getVersionedValue(valueStorage, dataKey, version);
 		if (value == null) {
 			throw new DataExistException("Expected value does not exist!");
 		}
@@ -282,11 +304,8 @@ public class KvDataset implements BaseDataset<Bytes, byte[]> {
 
 	// 根据索引编号找到存储数据的值,通过这个方法可以保证查询存储数据的顺序，维护账户或KV在集合中的顺序
 	public byte[] getValueAt(long index) {
+		// 索引键只写入一次，版本固定为 0 ，直接读取版本 0 的值，不必先查询最新版本；
 		Bytes key = ACCOUNTSET_SEQUENCE_KEY_PREFIX.concat(Bytes.fromString(String.valueOf(index)));
-		long latestVersion = getVersion(key);
-		if (latestVersion != 0 ) {
-			throw new DataExistException("Expected value version not exist!");
-		}
 		Bytes dataKey = encodeDataKey(key);
 		byte[] value = valueStorage.get(dataKey, 0);
 		if (value == null) {
@@ -299,7 +318,18 @@ public class KvDataset implements BaseDataset<Bytes, byte[]> {
 		if (index < 0 || index + 1 > getDataCount()) {
 			throw new IllegalArgumentException("Index out of bound!");
 		}
+		return readIdDataEntryAt(index);
+	}
 
+	/**
+	 * 读取指定索引位置的身份数据，不检查索引范围；
+	 * <p>
+	 * 迭代器在创建时已经确定了总数，逐条读取时不再重复查询总数；
+	 *
+	 * @param index
+	 * @return
+	 */
+	private DataEntry<Bytes, byte[]> readIdDataEntryAt(long index) {
 		byte[] bytesValue = getValueAt(index);
 
 		DataEntry<Bytes, byte[]> entry = new VersioningKVData<Bytes, byte[]>(Bytes.fromLong(index), 0, bytesValue);
@@ -311,7 +341,16 @@ public class KvDataset implements BaseDataset<Bytes, byte[]> {
 		if (index < 0 || index + 1 > getDataCount()) {
 			throw new IllegalArgumentException("Index out of bound!");
 		}
+		return readKvDataEntryAt(index);
+	}
 
+	/**
+	 * 读取指定索引位置的 KV 数据的最新版本，不检查索引范围；
+	 *
+	 * @param index
+	 * @return
+	 */
+	private DataEntry<Bytes, byte[]> readKvDataEntryAt(long index) {
 		byte[] bytesValue = getValueAt(index);
 
 		Bytes key = new Bytes(bytesValue);
@@ -376,7 +415,7 @@ public class KvDataset implements BaseDataset<Bytes, byte[]> {
 		}
 		version = version < 0 ? latestVersion : version;
 		Bytes dataKey = encodeDataKey(key);
-		byte[] value = valueStorage.get(dataKey, version);
+		byte[] value = DatasetHelper.getVersionedValue(valueStorage, dataKey, version);
 		if (value == null) {
 			throw new DataExistException("Expected value does not exist!");
 		}
@@ -458,6 +497,24 @@ public class KvDataset implements BaseDataset<Bytes, byte[]> {
 		return null;
 	}
 
+	/**
+	 * 返回指定 key 的指定版本在当前根哈希下的存在性证明；
+	 *
+	 * @param key
+	 * @param version 版本；-1 表示最新版本；
+	 * @return 未采用累加器或者数据不存在时返回 null；
+	 */
+	public KvAccumulatorProof getKvProof(Bytes key, long version) {
+		if (accumulator == null) {
+			return null;
+		}
+		DataEntry<Bytes, byte[]> dataEntry = getDataEntry(key, version);
+		if (dataEntry == null) {
+			return null;
+		}
+		return accumulator.getProof(rootHash, encodeDataKey(key), dataEntry.getVersion(), dataEntry.getValue());
+	}
+
 	/**
 	 * A wrapper for {@link DataEntry} and {@link MerkleProof};
 	 *
@@ -488,7 +545,7 @@ public class KvDataset implements BaseDataset<Bytes, byte[]> {
 
 	@Override
 	public boolean isUpdated() {
-		return valueStorage.isUpdated();
+		return valueStorage.isUpdated() || (accumulator != null && accumulator.isUpdated());
 	}
 
 	@Override
@@ -503,11 +560,17 @@ public class KvDataset implements BaseDataset<Bytes, byte[]> {
 	@Override
 	public void cancel() {
 		valueStorage.cancel();
+		if (accumulator != null) {
+			accumulator.cancel();
+		}
 		rootHash = originHash;
 	}
 
 
 	private HashDigest computeDataSetRootHash(HashDigest originHash, BufferedKVStorage valueStorage) {
+		if (accumulator != null) {
+			return accumulator.commit(originHash);
+		}
 
         ArrayList<HashDigest> merkleNodes = valueStorage.getCachedKvList();
 
@@ -530,7 +593,7 @@ public class KvDataset implements BaseDataset<Bytes, byte[]> {
 
 		@Override
 		protected DataEntry<Bytes, byte[]> get(long cursor) {
-			return getIdDataEntryAt(cursor);
+			return readIdDataEntryAt(cursor);
 		}
 
 	}
@@ -551,7 +614,7 @@ public class KvDataset implements BaseDataset<Bytes, byte[]> {
 
 		@Override
 		protected DataEntry<Bytes, byte[]> get(long cursor) {
-			return getKvDataEntryAt(cursor);
+			return readKvDataEntryAt(cursor);
 		}
 
 	}
@@ -572,7 +635,7 @@ public class KvDataset implements BaseDataset<Bytes, byte[]> {
 		@Override
 		protected DataEntry<Bytes, byte[]> get(long cursor) {
 			// 倒序的迭代器从后往前返回；
-			return getIdDataEntryAt(total - cursor - 1);
+			return readIdDataEntryAt(total - cursor - 1);
 		}
 	}
 
@@ -592,7 +655,7 @@ public class KvDataset implements BaseDataset<Bytes, byte[]> {
 		@Override
 		protected DataEntry<Bytes, byte[]> get(long cursor) {
 			// 倒序的迭代器从后往前返回；
-			return getKvDataEntryAt(total - cursor - 1);
+			return readKvDataEntryAt(total - cursor - 1);
 		}
 	}
 
@@ -1,5 +1,9 @@
 package com.jd.blockchain.ledger.core;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import utils.Bytes;
 import utils.Transactional;
 
 public class LedgerEventSetEditor implements LedgerEventSet, Transactional {
@@ -8,6 +12,15 @@ public class LedgerEventSetEditor implements LedgerEventSet, Transactional {
 	private EventAccountSetEditor userEventSet;
 	private boolean readonly;
 
+	/**
+	 * 事件索引；未开启时为 null ；
+	 */
+	private EventBloomIndex bloomIndex;
+
+	/**
+	 * 当前交易发布的事件，交易提交时写入事件索引；
+	 */
+	private final List<PublishedEvent> publishedEvents = new ArrayList<>();
 
 	public LedgerEventSetEditor(EventGroupPublisher systemEventSet, EventAccountSetEditor userEventSet, boolean readonly) {
 		this.systemEventPublisher = systemEventSet;
@@ -43,12 +56,35 @@ public class LedgerEventSetEditor implements LedgerEventSet, Transactional {
 		systemEventPublisher.commit();
 		userEventSet.commit();
 
+		if (bloomIndex != null) {
+			for (PublishedEvent event : publishedEvents) {
+				bloomIndex.addEvent(event.eventAccount, event.eventName);
+			}
+		}
+		publishedEvents.clear();
 	}
 
 	@Override
 	public void cancel() {
 		systemEventPublisher.cancel();
 		userEventSet.cancel();
+		publishedEvents.clear();
+	}
+
+	void setBloomIndex(EventBloomIndex bloomIndex) {
+		this.bloomIndex = bloomIndex;
+	}
+
+	/**
+	 * 记录发布的事件；
+	 *
+	 * @param eventAccount 用户事件账户地址；系统事件为 null ；
+	 * @param eventName    事件名；
+	 */
+	public void onPublished(Bytes eventAccount, String eventName) {
+		if (bloomIndex != null) {
+			publishedEvents.add(new PublishedEvent(eventAccount, eventName));
+		}
 	}
 
 	public boolean isReadonly() {
@@ -65,6 +101,18 @@ public class LedgerEventSetEditor implements LedgerEventSet, Transactional {
 		userEventSet.updatePreBlockHeight(newBlockHeight);
 	}
 
+	private static class PublishedEvent {
+
+		private final Bytes eventAccount;
+
+		private final String eventName;
+
+		PublishedEvent(Bytes eventAccount, String eventName) {
+			this.eventAccount = eventAccount;
+			this.eventName = eventName;
+		}
+	}
+
 //	void setReadonly() {
 //		this.readonly = true;
 //		this.systemEventSet.setReadonly();
@@ -2,6 +2,7 @@ package com.jd.blockchain.ledger.core;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.jd.blockchain.crypto.Crypto;
 import com.jd.blockchain.crypto.CryptoAlgorithm;
@@ -24,7 +25,10 @@ import utils.codec.Base58Utils;
  */
 public class LedgerManager implements LedgerManage {
 
-	private Map<HashDigest, LedgerRepositoryContext> ledgers = new HashMap<>();
+	/**
+	 * 已注册的账本；不同的账本可以并行注册；
+	 */
+	private Map<HashDigest, LedgerRepositoryContext> ledgers = new ConcurrentHashMap<>();
 
 	@Override
 	public HashDigest[] getLedgerHashs() {
@@ -47,11 +51,26 @@ public class LedgerManager implements LedgerManage {
 		return ledgerCtx.ledgerRepo;
 	}
 
+	/**
+	 * 返回账本的存储服务；
+	 * 
+	 * @param ledgerHash
+	 * @return 账本未注册时返回 null ；
+	 */
+	public KVStorageService getStorageService(HashDigest ledgerHash) {
+		LedgerRepositoryContext ledgerCtx = ledgers.get(ledgerHash);
+		if (ledgerCtx == null) {
+			return null;
+		}
+
+		return ledgerCtx.storageService;
+	}
+
 	@Override
 	public LedgerRepository register(HashDigest ledgerHash, KVStorageService storageService, LedgerDataStructure dataStructure) {
-		if (ledgers.containsKey(ledgerHash)) {
-			LedgerRepositoryContext ledgerCtx = ledgers.get(ledgerHash);
-			return ledgerCtx.ledgerRepo;
+		LedgerRepositoryContext existingCtx = ledgers.get(ledgerHash);
+		if (existingCtx != null) {
+			return existingCtx.ledgerRepo;
 		}
 		// 加载账本数据库；
 		VersioningKVStorage ledgerVersioningStorage = storageService.getVersioningKVStorage();
@@ -158,7 +177,13 @@ public class LedgerManager implements LedgerManage {
 //		return genesisBlockEditor;
 //	}
 
-	static String getLedgerStoragePrefix(HashDigest ledgerHash) {
+	/**
+	 * 账本在存储中的键前缀；
+	 * 
+	 * @param ledgerHash
+	 * @return
+	 */
+	public static String getLedgerStoragePrefix(HashDigest ledgerHash) {
 		String base58LedgerHash = Base58Utils.encode(ledgerHash.toBytes());
 		return LEDGER_PREFIX + base58LedgerHash + LedgerConsts.KEY_SEPERATOR;
 	}
@@ -167,7 +192,6 @@ public class LedgerManager implements LedgerManage {
 
 		public final LedgerRepository ledgerRepo;
 
-		@SuppressWarnings("unused")
 		public final KVStorageService storageService;
 
 		public LedgerRepositoryContext(LedgerRepository ledgerRepo, KVStorageService storageService) {
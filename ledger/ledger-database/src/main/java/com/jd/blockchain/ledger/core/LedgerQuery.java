@@ -143,6 +143,24 @@ public interface LedgerQuery {
 		return getContractAccountSet(getLatestBlock());
 	}
 
+	/**
+	 * 交易索引；
+	 * 
+	 * @return 未开启交易索引时返回 null ；
+	 */
+	default TransactionIndex getTransactionIndex() {
+		return null;
+	}
+
+	/**
+	 * 事件索引；
+	 * 
+	 * @return 未开启事件索引时返回 null ；
+	 */
+	default EventBloomIndex getEventBloomIndex() {
+		return null;
+	}
+
 	/**
 	 * 重新检索最新区块，同时更新缓存；
 	 * 
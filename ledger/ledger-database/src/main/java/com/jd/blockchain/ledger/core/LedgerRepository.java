@@ -48,6 +48,13 @@ public interface LedgerRepository extends Closeable, LedgerQuery {
 		return getDiffView(getLatestBlock(), previousBlock);
 	}
 
+	/**
+	 * 清除账本的数据缓存；
+	 * <p>
+	 * 账本存储被外部改写（如安装其它节点的快照）之后调用，此后的查询从存储中重新加载；
+	 */
+	void clearCache();
+
 	@Override
 	void close();
 }
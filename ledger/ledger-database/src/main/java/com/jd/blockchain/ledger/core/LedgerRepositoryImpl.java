@@ -82,6 +82,10 @@ class LedgerRepositoryImpl implements LedgerRepository {
 
 	private volatile boolean closed = false;
 
+	private final TransactionIndex transactionIndex;
+
+	private final EventBloomIndex eventBloomIndex;
+
 	public LedgerRepositoryImpl(HashDigest ledgerHash, String keyPrefix, ExPolicyKVStorage exPolicyStorage,
 			VersioningKVStorage versioningStorage, LedgerDataStructure dataStructure) {
 		this.keyPrefix = keyPrefix;
@@ -91,6 +95,8 @@ class LedgerRepositoryImpl implements LedgerRepository {
 		this.ledgerIndexKey = encodeLedgerIndexKey(ledgerHash);
 		this.dataStructure = dataStructure;
 		this.cacheService = new LedgerLRUCache(ledgerHash);
+		this.transactionIndex = TransactionIndex.isEnabled() ? new TransactionIndex(keyPrefix, versioningStorage) : null;
+		this.eventBloomIndex = EventBloomIndex.isEnabled() ? new EventBloomIndex(keyPrefix, versioningStorage) : null;
 
 		if (getLatestBlockHeight() < 0) {
 			throw new RuntimeException("Ledger doesn't exist!");
@@ -150,12 +156,13 @@ class LedgerRepositoryImpl implements LedgerRepository {
 		TransactionSet txSet;
 		LedgerEventSet ledgerEventset;
 
+		// 账户集的结构由账本元数据中的结构版本决定，需在加载账户集之前确定；
+		this.ledgerStructureVersion = createAdminDataset(latestBlock).getMetadata().getLedgerStructureVersion();
 		ledgerDataset = innerGetLedgerDataset(latestBlock);
 		txSet = loadTransactionSet(latestBlock.getHeight(), latestBlock.getTransactionSetHash(),
 				((LedgerAdminDataSetEditor)(ledgerDataset.getAdminDataset())).getSettings().getCryptoSetting(), keyPrefix, exPolicyStorage,
 				versioningStorage, dataStructure,true);
 		ledgerEventset = innerGetLedgerEventSet(latestBlock);
-		this.ledgerStructureVersion = ((LedgerAdminDataSetEditor)(ledgerDataset.getAdminDataset())).getMetadata().getLedgerStructureVersion();
 
 		this.latestState = new LedgerState(latestBlock, ledgerDataset, txSet, ledgerEventset);
 
@@ -307,6 +314,16 @@ class LedgerRepositoryImpl implements LedgerRepository {
 		return BinaryProtocol.decode(blockBytes);
 	}
 
+	@Override
+	public TransactionIndex getTransactionIndex() {
+		return transactionIndex;
+	}
+
+	@Override
+	public EventBloomIndex getEventBloomIndex() {
+		return eventBloomIndex;
+	}
+
 	@Override
 	public TransactionSet getTransactionSet(LedgerBlock block) {
 		long height = getLatestBlockHeight();
@@ -379,7 +396,7 @@ class LedgerRepositoryImpl implements LedgerRepository {
 
 	private UserAccountSetEditor createUserAccountSet(LedgerBlock block, CryptoSetting cryptoSetting) {
 		return loadUserAccountSet(block.getHeight(), block.getUserAccountSetHash(), cryptoSetting, keyPrefix, exPolicyStorage,
-				versioningStorage, dataStructure, cacheService, true);
+				versioningStorage, dataStructure, isKvProofEnabled(), cacheService, true);
 	}
 
 	@Override
@@ -395,7 +412,7 @@ class LedgerRepositoryImpl implements LedgerRepository {
 
 	private DataAccountSetEditor createDataAccountSet(LedgerBlock block, CryptoSetting setting) {
 		return loadDataAccountSet(block.getHeight(), block.getDataAccountSetHash(), setting, keyPrefix, exPolicyStorage, versioningStorage,
-				dataStructure, cacheService, true);
+				dataStructure, isKvProofEnabled(), cacheService, true);
 	}
 
 	@Override
@@ -438,12 +455,16 @@ class LedgerRepositoryImpl implements LedgerRepository {
 
 	private EventAccountSetEditor createUserEventSet(LedgerBlock block, CryptoSetting cryptoSetting) {
 		return loadUserEventSet(block.getHeight(), block.getUserEventSetHash(), cryptoSetting, keyPrefix, exPolicyStorage,
-				versioningStorage,  dataStructure,cacheService, true);
+				versioningStorage, dataStructure, isKvProofEnabled(), cacheService, true);
 	}
 
 	private ContractAccountSetEditor createContractAccountSet(LedgerBlock block, CryptoSetting cryptoSetting) {
 		return loadContractAccountSet(block.getHeight(), block.getContractAccountSetHash(), cryptoSetting, keyPrefix, exPolicyStorage,
-				versioningStorage, dataStructure,cacheService, true);
+				versioningStorage, dataStructure, isKvProofEnabled(), cacheService, true);
+	}
+
+	private boolean isKvProofEnabled() {
+		return LedgerStructureConfig.isKvProofEnabled(ledgerStructureVersion);
 	}
 
 	@Override
@@ -504,7 +525,7 @@ class LedgerRepositoryImpl implements LedgerRepository {
 		LedgerBlock previousBlock = getLatestBlock();
 
 		editor = LedgerTransactionalEditor.createEditor(previousBlock, getLatestSettings(),
-				keyPrefix, exPolicyStorage, versioningStorage, dataStructure, cacheService);
+				keyPrefix, exPolicyStorage, versioningStorage, dataStructure, ledgerStructureVersion, cacheService);
 
 		NewBlockCommittingMonitor committingMonitor = new NewBlockCommittingMonitor(editor, this);
 		this.nextBlockEditor = committingMonitor;
@@ -527,6 +548,11 @@ class LedgerRepositoryImpl implements LedgerRepository {
 		return securityManager;
 	}
 
+	@Override
+	public void clearCache() {
+		cacheService.clear();
+	}
+
 	@Override
 	public synchronized void close() {
 		if (closed) {
@@ -552,19 +578,20 @@ class LedgerRepositoryImpl implements LedgerRepository {
 			ExPolicyKVStorage ledgerExStorage, VersioningKVStorage ledgerVerStorage, LedgerDataStructure dataStructure, LedgerCache cacheService) {
 		LedgerAdminDataSetEditor adminAccount = new LedgerAdminDataSetEditor(initSetting, keyPrefix, ledgerExStorage,
 				ledgerVerStorage, cacheService.getAdminCache());
+		boolean kvProof = LedgerStructureConfig.isKvProofEnabled(initSetting.getLedgerStructureVersion());
 
 		String usersetKeyPrefix = keyPrefix + USER_SET_PREFIX;
 		String datasetKeyPrefix = keyPrefix + DATA_SET_PREFIX;
 		String contractsetKeyPrefix = keyPrefix + CONTRACT_SET_PREFIX;
 
 		UserAccountSetEditor userAccountSet = new UserAccountSetEditor(adminAccount.getSettings().getCryptoSetting(),
-				usersetKeyPrefix, ledgerExStorage, ledgerVerStorage, DEFAULT_ACCESS_POLICY, dataStructure, cacheService.getUserCache());
+				usersetKeyPrefix, ledgerExStorage, ledgerVerStorage, DEFAULT_ACCESS_POLICY, dataStructure, kvProof, cacheService.getUserCache());
 
 		DataAccountSetEditor dataAccountSet = new DataAccountSetEditor(adminAccount.getSettings().getCryptoSetting(),
-				datasetKeyPrefix, ledgerExStorage, ledgerVerStorage, DEFAULT_ACCESS_POLICY, dataStructure, cacheService.getDataAccountCache());
+				datasetKeyPrefix, ledgerExStorage, ledgerVerStorage, DEFAULT_ACCESS_POLICY, dataStructure, kvProof, cacheService.getDataAccountCache());
 
 		ContractAccountSetEditor contractAccountSet = new ContractAccountSetEditor(adminAccount.getSettings().getCryptoSetting(),
-				contractsetKeyPrefix, ledgerExStorage, ledgerVerStorage, DEFAULT_ACCESS_POLICY, dataStructure, cacheService.getContractCache());
+				contractsetKeyPrefix, ledgerExStorage, ledgerVerStorage, DEFAULT_ACCESS_POLICY, dataStructure, kvProof, cacheService.getContractCache());
 
 		LedgerDataSetEditor newDataSet = new LedgerDataSetEditor(adminAccount, userAccountSet, dataAccountSet,
 				contractAccountSet, false);
@@ -574,13 +601,13 @@ class LedgerRepositoryImpl implements LedgerRepository {
 
 	static LedgerEventSetEditor newEventSet(CryptoSetting cryptoSetting, String keyPrefix,
 									ExPolicyKVStorage ledgerExStorage, VersioningKVStorage ledgerVerStorage,
-											LedgerDataStructure dataStructure, LedgerCache cacheService) {
+											LedgerDataStructure dataStructure, boolean kvProof, LedgerCache cacheService) {
 
 		EventGroupPublisher systemEventSet = new EventGroupPublisher(cryptoSetting,
 				keyPrefix + SYSTEM_EVENT_SET_PREFIX, ledgerExStorage, ledgerVerStorage, dataStructure);
 
 		EventAccountSetEditor userEventSet = new EventAccountSetEditor(cryptoSetting,
-				keyPrefix + USER_EVENT_SET_PREFIX, ledgerExStorage, ledgerVerStorage, DEFAULT_ACCESS_POLICY, dataStructure, cacheService.getEventAccountCache());
+				keyPrefix + USER_EVENT_SET_PREFIX, ledgerExStorage, ledgerVerStorage, DEFAULT_ACCESS_POLICY, dataStructure, kvProof, cacheService.getEventAccountCache());
 
 		LedgerEventSetEditor newEventSet = new LedgerEventSetEditor(systemEventSet, userEventSet, false);
 
@@ -598,18 +625,18 @@ class LedgerRepositoryImpl implements LedgerRepository {
 	}
 
 	static LedgerDataSetEditor loadDataSet(long preBlockHeight, LedgerDataSnapshot dataSnapshot, CryptoSetting cryptoSetting, String keyPrefix,
-			ExPolicyKVStorage ledgerExStorage, VersioningKVStorage ledgerVerStorage, LedgerDataStructure dataStructure, LedgerCache cacheService, boolean readonly) {
+			ExPolicyKVStorage ledgerExStorage, VersioningKVStorage ledgerVerStorage, LedgerDataStructure dataStructure, boolean kvProof, LedgerCache cacheService, boolean readonly) {
 		LedgerAdminDataSetEditor adminAccount = new LedgerAdminDataSetEditor(preBlockHeight, dataSnapshot.getAdminAccountHash(), keyPrefix,
 				ledgerExStorage, ledgerVerStorage, dataStructure, cacheService.getAdminCache(), readonly);
 
 		UserAccountSetEditor userAccountSet = loadUserAccountSet(preBlockHeight, dataSnapshot.getUserAccountSetHash(), cryptoSetting,
-				keyPrefix, ledgerExStorage, ledgerVerStorage, dataStructure, cacheService, readonly);
+				keyPrefix, ledgerExStorage, ledgerVerStorage, dataStructure, kvProof, cacheService, readonly);
 
 		DataAccountSetEditor dataAccountSet = loadDataAccountSet(preBlockHeight, dataSnapshot.getDataAccountSetHash(), cryptoSetting,
-				keyPrefix, ledgerExStorage, ledgerVerStorage, dataStructure, cacheService, readonly);
+				keyPrefix, ledgerExStorage, ledgerVerStorage, dataStructure, kvProof, cacheService, readonly);
 
 		ContractAccountSetEditor contractAccountSet = loadContractAccountSet(preBlockHeight, dataSnapshot.getContractAccountSetHash(),
-				cryptoSetting, keyPrefix, ledgerExStorage, ledgerVerStorage, dataStructure, cacheService, readonly);
+				cryptoSetting, keyPrefix, ledgerExStorage, ledgerVerStorage, dataStructure, kvProof, cacheService, readonly);
 
 		LedgerDataSetEditor dataset = new LedgerDataSetEditor(adminAccount, userAccountSet, dataAccountSet,
 				contractAccountSet, readonly);
@@ -618,12 +645,12 @@ class LedgerRepositoryImpl implements LedgerRepository {
 	}
 
 	static LedgerEventSetEditor loadEventSet(long preBlockHeight, LedgerDataSnapshot dataSnapshot, CryptoSetting cryptoSetting, String keyPrefix,
-									   ExPolicyKVStorage ledgerExStorage, VersioningKVStorage ledgerVerStorage, LedgerDataStructure dataStructure, LedgerCache cacheService,  boolean readonly) {
+									   ExPolicyKVStorage ledgerExStorage, VersioningKVStorage ledgerVerStorage, LedgerDataStructure dataStructure, boolean kvProof, LedgerCache cacheService, boolean readonly) {
 
 		EventGroupPublisher systemEventSet = loadSystemEventSet(preBlockHeight, dataSnapshot.getSystemEventSetHash(), cryptoSetting,
 				keyPrefix, ledgerExStorage, ledgerVerStorage, dataStructure, readonly);
 		EventAccountSetEditor userEventSet = loadUserEventSet(preBlockHeight, dataSnapshot.getUserEventSetHash(), cryptoSetting,
-				keyPrefix, ledgerExStorage, ledgerVerStorage, dataStructure, cacheService, readonly);
+				keyPrefix, ledgerExStorage, ledgerVerStorage, dataStructure, kvProof, cacheService, readonly);
 		LedgerEventSetEditor newEventSet = new LedgerEventSetEditor(systemEventSet, userEventSet, false);
 
 		return newEventSet;
@@ -631,29 +658,29 @@ class LedgerRepositoryImpl implements LedgerRepository {
 
 	static UserAccountSetEditor loadUserAccountSet(long preBlockHeight, HashDigest userAccountSetHash, CryptoSetting cryptoSetting,
 			String keyPrefix, ExPolicyKVStorage ledgerExStorage, VersioningKVStorage ledgerVerStorage,
-												   LedgerDataStructure dataStructure, LedgerCache cacheService, boolean readonly) {
+												   LedgerDataStructure dataStructure, boolean kvProof, LedgerCache cacheService, boolean readonly) {
 
 		String usersetKeyPrefix = keyPrefix + USER_SET_PREFIX;
 		return new UserAccountSetEditor(preBlockHeight, userAccountSetHash, cryptoSetting, usersetKeyPrefix, ledgerExStorage,
-				ledgerVerStorage, readonly, dataStructure, cacheService.getUserCache(), DEFAULT_ACCESS_POLICY);
+				ledgerVerStorage, readonly, dataStructure, kvProof, cacheService.getUserCache(), DEFAULT_ACCESS_POLICY);
 	}
 
 	static DataAccountSetEditor loadDataAccountSet(long preBlockHeight, HashDigest dataAccountSetHash, CryptoSetting cryptoSetting,
 			String keyPrefix, ExPolicyKVStorage ledgerExStorage, VersioningKVStorage ledgerVerStorage,
-												   LedgerDataStructure dataStructure, LedgerCache cacheService, boolean readonly) {
+												   LedgerDataStructure dataStructure, boolean kvProof, LedgerCache cacheService, boolean readonly) {
 
 		String datasetKeyPrefix = keyPrefix + DATA_SET_PREFIX;
 		return new DataAccountSetEditor(preBlockHeight, dataAccountSetHash, cryptoSetting, datasetKeyPrefix, ledgerExStorage,
-				ledgerVerStorage, readonly, dataStructure, cacheService.getDataAccountCache(), DEFAULT_ACCESS_POLICY);
+				ledgerVerStorage, readonly, dataStructure, kvProof, cacheService.getDataAccountCache(), DEFAULT_ACCESS_POLICY);
 	}
 
 	static ContractAccountSetEditor loadContractAccountSet(long preBlockHeight, HashDigest contractAccountSetHash, CryptoSetting cryptoSetting,
 			String keyPrefix, ExPolicyKVStorage ledgerExStorage, VersioningKVStorage ledgerVerStorage,
-														   LedgerDataStructure dataStructure, LedgerCache cacheService, boolean readonly) {
+														   LedgerDataStructure dataStructure, boolean kvProof, LedgerCache cacheService, boolean readonly) {
 
 		String contractsetKeyPrefix = keyPrefix + CONTRACT_SET_PREFIX;
 		return new ContractAccountSetEditor(preBlockHeight, contractAccountSetHash, cryptoSetting, contractsetKeyPrefix, ledgerExStorage,
-				ledgerVerStorage, readonly, dataStructure, cacheService.getContractCache(), DEFAULT_ACCESS_POLICY);
+				ledgerVerStorage, readonly, dataStructure, kvProof, cacheService.getContractCache(), DEFAULT_ACCESS_POLICY);
 	}
 
 	static TransactionSetEditor loadTransactionSet(long preBlockHeight, HashDigest txsetHash, CryptoSetting cryptoSetting, String keyPrefix,
@@ -674,10 +701,10 @@ class LedgerRepositoryImpl implements LedgerRepository {
 
 	static EventAccountSetEditor loadUserEventSet(long preBlockHeight, HashDigest eventAccountSetHash, CryptoSetting cryptoSetting,
 											String keyPrefix, ExPolicyKVStorage ledgerExStorage, VersioningKVStorage ledgerVerStorage,
-											LedgerDataStructure dataStructure, LedgerCache cacheService, boolean readonly) {
+											LedgerDataStructure dataStructure, boolean kvProof, LedgerCache cacheService, boolean readonly) {
 
 		return new EventAccountSetEditor(preBlockHeight, eventAccountSetHash, cryptoSetting, keyPrefix + USER_EVENT_SET_PREFIX, ledgerExStorage,
-				ledgerVerStorage, readonly, dataStructure, cacheService.getEventAccountCache(), DEFAULT_ACCESS_POLICY);
+				ledgerVerStorage, readonly, dataStructure, kvProof, cacheService.getEventAccountCache(), DEFAULT_ACCESS_POLICY);
 	}
 
 	private static class NewBlockCommittingMonitor implements LedgerEditor {
@@ -1,6 +1,42 @@
 package com.jd.blockchain.ledger.core;
 
+/**
+ * 账本结构版本；
+ * <p>
+ * 结构版本在初始化账本时确定并写入账本元数据，参与创世区块的哈希计算，此后不再改变；所有节点按元数据中的版本处理账本，而不依赖节点各自的运行参数；
+ */
 public class LedgerStructureConfig {
 
     public static final long VERSION = 0L;
+
+    /**
+     * KV 数据结构的账户集和账户数据集以 {@link KvAccumulator} 计算根哈希，并提供存在性证明的结构版本；
+     */
+    public static final long KV_PROOF_VERSION = 1L;
+
+    /**
+     * 初始化账本时是否采用 {@link #KV_PROOF_VERSION} 的系统属性；
+     * <p>
+     * 只在生成创世区块时读取，参与初始化的各节点必须一致，否则创世区块的哈希不同，初始化无法达成一致；
+     */
+    public static final String KV_PROOF_PROPERTY = "ledger.kv-proof";
+
+    /**
+     * 新账本的结构版本；
+     *
+     * @return
+     */
+    public static long initVersion() {
+        return Boolean.getBoolean(KV_PROOF_PROPERTY) ? KV_PROOF_VERSION : VERSION;
+    }
+
+    /**
+     * 指定结构版本的账本是否以 {@link KvAccumulator} 计算 KV 数据集的根哈希；
+     *
+     * @param ledgerStructureVersion 账本元数据中的结构版本；
+     * @return
+     */
+    public static boolean isKvProofEnabled(long ledgerStructureVersion) {
+        return ledgerStructureVersion >= KV_PROOF_VERSION;
+    }
 }
@@ -69,6 +69,11 @@ public class LedgerTransactionalEditor implements LedgerEditor {
 
 	private LedgerDataStructure dataStructure;
 
+	/**
+	 * 账户集是否以 {@link KvAccumulator} 计算根哈希；由账本的结构版本决定；
+	 */
+	private final boolean kvProof;
+
 	/**
 	 * 上一个交易产生的账本快照；
 	 */
@@ -100,6 +105,16 @@ public class LedgerTransactionalEditor implements LedgerEditor {
 
 	private LedgerCache cacheService;
 
+	/**
+	 * 交易索引，未开启时为 null ；
+	 */
+	private final TransactionIndex txIndex;
+
+	/**
+	 * 事件索引，未开启时为 null ；
+	 */
+	private final EventBloomIndex eventBloom;
+
 	/**
 	 * @param ledgerHash
 	 * @param cryptoSetting
@@ -111,7 +126,7 @@ public class LedgerTransactionalEditor implements LedgerEditor {
 	 */
 	private LedgerTransactionalEditor(HashDigest ledgerHash, CryptoSetting cryptoSetting, LedgerBlockData currentBlock,
 			StagedSnapshot startingPoint, String ledgerKeyPrefix, TransactionSetEditor txset,
-			BufferedKVStorage bufferedStorage, LedgerDataStructure dataStructure, LedgerCache cacheService) {
+			BufferedKVStorage bufferedStorage, LedgerDataStructure dataStructure, boolean kvProof, LedgerCache cacheService) {
 		this.ledgerHash = ledgerHash;
 		this.ledgerKeyPrefix = ledgerKeyPrefix;
 		this.cryptoSetting = cryptoSetting;
@@ -121,6 +136,9 @@ public class LedgerTransactionalEditor implements LedgerEditor {
 		this.txset = txset;
 		this.cacheService = cacheService;
 		this.dataStructure = dataStructure;
+		this.kvProof = kvProof;
+		this.txIndex = TransactionIndex.isEnabled() ? new TransactionIndex(ledgerKeyPrefix, bufferedStorage) : null;
+		this.eventBloom = EventBloomIndex.isEnabled() ? new EventBloomIndex(ledgerKeyPrefix, bufferedStorage) : null;
 
 //		this.stagedSnapshots.push(startingPoint);
 	}
@@ -134,13 +152,14 @@ public class LedgerTransactionalEditor implements LedgerEditor {
 	 * @param ledgerKeyPrefix  账本数据前缀；
 	 * @param ledgerExStorage  账本数据存储；
 	 * @param ledgerVerStorage 账本数据版本化存储；
+	 * @param ledgerStructureVersion 账本元数据中的结构版本；
 	 * @param verifyTx         是否校验交易请求；当外部调用者在调用前已经实施了验证时，将次参数设置为 false 能够提升性能；
 	 * @return
 	 */
 	public static LedgerTransactionalEditor createEditor(LedgerBlock previousBlock, LedgerSettings ledgerSetting,
 														 String ledgerKeyPrefix, ExPolicyKVStorage ledgerExStorage,
 														 VersioningKVStorage ledgerVerStorage, LedgerDataStructure dataStructure,
-														 LedgerCache cacheService) {
+														 long ledgerStructureVersion, LedgerCache cacheService) {
 		// new block;
 		HashDigest ledgerHash = previousBlock.getLedgerHash();
 		if (ledgerHash == null) {
@@ -162,7 +181,8 @@ public class LedgerTransactionalEditor implements LedgerEditor {
 
 		// instantiate editor;
 		return new LedgerTransactionalEditor(ledgerHash, ledgerSetting.getCryptoSetting(), currBlock, startingPoint,
-				ledgerKeyPrefix, txset, txStagedStorage, dataStructure, cacheService);
+				ledgerKeyPrefix, txset, txStagedStorage, dataStructure,
+				LedgerStructureConfig.isKvProofEnabled(ledgerStructureVersion), cacheService);
 	}
 
 	/**
@@ -186,7 +206,16 @@ public class LedgerTransactionalEditor implements LedgerEditor {
 				txStagedStorage, txStagedStorage, dataStructure);
 
 		return new LedgerTransactionalEditor(null, initSetting.getCryptoSetting(), genesisBlock, startingPoint,
-				ledgerKeyPrefix, txset, txStagedStorage, dataStructure, new LedgerLRUCache());
+				ledgerKeyPrefix, txset, txStagedStorage, dataStructure,
+				LedgerStructureConfig.isKvProofEnabled(initSetting.getLedgerStructureVersion()), new LedgerLRUCache());
+	}
+
+	private void addTransaction(TransactionRequest txRequest, TransactionResult txResult) {
+		long sequence = txset.getTotalCount();
+		txset.addTransaction(txRequest, txResult);
+		if (txIndex != null) {
+			txIndex.addTransaction(sequence, txRequest, txResult);
+		}
 	}
 
 	private void commitTxSnapshot(TxSnapshot snapshot) {
@@ -251,6 +280,7 @@ public class LedgerTransactionalEditor implements LedgerEditor {
 		if (this.latestLedgerEventSet == null) {
 			this.eventsetStorage = new BufferedKVStorage(Crypto.getHashFunction(cryptoSetting.getHashAlgorithm()), baseStorage, baseStorage, false);
 			this.latestLedgerEventSet = createEventSetFromLastestSnapshot(eventsetStorage);
+			this.latestLedgerEventSet.setBloomIndex(eventBloom);
 		}
 		return this.latestLedgerEventSet;
 	}
@@ -377,7 +407,7 @@ public class LedgerTransactionalEditor implements LedgerEditor {
 				TxSnapshot snpht = (TxSnapshot) startingPoint;
 				// load dataset;
 				txDataset = LedgerRepositoryImpl.loadDataSet(currentBlock.getHeight() - 1, snpht.dataSnapshot, cryptoSetting, ledgerKeyPrefix,
-						txBufferedStorage, txBufferedStorage, dataStructure, cacheService, false);
+						txBufferedStorage, txBufferedStorage, dataStructure, kvProof, cacheService, false);
 			} else {
 				// Unreachable;
 				throw new IllegalStateException("Unreachable code was accidentally executed!");
@@ -387,7 +417,7 @@ public class LedgerTransactionalEditor implements LedgerEditor {
 			// Reuse previous object to optimize performance;
 			// load dataset;
 			txDataset = LedgerRepositoryImpl.loadDataSet(currentBlock.getHeight() - 1, previousTxSnapshot.dataSnapshot, cryptoSetting,
-					ledgerKeyPrefix, txBufferedStorage, txBufferedStorage, dataStructure, cacheService, false);
+					ledgerKeyPrefix, txBufferedStorage, txBufferedStorage, dataStructure, kvProof, cacheService, false);
 		}
 
 		return txDataset;
@@ -401,14 +431,14 @@ public class LedgerTransactionalEditor implements LedgerEditor {
 				// 准备生成创世区块；
 				GenesisSnapshot snpht = (GenesisSnapshot) startingPoint;
 				eventSet = LedgerRepositoryImpl.newEventSet(snpht.initSetting.getCryptoSetting(), ledgerKeyPrefix,
-						txBufferedStorage, txBufferedStorage, dataStructure, cacheService);
+						txBufferedStorage, txBufferedStorage, dataStructure, kvProof, cacheService);
 			} else if (startingPoint instanceof TxSnapshot) {
 				// 新的区块；
 				// TxSnapshot; reload dataset and eventset;
 				TxSnapshot snpht = (TxSnapshot) startingPoint;
 				// load eventset
 				eventSet = LedgerRepositoryImpl.loadEventSet(currentBlock.getHeight() - 1, snpht.dataSnapshot, cryptoSetting, ledgerKeyPrefix,
-						txBufferedStorage, txBufferedStorage, dataStructure,cacheService, false);
+						txBufferedStorage, txBufferedStorage, dataStructure, kvProof, cacheService, false);
 			} else {
 				// Unreachable;
 				throw new IllegalStateException("Unreachable code was accidentally executed!");
@@ -417,7 +447,7 @@ public class LedgerTransactionalEditor implements LedgerEditor {
 		} else {
 			// load eventset
 			eventSet = LedgerRepositoryImpl.loadEventSet(currentBlock.getHeight() - 1, previousTxSnapshot.dataSnapshot, cryptoSetting,
-					ledgerKeyPrefix, txBufferedStorage, txBufferedStorage, dataStructure, cacheService, false);
+					ledgerKeyPrefix, txBufferedStorage, txBufferedStorage, dataStructure, kvProof, cacheService, false);
 		}
 		return eventSet;
 	}
@@ -505,6 +535,13 @@ public class LedgerTransactionalEditor implements LedgerEditor {
 							currentBlock.getHeight(), currentBlock.getHash()));
 		}
 
+		if (txIndex != null) {
+			txIndex.commit(currentBlock.getHeight(), currentBlock.getTimestamp());
+		}
+		if (eventBloom != null) {
+			eventBloom.commit(currentBlock.getHeight());
+		}
+
 		prepared = true;
 		return currentBlock;
 	}
@@ -894,7 +931,7 @@ public class LedgerTransactionalEditor implements LedgerEditor {
 
 				logger.debug("before txset.add(),[contentHash={}]", this.getTransactionRequest().getTransactionHash());
 
-				ledgerEditor.txset.addTransaction(txRequest, txResult);
+				ledgerEditor.addTransaction(txRequest, txResult);
 
 				logger.debug("after txset.add(),[contentHash={}]", this.getTransactionRequest().getTransactionHash());
 
@@ -947,7 +984,7 @@ public class LedgerTransactionalEditor implements LedgerEditor {
 				txResult = new TransactionResultData(txRequest.getTransactionHash(), ledgerEditor.getBlockHeight(), txExecState, txDataSnapshot,
 						operationResultArray(operationResults), getDerivedOperations());
 
-				ledgerEditor.txset.addTransaction(txRequest, txResult);
+				ledgerEditor.addTransaction(txRequest, txResult);
 
 				// 不必每比交易完成后都计算交易集合的根哈希，只需要在最后生成区块时计算一次交易集合根哈希即可，如此可以优化性能；
 				// this.txset.commit();
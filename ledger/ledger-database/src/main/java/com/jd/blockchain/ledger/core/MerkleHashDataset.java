@@ -1,5 +1,7 @@
 package com.jd.blockchain.ledger.core;
 
+import java.util.List;
+
 import com.jd.blockchain.crypto.Crypto;
 import com.jd.blockchain.crypto.HashDigest;
 import com.jd.blockchain.crypto.HashFunction;
@@ -160,7 +162,7 @@ public class MerkleHashDataset implements BaseDataset<Bytes, byte[]> {
 		for (int i = 0; i < count && iterator.hasNext(); i++) {
 			KVEntry dataNode = iterator.next();
 			Bytes dataKey = encodeDataKey(dataNode.getKey());
-			values[i] = valueStorage.get(dataKey, dataNode.getVersion());
+			values[i] = DatasetHelper.getVersionedValue(valueStorage, dataKey, dataNode.getVersion());
 		}
 		return values;
 
@@ -186,30 +188,52 @@ public class MerkleHashDataset implements BaseDataset<Bytes, byte[]> {
 		for (int i = 0; i < count && iterator.hasNext(); i++) {
 			KVEntry dataNode = iterator.next();
 			Bytes dataKey = encodeDataKey(dataNode.getKey());
-			bytesValue = valueStorage.get(dataKey, dataNode.getVersion());
+			bytesValue = DatasetHelper.getVersionedValue(valueStorage, dataKey, dataNode.getVersion());
 			values[i] = new VersioningKVData<Bytes, byte[]>(dataNode.getKey(), dataNode.getVersion(), bytesValue);
 		}
 		return values;
 	}
 
+	/**
+	 * 批量读取多个键的最新数据项；
+	 * <p>
+	 * 在默克尔树中一次遍历定位全部的键，共享的路径节点只加载一次；
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	public DataEntry<Bytes, byte[]>[] getDataEntries(List<Bytes> keys) {
+		byte[][] keyBytes = new byte[keys.size()][];
+		for (int i = 0; i < keyBytes.length; i++) {
+			keyBytes[i] = keys.get(i).toBytes();
+		}
+		KVEntry[] dataNodes = merkleTree.getData(keyBytes);
+		DataEntry<Bytes, byte[]>[] entries = new DataEntry[dataNodes.length];
+		for (int i = 0; i < dataNodes.length; i++) {
+			if (dataNodes[i] != null) {
+				entries[i] = toDataEntry(dataNodes[i]);
+			}
+		}
+		return entries;
+	}
+
 	public DataEntry<Bytes, byte[]> getDataEntryAt(long index) {
 		if (index < 0 || index + 1 > merkleTree.getTotalKeys()) {
 			throw new IllegalArgumentException("Index out of bound!");
 		}
-		byte[] bytesValue;
 		SkippingIterator<KVEntry> iterator = merkleTree.iterator();
 		iterator.skip(index);
 		if (iterator.hasNext()) {
-			KVEntry dataNode = iterator.next();
-			Bytes dataKey = encodeDataKey(dataNode.getKey());
-			bytesValue = valueStorage.get(dataKey, dataNode.getVersion());
-			DataEntry<Bytes, byte[]> entry = new VersioningKVData<Bytes, byte[]>(dataNode.getKey(),
-					dataNode.getVersion(), bytesValue);
-			return entry;
+			return toDataEntry(iterator.next());
 		}
 		return null;
 	}
 
+	private DataEntry<Bytes, byte[]> toDataEntry(KVEntry dataNode) {
+		Bytes dataKey = encodeDataKey(dataNode.getKey());
+		byte[] bytesValue = DatasetHelper.getVersionedValue(valueStorage, dataKey, dataNode.getVersion());
+		return new VersioningKVData<Bytes, byte[]>(dataNode.getKey(), dataNode.getVersion(), bytesValue);
+	}
+
 	/**
 	 * Create or update the value associated the specified key if the version
 	 * checking is passed.<br>
@@ -317,7 +341,7 @@ public class MerkleHashDataset implements BaseDataset<Bytes, byte[]> {
 		}
 		version = version < 0 ? latestVersion : version;
 		Bytes dataKey = encodeDataKey(key);
-		byte[] value = valueStorage.get(dataKey, version);
+		byte[] value = DatasetHelper.getVersionedValue(valueStorage, dataKey, version);
 		if (value == null) {
 			throw new MerkleProofException("Expected value does not exist!");
 		}
@@ -367,7 +391,7 @@ public class MerkleHashDataset implements BaseDataset<Bytes, byte[]> {
 		}
 		version = version < 0 ? latestVersion : version;
 		Bytes dataKey = encodeDataKey(key);
-		byte[] value = valueStorage.get(dataKey, version);
+		byte[] value = DatasetHelper.getVersionedValue(valueStorage, dataKey, version);
 		if (value == null) {
 			throw new MerkleProofException("Expected value does not exist!");
 		}
@@ -478,10 +502,17 @@ public class MerkleHashDataset implements BaseDataset<Bytes, byte[]> {
 
 	// ----------------------------------------------------------
 
+	/**
+	 * 升序迭代器；
+	 * <p>
+	 * 顺序读取时复用同一个默克尔树迭代器，只有在跳跃读取时才从根节点重新定位，因此读取一页数据只需要定位一次；
+	 */
 	private class AscDataInterator extends AbstractSkippingIterator<DataEntry<Bytes, byte[]>> {
 
 		private final long total;
 
+		private SkippingIterator<KVEntry> treeIterator;
+
 		@Override
 		public long getTotalCount() {
 			return total;
@@ -493,15 +524,33 @@ public class MerkleHashDataset implements BaseDataset<Bytes, byte[]> {
 
 		@Override
 		protected DataEntry<Bytes, byte[]> get(long cursor) {
-			return getDataEntryAt(cursor);
+			if (treeIterator == null || treeIterator.getCursor() != cursor - 1) {
+				treeIterator = merkleTree.iterator();
+				treeIterator.skip(cursor);
+			}
+			if (!treeIterator.hasNext()) {
+				return null;
+			}
+			return toDataEntry(treeIterator.next());
 		}
 
 	}
 
+	/**
+	 * 降序迭代器；
+	 * <p>
+	 * 默克尔树只支持升序遍历，因此按窗口一次读取一段连续的数据，再从后往前返回；
+	 */
 	private class DescDataInterator extends AbstractSkippingIterator<DataEntry<Bytes, byte[]>> {
 
+		private static final int WINDOW_SIZE = 64;
+
 		private final long total;
 
+		private DataEntry<Bytes, byte[]>[] window = EMPTY_ENTRIES;
+
+		private long windowOffset;
+
 		public DescDataInterator(long total) {
 			this.total = total;
 		}
@@ -514,7 +563,12 @@ public class MerkleHashDataset implements BaseDataset<Bytes, byte[]> {
 		@Override
 		protected DataEntry<Bytes, byte[]> get(long cursor) {
 			// 倒序的迭代器从后往前返回；
-			return getDataEntryAt(total - cursor - 1);
+			long index = total - cursor - 1;
+			if (index < windowOffset || index >= windowOffset + window.length) {
+				windowOffset = Math.max(0, index - WINDOW_SIZE + 1);
+				window = getDataEntries(windowOffset, (int) (index - windowOffset + 1));
+			}
+			return window[(int) (index - windowOffset)];
 		}
 	}
 
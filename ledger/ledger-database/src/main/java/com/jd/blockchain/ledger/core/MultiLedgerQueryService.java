@@ -1,6 +1,7 @@
 package com.jd.blockchain.ledger.core;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import com.jd.blockchain.contract.ContractException;
@@ -335,19 +336,16 @@ public class MultiLedgerQueryService implements BlockchainQueryService {
 		DataAccountSet dataAccountSet = ledger.getDataAccountSet(block);
 		DataAccount dataAccount = dataAccountSet.getAccount(Bytes.fromBase58(address));
 
+		DataEntry<String, TypedValue>[] dataEntries = DatasetHelper
+				.getDataEntries(dataAccount == null ? null : dataAccount.getDataset(), Arrays.asList(keys));
 
 		TypedKVEntry[] entries = new TypedKVEntry[keys.length];
-		long ver;
 		for (int i = 0; i < entries.length; i++) {
-			final String currKey = keys[i];
-
-			ver = dataAccount == null ? -1 : dataAccount.getDataset().getVersion(currKey);
-
-			if (ver < 0) {
-				entries[i] = new TypedKVData(currKey, -1, null);
+			DataEntry<String, TypedValue> entry = dataEntries[i];
+			if (entry == null) {
+				entries[i] = new TypedKVData(keys[i], -1, null);
 			} else {
-				BytesValue value = dataAccount.getDataset().getValue(currKey, ver);
-				entries[i] = new TypedKVData(currKey, ver, value);
+				entries[i] = new TypedKVData(keys[i], entry.getVersion(), entry.getValue());
 			}
 		}
 
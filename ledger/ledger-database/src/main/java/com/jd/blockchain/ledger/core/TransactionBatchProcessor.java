@@ -112,7 +112,7 @@ public class TransactionBatchProcessor implements TransactionBatchProcess, Block
 			TransactionRequestExtension reqExt = new TransactionRequestExtensionImpl(request);
 
 			// 验证交易请求；
-			checkRequest(reqExt);
+			checkRequest(request, reqExt);
 			LOGGER.debug("after checkRequest... --[BlockHeight={}][RequestHash={}]",
 					newBlockEditor.getBlockHeight(), request.getTransactionHash());
 
@@ -194,15 +194,26 @@ public class TransactionBatchProcessor implements TransactionBatchProcess, Block
 		securityPolicy.checkEndpointState(MultiIDsPolicy.AT_LEAST_ONE);
 	}
 
-	private void checkRequest(TransactionRequestExtension reqExt) {
-		if(!ignoreSignature) {
-			checkTxContentHash(reqExt);
-			checkEndpointSignatures(reqExt);
-			checkNodeSignatures(reqExt);
+	private void checkRequest(TransactionRequest request, TransactionRequestExtension reqExt) {
+		// 已经由 TransactionPreVerifier 提前验证通过的请求不再重复验证；
+		if(!ignoreSignature && !TransactionPreVerifier.consumeVerified(request)) {
+			verifyRequest(reqExt);
 		}
 	}
 
-	private void checkTxContentHash(TransactionRequestExtension requestExt) {
+	/**
+	 * 验证交易的内容哈希和签名；只依赖交易请求自身，与账本状态无关；
+	 *
+	 * @param reqExt
+	 * @throws IllegalTransactionException 验证失败时抛出；
+	 */
+	static void verifyRequest(TransactionRequestExtension reqExt) {
+		checkTxContentHash(reqExt);
+		checkEndpointSignatures(reqExt);
+		checkNodeSignatures(reqExt);
+	}
+
+	private static void checkTxContentHash(TransactionRequestExtension requestExt) {
 		TransactionContent txContent = requestExt.getTransactionContent();
 		if (!TxBuilder.verifyTxContentHash(txContent, requestExt.getTransactionHash())) {
 			// 由于哈希校验失败，引发IllegalTransactionException，使外部调用抛弃此交易请求；
@@ -212,7 +223,7 @@ public class TransactionBatchProcessor implements TransactionBatchProcess, Block
 		}
 	}
 
-	private void checkNodeSignatures(TransactionRequestExtension request) {
+	private static void checkNodeSignatures(TransactionRequestExtension request) {
 		Collection<Credential> nodes = request.getNodes();
 		if (nodes != null) {
 			for (Credential node : nodes) {
@@ -227,7 +238,7 @@ public class TransactionBatchProcessor implements TransactionBatchProcess, Block
 		}
 	}
 
-	private void checkEndpointSignatures(TransactionRequestExtension request) {
+	private static void checkEndpointSignatures(TransactionRequestExtension request) {
 //		TransactionContent txContent = request.getTransactionContent();
 		Collection<Credential> endpoints = request.getEndpoints();
 		if (endpoints != null) {
@@ -0,0 +1,282 @@
+package com.jd.blockchain.ledger.core;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.jd.blockchain.ledger.BlockchainIdentityData;
+import com.jd.blockchain.ledger.ContractCodeDeployOperation;
+import com.jd.blockchain.ledger.ContractEventSendOperation;
+import com.jd.blockchain.ledger.ContractStateUpdateOperation;
+import com.jd.blockchain.ledger.DataAccountKVSetOperation;
+import com.jd.blockchain.ledger.DataAccountRegisterOperation;
+import com.jd.blockchain.ledger.DigitalSignature;
+import com.jd.blockchain.ledger.EventAccountRegisterOperation;
+import com.jd.blockchain.ledger.EventPublishOperation;
+import com.jd.blockchain.ledger.Operation;
+import com.jd.blockchain.ledger.TransactionRequest;
+import com.jd.blockchain.ledger.TransactionResult;
+import com.jd.blockchain.ledger.UserCAUpdateOperation;
+import com.jd.blockchain.ledger.UserRegisterOperation;
+import com.jd.blockchain.ledger.UserStateUpdateOperation;
+import com.jd.blockchain.storage.service.VersioningKVStorage;
+
+import utils.Bytes;
+import utils.io.BytesUtils;
+
+/**
+ * 交易的二级索引；
+ * <p>
+ * 包括两类索引，在区块生成时增量写入，存储在独立的键空间中，不参与账本的默克尔哈希计算，因此不影响区块哈希：<br>
+ * 1. 账户索引：账户地址到交易序号，交易序号为交易在账本交易集合中的全局序号，按写入顺序排列；<br>
+ * 2. 时间索引：区块时间戳到区块高度，按区块高度递增排列；
+ * <p>
+ * 每个索引键的多个版本构成一个只追加的列表，查询时以版本号作为游标分页读取；
+ * <p>
+ * 索引默认关闭，通过系统属性 {@link #ENABLED_PROPERTY} 开启；开启之前生成的区块不会补建索引；
+ */
+public class TransactionIndex {
+
+	public static final String ENABLED_PROPERTY = "ledger.tx-index";
+
+	private static final boolean ENABLED = Boolean.getBoolean(ENABLED_PROPERTY);
+
+	private static final Bytes ACCOUNT_PREFIX = Bytes
+			.fromString("TI" + LedgerConsts.KEY_SEPERATOR + "AC" + LedgerConsts.KEY_SEPERATOR);
+
+	private static final Bytes TIME_PREFIX = Bytes
+			.fromString("TI" + LedgerConsts.KEY_SEPERATOR + "TM" + LedgerConsts.KEY_SEPERATOR);
+
+	private final Bytes accountPrefix;
+
+	private final Bytes timeKey;
+
+	private final VersioningKVStorage storage;
+
+	/**
+	 * 当前区块中等待写入的交易索引；
+	 */
+	private final List<IndexedTransaction> pendingTransactions = new ArrayList<>();
+
+	/**
+	 * @param keyPrefix 账本数据前缀；
+	 * @param storage   索引的存储；写入时为当前区块的存储，查询时为账本的存储；
+	 */
+	public TransactionIndex(String keyPrefix, VersioningKVStorage storage) {
+		Bytes prefix = Bytes.fromString(keyPrefix);
+		this.accountPrefix = prefix.concat(ACCOUNT_PREFIX);
+		this.timeKey = prefix.concat(TIME_PREFIX);
+		this.storage = storage;
+	}
+
+	/**
+	 * 是否开启了交易索引；
+	 *
+	 * @return
+	 */
+	public static boolean isEnabled() {
+		return ENABLED;
+	}
+
+	/**
+	 * 账户相关的交易总数；
+	 *
+	 * @param address 账户地址；
+	 * @return
+	 */
+	public long getAccountTransactionCount(Bytes address) {
+		return storage.getVersion(accountPrefix.concat(address)) + 1;
+	}
+
+	/**
+	 * 分页查询账户相关的交易序号；
+	 *
+	 * @param address 账户地址；
+	 * @param cursor  游标，即起始的索引位置；首页为 0 ，下一页的游标为当前游标加上返回的数量；
+	 * @param count   最大数量；
+	 * @return 交易在账本交易集合中的全局序号，按交易写入的先后排列；
+	 */
+	public long[] getAccountTransactions(Bytes address, long cursor, int count) {
+		checkPage(cursor, count);
+		Bytes key = accountPrefix.concat(address);
+		long total = storage.getVersion(key) + 1;
+		if (cursor >= total) {
+			return new long[0];
+		}
+		long[] sequences = new long[(int) Math.min(total - cursor, count)];
+		for (int i = 0; i < sequences.length; i++) {
+			sequences[i] = BytesUtils.toLong(storage.get(key, cursor + i));
+		}
+		return sequences;
+	}
+
+	/**
+	 * 分页查询时间戳在指定区间 [fromTime, toTime) 内的区块高度；
+	 *
+	 * @param fromTime 起始时间戳（含）；
+	 * @param toTime   结束时间戳（不含）；
+	 * @param cursor   游标，即区间内的起始位置；首页为 0 ，下一页的游标为当前游标加上返回的数量；
+	 * @param count    最大数量；
+	 * @return 按高度递增排列的区块高度；
+	 */
+	public long[] getBlockHeights(long fromTime, long toTime, long cursor, int count) {
+		checkPage(cursor, count);
+		long from = lowerBound(fromTime) + cursor;
+		long to = lowerBound(toTime);
+		if (from >= to) {
+			return new long[0];
+		}
+		long[] heights = new long[(int) Math.min(to - from, count)];
+		for (int i = 0; i < heights.length; i++) {
+			heights[i] = BytesUtils.toLong(storage.get(timeKey, from + i), 0);
+		}
+		return heights;
+	}
+
+	/**
+	 * 记录当前区块内的交易；
+	 *
+	 * @param sequence 交易在账本交易集合中的全局序号；
+	 * @param request  交易请求；
+	 * @param result   交易结果；
+	 */
+	public void addTransaction(long sequence, TransactionRequest request, TransactionResult result) {
+		pendingTransactions.add(new IndexedTransaction(sequence, resolveAddresses(request, result)));
+	}
+
+	/**
+	 * 把当前区块的索引写入存储；
+	 *
+	 * @param blockHeight 区块高度；
+	 * @param timestamp   区块时间戳；
+	 */
+	public void commit(long blockHeight, long timestamp) {
+		for (IndexedTransaction tx : pendingTransactions) {
+			byte[] sequence = BytesUtils.toBytes(tx.sequence);
+			for (Bytes address : tx.addresses) {
+				append(accountPrefix.concat(address), sequence);
+			}
+		}
+		pendingTransactions.clear();
+
+		// 时间戳取已索引的最大值，保证索引有序，可以二分查找；
+		long latestVersion = storage.getVersion(timeKey);
+		if (latestVersion > -1) {
+			timestamp = Math.max(timestamp, BytesUtils.toLong(storage.get(timeKey, latestVersion), 8));
+		}
+		byte[] entry = new byte[16];
+		BytesUtils.toBytes(blockHeight, entry, 0);
+		BytesUtils.toBytes(timestamp, entry, 8);
+		append(timeKey, entry);
+	}
+
+	private void append(Bytes key, byte[] value) {
+		long v = storage.set(key, value, storage.getVersion(key));
+		if (v < 0) {
+			throw new IllegalStateException("Transaction index conflict! --" + key);
+		}
+	}
+
+	/**
+	 * 第一个时间戳不小于指定值的索引位置；
+	 */
+	private long lowerBound(long timestamp) {
+		long low = 0;
+		long high = storage.getVersion(timeKey) + 1;
+		while (low < high) {
+			long mid = (low + high) >>> 1;
+			if (BytesUtils.toLong(storage.get(timeKey, mid), 8) < timestamp) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	private static void checkPage(long cursor, int count) {
+		if (cursor < 0) {
+			throw new IllegalArgumentException("Cursor is negative! --" + cursor);
+		}
+		if (count <= 0 || count > LedgerConsts.MAX_LIST_COUNT) {
+			throw new IllegalArgumentException("Count exceed the upper limit[" + LedgerConsts.MAX_LIST_COUNT + "]!");
+		}
+	}
+
+	/**
+	 * 交易涉及的账户地址，包括终端签名者、请求中的操作以及合约执行衍生的操作所访问的账户；
+	 */
+	private static Set<Bytes> resolveAddresses(TransactionRequest request, TransactionResult result) {
+		Set<Bytes> addresses = new LinkedHashSet<>();
+		DigitalSignature[] signatures = request.getEndpointSignatures();
+		if (signatures != null) {
+			for (DigitalSignature signature : signatures) {
+				addresses.add(new BlockchainIdentityData(signature.getPubKey()).getAddress());
+			}
+		}
+		resolveAddresses(request.getTransactionContent().getOperations(), addresses);
+		if (result != null) {
+			resolveAddresses(result.getDerivedOperations(), addresses);
+		}
+		return addresses;
+	}
+
+	private static void resolveAddresses(Operation[] operations, Set<Bytes> addresses) {
+		if (operations == null) {
+			return;
+		}
+		for (Operation op : operations) {
+			Bytes address = resolveAddress(op);
+			if (address != null) {
+				addresses.add(address);
+			}
+		}
+	}
+
+	private static Bytes resolveAddress(Operation op) {
+		if (op instanceof DataAccountKVSetOperation) {
+			return ((DataAccountKVSetOperation) op).getAccountAddress();
+		}
+		if (op instanceof DataAccountRegisterOperation) {
+			return ((DataAccountRegisterOperation) op).getAccountID().getAddress();
+		}
+		if (op instanceof UserRegisterOperation) {
+			return ((UserRegisterOperation) op).getUserID().getAddress();
+		}
+		if (op instanceof UserStateUpdateOperation) {
+			return ((UserStateUpdateOperation) op).getUserAddress();
+		}
+		if (op instanceof UserCAUpdateOperation) {
+			return ((UserCAUpdateOperation) op).getUserAddress();
+		}
+		if (op instanceof ContractCodeDeployOperation) {
+			return ((ContractCodeDeployOperation) op).getContractID().getAddress();
+		}
+		if (op instanceof ContractEventSendOperation) {
+			return ((ContractEventSendOperation) op).getContractAddress();
+		}
+		if (op instanceof ContractStateUpdateOperation) {
+			return ((ContractStateUpdateOperation) op).getContractAddress();
+		}
+		if (op instanceof EventAccountRegisterOperation) {
+			return ((EventAccountRegisterOperation) op).getEventAccountID().getAddress();
+		}
+		if (op instanceof EventPublishOperation) {
+			return ((EventPublishOperation) op).getEventAddress();
+		}
+		return null;
+	}
+
+	private static class IndexedTransaction {
+
+		private final long sequence;
+
+		private final Set<Bytes> addresses;
+
+		IndexedTransaction(long sequence, Set<Bytes> addresses) {
+			this.sequence = sequence;
+			this.addresses = addresses;
+		}
+	}
+}
@@ -0,0 +1,141 @@
+package com.jd.blockchain.ledger.core;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.jd.binaryproto.BinaryProtocol;
+import com.jd.blockchain.ledger.TransactionRequest;
+
+import utils.Bytes;
+import utils.concurrent.NamedThreadFactory;
+
+/**
+ * 交易请求的预验证；
+ * <p>
+ * 交易的解码以及内容哈希和签名的验证只依赖请求自身，与账本状态无关；
+ * 共识层可以在一个批次开始执行之前通过 {@link #submit(byte[])} 提前并行地完成这部分工作，与前一批次的提交重叠进行；<br>
+ * 执行时通过 {@link #take(byte[])} 取得已解码的请求，验证通过的请求在 {@link TransactionBatchProcessor} 中不再重复验证；
+ * <p>
+ * 预验证的结果由消息的原始字节唯一确定，验证失败的请求仍由执行过程重新验证并按原有的方式丢弃，因此不影响执行结果的确定性；
+ */
+public class TransactionPreVerifier {
+
+	private static final String THREADS_PROPERTY = "tx-pre-verify-threads";
+
+	private static final String IGNORE_SIGNATURE_PROPERTY = "ignoreSignature";
+
+	/**
+	 * 等待执行的预验证请求的最大数量；超出时丢弃最早的结果，执行时按原方式解码和验证；
+	 */
+	private static final int MAX_PENDING = 64 * 1024;
+
+	private static final TransactionPreVerifier SHARED = new TransactionPreVerifier();
+
+	/**
+	 * 验证通过、等待执行的请求；以对象标识作为键；
+	 */
+	private static final Cache<TransactionRequest, Boolean> VERIFIED_REQUESTS = CacheBuilder.newBuilder().weakKeys()
+			.build();
+
+	private final ExecutorService executor = Executors.newFixedThreadPool(
+			Integer.getInteger(THREADS_PROPERTY, Runtime.getRuntime().availableProcessors()),
+			new NamedThreadFactory("tx-pre-verify", true));
+
+	private final Cache<Bytes, Future<PreVerifiedRequest>> pendings = CacheBuilder.newBuilder()
+			.maximumSize(MAX_PENDING).expireAfterWrite(1, TimeUnit.MINUTES).build();
+
+	private final boolean ignoreSignature = Boolean.getBoolean(IGNORE_SIGNATURE_PROPERTY);
+
+	private TransactionPreVerifier() {
+	}
+
+	public static TransactionPreVerifier getShared() {
+		return SHARED;
+	}
+
+	/**
+	 * 提交消息进行解码和预验证；
+	 *
+	 * @param message 交易请求的消息；
+	 */
+	public void submit(byte[] message) {
+		Bytes key = new Bytes(message);
+		if (pendings.getIfPresent(key) != null) {
+			return;
+		}
+		pendings.put(key, executor.submit(() -> verify(message)));
+	}
+
+	/**
+	 * 取得预验证的请求；
+	 *
+	 * @param message 交易请求的消息；
+	 * @return 已解码的请求；如果消息未提交预验证，则返回 null ；
+	 */
+	public TransactionRequest take(byte[] message) {
+		Bytes key = new Bytes(message);
+		Future<PreVerifiedRequest> future = pendings.getIfPresent(key);
+		if (future == null) {
+			return null;
+		}
+		pendings.invalidate(key);
+		PreVerifiedRequest result;
+		try {
+			result = future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		} catch (ExecutionException e) {
+			return null;
+		}
+		if (result.verified) {
+			VERIFIED_REQUESTS.put(result.request, Boolean.TRUE);
+		}
+		return result.request;
+	}
+
+	/**
+	 * 请求是否已经预验证通过；每个请求只能消费一次；
+	 *
+	 * @param request
+	 * @return
+	 */
+	static boolean consumeVerified(TransactionRequest request) {
+		if (VERIFIED_REQUESTS.getIfPresent(request) == null) {
+			return false;
+		}
+		VERIFIED_REQUESTS.invalidate(request);
+		return true;
+	}
+
+	private PreVerifiedRequest verify(byte[] message) {
+		TransactionRequest request = BinaryProtocol.decode(message);
+		if (ignoreSignature) {
+			return new PreVerifiedRequest(request, false);
+		}
+		try {
+			TransactionBatchProcessor.verifyRequest(new TransactionRequestExtensionImpl(request));
+			return new PreVerifiedRequest(request, true);
+		} catch (Exception e) {
+			// 验证失败的请求由执行过程重新验证并丢弃；
+			return new PreVerifiedRequest(request, false);
+		}
+	}
+
+	private static class PreVerifiedRequest {
+
+		private final TransactionRequest request;
+
+		private final boolean verified;
+
+		PreVerifiedRequest(TransactionRequest request, boolean verified) {
+			this.request = request;
+			this.verified = verified;
+		}
+	}
+}
@@ -28,26 +28,26 @@ public class UserAccountSetEditor implements Transactional, UserAccountSet {
 
 	public UserAccountSetEditor(CryptoSetting cryptoSetting, String keyPrefix, ExPolicyKVStorage simpleStorage,
 								VersioningKVStorage versioningStorage, AccountAccessPolicy accessPolicy,
-								LedgerDataStructure dataStructure, UserCache cache) {
+								LedgerDataStructure dataStructure, boolean kvProof, UserCache cache) {
 		this.cache = cache;
 		if (dataStructure.equals(LedgerDataStructure.MERKLE_TREE)) {
 			accountSet = new MerkleAccountSetEditor(cryptoSetting, Bytes.fromString(keyPrefix), simpleStorage, versioningStorage, cache, accessPolicy);
 		} else {
 			accountSet = new KvAccountSetEditor(cryptoSetting, Bytes.fromString(keyPrefix), simpleStorage, versioningStorage,
-					accessPolicy, DatasetType.USERS);
+					accessPolicy, DatasetType.USERS, kvProof);
 		}
 	}
 
 	public UserAccountSetEditor(long preBlockHeight, HashDigest dataRootHash, CryptoSetting cryptoSetting, String keyPrefix,
 									  ExPolicyKVStorage exStorage, VersioningKVStorage verStorage, boolean readonly, LedgerDataStructure dataStructure,
-								UserCache cache, AccountAccessPolicy accessPolicy) {
+								boolean kvProof, UserCache cache, AccountAccessPolicy accessPolicy) {
 		this.cache = cache;
 		if (dataStructure.equals(LedgerDataStructure.MERKLE_TREE)) {
 			accountSet = new MerkleAccountSetEditor(dataRootHash, cryptoSetting, Bytes.fromString(keyPrefix), exStorage,
 					verStorage, readonly, cache, accessPolicy);
 		} else {
 			accountSet = new KvAccountSetEditor(preBlockHeight, dataRootHash, cryptoSetting, Bytes.fromString(keyPrefix), exStorage,
-				verStorage, readonly, accessPolicy, DatasetType.USERS);
+				verStorage, readonly, accessPolicy, DatasetType.USERS, kvProof);
 		}
 	}
 	
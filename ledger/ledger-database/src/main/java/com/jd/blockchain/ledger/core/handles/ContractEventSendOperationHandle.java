@@ -47,9 +47,10 @@ public class ContractEventSendOperationHandle implements OperationHandle {
         ContractLedgerQueryService ledgerQueryService = new ContractLedgerQueryService(ledger);
         LedgerMetadata_V2 metadata = (LedgerMetadata_V2) ledgerQueryService.getLedgerMetadata();
 
-        // 创建合约的账本上下文实例；
-        ContractLedgerContext ledgerContext = new ContractLedgerContext(opHandleContext, ledgerQueryService, new MultiLedgerQueryService(ledger));
-        UncommittedLedgerQueryService uncommittedLedgerQueryService = new UncommittedLedgerQueryService(transactionContext);
+        // 创建合约的账本上下文实例；合约提交的操作同时失效本次调用的读缓存；
+        ContractReadCache readCache = new ContractReadCache();
+        ContractLedgerContext ledgerContext = new ContractLedgerContext(opHandleContext, ledgerQueryService, new MultiLedgerQueryService(ledger), readCache);
+        UncommittedLedgerQueryService uncommittedLedgerQueryService = new UncommittedLedgerQueryService(transactionContext, readCache);
 
         // 执行权限校验
         securityPolicy.checkDataPermission(contract.getPermission(), DataPermissionType.EXECUTE);
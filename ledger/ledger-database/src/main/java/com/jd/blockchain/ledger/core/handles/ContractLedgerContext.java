@@ -61,6 +61,20 @@ public class ContractLedgerContext implements LedgerContext {
         this.multiLedgerQueryService = multiLedgerQueryService;
     }
 
+    /**
+     * @param readCache 合约调用内的读缓存；合约通过本上下文提交的操作执行后按影响范围失效缓存；
+     */
+    public ContractLedgerContext(OperationHandleContext opHandleContext, LedgerQueryService innerQueryService, BlockchainQueryService multiLedgerQueryService,
+                                 ContractReadCache readCache) {
+        this(operation -> {
+            try {
+                return opHandleContext.handle(operation);
+            } finally {
+                readCache.invalidate(operation);
+            }
+        }, innerQueryService, multiLedgerQueryService);
+    }
+
     @Override
     public LedgerAdminInfo getLedgerAdminInfo() {
         return innerQueryService.getLedgerAdminInfo();
@@ -23,6 +23,7 @@ import com.jd.blockchain.ledger.UserPrivilegeSet;
 import com.jd.blockchain.ledger.core.ContractAccountSet;
 import com.jd.blockchain.ledger.core.DataAccount;
 import com.jd.blockchain.ledger.core.DataAccountSet;
+import com.jd.blockchain.ledger.core.DatasetHelper;
 import com.jd.blockchain.ledger.core.EventAccountSet;
 import com.jd.blockchain.ledger.core.EventPublishingAccount;
 import com.jd.blockchain.ledger.core.IteratorDataset;
@@ -40,6 +41,7 @@ import utils.query.QueryArgs;
 import utils.query.QueryUtils;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class ContractLedgerQueryService implements LedgerQueryService {
@@ -108,18 +110,15 @@ public class ContractLedgerQueryService implements LedgerQueryService {
     @Override
     public TypedKVEntry[] getDataEntries(String address, String... keys) {
         DataAccount account = ledgerQuery.getDataAccountSet().getAccount(address);
+        DataEntry<String, TypedValue>[] dataEntries = DatasetHelper
+                .getDataEntries(account == null ? null : account.getDataset(), Arrays.asList(keys));
         TypedKVEntry[] entries = new TypedKVEntry[keys.length];
-        long ver;
         for (int i = 0; i < entries.length; i++) {
-            final String currKey = keys[i];
-
-            ver = account == null ? -1 : account.getDataset().getVersion(currKey);
-
-            if (ver < 0) {
-                entries[i] = new TypedKVData(currKey, -1, null);
+            DataEntry<String, TypedValue> entry = dataEntries[i];
+            if (entry == null) {
+                entries[i] = new TypedKVData(keys[i], -1, null);
             } else {
-                BytesValue value = account.getDataset().getValue(currKey, ver);
-                entries[i] = new TypedKVData(currKey, ver, value);
+                entries[i] = new TypedKVData(keys[i], entry.getVersion(), entry.getValue());
             }
         }
 
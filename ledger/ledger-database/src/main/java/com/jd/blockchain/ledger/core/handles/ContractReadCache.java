@@ -0,0 +1,155 @@
+package com.jd.blockchain.ledger.core.handles;
+
+import com.jd.blockchain.ledger.AccountPermissionSetOperation;
+import com.jd.blockchain.ledger.ContractEventSendOperation;
+import com.jd.blockchain.ledger.DataAccountKVSetOperation;
+import com.jd.blockchain.ledger.DataAccountRegisterOperation;
+import com.jd.blockchain.ledger.KVWriteEntry;
+import com.jd.blockchain.ledger.Operation;
+import com.jd.blockchain.ledger.TypedKVEntry;
+import com.jd.blockchain.ledger.core.DataAccount;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 一次合约调用内的数据账户读缓存；
+ * <p>
+ * 缓存数据账户以及账户中 KV 的读取结果（包括不存在的结果），同一调用内重复读取时不再访问账本数据集；<br>
+ * 合约通过操作构建器提交的操作按影响范围失效：KV 写入只失效所写的键，注册和权限设置失效整个账户，嵌套的合约调用失效全部缓存；
+ * <p>
+ * 合约调用在交易处理线程内串行执行，缓存不是线程安全的；
+ */
+public class ContractReadCache {
+
+    private final Map<String, AccountEntry> accounts = new HashMap<>();
+
+    /**
+     * 获取数据账户；
+     *
+     * @param address 账户地址；
+     * @param loader  缓存中没有时加载账户；
+     * @return 账户不存在时返回 null ；
+     */
+    public DataAccount getAccount(String address, Function<String, DataAccount> loader) {
+        AccountEntry entry = entryOf(address);
+        if (!entry.accountLoaded) {
+            entry.account = loader.apply(address);
+            entry.accountLoaded = true;
+        }
+        return entry.account;
+    }
+
+    /**
+     * 获取多个键的最新数据；只加载缓存中没有的键；
+     *
+     * @param address 账户地址；
+     * @param keys    键；
+     * @param loader  加载指定的键，返回的结果与参数中的键一一对应；
+     * @return
+     */
+    public TypedKVEntry[] getLatestEntries(String address, String[] keys, Function<String[], TypedKVEntry[]> loader) {
+        AccountEntry entry = entryOf(address);
+        TypedKVEntry[] entries = new TypedKVEntry[keys.length];
+        List<Integer> missingIndexes = null;
+        for (int i = 0; i < keys.length; i++) {
+            TypedKVEntry cached = entry.latest.get(keys[i]);
+            if (cached != null) {
+                entries[i] = cached;
+            } else {
+                if (missingIndexes == null) {
+                    missingIndexes = new ArrayList<>();
+                }
+                missingIndexes.add(i);
+            }
+        }
+        if (missingIndexes == null) {
+            return entries;
+        }
+        String[] missingKeys = new String[missingIndexes.size()];
+        for (int i = 0; i < missingKeys.length; i++) {
+            missingKeys[i] = keys[missingIndexes.get(i)];
+        }
+        TypedKVEntry[] loaded = loader.apply(missingKeys);
+        for (int i = 0; i < missingKeys.length; i++) {
+            int index = missingIndexes.get(i);
+            entries[index] = loaded[i];
+            if (loaded[i] != null) {
+                entry.latest.put(missingKeys[i], loaded[i]);
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * 获取指定版本的数据；
+     *
+     * @param address 账户地址；
+     * @param key     键；
+     * @param version 版本；
+     * @param loader  缓存中没有时加载数据；
+     * @return 数据不存在时返回 null ；
+     */
+    public TypedKVEntry getEntry(String address, String key, long version, Supplier<TypedKVEntry> loader) {
+        Map<Long, TypedKVEntry> versions = entryOf(address).versioned.computeIfAbsent(key, k -> new HashMap<>());
+        if (versions.containsKey(version)) {
+            return versions.get(version);
+        }
+        TypedKVEntry value = loader.get();
+        // 不存在的结果同样缓存；
+        versions.put(version, value);
+        return value;
+    }
+
+    /**
+     * 按操作的影响范围失效缓存；
+     *
+     * @param operation 合约提交的操作；
+     */
+    public void invalidate(Operation operation) {
+        if (operation instanceof DataAccountKVSetOperation) {
+            DataAccountKVSetOperation kvSetOperation = (DataAccountKVSetOperation) operation;
+            AccountEntry entry = accounts.get(kvSetOperation.getAccountAddress().toBase58());
+            if (entry == null) {
+                return;
+            }
+            // 写入改变了账户的数据集，账户需要重新加载；
+            entry.account = null;
+            entry.accountLoaded = false;
+            for (KVWriteEntry writeEntry : kvSetOperation.getWriteSet()) {
+                entry.latest.remove(writeEntry.getKey());
+                entry.versioned.remove(writeEntry.getKey());
+            }
+        } else if (operation instanceof DataAccountRegisterOperation) {
+            accounts.remove(((DataAccountRegisterOperation) operation).getAccountID().getAddress().toBase58());
+        } else if (operation instanceof AccountPermissionSetOperation) {
+            accounts.remove(((AccountPermissionSetOperation) operation).getAddress().toBase58());
+        } else if (operation instanceof ContractEventSendOperation) {
+            // 嵌套调用的合约可能写入任意数据；
+            clear();
+        }
+    }
+
+    public void clear() {
+        accounts.clear();
+    }
+
+    private AccountEntry entryOf(String address) {
+        return accounts.computeIfAbsent(address, k -> new AccountEntry());
+    }
+
+    private static class AccountEntry {
+
+        private DataAccount account;
+
+        private boolean accountLoaded;
+
+        private final Map<String, TypedKVEntry> latest = new HashMap<>();
+
+        private final Map<String, Map<Long, TypedKVEntry>> versioned = new HashMap<>();
+    }
+}
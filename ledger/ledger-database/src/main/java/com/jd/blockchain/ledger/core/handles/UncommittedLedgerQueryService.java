@@ -23,6 +23,7 @@ import com.jd.blockchain.ledger.UserPrivilegeSet;
 import com.jd.blockchain.ledger.core.ContractAccountSet;
 import com.jd.blockchain.ledger.core.DataAccount;
 import com.jd.blockchain.ledger.core.DataAccountSet;
+import com.jd.blockchain.ledger.core.DatasetHelper;
 import com.jd.blockchain.ledger.core.EventAccountSet;
 import com.jd.blockchain.ledger.core.EventPublishingAccount;
 import com.jd.blockchain.ledger.core.IteratorDataset;
@@ -40,6 +41,7 @@ import utils.query.QueryArgs;
 import utils.query.QueryUtils;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -50,8 +52,23 @@ public class UncommittedLedgerQueryService implements LedgerQueryService {
     // 最新待提交区块数据
     private LedgerTransactionContext transactionContext;
 
+    // 合约调用内的数据账户读缓存，可为空
+    private ContractReadCache readCache;
+
     public UncommittedLedgerQueryService(LedgerTransactionContext transactionContext) {
+        this(transactionContext, null);
+    }
+
+    public UncommittedLedgerQueryService(LedgerTransactionContext transactionContext, ContractReadCache readCache) {
         this.transactionContext = transactionContext;
+        this.readCache = readCache;
+    }
+
+    private DataAccount getAccount(String address) {
+        if (readCache == null) {
+            return transactionContext.getDataset().getDataAccountSet().getAccount(address);
+        }
+        return readCache.getAccount(address, addr -> transactionContext.getDataset().getDataAccountSet().getAccount(addr));
     }
 
     @Override
@@ -106,24 +123,28 @@ public class UncommittedLedgerQueryService implements LedgerQueryService {
 
     @Override
     public DataAccountInfo getDataAccount(String address) {
-        return transactionContext.getDataset().getDataAccountSet().getAccount(address);
+        return getAccount(address);
     }
 
     @Override
     public TypedKVEntry[] getDataEntries(String address, String... keys) {
-        DataAccount account = transactionContext.getDataset().getDataAccountSet().getAccount(address);
+        if (readCache == null) {
+            return loadDataEntries(address, keys);
+        }
+        return readCache.getLatestEntries(address, keys, missingKeys -> loadDataEntries(address, missingKeys));
+    }
+
+    private TypedKVEntry[] loadDataEntries(String address, String... keys) {
+        DataAccount account = getAccount(address);
+        DataEntry<String, TypedValue>[] dataEntries = DatasetHelper
+                .getDataEntries(account == null ? null : account.getDataset(), Arrays.asList(keys));
         TypedKVEntry[] entries = new TypedKVEntry[keys.length];
-        long ver;
         for (int i = 0; i < entries.length; i++) {
-            final String currKey = keys[i];
-
-            ver = account == null ? -1 : account.getDataset().getVersion(currKey);
-
-            if (ver < 0) {
-                entries[i] = new TypedKVData(currKey, -1, null);
+            DataEntry<String, TypedValue> entry = dataEntries[i];
+            if (entry == null) {
+                entries[i] = new TypedKVData(keys[i], -1, null);
             } else {
-                BytesValue value = account.getDataset().getValue(currKey, ver);
-                entries[i] = new TypedKVData(currKey, ver, value);
+                entries[i] = new TypedKVData(keys[i], entry.getVersion(), entry.getValue());
             }
         }
 
@@ -180,7 +201,14 @@ public class UncommittedLedgerQueryService implements LedgerQueryService {
 
     @Override
     public TypedKVEntry getDataEntry(String address, String key, long version) {
-        DataAccount account = transactionContext.getDataset().getDataAccountSet().getAccount(address);
+        if (readCache == null) {
+            return loadDataEntry(address, key, version);
+        }
+        return readCache.getEntry(address, key, version, () -> loadDataEntry(address, key, version));
+    }
+
+    private TypedKVEntry loadDataEntry(String address, String key, long version) {
+        DataAccount account = getAccount(address);
         if(null == account) {
             return null;
         }
@@ -193,14 +221,13 @@ public class UncommittedLedgerQueryService implements LedgerQueryService {
 
     @Override
     public long getDataEntriesTotalCount(String address) {
-        DataAccount account = transactionContext.getDataset().getDataAccountSet().getAccount(address);
+        DataAccount account = getAccount(address);
         return null != account ? account.getDataset().getDataCount() : 0;
     }
 
     @Override
     public TypedKVEntry[] getDataEntries(String address, int fromIndex, int count) {
-        DataAccountSet dataAccountSet = transactionContext.getDataset().getDataAccountSet();
-        DataAccount dataAccount = dataAccountSet.getAccount(Bytes.fromBase58(address));
+        DataAccount dataAccount = getAccount(address);
 
         QueryArgs queryArgs = QueryUtils.calFromIndexAndCount(fromIndex, count, (int) dataAccount.getDataset().getDataCount());
         SkippingIterator<DataEntry<String, TypedValue>> iterator = ((IteratorDataset)dataAccount.getDataset()).kvIterator();
@@ -1,5 +1,7 @@
 package com.jd.blockchain.ledger.merkletree;
 
+import java.util.List;
+
 import com.jd.binaryproto.BinaryProtocol;
 import com.jd.blockchain.crypto.HashDigest;
 import com.jd.blockchain.ledger.MerkleProof;
@@ -191,6 +193,32 @@ public class MerkleHashSortTree implements MerkleTree {
 		return loadData(key, -1);
 	}
 
+	/**
+	 * 批量返回多个 key 的最新数据；
+	 * <p>
+	 * 一次遍历定位全部 key 所在的哈希桶，共享的路径节点只加载一次；
+	 */
+	@Override
+	public KVEntry[] getData(byte[][] keys) {
+		long[] ids = new long[keys.length];
+		for (int i = 0; i < keys.length; i++) {
+			ids[i] = computeKeyID(keys[i]);
+		}
+		List<HashEntry> buckets = hashTree.get(ids);
+		KVEntry[] entries = new KVEntry[keys.length];
+		for (int i = 0; i < keys.length; i++) {
+			MerkleHashBucket hashBucket = (MerkleHashBucket) buckets.get(i);
+			if (hashBucket == null) {
+				continue;
+			}
+			MerkleValue<byte[]> value = hashBucket.getValue(keys[i]);
+			if (value != null) {
+				entries[i] = new BytesKeyValue(keys[i], value.getId(), value.getValue());
+			}
+		}
+		return entries;
+	}
+
 	public KVEntry getData(String key, long version) {
 		return getData(BytesUtils.toBytes(key), version);
 	}
@@ -1,6 +1,8 @@
 package com.jd.blockchain.ledger.merkletree;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import com.jd.binaryproto.BinaryProtocol;
@@ -408,6 +410,25 @@ public class MerkleSortTree<T> implements Transactional {
 		return seekData(root, id, NullSelector.INSTANCE);
 	}
 
+	/**
+	 * 批量返回指定编码的数据；
+	 * <p>
+	 * 按编码排序后从根节点开始一次遍历，多个编码共享的路径节点只加载一次；
+	 * 
+	 * @param ids
+	 * @return 与 ids 顺序一致的数据列表，不存在的数据对应 null；
+	 */
+	public List<T> get(long[] ids) {
+		Integer[] order = new Integer[ids.length];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, (a, b) -> Long.compare(ids[a], ids[b]));
+		List<T> results = new ArrayList<T>(Collections.nCopies(ids.length, (T) null));
+		seekData(root, ids, order, 0, ids.length, results);
+		return results;
+	}
+
 	/**
 	 * 包含所有已提交的数据对象的迭代器；
 	 * 
@@ -500,6 +521,52 @@ public class MerkleSortTree<T> implements Transactional {
 		return new PathNode(0, step, this);
 	}
 
+	/**
+	 * 在指定节点下批量搜索 order[from, to) 指示的已排序的 id ；
+	 */
+	@SuppressWarnings("unchecked")
+	private void seekData(MerkleIndex merkleIndex, long[] ids, Integer[] order, int from, int to, List<T> results) {
+		int start = from;
+		while (start < to) {
+			int idx = index(ids[order[start]], merkleIndex);
+			int end = start + 1;
+			while (end < to && index(ids[order[end]], merkleIndex) == idx) {
+				end++;
+			}
+			Object child = idx < 0 ? null : seekChild(merkleIndex, idx);
+			if (child != null) {
+				if (merkleIndex.getStep() > 1) {
+					seekData((MerkleIndex) child, ids, order, start, end, results);
+				} else {
+					for (int i = start; i < end; i++) {
+						results.set(order[i], (T) child);
+					}
+				}
+			}
+			start = end;
+		}
+	}
+
+	/**
+	 * 加载指定位置的子节点；路径节点的子节点为 {@link MerkleIndex}，叶子节点的子节点为数据；
+	 */
+	private Object seekChild(MerkleIndex merkleIndex, int idx) {
+		if (merkleIndex.getStep() > 1) {
+			if (merkleIndex instanceof PathNode) {
+				return ((PathNode) merkleIndex).getChild(idx);
+			}
+			HashDigest childHash = merkleIndex.getChildHashs()[idx];
+			return childHash == null ? null : loadMerkleEntry(childHash);
+		}
+		if (merkleIndex instanceof LeafNode) {
+			@SuppressWarnings("unchecked")
+			LeafNode<T> path = (LeafNode<T>) merkleIndex;
+			return path.getChild(idx);
+		}
+		HashDigest childHash = merkleIndex.getChildHashs()[idx];
+		return childHash == null ? null : CONVERTER.fromBytes(loadNodeBytes(childHash));
+	}
+
 	/**
 	 * 从指定的默克尔索引开始，搜索指定 id 的数据，并记录搜索经过的节点的哈希；如果数据不存在，则返回 null；
 	 * 
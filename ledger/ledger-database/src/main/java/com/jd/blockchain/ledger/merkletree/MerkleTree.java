@@ -41,6 +41,20 @@ public interface MerkleTree extends Transactional {
 	 */
 	KVEntry getData(byte[] key);
 
+	/**
+	 * 批量返回多个 key 的最新数据；
+	 * 
+	 * @param keys
+	 * @return 与 keys 顺序一致，不存在的 key 对应 null；
+	 */
+	default KVEntry[] getData(byte[][] keys) {
+		KVEntry[] entries = new KVEntry[keys.length];
+		for (int i = 0; i < keys.length; i++) {
+			entries[i] = getData(keys[i]);
+		}
+		return entries;
+	}
+
 	/**
 	 * 返回指定版本的数据；
 	 * 
@@ -0,0 +1,128 @@
+package test.com.jd.blockchain.ledger.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.jd.blockchain.ledger.BlockchainKeyGenerator;
+import com.jd.blockchain.ledger.DataAccountKVSetOperation;
+import com.jd.blockchain.ledger.KVWriteEntry;
+import com.jd.blockchain.ledger.TypedKVData;
+import com.jd.blockchain.ledger.TypedKVEntry;
+import com.jd.blockchain.ledger.TypedValue;
+import com.jd.blockchain.ledger.core.handles.ContractReadCache;
+import com.jd.blockchain.transaction.KVData;
+
+import utils.Bytes;
+
+public class ContractReadCacheTest {
+
+	@Test
+	public void testLatestEntriesInvalidatedByWrite() {
+		Bytes account = BlockchainKeyGenerator.getInstance().generate().getAddress();
+		String address = account.toBase58();
+		ContractReadCache cache = new ContractReadCache();
+		AtomicInteger loads = new AtomicInteger();
+
+		TypedKVEntry[] entries = cache.getLatestEntries(address, new String[] { "k1", "k2" }, keys -> {
+			loads.addAndGet(keys.length);
+			return load(keys, 0);
+		});
+		assertEquals(2, loads.get());
+		assertEquals(0, entries[0].getVersion());
+
+		// 重复读取命中缓存，只加载新的键；
+		entries = cache.getLatestEntries(address, new String[] { "k2", "k3", "k1" }, keys -> {
+			loads.addAndGet(keys.length);
+			assertEquals(1, keys.length);
+			assertEquals("k3", keys[0]);
+			return load(keys, 0);
+		});
+		assertEquals(3, loads.get());
+		assertEquals("k2", entries[0].getKey());
+		assertEquals("k3", entries[1].getKey());
+		assertEquals("k1", entries[2].getKey());
+
+		// 写入只失效所写的键；
+		cache.invalidate(kvSet(account, "k1"));
+		entries = cache.getLatestEntries(address, new String[] { "k1", "k2" }, keys -> {
+			loads.addAndGet(keys.length);
+			assertEquals(1, keys.length);
+			assertEquals("k1", keys[0]);
+			return load(keys, 1);
+		});
+		assertEquals(4, loads.get());
+		assertEquals(1, entries[0].getVersion());
+		assertEquals(0, entries[1].getVersion());
+	}
+
+	@Test
+	public void testVersionedEntryAndAccount() {
+		Bytes account = BlockchainKeyGenerator.getInstance().generate().getAddress();
+		String address = account.toBase58();
+		ContractReadCache cache = new ContractReadCache();
+		AtomicInteger loads = new AtomicInteger();
+
+		// 不存在的结果同样缓存；
+		assertNull(cache.getEntry(address, "k1", 0, () -> {
+			loads.incrementAndGet();
+			return null;
+		}));
+		assertNull(cache.getEntry(address, "k1", 0, () -> {
+			loads.incrementAndGet();
+			return null;
+		}));
+		assertEquals(1, loads.get());
+
+		assertNull(cache.getAccount(address, addr -> {
+			loads.incrementAndGet();
+			return null;
+		}));
+		assertNull(cache.getAccount(address, addr -> {
+			loads.incrementAndGet();
+			return null;
+		}));
+		assertEquals(2, loads.get());
+
+		// 写入之后重新加载；
+		cache.invalidate(kvSet(account, "k1"));
+		TypedKVEntry expected = new TypedKVData("k1", 0, TypedValue.fromText("v"));
+		assertSame(expected, cache.getEntry(address, "k1", 0, () -> {
+			loads.incrementAndGet();
+			return expected;
+		}));
+		cache.getAccount(address, addr -> {
+			loads.incrementAndGet();
+			return null;
+		});
+		assertEquals(4, loads.get());
+	}
+
+	private static TypedKVEntry[] load(String[] keys, long version) {
+		TypedKVEntry[] entries = new TypedKVEntry[keys.length];
+		for (int i = 0; i < keys.length; i++) {
+			entries[i] = new TypedKVData(keys[i], version, TypedValue.fromText(keys[i] + "-" + version));
+		}
+		return entries;
+	}
+
+	private static DataAccountKVSetOperation kvSet(Bytes account, String key) {
+		KVWriteEntry[] writeSet = new KVWriteEntry[] { new KVData(key, TypedValue.fromText("v"), -1) };
+		return new DataAccountKVSetOperation() {
+
+			@Override
+			public Bytes getAccountAddress() {
+				return account;
+			}
+
+			@Override
+			public KVWriteEntry[] getWriteSet() {
+				return writeSet;
+			}
+		};
+	}
+}
@@ -0,0 +1,46 @@
+package test.com.jd.blockchain.ledger.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.junit.Test;
+
+import com.jd.blockchain.ledger.core.DataPrunedException;
+import com.jd.blockchain.ledger.core.DatasetHelper;
+import com.jd.blockchain.storage.service.VersioningKVStorage;
+
+import utils.Bytes;
+import utils.io.BytesUtils;
+
+public class DatasetHelperTest {
+
+	@Test
+	public void testGetVersionedValue() {
+		Bytes key = Bytes.fromString("k");
+		Bytes missingKey = Bytes.fromString("missing");
+		VersioningKVStorage storage = mock(VersioningKVStorage.class);
+		when(storage.getVersion(key)).thenReturn(5L);
+		when(storage.get(key, 4)).thenReturn(BytesUtils.toBytes("v4"));
+		when(storage.get(key, 5)).thenReturn(BytesUtils.toBytes("v5"));
+		when(storage.getVersion(missingKey)).thenReturn(-1L);
+
+		assertEquals("v4", BytesUtils.toString(DatasetHelper.getVersionedValue(storage, key, 4)));
+		assertEquals("v5", BytesUtils.toString(DatasetHelper.getVersionedValue(storage, key, 5)));
+		// 不存在的键和超出最新版本的版本读取为 null ；
+		assertNull(DatasetHelper.getVersionedValue(storage, missingKey, 0));
+		assertNull(DatasetHelper.getVersionedValue(storage, key, 6));
+
+		// 存在更新的版本而历史版本不存在，表示已被清理；
+		try {
+			DatasetHelper.getVersionedValue(storage, key, 3);
+			fail("Pruned version should be reported!");
+		} catch (DataPrunedException e) {
+			assertTrue(e.getMessage().contains("version=3"));
+		}
+	}
+
+}
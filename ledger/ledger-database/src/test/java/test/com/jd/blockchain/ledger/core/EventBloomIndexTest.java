@@ -0,0 +1,69 @@
+package test.com.jd.blockchain.ledger.core;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.jd.blockchain.ledger.BlockchainKeyGenerator;
+import com.jd.blockchain.ledger.core.EventBloomIndex;
+import com.jd.blockchain.storage.service.utils.MemoryKVStorage;
+
+import utils.Bytes;
+
+public class EventBloomIndexTest {
+
+	private static final String KEY_PREFIX = "L:/";
+
+	@Test
+	public void testBlockHeights() {
+		MemoryKVStorage storage = new MemoryKVStorage();
+		Bytes account1 = BlockchainKeyGenerator.getInstance().generate().getAddress();
+		Bytes account2 = BlockchainKeyGenerator.getInstance().generate().getAddress();
+
+		EventBloomIndex index = new EventBloomIndex(KEY_PREFIX, storage);
+		index.commit(0);
+		index.addEvent(null, "sys-1");
+		index.commit(1);
+		index.addEvent(account1, "user-1");
+		index.commit(2);
+		index.commit(3);
+		index.addEvent(account2, "user-2");
+		index.addEvent(null, "sys-1");
+		index.commit(4);
+		index.addEvent(account1, "user-2");
+		index.commit(5);
+
+		// 布隆过滤器不会遗漏包含匹配事件的区块；
+		assertArrayEquals(new long[] { 1, 4 }, index.getBlockHeights(null, "sys-1", 0, 6, 10));
+		assertArrayEquals(new long[] { 2, 5 }, index.getBlockHeights(account1, null, 0, 6, 10));
+		assertArrayEquals(new long[] { 2 }, index.getBlockHeights(account1, "user-1", 0, 6, 10));
+		assertArrayEquals(new long[] { 4 }, index.getBlockHeights(account2, "user-2", 0, 6, 10));
+
+		// 分页及高度区间；
+		assertArrayEquals(new long[] { 1 }, index.getBlockHeights(null, "sys-1", 0, 6, 1));
+		assertArrayEquals(new long[] { 4 }, index.getBlockHeights(null, "sys-1", 2, 6, 1));
+		assertEquals(0, index.getBlockHeights(null, "sys-1", 2, 4, 10).length);
+		assertEquals(0, index.getBlockHeights(null, "sys-1", 6, 10, 10).length);
+	}
+
+	@Test
+	public void testFalsePositiveRate() {
+		MemoryKVStorage storage = new MemoryKVStorage();
+		EventBloomIndex index = new EventBloomIndex(KEY_PREFIX, storage);
+		int blocks = 200;
+		for (int i = 0; i < blocks; i++) {
+			for (int j = 0; j < 20; j++) {
+				index.addEvent(null, "event-" + i + "-" + j);
+			}
+			index.commit(i);
+		}
+		for (int i = 0; i < blocks; i += 17) {
+			long[] heights = index.getBlockHeights(null, "event-" + i + "-3", 0, blocks, 1000);
+			assertTrue(heights.length >= 1);
+			// 误判的区块应当只占很小的比例；
+			assertTrue(heights.length < blocks / 20);
+		}
+	}
+}
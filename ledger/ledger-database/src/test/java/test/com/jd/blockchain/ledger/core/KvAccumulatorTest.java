@@ -0,0 +1,135 @@
+package test.com.jd.blockchain.ledger.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.jd.blockchain.crypto.Crypto;
+import com.jd.blockchain.crypto.HashDigest;
+import com.jd.blockchain.crypto.HashFunction;
+import com.jd.blockchain.crypto.service.classic.ClassicAlgorithm;
+import com.jd.blockchain.ledger.core.KvAccumulator;
+import com.jd.blockchain.ledger.core.KvAccumulatorProof;
+import com.jd.blockchain.storage.service.utils.MemoryKVStorage;
+
+import utils.Bytes;
+import utils.io.BytesUtils;
+
+public class KvAccumulatorTest {
+
+	private static final HashFunction SHA256_HASH_FUNC = Crypto.getHashFunction(ClassicAlgorithm.SHA256);
+
+	private static final Bytes KEY_PREFIX = Bytes.fromString("L:/KV/");
+
+	/**
+	 * 验证多次提交之后，每一次写入在最新的根哈希以及历史根哈希下的证明都能够通过验证；
+	 */
+	@Test
+	public void testProofs() {
+		MemoryKVStorage storage = new MemoryKVStorage();
+		KvAccumulator accumulator = new KvAccumulator(SHA256_HASH_FUNC, KEY_PREFIX, storage);
+
+		List<HashDigest> roots = new ArrayList<>();
+		List<Integer> writeCounts = new ArrayList<>();
+		HashDigest root = null;
+		int count = 0;
+		int[] batchSizes = { 1, 2, 5, 8, 1, 13 };
+		for (int batchSize : batchSizes) {
+			for (int i = 0; i < batchSize; i++) {
+				accumulator.add(key(count), 0, value(count));
+				count++;
+			}
+			HashDigest newRoot = accumulator.commit(root);
+			assertNotNull(newRoot);
+			assertNotEquals(root, newRoot);
+			root = newRoot;
+			roots.add(root);
+			writeCounts.add(count);
+		}
+
+		// 没有新的写入时根哈希不变；
+		assertEquals(root, accumulator.commit(root));
+
+		for (int r = 0; r < roots.size(); r++) {
+			for (int i = 0; i < count; i++) {
+				KvAccumulatorProof proof = accumulator.getProof(roots.get(r), key(i), 0, value(i));
+				if (i >= writeCounts.get(r)) {
+					// 在根哈希之后写入的数据没有证明；
+					assertNull(proof);
+					continue;
+				}
+				assertNotNull(proof);
+				assertEquals(roots.get(r), proof.getRootHash());
+				assertEquals(i, proof.getLeafIndex());
+				assertTrue(proof.verify(value(i)));
+				assertFalse(proof.verify(value(i + 1)));
+			}
+		}
+
+		assertNull(accumulator.getProof(root, key(count), 0, value(count)));
+		assertNull(accumulator.getProof(root, key(0), 1, value(0)));
+	}
+
+	/**
+	 * 验证篡改了版本或者路径的证明不能通过验证；
+	 */
+	@Test
+	public void testTamperedProof() {
+		MemoryKVStorage storage = new MemoryKVStorage();
+		KvAccumulator accumulator = new KvAccumulator(SHA256_HASH_FUNC, KEY_PREFIX, storage);
+		for (int i = 0; i < 11; i++) {
+			accumulator.add(key(i), 0, value(i));
+		}
+		HashDigest root = accumulator.commit(null);
+
+		KvAccumulatorProof proof = accumulator.getProof(root, key(6), 0, value(6));
+		assertTrue(proof.verify());
+
+		KvAccumulatorProof wrongVersion = new KvAccumulatorProof(root, proof.getKey(), 1, proof.getDataHash(),
+				proof.getLeafIndex(), proof.getLeafCount(), proof.getPath(), proof.getPeaks(), proof.getPeakIndex());
+		assertFalse(wrongVersion.verify());
+
+		HashDigest[] path = proof.getPath().clone();
+		path[0] = SHA256_HASH_FUNC.hash(BytesUtils.toBytes("FAKE"));
+		KvAccumulatorProof wrongPath = new KvAccumulatorProof(root, proof.getKey(), proof.getVersion(),
+				proof.getDataHash(), proof.getLeafIndex(), proof.getLeafCount(), path, proof.getPeaks(),
+				proof.getPeakIndex());
+		assertFalse(wrongPath.verify());
+	}
+
+	/**
+	 * 验证开启累加器之前的根哈希作为第一个叶子并入累加器；
+	 */
+	@Test
+	public void testLegacyRoot() {
+		MemoryKVStorage storage = new MemoryKVStorage();
+		KvAccumulator accumulator = new KvAccumulator(SHA256_HASH_FUNC, KEY_PREFIX, storage);
+		HashDigest legacyRoot = SHA256_HASH_FUNC.hash(BytesUtils.toBytes("LEGACY"));
+
+		accumulator.add(key(0), 3, value(0));
+		HashDigest root = accumulator.commit(legacyRoot);
+		assertNotEquals(legacyRoot, root);
+
+		KvAccumulatorProof proof = accumulator.getProof(root, key(0), 3, value(0));
+		assertEquals(1, proof.getLeafIndex());
+		assertEquals(2, proof.getLeafCount());
+		assertTrue(proof.verify(value(0)));
+		assertNull(accumulator.getProof(legacyRoot, key(0), 3, value(0)));
+	}
+
+	private static Bytes key(int i) {
+		return KEY_PREFIX.concat(Bytes.fromString("KEY-" + i));
+	}
+
+	private static byte[] value(int i) {
+		return BytesUtils.toBytes("VALUE-" + i);
+	}
+}
@@ -0,0 +1,97 @@
+package test.com.jd.blockchain.ledger.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.jd.binaryproto.BinaryProtocol;
+import com.jd.blockchain.crypto.Crypto;
+import com.jd.blockchain.crypto.CryptoProvider;
+import com.jd.blockchain.crypto.service.classic.ClassicAlgorithm;
+import com.jd.blockchain.crypto.service.classic.ClassicCryptoService;
+import com.jd.blockchain.crypto.service.sm.SMCryptoService;
+import com.jd.blockchain.ledger.BlockBody;
+import com.jd.blockchain.ledger.BlockchainKeyGenerator;
+import com.jd.blockchain.ledger.BlockchainKeypair;
+import com.jd.blockchain.ledger.BytesValue;
+import com.jd.blockchain.ledger.LedgerDataStructure;
+import com.jd.blockchain.ledger.TypedValue;
+import com.jd.blockchain.ledger.cache.DataAccountLRUCache;
+import com.jd.blockchain.ledger.core.CryptoConfig;
+import com.jd.blockchain.ledger.core.DataAccount;
+import com.jd.blockchain.ledger.core.DataAccountSetEditor;
+import com.jd.blockchain.ledger.core.KvDataProof;
+import com.jd.blockchain.ledger.core.LedgerBlockData;
+import com.jd.blockchain.ledger.core.OpeningAccessPolicy;
+import com.jd.blockchain.storage.service.utils.MemoryKVStorage;
+
+import utils.Bytes;
+import utils.io.BytesUtils;
+
+public class KvDataProofTest {
+
+	private static final String[] SUPPORTED_PROVIDERS = { ClassicCryptoService.class.getName(),
+			SMCryptoService.class.getName() };
+
+	/**
+	 * 验证数据账户中的键值能够证明到区块哈希，并且篡改任意一段都不能通过验证；
+	 */
+	@Test
+	public void testDataProofToBlock() {
+		CryptoProvider[] supportedProviders = new CryptoProvider[SUPPORTED_PROVIDERS.length];
+		for (int i = 0; i < SUPPORTED_PROVIDERS.length; i++) {
+			supportedProviders[i] = Crypto.getProvider(SUPPORTED_PROVIDERS[i]);
+		}
+		CryptoConfig cryptoConf = new CryptoConfig();
+		cryptoConf.setSupportedProviders(supportedProviders);
+		cryptoConf.setAutoVerifyHash(true);
+		cryptoConf.setHashAlgorithm(ClassicAlgorithm.SHA256);
+
+		MemoryKVStorage storage = new MemoryKVStorage();
+		DataAccountSetEditor accountSet = new DataAccountSetEditor(cryptoConf, "L:/DS/", storage, storage,
+				new OpeningAccessPolicy(), LedgerDataStructure.KV, true, new DataAccountLRUCache());
+
+		BlockchainKeypair accountKey = BlockchainKeyGenerator.getInstance().generate();
+		DataAccount account = accountSet.register(accountKey.getAddress(), accountKey.getPubKey(), null);
+		account.getDataset().setValue("k", TypedValue.fromText("v0"), -1);
+		accountSet.commit();
+		account = accountSet.getAccount(accountKey.getAddress());
+		account.getDataset().setValue("k", TypedValue.fromText("v1"), 0);
+		accountSet.commit();
+
+		LedgerBlockData block = new LedgerBlockData(1, null, null);
+		block.setDataAccountSetHash(accountSet.getRootHash());
+		block.setHash(Crypto.getHashFunction(ClassicAlgorithm.SHA256)
+				.hash(BinaryProtocol.encode(block, BlockBody.class)));
+
+		// 最新版本与历史版本都能证明到区块哈希；
+		for (long version = 0; version < 2; version++) {
+			KvDataProof proof = accountSet.getKvDataProof(block, accountKey.getAddress(), Bytes.fromString("k"),
+					version);
+			assertNotNull(proof);
+			assertEquals(version, proof.getDataProof().getVersion());
+			BytesValue value = BinaryProtocol.decode(proof.getValue(), BytesValue.class);
+			assertEquals("v" + version, TypedValue.wrap(value).stringValue());
+			assertTrue(proof.verify());
+		}
+
+		KvDataProof proof = accountSet.getKvDataProof(block, accountKey.getAddress(), Bytes.fromString("k"), -1);
+		assertEquals(1, proof.getDataProof().getVersion());
+
+		// 篡改值、账户快照或区块都不能通过验证；
+		byte[] tamperedValue = BinaryProtocol.encode(TypedValue.fromText("fake"), BytesValue.class);
+		assertFalse(new KvDataProof(tamperedValue, proof.getDataProof(), proof.getAccountSnapshot(),
+				proof.getAccountProof(), block).verify());
+		byte[] tamperedSnapshot = BytesUtils.concat(proof.getAccountSnapshot(), new byte[] { 0 });
+		assertFalse(new KvDataProof(proof.getValue(), proof.getDataProof(), tamperedSnapshot,
+				proof.getAccountProof(), block).verify());
+		LedgerBlockData tamperedBlock = new LedgerBlockData(block);
+		tamperedBlock.setTimestamp(block.getTimestamp() + 1);
+		assertFalse(new KvDataProof(proof.getValue(), proof.getDataProof(), proof.getAccountSnapshot(),
+				proof.getAccountProof(), tamperedBlock).verify());
+	}
+
+}
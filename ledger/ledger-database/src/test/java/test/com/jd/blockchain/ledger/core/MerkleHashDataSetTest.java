@@ -1,13 +1,17 @@
 package test.com.jd.blockchain.ledger.core;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
@@ -30,6 +34,7 @@ import com.jd.blockchain.storage.service.utils.MemoryKVStorage;
 import utils.Bytes;
 import utils.DataEntry;
 import utils.Dataset;
+import utils.SkippingIterator;
 import utils.io.BytesUtils;
 
 public class MerkleHashDataSetTest {
@@ -524,6 +529,87 @@ public class MerkleHashDataSetTest {
 		assertNotNull(data);
 	}
 
+	/**
+	 * 验证迭代器顺序读取、跳跃读取以及倒序读取的结果与按位置读取一致；
+	 */
+	@Test
+	public void testIterators() {
+		CryptoSetting cryptoSetting = createCryptoSetting();
+		MemoryKVStorage storage = new MemoryKVStorage();
+		MerkleHashDataset mds = new MerkleHashDataset(cryptoSetting, KEY_PREFIX, storage, storage);
+		int count = 300;
+		for (int i = 0; i < count; i++) {
+			mds.setValue(Bytes.fromString("KEY-" + i), BytesUtils.toBytes("VALUE-" + i), -1);
+		}
+		mds.commit();
+
+		DataEntry<Bytes, byte[]>[] expected = mds.getDataEntries(0, count);
+
+		SkippingIterator<DataEntry<Bytes, byte[]>> iterator = mds.kvIterator();
+		assertEquals(count, iterator.getTotalCount());
+		for (int i = 0; i < count; i++) {
+			assertEquals(expected[i].getKey(), iterator.next().getKey());
+		}
+		assertFalse(iterator.hasNext());
+
+		iterator = mds.idIterator();
+		iterator.skip(100);
+		assertEquals(expected[100].getKey(), iterator.next().getKey());
+		iterator.skip(50);
+		assertEquals(expected[151].getKey(), iterator.next().getKey());
+		assertEquals(expected[152].getKey(), iterator.next().getKey());
+
+		iterator = mds.kvIteratorDesc();
+		for (int i = count - 1; i >= 0; i--) {
+			assertEquals(expected[i].getKey(), iterator.next().getKey());
+		}
+		assertFalse(iterator.hasNext());
+
+		iterator = mds.idIteratorDesc();
+		iterator.skip(200);
+		assertEquals(expected[count - 201].getKey(), iterator.next().getKey());
+	}
+
+	/**
+	 * 验证批量读取的结果与逐个读取一致，不存在的键返回 null；
+	 */
+	@Test
+	public void testBatchGet() {
+		CryptoSetting cryptoSetting = createCryptoSetting();
+		MemoryKVStorage storage = new MemoryKVStorage();
+		MerkleHashDataset mds = new MerkleHashDataset(cryptoSetting, KEY_PREFIX, storage, storage);
+		int count = 300;
+		for (int i = 0; i < count; i++) {
+			mds.setValue(Bytes.fromString("KEY-" + i), BytesUtils.toBytes("VALUE-" + i), -1);
+		}
+		mds.commit();
+		mds.setValue(Bytes.fromString("KEY-7"), BytesUtils.toBytes("VALUE-7-1"), 0);
+		mds.commit();
+
+		List<Bytes> keys = new ArrayList<>();
+		for (int i = count - 1; i >= 0; i -= 7) {
+			keys.add(Bytes.fromString("KEY-" + i));
+		}
+		keys.add(Bytes.fromString("KEY-7"));
+		keys.add(Bytes.fromString("KEY-NONE"));
+		keys.add(Bytes.fromString("KEY-0"));
+
+		DataEntry<Bytes, byte[]>[] entries = mds.getDataEntries(keys);
+		assertEquals(keys.size(), entries.length);
+		for (int i = 0; i < entries.length; i++) {
+			DataEntry<Bytes, byte[]> expected = mds.getDataEntry(keys.get(i));
+			if (expected == null) {
+				assertNull(entries[i]);
+				continue;
+			}
+			assertEquals(expected.getKey(), entries[i].getKey());
+			assertEquals(expected.getVersion(), entries[i].getVersion());
+			assertArrayEquals(expected.getValue(), entries[i].getValue());
+		}
+		assertNull(entries[keys.size() - 2]);
+		assertEquals(1, entries[keys.size() - 3].getVersion());
+	}
+
 	private CryptoSetting createCryptoSetting() {
 		CryptoProvider[] supportedProviders = new CryptoProvider[SUPPORTED_PROVIDERS.length];
 		for (int i = 0; i < SUPPORTED_PROVIDERS.length; i++) {
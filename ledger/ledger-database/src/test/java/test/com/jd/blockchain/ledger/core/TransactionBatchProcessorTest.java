@@ -3,6 +3,7 @@ package test.com.jd.blockchain.ledger.core;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.when;
@@ -11,6 +12,7 @@ import com.jd.blockchain.ledger.LedgerDataStructure;
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import com.jd.binaryproto.BinaryProtocol;
 import com.jd.binaryproto.DataContractRegistry;
 import com.jd.blockchain.crypto.HashDigest;
 import com.jd.blockchain.ledger.BlockchainKeyGenerator;
@@ -38,6 +40,7 @@ import com.jd.blockchain.ledger.core.LedgerSecurityManager;
 import com.jd.blockchain.ledger.core.OperationHandleRegisteration;
 import com.jd.blockchain.ledger.SecurityPolicy;
 import com.jd.blockchain.ledger.core.TransactionBatchProcessor;
+import com.jd.blockchain.ledger.core.TransactionPreVerifier;
 import com.jd.blockchain.ledger.core.TransactionSetEditor;
 import com.jd.blockchain.ledger.core.UserAccount;
 import com.jd.blockchain.storage.service.utils.MemoryKVStorage;
@@ -139,6 +142,42 @@ public class TransactionBatchProcessorTest {
 		assertEquals(TransactionState.SUCCESS, txResp.getExecutionState());
 	}
 
+	@Test
+	public void testPreVerifiedTxProcess() {
+		final MemoryKVStorage STORAGE = new MemoryKVStorage();
+
+		HashDigest ledgerHash = LedgerTestUtils.initLedger(STORAGE, parti0, parti1, parti2, parti3);
+		LedgerManager ledgerManager = new LedgerManager();
+		LedgerRepository ledgerRepo = ledgerManager.register(ledgerHash, STORAGE, LedgerDataStructure.MERKLE_TREE);
+
+		LedgerEditor newBlockEditor = ledgerRepo.createNextBlock();
+		TransactionBatchProcessor txbatchProcessor = new TransactionBatchProcessor(getSecurityManager(),
+				newBlockEditor, ledgerRepo, new DefaultOperationHandleRegisteration());
+
+		BlockchainKeypair userKeypair = BlockchainKeyGenerator.getInstance().generate();
+		TransactionRequest transactionRequest = LedgerTestUtils.createTxRequest_UserReg(userKeypair, ledgerHash, parti0,
+				parti0);
+		byte[] message = BinaryProtocol.encode(transactionRequest, TransactionRequest.class);
+
+		// 未提交预验证的消息；
+		TransactionPreVerifier preVerifier = TransactionPreVerifier.getShared();
+		assertNull(preVerifier.take(message));
+
+		preVerifier.submit(message);
+		TransactionRequest preVerifiedRequest = preVerifier.take(message);
+		assertNotNull(preVerifiedRequest);
+		assertEquals(transactionRequest.getTransactionHash(), preVerifiedRequest.getTransactionHash());
+		// 每个消息只能取得一次；
+		assertNull(preVerifier.take(message));
+
+		TransactionResponse txResp = txbatchProcessor.schedule(preVerifiedRequest);
+		LedgerBlock newBlock = newBlockEditor.prepare();
+		newBlockEditor.commit();
+
+		assertEquals(1, newBlock.getHeight());
+		assertEquals(TransactionState.SUCCESS, txResp.getExecutionState());
+	}
+
 	private static LedgerSecurityManager getSecurityManager() {
 		LedgerSecurityManager securityManager = Mockito.mock(LedgerSecurityManager.class);
 
@@ -0,0 +1,76 @@
+package test.com.jd.blockchain.ledger.core;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import com.jd.blockchain.crypto.HashDigest;
+import com.jd.blockchain.ledger.BlockchainKeyGenerator;
+import com.jd.blockchain.ledger.BlockchainKeypair;
+import com.jd.blockchain.ledger.TransactionRequest;
+import com.jd.blockchain.ledger.core.TransactionIndex;
+import com.jd.blockchain.storage.service.utils.MemoryKVStorage;
+
+import utils.Bytes;
+
+public class TransactionIndexTest {
+
+	private static final String KEY_PREFIX = "L:/";
+
+	@Test
+	public void testAccountIndex() {
+		MemoryKVStorage storage = new MemoryKVStorage();
+		HashDigest ledgerHash = LedgerTestUtils.generateRandomHash();
+		BlockchainKeypair signer = BlockchainKeyGenerator.getInstance().generate();
+		Bytes account1 = BlockchainKeyGenerator.getInstance().generate().getAddress();
+		Bytes account2 = BlockchainKeyGenerator.getInstance().generate().getAddress();
+
+		TransactionIndex index = new TransactionIndex(KEY_PREFIX, storage);
+		index.addTransaction(0, write(account1, ledgerHash, signer), null);
+		index.addTransaction(1, write(account2, ledgerHash, signer), null);
+		index.commit(1, 1000);
+		index.addTransaction(2, write(account1, ledgerHash, signer), null);
+		index.commit(2, 2000);
+
+		assertEquals(2, index.getAccountTransactionCount(account1));
+		assertEquals(1, index.getAccountTransactionCount(account2));
+		assertEquals(3, index.getAccountTransactionCount(signer.getAddress()));
+		assertEquals(0, index.getAccountTransactionCount(
+				BlockchainKeyGenerator.getInstance().generate().getAddress()));
+
+		assertArrayEquals(new long[] { 0, 2 }, index.getAccountTransactions(account1, 0, 10));
+		assertArrayEquals(new long[] { 1 }, index.getAccountTransactions(account2, 0, 10));
+
+		// 游标分页；
+		assertArrayEquals(new long[] { 0, 1 }, index.getAccountTransactions(signer.getAddress(), 0, 2));
+		assertArrayEquals(new long[] { 2 }, index.getAccountTransactions(signer.getAddress(), 2, 2));
+		assertEquals(0, index.getAccountTransactions(signer.getAddress(), 3, 2).length);
+	}
+
+	@Test
+	public void testTimeIndex() {
+		MemoryKVStorage storage = new MemoryKVStorage();
+		TransactionIndex index = new TransactionIndex(KEY_PREFIX, storage);
+		index.commit(0, 1000);
+		index.commit(1, 2000);
+		// 时间戳回退时按已索引的最大值处理；
+		index.commit(2, 1500);
+		index.commit(3, 3000);
+		index.commit(4, 4000);
+
+		assertArrayEquals(new long[] { 1, 2, 3 }, index.getBlockHeights(2000, 4000, 0, 10));
+		assertArrayEquals(new long[] { 0, 1, 2, 3, 4 }, index.getBlockHeights(0, Long.MAX_VALUE, 0, 10));
+		assertEquals(0, index.getBlockHeights(5000, 6000, 0, 10).length);
+
+		// 游标分页；
+		assertArrayEquals(new long[] { 1, 2 }, index.getBlockHeights(1500, 5000, 0, 2));
+		assertArrayEquals(new long[] { 3, 4 }, index.getBlockHeights(1500, 5000, 2, 2));
+		assertEquals(0, index.getBlockHeights(1500, 5000, 4, 2).length);
+	}
+
+	private TransactionRequest write(Bytes account, HashDigest ledgerHash, BlockchainKeypair signer) {
+		return LedgerTestUtils.createTxRequest_DataAccountWrite_SHA256(account, "K", "V", -1, ledgerHash, null,
+				signer);
+	}
+}
@@ -1,6 +1,7 @@
 package com.jd.blockchain.peer.ledger.service;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import com.jd.blockchain.ledger.BlockchainIdentity;
@@ -26,7 +27,9 @@ import com.jd.blockchain.ledger.TypedValue;
 import com.jd.blockchain.ledger.UserInfo;
 import com.jd.blockchain.ledger.UserPrivilegeSet;
 import com.jd.blockchain.ledger.core.IteratorDataset;
+import com.jd.blockchain.ledger.core.KvDataProof;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -39,16 +42,27 @@ import com.jd.blockchain.crypto.HashDigest;
 import com.jd.blockchain.ledger.core.ContractAccountSet;
 import com.jd.blockchain.ledger.core.DataAccount;
 import com.jd.blockchain.ledger.core.DataAccountSet;
+import com.jd.blockchain.ledger.core.DataAccountSetEditor;
+import com.jd.blockchain.ledger.core.DataPrunedException;
+import com.jd.blockchain.ledger.core.DatasetHelper;
 import com.jd.blockchain.ledger.core.EventAccountSet;
+import com.jd.blockchain.ledger.core.EventBloomIndex;
 import com.jd.blockchain.ledger.core.EventGroup;
 import com.jd.blockchain.ledger.core.EventPublishingAccount;
+import com.jd.blockchain.ledger.core.LedgerConsts;
 import com.jd.blockchain.ledger.core.LedgerQuery;
 import com.jd.blockchain.ledger.core.LedgerRepository;
 import com.jd.blockchain.ledger.core.LedgerService;
 import com.jd.blockchain.ledger.core.ParticipantCertData;
+import com.jd.blockchain.ledger.core.TransactionIndex;
 import com.jd.blockchain.ledger.core.TransactionSet;
 import com.jd.blockchain.ledger.core.UserAccountSet;
+import com.jd.blockchain.peer.ledger.service.utils.CursorPage;
 import com.jd.blockchain.peer.ledger.service.utils.LedgerAdminInfoDecorator;
+import com.jd.blockchain.peer.ledger.service.utils.PageCursor;
+import com.jd.httpservice.utils.web.ErrorCode;
+import com.jd.httpservice.utils.web.WebResponse;
+import com.jd.httpservice.utils.web.WebResponse.ErrorMessage;
 import com.jd.blockchain.peer.ledger.service.utils.TransactionDecorator;
 import com.jd.blockchain.transaction.BlockchainQueryService;
 
@@ -63,6 +77,28 @@ import utils.query.QueryUtils;
 @RequestMapping(path = "/")
 public class LedgerQueryController implements BlockchainQueryService {
 
+	static final String GET_INDEXED_ACCOUNT_TRANSACTION_COUNT = "ledgers/{ledgerHash}/indexes/accounts/{address}/txs/count";
+
+	static final String GET_INDEXED_ACCOUNT_TRANSACTIONS = "ledgers/{ledgerHash}/indexes/accounts/{address}/txs";
+
+	static final String GET_INDEXED_BLOCKS_IN_TIME_RANGE = "ledgers/{ledgerHash}/indexes/blocks";
+
+	static final String GET_INDEXED_SYSTEM_EVENT_BLOCKS = "ledgers/{ledgerHash}/indexes/events/system/names/{eventName}/blocks";
+
+	static final String GET_INDEXED_USER_EVENT_BLOCKS = "ledgers/{ledgerHash}/indexes/events/user/accounts/{address}/blocks";
+
+	static final String GET_KV_PAGE = "ledgers/{ledgerHash}/accounts/address/{address}/entries/page";
+
+	static final String GET_KV_VERSION_PAGE = "ledgers/{ledgerHash}/accounts/address/{address}/entries/versions/page";
+
+	static final String GET_KV_PROOF = "ledgers/{ledgerHash}/accounts/address/{address}/entries/proof";
+
+	static final String GET_USER_PAGE = "ledgers/{ledgerHash}/users/page";
+
+	static final String GET_DATA_ACCOUNT_PAGE = "ledgers/{ledgerHash}/accounts/page";
+
+	static final String GET_CONTRACT_ACCOUNT_PAGE = "ledgers/{ledgerHash}/contracts/page";
+
 	@Autowired
 	private LedgerService ledgerService;
 
@@ -507,15 +543,15 @@ public class LedgerQueryController implements BlockchainQueryService {
 			return null;
 		}
 
+		DataEntry<String, TypedValue>[] dataEntries = DatasetHelper.getDataEntries(dataAccount.getDataset(),
+				Arrays.asList(keys));
 		TypedKVEntry[] entries = new TypedKVEntry[keys.length];
-		long ver;
 		for (int i = 0; i < entries.length; i++) {
-			ver = dataAccount.getDataset().getVersion(keys[i]);
-			if (ver < 0) {
+			DataEntry<String, TypedValue> entry = dataEntries[i];
+			if (entry == null) {
 				entries[i] = new TypedKVData(keys[i], -1, null);
 			} else {
-				BytesValue value = dataAccount.getDataset().getValue(keys[i], ver);
-				entries[i] = new TypedKVData(keys[i], ver, value);
+				entries[i] = new TypedKVData(keys[i], entry.getVersion(), entry.getValue());
 			}
 		}
 
@@ -885,6 +921,276 @@ public class LedgerQueryController implements BlockchainQueryService {
 		return ledger.getSecurityManager().getUserRolesPrivilegs(Bytes.fromBase58(userAddress));
 	}
 
+	/**
+	 * 账户相关的交易总数；需要开启交易索引；
+	 */
+	@RequestMapping(method = RequestMethod.GET, path = GET_INDEXED_ACCOUNT_TRANSACTION_COUNT)
+	public long getAccountTransactionCount(@PathVariable(name = "ledgerHash") HashDigest ledgerHash,
+			@PathVariable(name = "address") String address) {
+		LedgerQuery ledger = ledgerService.getLedger(ledgerHash);
+		return getTransactionIndex(ledger).getAccountTransactionCount(Bytes.fromBase58(address));
+	}
+
+	/**
+	 * 分页查询账户相关的交易；需要开启交易索引；
+	 *
+	 * @param cursor 游标；首页为 0 ，下一页的游标为当前游标加上返回的交易数量；
+	 * @param count  最大数量；
+	 * @return 按交易写入的先后排列；
+	 */
+	@RequestMapping(method = RequestMethod.GET, path = GET_INDEXED_ACCOUNT_TRANSACTIONS)
+	public LedgerTransaction[] getAccountTransactions(@PathVariable(name = "ledgerHash") HashDigest ledgerHash,
+			@PathVariable(name = "address") String address,
+			@RequestParam(name = "cursor", required = false, defaultValue = "0") long cursor,
+			@RequestParam(name = "count", required = false, defaultValue = "100") int count) {
+		LedgerQuery ledger = ledgerService.getLedger(ledgerHash);
+		long[] sequences = getTransactionIndex(ledger).getAccountTransactions(Bytes.fromBase58(address), cursor,
+				count);
+		TransactionSet txset = ledger.getTransactionSet();
+		LedgerTransaction[] txs = new LedgerTransaction[sequences.length];
+		for (int i = 0; i < sequences.length; i++) {
+			txs[i] = txset.getTransactions((int) sequences[i], 1)[0];
+		}
+		return txsDecorator(txs);
+	}
+
+	/**
+	 * 分页查询时间戳在 [fromTime, toTime) 区间内的区块；需要开启交易索引；
+	 *
+	 * @param cursor 游标；首页为 0 ，下一页的游标为当前游标加上返回的区块数量；
+	 * @param count  最大数量；
+	 * @return 按区块高度递增排列；
+	 */
+	@RequestMapping(method = RequestMethod.GET, path = GET_INDEXED_BLOCKS_IN_TIME_RANGE)
+	public LedgerBlock[] getBlocksInTimeRange(@PathVariable(name = "ledgerHash") HashDigest ledgerHash,
+			@RequestParam(name = "fromTime") long fromTime, @RequestParam(name = "toTime") long toTime,
+			@RequestParam(name = "cursor", required = false, defaultValue = "0") long cursor,
+			@RequestParam(name = "count", required = false, defaultValue = "100") int count) {
+		LedgerQuery ledger = ledgerService.getLedger(ledgerHash);
+		long[] heights = getTransactionIndex(ledger).getBlockHeights(fromTime, toTime, cursor, count);
+		LedgerBlock[] blocks = new LedgerBlock[heights.length];
+		for (int i = 0; i < heights.length; i++) {
+			blocks[i] = ledger.getBlock(heights[i]);
+		}
+		return blocks;
+	}
+
+	/**
+	 * 查询可能包含指定系统事件的区块高度；需要开启事件索引；
+	 *
+	 * @param fromHeight 起始区块高度（含）；下一页从返回的最后一个高度加 1 开始查询；
+	 * @param toHeight   结束区块高度（不含）；默认为最新区块之后；
+	 * @param count      最大数量；
+	 * @return 按高度递增排列；布隆过滤器存在误判，返回的区块不一定包含匹配的事件；
+	 */
+	@RequestMapping(method = RequestMethod.GET, path = GET_INDEXED_SYSTEM_EVENT_BLOCKS)
+	public long[] getSystemEventBlocks(@PathVariable(name = "ledgerHash") HashDigest ledgerHash,
+			@PathVariable(name = "eventName") String eventName,
+			@RequestParam(name = "fromHeight", required = false, defaultValue = "0") long fromHeight,
+			@RequestParam(name = "toHeight", required = false, defaultValue = "-1") long toHeight,
+			@RequestParam(name = "count", required = false, defaultValue = "100") int count) {
+		LedgerQuery ledger = ledgerService.getLedger(ledgerHash);
+		return getEventBloomIndex(ledger).getBlockHeights(null, eventName, fromHeight,
+				toHeight < 0 ? ledger.getLatestBlockHeight() + 1 : toHeight, count);
+	}
+
+	/**
+	 * 查询可能包含指定事件账户的事件的区块高度；需要开启事件索引；
+	 *
+	 * @param eventName  事件名；不指定时匹配账户下的任意事件；
+	 * @param fromHeight 起始区块高度（含）；下一页从返回的最后一个高度加 1 开始查询；
+	 * @param toHeight   结束区块高度（不含）；默认为最新区块之后；
+	 * @param count      最大数量；
+	 * @return 按高度递增排列；布隆过滤器存在误判，返回的区块不一定包含匹配的事件；
+	 */
+	@RequestMapping(method = RequestMethod.GET, path = GET_INDEXED_USER_EVENT_BLOCKS)
+	public long[] getUserEventBlocks(@PathVariable(name = "ledgerHash") HashDigest ledgerHash,
+			@PathVariable(name = "address") String address,
+			@RequestParam(name = "eventName", required = false) String eventName,
+			@RequestParam(name = "fromHeight", required = false, defaultValue = "0") long fromHeight,
+			@RequestParam(name = "toHeight", required = false, defaultValue = "-1") long toHeight,
+			@RequestParam(name = "count", required = false, defaultValue = "100") int count) {
+		LedgerQuery ledger = ledgerService.getLedger(ledgerHash);
+		return getEventBloomIndex(ledger).getBlockHeights(Bytes.fromBase58(address), eventName, fromHeight,
+				toHeight < 0 ? ledger.getLatestBlockHeight() + 1 : toHeight, count);
+	}
+
+	/**
+	 * 基于游标分页查询数据账户的最新 KV ；
+	 *
+	 * @param cursor 游标；首页不指定，后续分页使用上一页返回的游标；
+	 * @param count  最大数量；
+	 * @return
+	 */
+	@RequestMapping(method = RequestMethod.GET, path = GET_KV_PAGE)
+	public CursorPage<TypedKVEntry> getDataEntriesPage(@PathVariable(name = "ledgerHash") HashDigest ledgerHash,
+			@PathVariable(name = "address") String address,
+			@RequestParam(name = "cursor", required = false) String cursor,
+			@RequestParam(name = "count", required = false, defaultValue = "100") int count) {
+		LedgerQuery ledger = ledgerService.getLedger(ledgerHash);
+		PageCursor pageCursor = resolvePageCursor(ledger, cursor, count);
+		LedgerBlock block = ledger.getBlock(pageCursor.getBlockHeight());
+		DataAccount dataAccount = ledger.getDataAccountSet(block).getAccount(Bytes.fromBase58(address));
+		if (dataAccount == null) {
+			return null;
+		}
+
+		SkippingIterator<DataEntry<String, TypedValue>> iterator = ((IteratorDataset) dataAccount.getDataset())
+				.kvIterator();
+		iterator.skip(pageCursor.getPosition());
+		TypedKVEntry[] entries = iterator.next(count, TypedKVEntry.class,
+				new Mapper<DataEntry<String, TypedValue>, TypedKVEntry>() {
+					@Override
+					public TypedKVEntry from(DataEntry<String, TypedValue> entry) {
+						return entry == null ? null
+								: new TypedKVData(entry.getKey(), entry.getVersion(), entry.getValue());
+					}
+				});
+		return new CursorPage<>(entries, nextPageCursor(pageCursor, entries.length, iterator.getTotalCount()));
+	}
+
+	/**
+	 * 基于游标分页查询数据账户中指定键的历史版本，按版本升序排列；
+	 *
+	 * @param key    键；
+	 * @param cursor 游标；首页不指定，后续分页使用上一页返回的游标；
+	 * @param count  最大数量；
+	 * @return
+	 */
+	@RequestMapping(method = RequestMethod.GET, path = GET_KV_VERSION_PAGE)
+	public CursorPage<TypedKVEntry> getDataEntryVersionsPage(@PathVariable(name = "ledgerHash") HashDigest ledgerHash,
+			@PathVariable(name = "address") String address, @RequestParam(name = "key") String key,
+			@RequestParam(name = "cursor", required = false) String cursor,
+			@RequestParam(name = "count", required = false, defaultValue = "100") int count) {
+		LedgerQuery ledger = ledgerService.getLedger(ledgerHash);
+		PageCursor pageCursor = resolvePageCursor(ledger, cursor, count);
+		LedgerBlock block = ledger.getBlock(pageCursor.getBlockHeight());
+		DataAccount dataAccount = ledger.getDataAccountSet(block).getAccount(Bytes.fromBase58(address));
+		if (dataAccount == null) {
+			return null;
+		}
+
+		long total = dataAccount.getDataset().getVersion(key) + 1;
+		long from = Math.min(pageCursor.getPosition(), total);
+		TypedKVEntry[] entries = new TypedKVEntry[(int) Math.min(total - from, count)];
+		for (int i = 0; i < entries.length; i++) {
+			long ver = from + i;
+			entries[i] = new TypedKVData(key, ver, dataAccount.getDataset().getValue(key, ver));
+		}
+		return new CursorPage<>(entries, nextPageCursor(pageCursor, entries.length, total));
+	}
+
+	/**
+	 * 查询数据账户中键值在最新区块中的证明，包括从写入的值到区块哈希的完整路径；
+	 * <p>
+	 * 仅支持采用 KV 累加器的 KV 结构账本；不支持、账户或数据不存在时返回 null ；
+	 */
+	@RequestMapping(method = RequestMethod.GET, path = GET_KV_PROOF)
+	public KvDataProof getDataEntryProof(@PathVariable(name = "ledgerHash") HashDigest ledgerHash,
+			@PathVariable(name = "address") String address, @RequestParam(name = "key") String key,
+			@RequestParam(name = "version", required = false, defaultValue = "-1") long version) {
+		LedgerQuery ledger = ledgerService.getLedger(ledgerHash);
+		LedgerBlock block = ledger.getLatestBlock();
+		DataAccountSet dataAccountSet = ledger.getDataAccountSet(block);
+		if (!(dataAccountSet instanceof DataAccountSetEditor)) {
+			return null;
+		}
+		return ((DataAccountSetEditor) dataAccountSet).getKvDataProof(block, Bytes.fromBase58(address),
+				Bytes.fromString(key), version);
+	}
+
+	/**
+	 * 基于游标分页查询用户；
+	 */
+	@RequestMapping(method = RequestMethod.GET, path = GET_USER_PAGE)
+	public CursorPage<BlockchainIdentity> getUsersPage(@PathVariable(name = "ledgerHash") HashDigest ledgerHash,
+			@RequestParam(name = "cursor", required = false) String cursor,
+			@RequestParam(name = "count", required = false, defaultValue = "100") int count) {
+		LedgerQuery ledger = ledgerService.getLedger(ledgerHash);
+		PageCursor pageCursor = resolvePageCursor(ledger, cursor, count);
+		UserAccountSet userAccountSet = ledger.getUserAccountSet(ledger.getBlock(pageCursor.getBlockHeight()));
+		return identityPage(userAccountSet.identityIterator(), pageCursor, count);
+	}
+
+	/**
+	 * 基于游标分页查询数据账户；
+	 */
+	@RequestMapping(method = RequestMethod.GET, path = GET_DATA_ACCOUNT_PAGE)
+	public CursorPage<BlockchainIdentity> getDataAccountsPage(@PathVariable(name = "ledgerHash") HashDigest ledgerHash,
+			@RequestParam(name = "cursor", required = false) String cursor,
+			@RequestParam(name = "count", required = false, defaultValue = "100") int count) {
+		LedgerQuery ledger = ledgerService.getLedger(ledgerHash);
+		PageCursor pageCursor = resolvePageCursor(ledger, cursor, count);
+		DataAccountSet dataAccountSet = ledger.getDataAccountSet(ledger.getBlock(pageCursor.getBlockHeight()));
+		return identityPage(dataAccountSet.identityIterator(), pageCursor, count);
+	}
+
+	/**
+	 * 基于游标分页查询合约账户；
+	 */
+	@RequestMapping(method = RequestMethod.GET, path = GET_CONTRACT_ACCOUNT_PAGE)
+	public CursorPage<BlockchainIdentity> getContractAccountsPage(
+			@PathVariable(name = "ledgerHash") HashDigest ledgerHash,
+			@RequestParam(name = "cursor", required = false) String cursor,
+			@RequestParam(name = "count", required = false, defaultValue = "100") int count) {
+		LedgerQuery ledger = ledgerService.getLedger(ledgerHash);
+		PageCursor pageCursor = resolvePageCursor(ledger, cursor, count);
+		ContractAccountSet contractAccountSet = ledger
+				.getContractAccountSet(ledger.getBlock(pageCursor.getBlockHeight()));
+		return identityPage(contractAccountSet.identityIterator(), pageCursor, count);
+	}
+
+	private CursorPage<BlockchainIdentity> identityPage(SkippingIterator<BlockchainIdentity> iterator,
+			PageCursor pageCursor, int count) {
+		iterator.skip(pageCursor.getPosition());
+		BlockchainIdentity[] identities = iterator.next(count, BlockchainIdentity.class);
+		return new CursorPage<>(identities,
+				nextPageCursor(pageCursor, identities.length, iterator.getTotalCount()));
+	}
+
+	/**
+	 * 解析游标；首页固定在最新区块上；
+	 */
+	private PageCursor resolvePageCursor(LedgerQuery ledger, String cursor, int count) {
+		if (count <= 0 || count > LedgerConsts.MAX_LIST_COUNT) {
+			throw new IllegalArgumentException("Count exceed the upper limit[" + LedgerConsts.MAX_LIST_COUNT + "]!");
+		}
+		if (cursor == null || cursor.isEmpty()) {
+			return new PageCursor(ledger.getLatestBlockHeight(), 0);
+		}
+		PageCursor pageCursor = PageCursor.decode(cursor);
+		if (pageCursor.getBlockHeight() > ledger.getLatestBlockHeight()) {
+			throw new IllegalArgumentException("Illegal page cursor! --" + cursor);
+		}
+		return pageCursor;
+	}
+
+	private String nextPageCursor(PageCursor pageCursor, int returned, long total) {
+		long next = pageCursor.getPosition() + returned;
+		if (returned == 0 || next >= total) {
+			return null;
+		}
+		return new PageCursor(pageCursor.getBlockHeight(), next).encode();
+	}
+
+	private EventBloomIndex getEventBloomIndex(LedgerQuery ledger) {
+		EventBloomIndex index = ledger.getEventBloomIndex();
+		if (index == null) {
+			throw new IllegalStateException(
+					"Event index is not enabled! --Set system property " + EventBloomIndex.ENABLED_PROPERTY);
+		}
+		return index;
+	}
+
+	private TransactionIndex getTransactionIndex(LedgerQuery ledger) {
+		TransactionIndex index = ledger.getTransactionIndex();
+		if (index == null) {
+			throw new IllegalStateException(
+					"Transaction index is not enabled! --Set system property " + TransactionIndex.ENABLED_PROPERTY);
+		}
+		return index;
+	}
+
 //	private LedgerTransaction txDecorator(LedgerTransaction ledgerTransaction) {
 //		if (ledgerTransaction == null) {
 //			return null;
@@ -917,6 +1223,15 @@ public class LedgerQueryController implements BlockchainQueryService {
 		return transactionDecorators;
 	}
 
+	/**
+	 * 查询的历史版本已被存储清理时，返回明确的错误信息，而不是作为数据不存在或意外错误处理；
+	 */
+	@ExceptionHandler(DataPrunedException.class)
+	public WebResponse handleDataPruned(DataPrunedException ex) {
+		return WebResponse.createFailureResult(new ErrorMessage(ErrorCode.UNEXPECTED.getValue(),
+				"The queried historical version has been pruned and is no longer available! --" + ex.getMessage()));
+	}
+
 	class LedgerTransactionsDecorator implements LedgerTransactions {
 
 		LedgerTransaction[] ledgerTransactions;
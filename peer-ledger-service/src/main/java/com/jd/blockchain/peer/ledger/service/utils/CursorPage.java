@@ -0,0 +1,36 @@
+package com.jd.blockchain.peer.ledger.service.utils;
+
+/**
+ * 基于游标的分页查询结果，用于JSON序列化显示
+ *
+ * @param <T>
+ */
+public class CursorPage<T> {
+
+	private T[] data;
+
+	private String nextCursor;
+
+	public CursorPage(T[] data, String nextCursor) {
+		this.data = data;
+		this.nextCursor = nextCursor;
+	}
+
+	/**
+	 * 当前页的数据；
+	 *
+	 * @return
+	 */
+	public T[] getData() {
+		return data;
+	}
+
+	/**
+	 * 下一页的游标；已经读取到末尾时为 null ；
+	 *
+	 * @return
+	 */
+	public String getNextCursor() {
+		return nextCursor;
+	}
+}
@@ -0,0 +1,66 @@
+package com.jd.blockchain.peer.ledger.service.utils;
+
+import utils.codec.Base58Utils;
+import utils.io.BytesUtils;
+
+/**
+ * 分页查询的续读游标；
+ * <p>
+ * 游标记录首页查询时的区块高度以及下一页的起始位置，编码为不透明的 Base58 字符串；<br>
+ * 后续分页固定在同一区块的数据快照上读取，不受新区块写入的影响，结果不会重复或遗漏；
+ * 续读时直接从记录的位置开始顺序读取，不需要客户端重新计算偏移；
+ */
+public class PageCursor {
+
+	private final long blockHeight;
+
+	private final long position;
+
+	public PageCursor(long blockHeight, long position) {
+		this.blockHeight = blockHeight;
+		this.position = position;
+	}
+
+	public long getBlockHeight() {
+		return blockHeight;
+	}
+
+	public long getPosition() {
+		return position;
+	}
+
+	/**
+	 * 解析游标；
+	 *
+	 * @param cursor 游标字符串；
+	 * @return
+	 */
+	public static PageCursor decode(String cursor) {
+		byte[] bytes;
+		try {
+			bytes = Base58Utils.decode(cursor);
+		} catch (Exception e) {
+			throw new IllegalArgumentException("Illegal page cursor! --" + cursor, e);
+		}
+		if (bytes.length != 16) {
+			throw new IllegalArgumentException("Illegal page cursor! --" + cursor);
+		}
+		PageCursor pageCursor = new PageCursor(BytesUtils.toLong(bytes, 0), BytesUtils.toLong(bytes, 8));
+		if (pageCursor.blockHeight < 0 || pageCursor.position < 0) {
+			throw new IllegalArgumentException("Illegal page cursor! --" + cursor);
+		}
+		return pageCursor;
+	}
+
+	public String encode() {
+		byte[] bytes = new byte[16];
+		BytesUtils.toBytes(blockHeight, bytes, 0);
+		BytesUtils.toBytes(position, bytes, 8);
+		return Base58Utils.encode(bytes);
+	}
+
+	@Override
+	public String toString() {
+		return encode();
+	}
+}
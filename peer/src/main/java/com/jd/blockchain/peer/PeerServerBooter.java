@@ -90,6 +90,8 @@ import com.jd.blockchain.ledger.UserInfoSetOperation;
 import com.jd.blockchain.ledger.UserRegisterOperation;
 import com.jd.blockchain.ledger.core.LedgerInitDecision;
 import com.jd.blockchain.ledger.core.LedgerInitProposal;
+import com.jd.blockchain.ledger.core.LedgerManage;
+import com.jd.blockchain.ledger.core.LedgerService;
 import com.jd.blockchain.ledger.merkletree.HashBucketEntry;
 import com.jd.blockchain.ledger.merkletree.KeyIndex;
 import com.jd.blockchain.ledger.merkletree.MerkleIndex;
@@ -318,6 +320,10 @@ public class PeerServerBooter {
 		return appContext.getBean(DbConnectionFactory.class);
 	}
 
+	public LedgerService getLedgerService() {
+		return appContext.getBean(LedgerManage.class);
+	}
+
 	private static void registerDataContracts() {
 		DataContractRegistry.register(MerkleSnapshot.class);
 		DataContractRegistry.register(MerkleTrieData.class);
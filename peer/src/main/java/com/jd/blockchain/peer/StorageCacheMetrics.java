@@ -0,0 +1,35 @@
+package com.jd.blockchain.peer;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.jd.blockchain.storage.service.impl.rocksdb.RocksDBStorageCache;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+
+/**
+ * 导出 RocksDB 存储读缓存的命中率、淘汰数等指标；
+ * <p>
+ * 指标名称为 cache.*，版本号缓存和数据缓存分别以 cache=rocksdb.version 和 cache=rocksdb.value 标签区分；
+ */
+@Component
+public class StorageCacheMetrics {
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@PostConstruct
+	public void bind() {
+		RocksDBStorageCache cache = RocksDBStorageCache.getShared();
+		GuavaCacheMetrics.monitor(meterRegistry, cache.getVersionCache(), "rocksdb.version");
+		GuavaCacheMetrics.monitor(meterRegistry, cache.getValueCache(), "rocksdb.value");
+		Gauge.builder("rocksdb.cache.budget", cache, RocksDBStorageCache::getBudget)
+				.baseUnit("bytes")
+				.description("Memory budget of the rocksdb read cache")
+				.register(meterRegistry);
+	}
+}
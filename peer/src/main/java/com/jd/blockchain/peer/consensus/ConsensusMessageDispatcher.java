@@ -2,6 +2,8 @@ package com.jd.blockchain.peer.consensus;
 
 import com.jd.binaryproto.BinaryProtocol;
 import com.jd.blockchain.consensus.BlockStateSnapshot;
+import com.jd.blockchain.consensus.bftsmart.service.BftsmartConsensusMessageContext;
+import com.jd.blockchain.consensus.bftsmart.service.MessagePreprocessor;
 import com.jd.blockchain.consensus.service.ConsensusContext;
 import com.jd.blockchain.consensus.service.ConsensusMessageContext;
 import com.jd.blockchain.consensus.service.MessageHandle;
@@ -14,11 +16,17 @@ import com.jd.blockchain.ledger.TransactionRequest;
 import com.jd.blockchain.ledger.TransactionResponse;
 import com.jd.blockchain.ledger.TransactionState;
 import com.jd.blockchain.ledger.core.LedgerEditor;
+import com.jd.blockchain.ledger.core.LedgerManager;
 import com.jd.blockchain.ledger.core.TransactionBatchProcessor;
 import com.jd.blockchain.ledger.core.TransactionEngineImpl;
+import com.jd.blockchain.ledger.core.TransactionPreVerifier;
 import com.jd.blockchain.service.TransactionBatchProcess;
 import com.jd.blockchain.service.TransactionBatchResultHandle;
+import com.jd.blockchain.peer.spring.LedgerManageUtils;
 import com.jd.blockchain.service.TransactionEngine;
+import com.jd.blockchain.storage.service.KVStorageService;
+import com.jd.blockchain.storage.service.impl.rocksdb.RocksDBStorageService;
+import com.jd.blockchain.transaction.TxResponseMessage;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import utils.codec.Base58Utils;
@@ -27,10 +35,13 @@ import utils.concurrent.CompletableAsyncFuture;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -42,7 +53,7 @@ import io.micrometer.core.instrument.MeterRegistry;
  *
  */
 @Component
-public class ConsensusMessageDispatcher implements MessageHandle {
+public class ConsensusMessageDispatcher implements MessageHandle, MessagePreprocessor {
 
 	@Autowired
 	private TransactionEngine txEngine;
@@ -55,11 +66,24 @@ public class ConsensusMessageDispatcher implements MessageHandle {
 
 	private final ReentrantLock beginLock = new ReentrantLock();
 
+	// 账本的存储服务；默认从账本管理器中获取；
+	private Function<HashDigest, KVStorageService> storageResolver = ConsensusMessageDispatcher::ledgerStorageService;
+
 	//Used by mocked integration test example
 	public void setTxEngine(TransactionEngine txEngine) {
 		this.txEngine = txEngine;
 	}
 
+	//Used by mocked integration test example
+	public void setMeterRegistry(MeterRegistry meterRegistry) {
+		this.meterRegistry = meterRegistry;
+	}
+
+	//Used by mocked integration test example
+	public void setStorageResolver(Function<HashDigest, KVStorageService> storageResolver) {
+		this.storageResolver = storageResolver;
+	}
+
 	@Override
 	public String beginBatch(ConsensusContext consensusContext) {
 		String realmName = realmName(consensusContext);
@@ -151,10 +175,21 @@ public class ConsensusMessageDispatcher implements MessageHandle {
 		if (!realmProcessor.getCurrBatchId().equalsIgnoreCase(batchId(context))) {
 			throw new IllegalArgumentException("BatchId is not begin!");
 		}
-		TransactionRequest txRequest = BinaryProtocol.decode(message);
+		TransactionRequest txRequest = TransactionPreVerifier.getShared().take(message);
+		if (txRequest == null) {
+			txRequest = BinaryProtocol.decode(message);
+		}
 		return realmProcessor.schedule(txRequest);
 	}
 
+	@Override
+	public void preprocess(String realmName, byte[][] messages) {
+		TransactionPreVerifier preVerifier = TransactionPreVerifier.getShared();
+		for (byte[] message : messages) {
+			preVerifier.submit(message);
+		}
+	}
+
 	@Override
 	public StateSnapshot completeBatch(ConsensusMessageContext context) {
 		RealmProcessor realmProcessor = realmProcessorMap.get(realmName(context));
@@ -164,7 +199,8 @@ public class ConsensusMessageDispatcher implements MessageHandle {
 		if (!realmProcessor.getCurrBatchId().equalsIgnoreCase(batchId(context))) {
 			throw new IllegalArgumentException("BatchId is not begin!");
 		}
-		return realmProcessor.complete(context.getTimestamp());
+		// BFT-SMaRt 在预计算阶段就需要交易的执行结果，在提交之后才发送应答；
+		return realmProcessor.complete(context.getTimestamp(), context instanceof BftsmartConsensusMessageContext);
 	}
 
 	@Override
@@ -205,9 +241,33 @@ public class ConsensusMessageDispatcher implements MessageHandle {
 		realmProcessor.realmName = realmName;
 		realmProcessor.ledgerHash = ledgerHash;
 		realmProcessor.metrics = new LedgerMetrics(realmName, meterRegistry);
+		realmProcessor.groupCommitStorage = groupCommitStorage(ledgerHash);
 		return realmProcessor;
 	}
 
+	/**
+	 * 账本存储启用了写入组提交时返回其存储服务；
+	 */
+	private RocksDBStorageService groupCommitStorage(HashDigest ledgerHash) {
+		KVStorageService storageService = storageResolver.apply(ledgerHash);
+		if (storageService instanceof RocksDBStorageService
+				&& ((RocksDBStorageService) storageService).isGroupCommitEnabled()) {
+			return (RocksDBStorageService) storageService;
+		}
+		return null;
+	}
+
+	private static KVStorageService ledgerStorageService(HashDigest ledgerHash) {
+		LedgerManager ledgerManager;
+		try {
+			ledgerManager = LedgerManageUtils.getLedgerManager();
+		} catch (RuntimeException e) {
+			// 未在 Spring 容器中运行；
+			return null;
+		}
+		return ledgerManager.getStorageService(ledgerHash);
+	}
+
 	private String realmName(ConsensusContext consensusContext) {
 		return consensusContext.getRealmName();
 	}
@@ -239,6 +299,23 @@ public class ConsensusMessageDispatcher implements MessageHandle {
 
 		private LedgerMetrics metrics;
 
+		/**
+		 * 启用写入组提交的账本存储；为 null 时区块在共识线程中同步写入；
+		 * <p>
+		 * 启用后区块的全部写入在提交时原子地交给持久化线程，客户端在区块落盘之后才能看到应答：<br>
+		 * 1. 提交之后才等待执行结果的共识（Raft、MQ），执行结果推迟到落盘之后返回，后续区块可以在落盘之前继续执行；<br>
+		 * 2. 提交之前就需要执行结果的共识（BFT-SMaRt），执行结果在 {@link #complete(long, boolean)} 时立即返回，
+		 * 由共识在提交之后发送应答，因此提交要等待区块落盘之后才返回；
+		 */
+		private RocksDBStorageService groupCommitStorage;
+
+		private Map<TransactionResponse, CompletableAsyncFuture<byte[]>> pendingResponses;
+
+		private LedgerBlock pendingBlock;
+
+		// 提交时是否等待区块落盘；
+		private boolean awaitDurable;
+
 		public String getRealmName() {
 			return realmName;
 		}
@@ -304,7 +381,10 @@ public class ConsensusMessageDispatcher implements MessageHandle {
 			return asyncTxResult;
 		}
 
-		public StateSnapshot complete(long timestamp) {
+		/**
+		 * @param resultsBeforeCommit 共识是否在提交之前等待交易的执行结果；
+		 */
+		public StateSnapshot complete(long timestamp, boolean resultsBeforeCommit) {
 			LedgerEditor.TIMESTAMP_HOLDER.set(timestamp);
 			try {
 				batchResultHandle = getTxBatchProcess().prepare();
@@ -312,7 +392,14 @@ public class ConsensusMessageDispatcher implements MessageHandle {
 				long blockHeight = currBlock.getHeight();
 				long blockTimestamp = currBlock.getTimestamp();
 				HashDigest blockHash = currBlock.getHash();
-				asyncBlExecute(new HashMap<>(txResponseMap), blockHeight, blockHash, blockTimestamp);
+				awaitDurable = groupCommitStorage != null && resultsBeforeCommit;
+				if (groupCommitStorage == null || resultsBeforeCommit) {
+					asyncBlExecute(new HashMap<>(txResponseMap), blockHeight, blockHash, blockTimestamp);
+				} else {
+					// 执行结果推迟到区块落盘之后；
+					pendingResponses = new HashMap<>(txResponseMap);
+					pendingBlock = currBlock;
+				}
 				return new BlockStateSnapshot(blockHeight, currBlock.getTimestamp(), blockHash);
 			} finally {
 				LedgerEditor.TIMESTAMP_HOLDER.remove();
@@ -325,7 +412,11 @@ public class ConsensusMessageDispatcher implements MessageHandle {
 				if (batchResultHandle == null) {
 					throw new IllegalArgumentException("BatchResultHandle is null, complete() is not execute !");
 				}
-				batchResultHandle.commit();
+				if (groupCommitStorage == null) {
+					batchResultHandle.commit();
+				} else {
+					commitDurably();
+				}
 				currBatchId = null;
 				txResponseMap = null;
 				txBatchProcess = null;
@@ -335,12 +426,65 @@ public class ConsensusMessageDispatcher implements MessageHandle {
 			}
 		}
 
+		/**
+		 * 将区块的全部写入作为一个写入组提交，由持久化线程写入；后续区块可以在落盘之前继续执行；
+		 * <p>
+		 * 共享同一存储的多个账本的提交在 {@link RocksDBStorageService#beginGroup()} 处串行化；
+		 */
+		private void commitDurably() {
+			groupCommitStorage.beginGroup();
+			try {
+				batchResultHandle.commit();
+			} catch (RuntimeException e) {
+				groupCommitStorage.abortGroup();
+				throw e;
+			}
+			CompletableFuture<Void> durable = groupCommitStorage.commitGroup();
+			Map<TransactionResponse, CompletableAsyncFuture<byte[]>> responses = pendingResponses;
+			LedgerBlock block = pendingBlock;
+			pendingResponses = null;
+			pendingBlock = null;
+			if (awaitDurable) {
+				awaitDurable = false;
+				try {
+					durable.get();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IllegalStateException("Interrupted while waiting for the block to be durable!", e);
+				} catch (ExecutionException e) {
+					throw new IllegalStateException("Write block error! --" + e.getCause().getMessage(), e.getCause());
+				}
+				return;
+			}
+			durable.whenComplete((v, error) -> {
+				if (error == null) {
+					asyncBlExecute(responses, block.getHeight(), block.getHash(), block.getTimestamp());
+				} else {
+					for (CompletableAsyncFuture<byte[]> asyncResult : responses.values()) {
+						asyncResult.error(error);
+					}
+				}
+			});
+		}
+
 		public void rollback(int reasonCode) {
 			realmLock.lock();
 			try {
+				TransactionState state = TransactionState.valueOf((byte) reasonCode);
 				if (batchResultHandle != null) {
-					batchResultHandle.cancel(TransactionState.valueOf((byte) reasonCode));
+					batchResultHandle.cancel(state);
+				}
+				if (pendingResponses != null) {
+					// 推迟的执行结果不再返回，以回滚的状态应答；
+					for (Map.Entry<TransactionResponse, CompletableAsyncFuture<byte[]>> entry : pendingResponses.entrySet()) {
+						TxResponseMessage resp = new TxResponseMessage(entry.getKey().getContentHash());
+						resp.setExecutionState(state);
+						entry.getValue().complete(BinaryProtocol.encode(resp, TransactionResponse.class));
+					}
 				}
+				pendingResponses = null;
+				pendingBlock = null;
+				awaitDurable = false;
 				currBatchId = null;
 				txResponseMap = null;
 				txBatchProcess = null;
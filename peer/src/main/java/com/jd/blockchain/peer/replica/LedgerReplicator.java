@@ -0,0 +1,237 @@
+package com.jd.blockchain.peer.replica;
+
+import com.jd.blockchain.crypto.HashDigest;
+import com.jd.blockchain.ledger.LedgerBlock;
+import com.jd.blockchain.ledger.LedgerTransaction;
+import com.jd.blockchain.ledger.LedgerTransactions;
+import com.jd.blockchain.ledger.core.DefaultOperationHandleRegisteration;
+import com.jd.blockchain.ledger.core.LedgerEditor;
+import com.jd.blockchain.ledger.core.LedgerRepository;
+import com.jd.blockchain.ledger.core.OperationHandleRegisteration;
+import com.jd.blockchain.ledger.core.TransactionBatchProcessor;
+import com.jd.blockchain.sdk.proxy.HttpBlockchainBrowserService;
+import com.jd.blockchain.service.TransactionBatchResultHandle;
+import com.jd.httpservice.agent.HttpServiceAgent;
+import com.jd.httpservice.agent.ServiceConnection;
+import com.jd.httpservice.agent.ServiceConnectionManager;
+import com.jd.httpservice.agent.ServiceEndpoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import utils.net.NetworkAddress;
+import utils.net.SSLSecurity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.jd.blockchain.ledger.TransactionState.LEDGER_ERROR;
+
+/**
+ * 只读副本的区块同步；
+ * <p>
+ * 副本节点不参与共识，定期从配置的共识节点拉取新提交的区块，在本地重放区块内的交易并校验区块哈希，
+ * 由此维护一份完整的账本状态，对外提供全部查询接口，分担共识节点的查询压力；<br>
+ * 多个来源节点按顺序轮换，当前来源不可用时切换到下一个；
+ * <p>
+ * 在账本绑定配置中通过 {@link #SOURCES} 启用，例如：<br>
+ * binding.[账本哈希].replica.sources=192.168.1.1:7080,192.168.1.2:7080
+ * <p>
+ * 副本绑定的身份必须是账本的参与方，用于认证接入的网关和签署节点请求；该参与方不需要激活，可以是已注册但未参与共识的参与方；
+ */
+public class LedgerReplicator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LedgerReplicator.class);
+
+    /**
+     * 来源共识节点的管理服务地址列表，以逗号分隔；
+     */
+    public static final String SOURCES = "replica.sources";
+
+    /**
+     * 来源节点的管理服务是否开启安全连接；
+     */
+    public static final String SOURCES_SECURE = "replica.sources.secure";
+
+    /**
+     * 拉取新区块的间隔，毫秒；
+     */
+    public static final String INTERVAL = "replica.interval";
+
+    private static final long DEFAULT_INTERVAL = 1000;
+
+    /**
+     * 分页拉取区块内交易的数量；
+     */
+    private static final int TX_PAGE_SIZE = 100;
+
+    private final LedgerRepository ledgerRepository;
+
+    private final HashDigest ledgerHash;
+
+    private final List<ServiceEndpoint> sources;
+
+    private final long interval;
+
+    private final OperationHandleRegisteration opReg = new DefaultOperationHandleRegisteration();
+
+    private final ScheduledExecutorService executor;
+
+    private int sourceIndex;
+
+    private LedgerReplicator(LedgerRepository ledgerRepository, List<ServiceEndpoint> sources, long interval) {
+        this.ledgerRepository = ledgerRepository;
+        this.ledgerHash = ledgerRepository.getHash();
+        this.sources = sources;
+        this.interval = interval;
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "ledger-replicator-" + ledgerHash.toBase58());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 账本绑定配置是否启用了只读副本；
+     *
+     * @param extraProperties 账本绑定的扩展配置；
+     * @return
+     */
+    public static boolean isEnabled(Properties extraProperties) {
+        return extraProperties != null && extraProperties.getProperty(SOURCES, "").trim().length() > 0;
+    }
+
+    /**
+     * 按账本绑定的扩展配置创建区块同步；
+     *
+     * @param ledgerRepository 副本的账本；
+     * @param extraProperties  账本绑定的扩展配置；
+     * @param sslSecurity      连接来源节点的 TLS 配置；
+     * @return
+     */
+    public static LedgerReplicator create(LedgerRepository ledgerRepository, Properties extraProperties, SSLSecurity sslSecurity) {
+        boolean secure = Boolean.parseBoolean(extraProperties.getProperty(SOURCES_SECURE, "false").trim());
+        List<ServiceEndpoint> sources = new ArrayList<>();
+        for (String source : extraProperties.getProperty(SOURCES).split(",")) {
+            source = source.trim();
+            if (source.isEmpty()) {
+                continue;
+            }
+            int index = source.lastIndexOf(':');
+            if (index <= 0) {
+                throw new IllegalArgumentException("Illegal replica source address! --" + source);
+            }
+            ServiceEndpoint endpoint = new ServiceEndpoint(new NetworkAddress(source.substring(0, index),
+                    Integer.parseInt(source.substring(index + 1)), secure));
+            endpoint.setSslSecurity(sslSecurity);
+            sources.add(endpoint);
+        }
+        String interval = extraProperties.getProperty(INTERVAL);
+        return new LedgerReplicator(ledgerRepository, sources,
+                interval == null ? DEFAULT_INTERVAL : Long.parseLong(interval.trim()));
+    }
+
+    public HashDigest getLedgerHash() {
+        return ledgerHash;
+    }
+
+    public void start() {
+        LOGGER.info("start ledger replicator [{}] from {}", ledgerHash.toBase58(), sources);
+        executor.scheduleWithFixedDelay(this::syncTask, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    private void syncTask() {
+        ServiceEndpoint source = sources.get(sourceIndex);
+        try {
+            sync(source);
+        } catch (Exception e) {
+            LOGGER.error(String.format("sync ledger [%s] from %s:%d error!", ledgerHash.toBase58(), source.getHost(),
+                    source.getPort()), e);
+            sourceIndex = (sourceIndex + 1) % sources.size();
+        }
+    }
+
+    /**
+     * 从来源节点同步全部新区块；
+     *
+     * @param source
+     */
+    private void sync(ServiceEndpoint source) {
+        try (ServiceConnection httpConnection = ServiceConnectionManager.connect(source)) {
+            HttpBlockchainBrowserService queryService = HttpServiceAgent.createService(HttpBlockchainBrowserService.class, httpConnection, null);
+            long remoteHeight = queryService.getLedger(ledgerHash).getLatestBlockHeight();
+            long localHeight = ledgerRepository.retrieveLatestBlockHeight();
+            if (localHeight > remoteHeight) {
+                return;
+            }
+            HashDigest remoteHash = queryService.getBlock(ledgerHash, localHeight).getHash();
+            if (!remoteHash.equals(ledgerRepository.retrieveLatestBlockHash())) {
+                throw new IllegalStateException(String.format(
+                        "Replica ledger is inconsistent with source at height %s!", localHeight));
+            }
+            for (long height = localHeight + 1; height <= remoteHeight; height++) {
+                replay(queryService, queryService.getBlock(ledgerHash, height));
+            }
+        }
+    }
+
+    /**
+     * 重放区块内的交易并提交；重放生成的区块必须与来源区块一致；
+     *
+     * @param queryService
+     * @param block
+     */
+    private void replay(HttpBlockchainBrowserService queryService, LedgerBlock block) {
+        List<LedgerTransaction> transactions = getAdditionalTransactions(queryService, block.getHeight());
+        TransactionBatchProcessor batchProcessor = new TransactionBatchProcessor(ledgerRepository, opReg);
+        TransactionBatchResultHandle handle = null;
+        try {
+            for (LedgerTransaction transaction : transactions) {
+                batchProcessor.schedule(transaction.getRequest());
+            }
+            LedgerEditor.TIMESTAMP_HOLDER.set(block.getTimestamp());
+            handle = batchProcessor.prepare();
+            if (!handle.getBlock().getHash().equals(block.getHash())) {
+                throw new IllegalStateException(String.format(
+                        "Replayed block is inconsistent with source at height %s!", block.getHeight()));
+            }
+            handle.commit();
+            LOGGER.debug("replicate ledger [{}] block {}", ledgerHash.toBase58(), block.getHeight());
+        } catch (RuntimeException e) {
+            if (handle != null) {
+                handle.cancel(LEDGER_ERROR);
+            } else {
+                batchProcessor.cancel(LEDGER_ERROR);
+            }
+            throw e;
+        } finally {
+            LedgerEditor.TIMESTAMP_HOLDER.remove();
+        }
+    }
+
+    private List<LedgerTransaction> getAdditionalTransactions(HttpBlockchainBrowserService queryService, long height) {
+        List<LedgerTransaction> txs = new ArrayList<>();
+        int fromIndex = 0;
+        while (true) {
+            LedgerTransactions transactions = queryService.getAdditionalTransactionsInBinary(ledgerHash, (int) height, fromIndex, TX_PAGE_SIZE);
+            if (null == transactions || null == transactions.getLedgerTransactions()) {
+                break;
+            }
+            LedgerTransaction[] ts = transactions.getLedgerTransactions();
+            fromIndex += ts.length;
+            for (LedgerTransaction tx : ts) {
+                txs.add(tx);
+            }
+            if (ts.length < TX_PAGE_SIZE) {
+                break;
+            }
+        }
+        return txs;
+    }
+}
@@ -29,14 +29,26 @@ import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PreDestroy;
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
 import static com.jd.blockchain.peer.PeerServerBooter.LEDGER_BIND_CONFIG_NAME;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
 
 /**
  *
@@ -51,12 +63,35 @@ public class LedgerLoadTimer implements ApplicationContextAware {
     private static Logger LOGGER = LoggerFactory.getLogger(LedgerLoadTimer.class);
 
     /**
-     * 账本加载线程，单线程，内部进行判断，防止账本重新加载
+     * 配置文件发生变化之后等待写入完成的时间；
+     */
+    private static final long WATCH_SETTLE_MILLIS = 500;
+
+    /**
+     * 账本加载线程池，不同账本并行加载，单个账本的加载失败或耗时不影响其它账本；
      */
     private static final ExecutorService ledgerLoadExecutor = initLedgerLoadExecutor();
 
     private static final Lock lock = new ReentrantLock();
 
+    /**
+     * 正在加载的账本，防止同一账本被重复加载；
+     */
+    private final Set<HashDigest> loadingLedgers = ConcurrentHashMap.newKeySet();
+
+    private final AtomicBoolean watchStarted = new AtomicBoolean(false);
+
+    /**
+     * 是否正在监听账本绑定配置文件；监听时由文件变化触发加载，否则由定时任务轮询；
+     */
+    private volatile boolean watching;
+
+    private volatile boolean closed;
+
+    private WatchService watchService;
+
+    private Thread watchThread;
+
     private ApplicationContext applicationContext;
 
     @Autowired
@@ -69,10 +104,16 @@ public class LedgerLoadTimer implements ApplicationContextAware {
      */
     private Semaphore loadSemaphore = new Semaphore(0);
 
-    //每5秒执行一次
+    //每5秒执行一次，仅在无法监听配置文件时轮询
     @Scheduled(cron = "*/5 * * * * * ")
     public void ledgerLoad() {
+        if (watching || closed) {
+            return;
+        }
+        loadNewLedgers();
+    }
 
+    private void loadNewLedgers() {
         lock.lock();
         try {
             LOGGER.debug("--- Ledger loader tasks start... ");
@@ -93,15 +134,17 @@ public class LedgerLoadTimer implements ApplicationContextAware {
                     HashDigest[] totalLedgerHashs = ledgerBindingConfig.getLedgerHashs();
                     Set<HashDigest> existedHashSet = existedHashSet();
 
-                    Set<HashDigest> newAddHashs = new HashSet<>();
                     for (HashDigest ledgerHash : totalLedgerHashs) {
-                        if (!existedHashSet.contains(ledgerHash)) {
-                            newAddHashs.add(ledgerHash);
+                        if (existedHashSet.contains(ledgerHash) || !loadingLedgers.add(ledgerHash)) {
+                            continue;
+                        }
+                        // 每个账本由线程单独执行
+                        try {
+                            ledgerLoadExecutor.execute(new LedgerLoadRunnable(ledgerHash, ledgerBindingConfig));
+                        } catch (RejectedExecutionException e) {
+                            loadingLedgers.remove(ledgerHash);
+                            LOGGER.error(String.format("--- New ledger [%s] load rejected!", ledgerHash.toBase58()), e);
                         }
-                    }
-                    if (!newAddHashs.isEmpty()) {
-                        // 由线程单独执行
-                        ledgerLoadExecutor.execute(new LedgerLoadRunnable(newAddHashs, ledgerBindingConfig));
                     }
                 } else {
                     LOGGER.warn("--- Can not get semaphore of load ledger !!!");
@@ -125,10 +168,108 @@ public class LedgerLoadTimer implements ApplicationContextAware {
     }
 
     /**
-     * 释放许可
+     * 释放许可；首次释放时开始监听账本绑定配置文件
      */
     public void release() {
         loadSemaphore.release();
+        if (watchStarted.compareAndSet(false, true)) {
+            startWatching();
+        }
+    }
+
+    /**
+     * 监听账本绑定配置文件所在的目录，配置文件创建或修改时加载新的账本；<br>
+     * 类路径中的配置文件或者监听失败时，退回到定时轮询
+     */
+    private synchronized void startWatching() {
+        String ledgerBindConfigFile = PeerServerBooter.ledgerBindConfigFile;
+        if (ledgerBindConfigFile == null || closed) {
+            return;
+        }
+        Path configPath = Paths.get(ledgerBindConfigFile).toAbsolutePath();
+        Path configDir = configPath.getParent();
+        WatchService service = null;
+        try {
+            service = configDir.getFileSystem().newWatchService();
+            configDir.register(service, ENTRY_CREATE, ENTRY_MODIFY);
+            final WatchService ws = service;
+            watchService = service;
+            watching = true;
+            watchThread = new Thread(() -> watch(ws, configPath.getFileName()), "ledger-binding-watcher");
+            watchThread.setDaemon(true);
+            watchThread.start();
+            LOGGER.info("--- Watching {} for new ledgers", configPath);
+        } catch (IOException e) {
+            watching = false;
+            closeQuietly(service);
+            watchService = null;
+            LOGGER.warn("--- Can not watch " + configPath + ", fall back to polling !!!", e);
+        }
+    }
+
+    /**
+     * 停止监听账本绑定配置文件，关闭监听服务并等待监听线程退出；
+     */
+    @PreDestroy
+    public synchronized void destroy() {
+        closed = true;
+        watching = false;
+        closeQuietly(watchService);
+        watchService = null;
+        if (watchThread != null) {
+            watchThread.interrupt();
+            try {
+                watchThread.join(WATCH_SETTLE_MILLIS * 2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            watchThread = null;
+        }
+    }
+
+    private static void closeQuietly(WatchService service) {
+        if (service == null) {
+            return;
+        }
+        try {
+            service.close();
+        } catch (IOException e) {
+            LOGGER.warn("--- Close ledger binding watcher error !!!", e);
+        }
+    }
+
+    private void watch(WatchService watchService, Path configName) {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == OVERFLOW || configName.equals(event.context())) {
+                        changed = true;
+                    }
+                }
+                if (changed) {
+                    // 等待配置文件写入完成，合并同一次写入产生的多个事件
+                    Thread.sleep(WATCH_SETTLE_MILLIS);
+                    key.pollEvents();
+                    loadNewLedgers();
+                }
+                if (!key.reset()) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // 监听已关闭
+        } finally {
+            watching = false;
+            if (closed) {
+                LOGGER.info("--- Ledger binding watcher closed");
+            } else {
+                LOGGER.warn("--- Ledger binding watcher stopped, fall back to polling !!!");
+            }
+        }
     }
 
     private LedgerBindingConfig loadLedgerBindingConfig() throws Exception {
@@ -169,38 +310,45 @@ public class LedgerLoadTimer implements ApplicationContextAware {
 
     private class LedgerLoadRunnable implements Runnable {
 
-        Set<HashDigest> newAddHashs;
+        HashDigest ledgerHash;
         LedgerBindingConfig ledgerBindingConfig;
 
-        LedgerLoadRunnable(Set<HashDigest> newAddHashs, LedgerBindingConfig ledgerBindingConfig) {
-            this.newAddHashs = newAddHashs;
+        LedgerLoadRunnable(HashDigest ledgerHash, LedgerBindingConfig ledgerBindingConfig) {
+            this.ledgerHash = ledgerHash;
             this.ledgerBindingConfig = ledgerBindingConfig;
         }
 
         @Override
         public void run() {
+            try {
+                load();
+            } finally {
+                loadingLedgers.remove(ledgerHash);
+            }
+        }
+
+        private void load() {
             // 建立共识网络；
             Map<String, LedgerBindingConfigAware> bindingConfigAwares = applicationContext.getBeansOfType(LedgerBindingConfigAware.class);
             List<NodeServer> nodeServers = new ArrayList<>();
-            Set<HashDigest> existedHashSet = existedHashSet();
+            long startTs = System.currentTimeMillis();
 
             // 注意：要实现不同账本逻辑处理的隔离
-            for (HashDigest ledgerHash : newAddHashs) {
-                try {
-                    //recheck
-                    if (existedHashSet.contains(ledgerHash)) {
-                        LOGGER.info("--- Ledger [{}] has been inited ---", ledgerHash.toBase58());
-                        continue;
-                    }
-                    LOGGER.info("--- New ledger [{}] need to be init... ", ledgerHash.toBase58());
-                    for (LedgerBindingConfigAware aware : bindingConfigAwares.values()) {
-                        nodeServers.add(aware.setConfig(ledgerBindingConfig.getLedger(ledgerHash), ledgerHash));
-                    }
-                } catch (Exception e) {
-                    LOGGER.error(String.format("--- New ledger [%s] setConfig exception!", ledgerHash.toBase58()), e);
-                    continue;
+            try {
+                //recheck
+                if (existedHashSet().contains(ledgerHash)) {
+                    LOGGER.info("--- Ledger [{}] has been inited ---", ledgerHash.toBase58());
+                    return;
+                }
+                LOGGER.info("--- New ledger [{}] need to be init... ", ledgerHash.toBase58());
+                for (LedgerBindingConfigAware aware : bindingConfigAwares.values()) {
+                    nodeServers.add(aware.setConfig(ledgerBindingConfig.getLedger(ledgerHash), ledgerHash));
                 }
+            } catch (Exception e) {
+                LOGGER.error(String.format("--- New ledger [%s] setConfig exception!", ledgerHash.toBase58()), e);
+                return;
             }
+            LOGGER.info("--- New ledger [{}] is loaded in {} ms", ledgerHash.toBase58(), System.currentTimeMillis() - startTs);
 
             if (!nodeServers.isEmpty()) {
                 // 启动指定NodeServer节点
@@ -219,7 +367,8 @@ public class LedgerLoadTimer implements ApplicationContextAware {
         ThreadFactory threadFactory = new ThreadFactoryBuilder()
                 .setNameFormat("ledger-loader-%d").build();
 
-        return new ThreadPoolExecutor(1, 1,
+        int threads = Runtime.getRuntime().availableProcessors();
+        return new ThreadPoolExecutor(threads, threads,
                 60, TimeUnit.SECONDS,
                 new LinkedBlockingQueue<>(1024),
                 threadFactory,
@@ -24,6 +24,7 @@ import com.jd.blockchain.peer.ConsensusRealm;
 import com.jd.blockchain.peer.LedgerBindingConfigAware;
 import com.jd.blockchain.peer.PeerManage;
 import com.jd.blockchain.peer.consensus.LedgerStateManager;
+import com.jd.blockchain.peer.replica.LedgerReplicator;
 import com.jd.blockchain.peer.service.ConsensusServiceFactory;
 import com.jd.blockchain.peer.service.IParticipantManagerService;
 import com.jd.blockchain.peer.service.ParticipantContext;
@@ -109,6 +110,12 @@ public class ManagementController implements LedgerBindingConfigAware, PeerManag
 
     private Map<HashDigest, BindingConfig> bindingConfigs = new ConcurrentHashMap<>();
 
+    // 只读副本账本的区块同步
+    private Map<HashDigest, LedgerReplicator> ledgerReplicators = new ConcurrentHashMap<>();
+
+    // 已经启动的共识服务，账本加载完成时即已启动的服务不在 runAllRealms 中重复启动
+    private Set<NodeServer> startedServers = ConcurrentHashMap.newKeySet();
+
     @Autowired
     private MessageHandle consensusMessageHandler;
 
@@ -323,14 +330,36 @@ public class ManagementController implements LedgerBindingConfigAware, PeerManag
                 ledgerManager.unregister(lh);
             }
             HashDigest[] ledgerHashs = config.getLedgerHashs();
-            for (HashDigest ledgerHash : ledgerHashs) {
-                // 不同的账本实现处理隔离
-                try {
-                    setConfig(config.getLedger(ledgerHash), ledgerHash);
-                } catch (Exception e) {
-                    LOGGER.error("Exception occurred on setConfig! Exception ledger = {}, Exception cause = {}", Base58Utils.encode(ledgerHash.toBytes()), e.getMessage());
-                    continue;
+            if (ledgerHashs.length == 0) {
+                return;
+            }
+            // 不同的账本并行加载，实现处理隔离，加载时间取决于最慢的账本而不是全部账本之和；
+            // 每个账本加载完成后立即在独立的线程中启动共识服务，不等待其它账本；
+            ExecutorService executor = initLedgerLoadExecutor(
+                    Math.min(ledgerHashs.length, Runtime.getRuntime().availableProcessors()), "ledger-loader-%d");
+            ExecutorService realmExecutor = initLedgerLoadExecutor(ledgerHashs.length, "consensus-server-%d");
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (HashDigest ledgerHash : ledgerHashs) {
+                    futures.add(executor.submit(() -> {
+                        long startTs = System.currentTimeMillis();
+                        try {
+                            NodeServer server = setConfig(config.getLedger(ledgerHash), ledgerHash);
+                            LOGGER.info("Ledger[{}] is loaded in {} ms", ledgerHash.toBase58(), System.currentTimeMillis() - startTs);
+                            if (null != server) {
+                                realmExecutor.execute(() -> runRealm(server));
+                            }
+                        } catch (Exception e) {
+                            LOGGER.error("Exception occurred on setConfig! Exception ledger = {}, Exception cause = {}", Base58Utils.encode(ledgerHash.toBytes()), e.getMessage());
+                        }
+                    }));
                 }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } finally {
+                executor.shutdown();
+                realmExecutor.shutdown();
             }
 
         } catch (Exception e) {
@@ -370,6 +399,12 @@ public class ManagementController implements LedgerBindingConfigAware, PeerManag
                 }
             }
             if (currentNode == null) {
+                if (LedgerReplicator.isEnabled(bindingConfig.getExtraProperties())) {
+                    // 副本同样以参与方身份认证网关，参与方不需要激活；
+                    throw new IllegalArgumentException("Read-only replica must be bound to a participant of ledger["
+                            + ledgerHash.toBase58() + "], participant[" + bindingConfig.getParticipant().getAddress()
+                            + "] is not found! Register the replica's identity as a participant (no activation needed).");
+                }
                 throw new IllegalArgumentException("Current node is not found from the participant settings of ledger["
                         + ledgerHash.toBase58() + "]!");
             }
@@ -386,8 +421,17 @@ public class ManagementController implements LedgerBindingConfigAware, PeerManag
                 CertificateUtils.checkCertificateRole(peerCA, CertificateRole.PEER);
                 CertificateUtils.checkValidity(peerCA);
             }
-            // 处于ACTIVED状态的参与方才会创建共识节点服务
-            if (currentNode.getParticipantNodeState() == ParticipantNodeState.CONSENSUS) {
+            // 只读副本不参与共识，从共识节点同步区块
+            if (LedgerReplicator.isEnabled(bindingConfig.getExtraProperties())) {
+                LedgerReplicator replicator = LedgerReplicator.create((LedgerRepository) ledgerRepository,
+                        bindingConfig.getExtraProperties(), bindingConfig.getSslSecurity());
+                LedgerReplicator oldReplicator = ledgerReplicators.put(ledgerHash, replicator);
+                if (null != oldReplicator) {
+                    oldReplicator.stop();
+                }
+                replicator.start();
+            } else if (currentNode.getParticipantNodeState() == ParticipantNodeState.CONSENSUS) {
+                // 处于ACTIVED状态的参与方才会创建共识节点服务
                 ServerSettings serverSettings = provider.getServerFactory().buildServerSettings(ledgerHash.toBase58(), csSettings,
                         currentNode.getAddress().toBase58(), bindingConfig.getSslSecurity(), bindingConfig.getExtraProperties());
                 ((LedgerStateManager) consensusStateManager).setLedgerQuery(ledgerHash, ledgerRepository);
@@ -428,7 +472,7 @@ public class ManagementController implements LedgerBindingConfigAware, PeerManag
     public void runAllRealms() {
         if (ledgerPeers != null && !ledgerPeers.isEmpty()) {
             // 每个账本使用独立的线程启动
-            ThreadPoolExecutor executor = initLedgerLoadExecutor(ledgerPeers.size());
+            ThreadPoolExecutor executor = initLedgerLoadExecutor(ledgerPeers.size(), "consensus-server-%d");
             for (NodeServer peer : ledgerPeers.values()) {
                 executor.execute(() -> {
                     runRealm(peer);
@@ -439,7 +483,9 @@ public class ManagementController implements LedgerBindingConfigAware, PeerManag
 
     @Override
     public void runRealm(NodeServer nodeServer) {
-        nodeServer.start();
+        if (startedServers.add(nodeServer)) {
+            nodeServer.start();
+        }
     }
 
     @PreDestroy
@@ -453,6 +499,10 @@ public class ManagementController implements LedgerBindingConfigAware, PeerManag
         for (NodeServer peer : ledgerPeers.values()) {
             peer.stop();
         }
+        startedServers.clear();
+        for (LedgerReplicator replicator : ledgerReplicators.values()) {
+            replicator.stop();
+        }
     }
 
     @RequestMapping(path = "/monitor/consensus/nodestate/{ledgerHash}", method = RequestMethod.GET)
@@ -995,7 +1045,9 @@ public class ManagementController implements LedgerBindingConfigAware, PeerManag
                     origConsensusNodes,
                     ParticipantUpdateType.DEACTIVE
             );
-            ledgerPeers.get(ledgerHash).stop();
+            NodeServer server = ledgerPeers.get(ledgerHash);
+            server.stop();
+            startedServers.remove(server);
             LOGGER.info("updateView success!");
             return response;
 
@@ -1322,6 +1374,7 @@ public class ManagementController implements LedgerBindingConfigAware, PeerManag
             if (null != server) {
                 LOGGER.info("stop old server");
                 server.stop();
+                startedServers.remove(server);
             }
 
             try {
@@ -1463,8 +1516,8 @@ public class ManagementController implements LedgerBindingConfigAware, PeerManag
         return origConsensusNodes;
     }
 
-    private static ThreadPoolExecutor initLedgerLoadExecutor(int coreSize) {
-        ThreadFactory threadFactory = new ThreadFactoryBuilder().setNameFormat("consensus-server-%d").build();
+    private static ThreadPoolExecutor initLedgerLoadExecutor(int coreSize, String nameFormat) {
+        ThreadFactory threadFactory = new ThreadFactoryBuilder().setNameFormat(nameFormat).build();
 
         return new ThreadPoolExecutor(coreSize, coreSize, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(1024),
                 threadFactory, new ThreadPoolExecutor.AbortPolicy());
@@ -0,0 +1,153 @@
+package test.com.jd.blockchain.peer.consensus;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.jd.binaryproto.BinaryProtocol;
+import com.jd.blockchain.consensus.bftsmart.service.BftsmartConsensusMessageContext;
+import com.jd.blockchain.consensus.service.ConsensusMessageContext;
+import com.jd.blockchain.crypto.Crypto;
+import com.jd.blockchain.crypto.HashDigest;
+import com.jd.blockchain.crypto.service.classic.ClassicAlgorithm;
+import com.jd.blockchain.ledger.BlockchainKeyGenerator;
+import com.jd.blockchain.ledger.LedgerBlock;
+import com.jd.blockchain.ledger.TransactionRequest;
+import com.jd.blockchain.ledger.TransactionResponse;
+import com.jd.blockchain.ledger.TransactionState;
+import com.jd.blockchain.ledger.core.TransactionEngineImpl;
+import com.jd.blockchain.peer.consensus.ConsensusMessageDispatcher;
+import com.jd.blockchain.service.TransactionBatchProcess;
+import com.jd.blockchain.service.TransactionBatchResultHandle;
+import com.jd.blockchain.storage.service.DbConnectionFactory;
+import com.jd.blockchain.storage.service.impl.rocksdb.RocksDBConnectionFactory;
+import com.jd.blockchain.storage.service.impl.rocksdb.RocksDBStorageService;
+import com.jd.blockchain.transaction.TxBuilder;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import utils.Bytes;
+import utils.concurrent.AsyncFuture;
+import utils.io.BytesUtils;
+import utils.io.FileUtils;
+
+/**
+ * 启用写入组提交时共识消息的处理；
+ */
+public class ConsensusMessageDispatcherTest {
+
+	private static final Bytes BLOCK_KEY = Bytes.fromString("block");
+
+	private DbConnectionFactory dbConnFactory;
+
+	private RocksDBStorageService storage;
+
+	private HashDigest ledgerHash;
+
+	private ConsensusMessageDispatcher dispatcher;
+
+	@Before
+	public void setUp() {
+		System.setProperty(RocksDBStorageService.GROUP_COMMIT, "true");
+		String dbDir = new File(FileUtils.getCurrentDir(), "dispatcher_group_commit_test.db").getAbsolutePath();
+		FileUtils.deleteFile(dbDir);
+		dbConnFactory = new RocksDBConnectionFactory();
+		storage = (RocksDBStorageService) dbConnFactory.connect("rocksdb://" + dbDir).getStorageService();
+
+		ledgerHash = Crypto.getHashFunction(ClassicAlgorithm.SHA256).hash(BytesUtils.toBytes("ledger"));
+		HashDigest blockHash = Crypto.getHashFunction(ClassicAlgorithm.SHA256).hash(BytesUtils.toBytes("block"));
+		LedgerBlock block = mock(LedgerBlock.class);
+		when(block.getHeight()).thenReturn(1L);
+		when(block.getHash()).thenReturn(blockHash);
+
+		TransactionBatchResultHandle resultHandle = mock(TransactionBatchResultHandle.class);
+		when(resultHandle.getBlock()).thenReturn(block);
+		doAnswer(invocation -> {
+			storage.getVersioningKVStorage().set(BLOCK_KEY, BytesUtils.toBytes("block-1"), -1);
+			return null;
+		}).when(resultHandle).commit();
+
+		TransactionBatchProcess batchProcess = mock(TransactionBatchProcess.class);
+		when(batchProcess.schedule(any())).thenAnswer(invocation -> {
+			TransactionRequest request = (TransactionRequest) invocation.getArguments()[0];
+			TransactionResponse response = mock(TransactionResponse.class);
+			when(response.getContentHash()).thenReturn(request.getTransactionHash());
+			when(response.getExecutionState()).thenReturn(TransactionState.SUCCESS);
+			when(response.isSuccess()).thenReturn(true);
+			return response;
+		});
+		when(batchProcess.prepare()).thenReturn(resultHandle);
+
+		TransactionEngineImpl txEngine = mock(TransactionEngineImpl.class);
+		when(txEngine.createNextBatch(any(), any())).thenReturn(batchProcess);
+
+		dispatcher = new ConsensusMessageDispatcher();
+		dispatcher.setTxEngine(txEngine);
+		dispatcher.setMeterRegistry(new SimpleMeterRegistry());
+		dispatcher.setStorageResolver(hash -> storage);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		System.clearProperty(RocksDBStorageService.GROUP_COMMIT);
+		dbConnFactory.close();
+	}
+
+	/**
+	 * BFT-SMaRt 在提交之前等待执行结果，在提交之后发送应答；
+	 */
+	@Test
+	public void testBftsmartWithGroupCommit() throws Exception {
+		BftsmartConsensusMessageContext context = BftsmartConsensusMessageContext.createInstance(ledgerHash.toBase58(),
+				System.currentTimeMillis());
+		context.setBatchId(dispatcher.beginBatch(context));
+		AsyncFuture<byte[]> future = dispatcher.processOrdered(0, newTxRequest(), context);
+		dispatcher.completeBatch(context);
+
+		// 执行结果在提交之前返回；
+		byte[] result = CompletableFuture.supplyAsync(future::get).get(10, TimeUnit.SECONDS);
+		TransactionResponse response = BinaryProtocol.decode(result);
+		assertEquals(TransactionState.SUCCESS, response.getExecutionState());
+		assertEquals(1L, response.getBlockHeight());
+
+		// 提交在区块落盘之后返回；
+		dispatcher.commitBatch(context);
+		assertEquals("block-1", BytesUtils.toString(storage.getVersioningKVStorage().get(BLOCK_KEY, 0)));
+		storage.awaitDurable();
+	}
+
+	/**
+	 * 推迟到落盘之后的执行结果在回滚时以回滚的状态返回；
+	 */
+	@Test
+	public void testRollbackPendingResponses() throws Exception {
+		ConsensusMessageContext context = mock(ConsensusMessageContext.class);
+		when(context.getRealmName()).thenReturn(ledgerHash.toBase58());
+		when(context.getTimestamp()).thenReturn(System.currentTimeMillis());
+		String batchId = dispatcher.beginBatch(context);
+		when(context.getBatchId()).thenReturn(batchId);
+		AsyncFuture<byte[]> future = dispatcher.processOrdered(0, newTxRequest(), context);
+		dispatcher.completeBatch(context);
+
+		dispatcher.rollbackBatch(TransactionState.CONSENSUS_ERROR.CODE, context);
+		byte[] result = CompletableFuture.supplyAsync(future::get).get(10, TimeUnit.SECONDS);
+		TransactionResponse response = BinaryProtocol.decode(result);
+		assertEquals(TransactionState.CONSENSUS_ERROR, response.getExecutionState());
+	}
+
+	private byte[] newTxRequest() {
+		TxBuilder txBuilder = new TxBuilder(ledgerHash, ClassicAlgorithm.SHA256);
+		txBuilder.users().register(BlockchainKeyGenerator.getInstance().generate().getIdentity());
+		TransactionRequest request = txBuilder.prepareRequest(System.currentTimeMillis()).buildRequest();
+		return BinaryProtocol.encode(request, TransactionRequest.class);
+	}
+}
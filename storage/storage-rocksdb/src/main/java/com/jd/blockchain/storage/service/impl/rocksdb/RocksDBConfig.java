@@ -0,0 +1,281 @@
+package com.jd.blockchain.storage.service.impl.rocksdb;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.rocksdb.BlockBasedTableConfig;
+import org.rocksdb.BloomFilter;
+import org.rocksdb.Cache;
+import org.rocksdb.ColumnFamilyDescriptor;
+import org.rocksdb.ColumnFamilyOptions;
+import org.rocksdb.CompactionStyle;
+import org.rocksdb.CompressionType;
+import org.rocksdb.DBOptions;
+import org.rocksdb.DataBlockIndexType;
+import org.rocksdb.HashLinkedListMemTableConfig;
+import org.rocksdb.IndexType;
+import org.rocksdb.LRUCache;
+import org.rocksdb.RocksDB;
+import org.rocksdb.SkipListMemTableConfig;
+import org.rocksdb.util.SizeUnit;
+
+/**
+ * RocksDB 的存储布局和参数配置；
+ * <p>
+ * 配置通过连接字符串的查询参数指定，例如：
+ *
+ * <pre>
+ * rocksdb:///home/peer0/rocksdb?cf=true&amp;block-cache-size=2048&amp;merkle.compression=zstd&amp;version.block-size=4096
+ * </pre>
+ *
+ * 1. cf ：是否为新建的数据库启用列族布局；已存在的数据库始终沿用创建时的布局；<br>
+ * 2. block-cache-size ：各列族共享的块缓存大小，单位 MB ；<br>
+ * 3. max-open-files ：最大打开文件数量；<br>
+ * 4. &lt;family&gt;.compression / compaction / block-size / bloom-bits / write-buffer-size ：各列族的参数，family 取值为
+ * default、merkle、data、version ；
+ * <p>
+ * 列族布局下，只写一次、以哈希为键的默克尔节点（{@link RocksDBExPolicyStorage}）存储在 merkle 列族；
+ * 多版本数据（“D”键）存储在 data 列族；频繁更新的最新版本号（“V”键）以及版本清理记录（“P”键）存储在 version 列族；
+ * 区块和账本的索引同样是多版本数据，与其它数据一样按“V”/“D”键分别存储，不单独使用列族；
+ */
+public class RocksDBConfig {
+
+	public static final String COLUMN_FAMILY_ENABLE = "cf";
+
+	public static final String BLOCK_CACHE_SIZE = "block-cache-size";
+
+	public static final String MAX_OPEN_FILES = "max-open-files";
+
+	public static final String COMPRESSION = "compression";
+
+	public static final String COMPACTION = "compaction";
+
+	public static final String BLOCK_SIZE = "block-size";
+
+	public static final String BLOOM_BITS = "bloom-bits";
+
+	public static final String WRITE_BUFFER_SIZE = "write-buffer-size";
+
+	public static final String DEFAULT_FAMILY = new String(RocksDB.DEFAULT_COLUMN_FAMILY, StandardCharsets.UTF_8);
+
+	public static final String MERKLE_FAMILY = "merkle";
+
+	public static final String DATA_FAMILY = "data";
+
+	public static final String VERSION_FAMILY = "version";
+
+	private static final String[] LAYOUT_FAMILIES = { MERKLE_FAMILY, DATA_FAMILY, VERSION_FAMILY };
+
+	private final Map<String, String> params;
+
+	private final boolean columnFamilyEnabled;
+
+	private final Cache blockCache;
+
+	private final List<AutoCloseable> resources = new ArrayList<>();
+
+	public RocksDBConfig(URI dbUri) {
+		this(parseQuery(dbUri.getRawQuery()));
+	}
+
+	public RocksDBConfig(Map<String, String> params) {
+		this.params = Collections.unmodifiableMap(new HashMap<>(params));
+		this.columnFamilyEnabled = Boolean.parseBoolean(params.get(COLUMN_FAMILY_ENABLE));
+		this.blockCache = new LRUCache(getLong(BLOCK_CACHE_SIZE, 1024) * SizeUnit.MB, 64, false);
+		resources.add(blockCache);
+	}
+
+	/**
+	 * 新建数据库时是否采用列族布局；
+	 */
+	public boolean isColumnFamilyEnabled() {
+		return columnFamilyEnabled;
+	}
+
+	/**
+	 * 列族布局下的全部列族名称，不包括 default 列族；
+	 */
+	public static String[] getLayoutFamilies() {
+		return LAYOUT_FAMILIES.clone();
+	}
+
+	/**
+	 * 创建数据库参数；
+	 *
+	 * @param columnFamilyLayout 是否采用列族布局；
+	 * @return
+	 */
+	public DBOptions createDBOptions(boolean columnFamilyLayout) {
+		DBOptions options = new DBOptions()
+				.setMaxOpenFiles((int) getLong(MAX_OPEN_FILES, 1000)) // 控制最大打开文件数量，防止内存持续增加
+				.setAllowConcurrentMemtableWrite(columnFamilyLayout)
+				.setCreateIfMissing(true)
+				.setCreateMissingColumnFamilies(true);
+		resources.add(options);
+		return options;
+	}
+
+	/**
+	 * 创建指定列族的描述；
+	 *
+	 * @param family             列族名称；
+	 * @param columnFamilyLayout 是否采用列族布局；
+	 * @return
+	 */
+	public ColumnFamilyDescriptor createDescriptor(String family, boolean columnFamilyLayout) {
+		return new ColumnFamilyDescriptor(family.getBytes(StandardCharsets.UTF_8),
+				createFamilyOptions(family, columnFamilyLayout));
+	}
+
+	private ColumnFamilyOptions createFamilyOptions(String family, boolean columnFamilyLayout) {
+		BlockBasedTableConfig tableOptions = new BlockBasedTableConfig()
+				.setBlockCache(blockCache)
+				.setCacheIndexAndFilterBlocks(true)
+				.setCacheIndexAndFilterBlocksWithHighPriority(true)
+				.setIndexType(IndexType.kTwoLevelIndexSearch) // 打开分片索引
+				.setPartitionFilters(true) // 打开分片过滤器
+				.setMetadataBlockSize(4096) // 索引分片的块大小
+				.setPinL0FilterAndIndexBlocksInCache(true)
+				.setPinTopLevelIndexAndFilter(true)
+				.setDataBlockIndexType(DataBlockIndexType.kDataBlockBinaryAndHash)
+				.setDataBlockHashTableUtilRatio(0.75)
+				.setBlockSize(getLong(family + "." + BLOCK_SIZE, defaultBlockSize(family)));
+		int bloomBits = (int) getLong(family + "." + BLOOM_BITS, defaultBloomBits(family));
+		if (bloomBits > 0) {
+			BloomFilter filter = new BloomFilter(bloomBits, false);
+			resources.add(filter);
+			tableOptions.setFilterPolicy(filter);
+		} else {
+			tableOptions.setFilterPolicy(null); // 不设置布隆过滤器
+		}
+
+		ColumnFamilyOptions options = new ColumnFamilyOptions()
+				.setCompressionType(
+						getCompression(family + "." + COMPRESSION, defaultCompression(family)))
+				.setCompactionStyle(getCompaction(family + "." + COMPACTION, CompactionStyle.LEVEL))
+				.setWriteBufferSize(getLong(family + "." + WRITE_BUFFER_SIZE, defaultWriteBufferSize(family)))
+				.setTableFormatConfig(tableOptions);
+		if (!columnFamilyLayout) {
+			// 单列族布局沿用原有的参数，不支持并发写内存表；
+			options.setMemTableConfig(new HashLinkedListMemTableConfig());
+		} else {
+			options.setMemTableConfig(new SkipListMemTableConfig());
+			options.setLevelCompactionDynamicLevelBytes(true);
+		}
+		if (VERSION_FAMILY.equals(family)) {
+			// 版本号频繁覆盖写，读取只关心最新值；
+			options.setMaxWriteBufferNumber(4);
+		}
+		resources.add(options);
+		return options;
+	}
+
+	/**
+	 * 释放配置创建的全部本地资源；
+	 */
+	public void close() {
+		for (int i = resources.size() - 1; i >= 0; i--) {
+			try {
+				resources.get(i).close();
+			} catch (Exception e) {
+				// 忽略释放资源时的异常；
+			}
+		}
+		resources.clear();
+	}
+
+	private static long defaultBlockSize(String family) {
+		switch (family) {
+		case MERKLE_FAMILY:
+			return 16 * SizeUnit.KB;
+		case DATA_FAMILY:
+			return 8 * SizeUnit.KB;
+		default:
+			return 4 * SizeUnit.KB;
+		}
+	}
+
+	private static long defaultBloomBits(String family) {
+		return DEFAULT_FAMILY.equals(family) ? 0 : 10;
+	}
+
+	private static CompressionType defaultCompression(String family) {
+		// 版本号只有 8 字节，压缩没有收益；
+		return VERSION_FAMILY.equals(family) ? CompressionType.NO_COMPRESSION : CompressionType.LZ4_COMPRESSION;
+	}
+
+	private static long defaultWriteBufferSize(String family) {
+		return VERSION_FAMILY.equals(family) ? 32 * SizeUnit.MB : 64 * SizeUnit.MB;
+	}
+
+	private long getLong(String key, long defaultValue) {
+		String value = params.get(key);
+		if (value == null || value.trim().isEmpty()) {
+			return defaultValue;
+		}
+		try {
+			return Long.parseLong(value.trim());
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Illegal rocksdb option[" + key + "=" + value + "]!", e);
+		}
+	}
+
+	private CompressionType getCompression(String key, CompressionType defaultValue) {
+		String value = params.get(key);
+		if (value == null) {
+			return defaultValue;
+		}
+		switch (value.trim().toLowerCase()) {
+		case "none":
+			return CompressionType.NO_COMPRESSION;
+		case "snappy":
+			return CompressionType.SNAPPY_COMPRESSION;
+		case "lz4":
+			return CompressionType.LZ4_COMPRESSION;
+		case "lz4hc":
+			return CompressionType.LZ4HC_COMPRESSION;
+		case "zstd":
+			return CompressionType.ZSTD_COMPRESSION;
+		default:
+			throw new IllegalArgumentException("Illegal rocksdb option[" + key + "=" + value + "]!");
+		}
+	}
+
+	private CompactionStyle getCompaction(String key, CompactionStyle defaultValue) {
+		String value = params.get(key);
+		if (value == null) {
+			return defaultValue;
+		}
+		switch (value.trim().toLowerCase()) {
+		case "level":
+			return CompactionStyle.LEVEL;
+		case "universal":
+			return CompactionStyle.UNIVERSAL;
+		case "fifo":
+			return CompactionStyle.FIFO;
+		default:
+			throw new IllegalArgumentException("Illegal rocksdb option[" + key + "=" + value + "]!");
+		}
+	}
+
+	private static Map<String, String> parseQuery(String query) {
+		Map<String, String> params = new HashMap<>();
+		if (query == null || query.isEmpty()) {
+			return params;
+		}
+		for (String pair : query.split("&")) {
+			int idx = pair.indexOf('=');
+			if (idx > 0) {
+				params.put(pair.substring(0, idx).trim(), pair.substring(idx + 1).trim());
+			} else if (pair.trim().length() > 0) {
+				params.put(pair.trim(), "true");
+			}
+		}
+		return params;
+	}
+}
@@ -1,8 +1,15 @@
 package com.jd.blockchain.storage.service.impl.rocksdb;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import com.jd.blockchain.storage.service.CacheConfig;
+import org.rocksdb.ColumnFamilyDescriptor;
+import org.rocksdb.ColumnFamilyHandle;
 import org.rocksdb.Options;
 import org.rocksdb.RocksDB;
 import org.rocksdb.RocksDBException;
@@ -14,23 +21,65 @@ import utils.io.FileUtils;
 
 public class RocksDBConnection implements DbConnection {
 
-	private Options options;
+	private RocksDBConfig config;
 
 	private RocksDB db;
 
+	private List<ColumnFamilyHandle> handles;
+
 	private RocksDBStorageService storage;
 
-	public RocksDBConnection(String dbPath, Options options, CacheConfig cacheConfig) {
+	public RocksDBConnection(String dbPath, RocksDBConfig config, CacheConfig cacheConfig) {
+		this.config = config;
+		Map<String, ColumnFamilyHandle> families = new HashMap<>();
 		try {
 			String parentDir = FileUtils.getParent(dbPath);
 			if (!FileUtils.existDirectory(parentDir)) {
 				FileUtils.makeDirectory(parentDir);
 			}
-			this.db = RocksDB.open(options, dbPath);
+			// 已存在的数据库沿用创建时的布局；
+			List<String> existingFamilies = listColumnFamilies(dbPath);
+			boolean columnFamilyLayout = existingFamilies.isEmpty() ? config.isColumnFamilyEnabled()
+					: existingFamilies.contains(RocksDBConfig.MERKLE_FAMILY);
+
+			List<String> familyNames = new ArrayList<>();
+			familyNames.add(RocksDBConfig.DEFAULT_FAMILY);
+			if (columnFamilyLayout) {
+				for (String family : RocksDBConfig.getLayoutFamilies()) {
+					familyNames.add(family);
+				}
+			}
+			for (String family : existingFamilies) {
+				if (!familyNames.contains(family)) {
+					familyNames.add(family);
+				}
+			}
+			List<ColumnFamilyDescriptor> descriptors = new ArrayList<>();
+			for (String family : familyNames) {
+				descriptors.add(config.createDescriptor(family, columnFamilyLayout));
+			}
+			this.handles = new ArrayList<>();
+			this.db = RocksDB.open(config.createDBOptions(columnFamilyLayout), dbPath, descriptors, handles);
+			for (int i = 0; i < familyNames.size(); i++) {
+				families.put(familyNames.get(i), handles.get(i));
+			}
 		} catch (RocksDBException e) {
 			throw new IllegalStateException(e.getMessage(), e);
 		}
-		this.storage = new RocksDBStorageService(db, cacheConfig);
+		this.storage = new RocksDBStorageService(db, families, cacheConfig);
+	}
+
+	private static List<String> listColumnFamilies(String dbPath) throws RocksDBException {
+		List<String> families = new ArrayList<>();
+		if (!FileUtils.existDirectory(dbPath)) {
+			return families;
+		}
+		try (Options options = new Options()) {
+			for (byte[] family : RocksDB.listColumnFamilies(options, dbPath)) {
+				families.add(new String(family, StandardCharsets.UTF_8));
+			}
+		}
+		return families;
 	}
 
 	@Override
@@ -46,17 +95,27 @@ public class RocksDBConnection implements DbConnection {
 	}
 
 	public void dbClose() {
-		Options options = this.options;
-		this.options = null;
+		// 关闭之前停止后台清理，并等待尚未落盘的写入组；
+		storage.stopPruning();
+		storage.awaitDurable();
+		RocksDBConfig config = this.config;
+		this.config = null;
+		List<ColumnFamilyHandle> handles = this.handles;
+		this.handles = null;
 		RocksDB db = this.db;
 		this.db = null;
 
-		if (options != null) {
-			options.close();
+		if (handles != null) {
+			for (ColumnFamilyHandle handle : handles) {
+				handle.close();
+			}
 		}
 		if (db != null) {
 			db.close();
 		}
+		if (config != null) {
+			config.close();
+		}
 	}
 
 }
@@ -12,11 +12,10 @@ import java.util.regex.Pattern;
 import javax.annotation.PreDestroy;
 
 import com.jd.blockchain.storage.service.CacheConfig;
-import org.rocksdb.*;
+import org.rocksdb.RocksDB;
 
 import com.jd.blockchain.storage.service.DbConnection;
 import com.jd.blockchain.storage.service.DbConnectionFactory;
-import org.rocksdb.util.SizeUnit;
 
 public class RocksDBConnectionFactory implements DbConnectionFactory {
 
@@ -57,9 +56,7 @@ public class RocksDBConnectionFactory implements DbConnectionFactory {
 			return conn;
 		}
 
-		Options options = initOptions();
-
-		conn = new RocksDBConnection(dbPath, options, cacheConfig);
+		conn = new RocksDBConnection(dbPath, new RocksDBConfig(dbUri), cacheConfig);
 		connections.put(dbPath, conn);
 
 		return conn;
@@ -86,28 +83,4 @@ public class RocksDBConnectionFactory implements DbConnectionFactory {
 		}
 	}
 
-	private Options initOptions() {
-		Cache cache = new LRUCache(1024 * SizeUnit.MB, 64, false);
-		final BlockBasedTableConfig tableOptions = new BlockBasedTableConfig()
-				.setBlockCache(cache)
-				.setCacheIndexAndFilterBlocks(true)
-				.setCacheIndexAndFilterBlocksWithHighPriority(true)
-				.setIndexType(IndexType.kTwoLevelIndexSearch) // 打开分片索引
-				.setPartitionFilters(true) // 打开分片过滤器
-				.setMetadataBlockSize(4096) // 索引分片的块大小
-				.setPinL0FilterAndIndexBlocksInCache(true)
-				.setPinTopLevelIndexAndFilter(true)
-				.setFilterPolicy(null) // 不设置布隆过滤器
-				.setDataBlockIndexType(DataBlockIndexType.kDataBlockBinaryAndHash)
-				.setDataBlockHashTableUtilRatio(0.75);
-		Options options = new Options()
-				.setMaxOpenFiles(1000) // 控制最大打开文件数量，防止内存持续增加
-				.setMemTableConfig(new HashLinkedListMemTableConfig())
-				.setCompressionType(CompressionType.LZ4_COMPRESSION)
-				.setAllowConcurrentMemtableWrite(false)
-				.setCreateIfMissing(true)
-				.setTableFormatConfig(tableOptions);
-		return options;
-	}
-
 }
@@ -1,58 +1,94 @@
 package com.jd.blockchain.storage.service.impl.rocksdb;
 
-import com.google.common.cache.Cache;
 import com.google.common.hash.BloomFilter;
 import com.jd.blockchain.storage.service.ExPolicy;
 import com.jd.blockchain.storage.service.ExPolicyKVStorage;
 import org.rocksdb.*;
 import utils.Bytes;
+import utils.io.BytesUtils;
 
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class RocksDBExPolicyStorage implements ExPolicyKVStorage {
 
-    private static final Bytes KEY_PREFIX = Bytes.fromString("D");
-    private final WriteOptions writeOptions = new WriteOptions();
+    private static final byte KEY_PREFIX = 'D';
+    private WriteOptions writeOptions = new WriteOptions();
     private final ReadOptions readOptions = new ReadOptions().setFillCache(true).setVerifyChecksums(false);
     private final RocksDB db;
+    private final ColumnFamilyHandle family;
     private final BloomFilter<byte[]> bloomFilter;
-    private final Cache<Bytes, byte[]> cache;
-    private Map<Bytes, byte[]> batchKVs;
-    private WriteBatch writeBatch;
+    private final RocksDBStorageCache cache;
+    private volatile int cacheId;
+    /**
+     * 各写入线程的批次；存储由共享同一数据库的多个账本并发写入，每个写入方使用自己的批次；
+     */
+    private final ThreadLocal<Batch> batches = new ThreadLocal<>();
+    private final AtomicInteger activeBatches = new AtomicInteger();
+    private RocksDBGroupCommit groupCommit;
 
-    public RocksDBExPolicyStorage(RocksDB db, BloomFilter<byte[]> bloomFilter, Cache<Bytes, byte[]> cache) {
+    public RocksDBExPolicyStorage(RocksDB db, BloomFilter<byte[]> bloomFilter, RocksDBStorageCache cache) {
+        this(db, db.getDefaultColumnFamily(), bloomFilter, cache);
+    }
+
+    /**
+     * @param db
+     * @param family      存储数据的列族；
+     * @param bloomFilter
+     * @param cache
+     */
+    public RocksDBExPolicyStorage(RocksDB db, ColumnFamilyHandle family, BloomFilter<byte[]> bloomFilter,
+                                  RocksDBStorageCache cache) {
         this.db = db;
+        this.family = family;
         this.bloomFilter = bloomFilter;
         this.cache = cache;
-        if (null != bloomFilter || null != cache) {
-            batchKVs = new HashMap<>();
-        }
+        this.cacheId = null != cache ? cache.register() : 0;
+    }
+
+    protected static byte[] encodeDataKey(Bytes dataKey, long version) {
+        int size = dataKey.size();
+        byte[] bytes = new byte[1 + size + 8];
+        bytes[0] = KEY_PREFIX;
+        dataKey.copyTo(bytes, 1, size);
+        BytesUtils.toBytes(version, bytes, 1 + size);
+        return bytes;
+    }
+
+    void setWriteOptions(WriteOptions writeOptions) {
+        this.writeOptions = writeOptions;
     }
 
-    protected static Bytes encodeDataKey(Bytes dataKey, long version) {
-        return KEY_PREFIX.concat(dataKey).concat(Bytes.fromLong(version));
+    /**
+     * 启用写入组提交；
+     */
+    void setGroupCommit(RocksDBGroupCommit groupCommit) {
+        this.groupCommit = groupCommit;
+        groupCommit.addDurableListener(this::onGroupDurable);
     }
 
     @Override
     public byte[] get(Bytes key) {
         try {
-            Bytes kb = encodeDataKey(key, 0);
-            byte[] kbs = kb.toBytes();
             byte[] bytes = null;
-            if (null != cache) {
-                bytes = cache.getIfPresent(kb);
+            if (null != groupCommit) {
+                bytes = groupCommit.getExPolicyData(key);
+            }
+            if (null == bytes && null != cache) {
+                bytes = cache.getExPolicyData(cacheId, key);
             }
             if (null != bytes) {
                 return bytes;
             }
+            byte[] kbs = encodeDataKey(key, 0);
             if (null != bloomFilter && !bloomFilter.mightContain(kbs)) {
                 return null;
             }
-            bytes = db.get(readOptions, kbs);
+            bytes = db.get(family, readOptions, kbs);
             if (null != bytes && null != cache) {
-                cache.put(kb, bytes);
+                cache.putExPolicyData(cacheId, key, bytes);
             }
             return bytes;
         } catch (RocksDBException e) {
@@ -63,21 +99,23 @@ public class RocksDBExPolicyStorage implements ExPolicyKVStorage {
     @Override
     public boolean exist(Bytes key) {
         try {
-            Bytes kb = encodeDataKey(key, 0);
             byte[] bytes = null;
-            if (null != cache) {
-                bytes = cache.getIfPresent(kb);
+            if (null != groupCommit) {
+                bytes = groupCommit.getExPolicyData(key);
+            }
+            if (null == bytes && null != cache) {
+                bytes = cache.getExPolicyData(cacheId, key);
             }
             if (null != bytes) {
                 return true;
             }
-            byte[] kbs = kb.toBytes();
+            byte[] kbs = encodeDataKey(key, 0);
             if (null != bloomFilter && !bloomFilter.mightContain(kbs)) {
                 return false;
             }
-            bytes = db.get(readOptions, kbs);
+            bytes = db.get(family, readOptions, kbs);
             if (null != bytes && null != cache) {
-                cache.put(kb, bytes);
+                cache.putExPolicyData(cacheId, key, bytes);
             }
             return null != bytes;
         } catch (RocksDBException e) {
@@ -110,58 +148,106 @@ public class RocksDBExPolicyStorage implements ExPolicyKVStorage {
     }
 
     private void set(Bytes key, byte[] value) throws RocksDBException {
-        Bytes kb = encodeDataKey(key, 0);
-        byte[] kbs = kb.toBytes();
-        if (null != writeBatch) {
-            writeBatch.put(kbs, value);
-            if (null != batchKVs) {
-                batchKVs.put(kb, value);
+        byte[] kbs = encodeDataKey(key, 0);
+        RocksDBGroupCommit.Group group = null != groupCommit ? groupCommit.getOwnedGroup() : null;
+        Batch batch = batches.get();
+        if (null != group) {
+            group.put(family, kbs, value);
+            group.exData.put(key, value);
+        } else if (null != batch) {
+            batch.writeBatch.put(family, kbs, value);
+            if (null != batch.kvs) {
+                batch.kvs.put(key, value);
             }
         } else {
-            db.put(kbs, value);
+            db.put(family, kbs, value);
             if (null != bloomFilter) {
                 bloomFilter.put(kbs);
             }
             if (null != cache) {
-                cache.put(kb, value);
+                cache.putExPolicyData(cacheId, key, value);
+            }
+        }
+    }
+
+    /**
+     * 使当前存储的全部缓存失效；用于在存储之外修改了数据库之后；
+     */
+    void resetCache() {
+        if (null != cache) {
+            cacheId = cache.register();
+        }
+    }
+
+    /**
+     * 写入组落盘之后更新布隆过滤器和读缓存；
+     */
+    private void onGroupDurable(RocksDBGroupCommit.Group group) {
+        for (Map.Entry<Bytes, byte[]> entry : group.exData.entrySet()) {
+            if (null != bloomFilter) {
+                bloomFilter.put(encodeDataKey(entry.getKey(), 0));
+            }
+            if (null != cache) {
+                cache.putExPolicyData(cacheId, entry.getKey(), entry.getValue());
             }
         }
     }
 
     @Override
     public void batchBegin() {
-        writeBatch = new WriteBatch();
-        if (null != batchKVs) {
-            batchKVs.clear();
+        // 丢弃当前线程未提交的批次；
+        closeBatch();
+        if (null != groupCommit && null != groupCommit.getOwnedGroup()) {
+            // 写入合并到当前线程打开的写入组中；
+            return;
         }
+        batches.set(new Batch());
+        activeBatches.incrementAndGet();
     }
 
     @Override
     public void batchCommit() {
+        Batch batch = batches.get();
+        if (null == batch) {
+            return;
+        }
         try {
-            if (null == writeBatch) {
-                return;
-            }
-            db.write(writeOptions, writeBatch);
-            if (null != batchKVs && batchKVs.size() > 0) {
-                Iterator<Map.Entry<Bytes, byte[]>> iterator = batchKVs.entrySet().iterator();
+            db.write(writeOptions, batch.writeBatch);
+            if (null != batch.kvs && batch.kvs.size() > 0) {
+                Iterator<Map.Entry<Bytes, byte[]>> iterator = batch.kvs.entrySet().iterator();
                 while (iterator.hasNext()) {
                     Map.Entry<Bytes, byte[]> entry = iterator.next();
                     if (null != bloomFilter) {
-                        bloomFilter.put(entry.getKey().toBytes());
+                        bloomFilter.put(encodeDataKey(entry.getKey(), 0));
                     }
                     if (null != cache) {
-                        cache.put(entry.getKey(), entry.getValue());
+                        cache.putExPolicyData(cacheId, entry.getKey(), entry.getValue());
                     }
                 }
             }
         } catch (Exception e) {
             throw new IllegalStateException("rocksdb batch commit error", e);
         } finally {
-            writeBatch = null;
-            if (null != batchKVs) {
-                batchKVs.clear();
-            }
+            closeBatch();
         }
     }
+
+    private void closeBatch() {
+        Batch batch = batches.get();
+        if (null != batch) {
+            batches.remove();
+            activeBatches.decrementAndGet();
+            batch.writeBatch.close();
+        }
+    }
+
+    /**
+     * 一个写入线程的批次；
+     */
+    private class Batch {
+
+        private final WriteBatch writeBatch = new WriteBatch();
+
+        private final Map<Bytes, byte[]> kvs = null != bloomFilter || null != cache ? new HashMap<>() : null;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,251 @@
+package com.jd.blockchain.storage.service.impl.rocksdb;
+
+import org.rocksdb.ColumnFamilyHandle;
+import org.rocksdb.RocksDB;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.WriteBatch;
+import org.rocksdb.WriteOptions;
+import utils.Bytes;
+import utils.concurrent.NamedThreadFactory;
+
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * 写入组的提交；
+ * <p>
+ * 在 {@link #begin()} 和 {@link #commit()} 之间，两个存储的全部写入合并到同一个 {@link WriteBatch} 中，
+ * 由单独的持久化线程按提交顺序原子地写入数据库；<br>
+ * 写入完成之前，组内的数据保留在内存中，读取时优先于缓存和数据库，因此后续区块可以在前一区块落盘之前继续执行；
+ * <p>
+ * 同一时刻只有一个打开的写入组；存储服务由同一路径下的多个账本共享，其它线程开始写入组时等待当前的写入组提交或丢弃，
+ * 使各账本的区块写入不会混入同一个写入组；<br>
+ * 写入组属于打开它的线程，只有该线程的写入进入写入组；其它线程的写入（账本初始化、区块同步、副本重放等）使用各自的批次直接写入数据库；
+ * 因此写入组要求区块在同一个线程中写入，不能与并行写库（parallel-dbwrite）同时启用；<br>
+ * 写入失败之后不再接受新的写入组，未落盘的数据仍保留在内存中，节点需要重启并从已持久化的状态恢复；
+ */
+class RocksDBGroupCommit {
+
+    private final RocksDB db;
+
+    private final WriteOptions writeOptions;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+            new NamedThreadFactory("rocksdb-group-commit", true));
+
+    /**
+     * 已提交但尚未落盘的写入组，按提交顺序排列；
+     */
+    private final Deque<Group> inflightGroups = new ConcurrentLinkedDeque<>();
+
+    private final List<Consumer<Group>> durableListeners = new CopyOnWriteArrayList<>();
+
+    private volatile Group openGroup;
+
+    /**
+     * 打开写入组的线程持有，直到写入组提交或丢弃；
+     */
+    private final ReentrantLock groupLock = new ReentrantLock();
+
+    private volatile CompletableFuture<Void> lastDurable = CompletableFuture.completedFuture(null);
+
+    private volatile Throwable failure;
+
+    RocksDBGroupCommit(RocksDB db, WriteOptions writeOptions) {
+        this.db = db;
+        this.writeOptions = writeOptions;
+    }
+
+    /**
+     * 注册写入组落盘之后的回调，用于更新布隆过滤器和读缓存；回调在持久化线程中执行；
+     *
+     * @param listener
+     */
+    void addDurableListener(Consumer<Group> listener) {
+        durableListeners.add(listener);
+    }
+
+    /**
+     * 当前打开的写入组，无论由哪个线程打开；
+     */
+    Group getOpenGroup() {
+        return openGroup;
+    }
+
+    /**
+     * 当前线程打开的写入组；当前线程没有打开写入组时返回 null ；
+     */
+    Group getOwnedGroup() {
+        return groupLock.isHeldByCurrentThread() ? openGroup : null;
+    }
+
+    void begin() {
+        checkFailure();
+        if (groupLock.isHeldByCurrentThread()) {
+            throw new IllegalStateException("A write group is already open!");
+        }
+        groupLock.lock();
+        try {
+            checkFailure();
+        } catch (RuntimeException e) {
+            groupLock.unlock();
+            throw e;
+        }
+        openGroup = new Group();
+    }
+
+    /**
+     * 丢弃当前打开的写入组；
+     */
+    void abort() {
+        if (!groupLock.isHeldByCurrentThread()) {
+            return;
+        }
+        Group group = openGroup;
+        openGroup = null;
+        groupLock.unlock();
+        if (null != group) {
+            group.batch.close();
+        }
+    }
+
+    /**
+     * 提交当前打开的写入组；
+     *
+     * @return 写入组落盘之后完成；
+     */
+    CompletableFuture<Void> commit() {
+        Group group = openGroup;
+        if (null == group || !groupLock.isHeldByCurrentThread()) {
+            throw new IllegalStateException("No write group is open in current thread!");
+        }
+        try {
+            inflightGroups.addLast(group);
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            lastDurable = future;
+            executor.execute(() -> write(group, future));
+            return future;
+        } finally {
+            openGroup = null;
+            groupLock.unlock();
+        }
+    }
+
+    /**
+     * 等待已提交的全部写入组落盘；
+     */
+    void awaitDurable() {
+        try {
+            lastDurable.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for rocksdb group commit!", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("rocksdb group commit error! --" + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    Long getVersion(Bytes key) {
+        Iterator<Group> iterator = inflightGroups.descendingIterator();
+        while (iterator.hasNext()) {
+            Long version = iterator.next().versions.get(key);
+            if (null != version) {
+                return version;
+            }
+        }
+        return null;
+    }
+
+    byte[] getData(Bytes dataKey) {
+        Iterator<Group> iterator = inflightGroups.descendingIterator();
+        while (iterator.hasNext()) {
+            byte[] value = iterator.next().data.get(dataKey);
+            if (null != value) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    byte[] getExPolicyData(Bytes key) {
+        Iterator<Group> iterator = inflightGroups.descendingIterator();
+        while (iterator.hasNext()) {
+            byte[] value = iterator.next().exData.get(key);
+            if (null != value) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    private void checkFailure() {
+        if (null != failure) {
+            throw new IllegalStateException("rocksdb group commit has failed! --" + failure.getMessage(), failure);
+        }
+    }
+
+    private void write(Group group, CompletableFuture<Void> future) {
+        if (null != failure) {
+            future.completeExceptionally(failure);
+            return;
+        }
+        try {
+            db.write(writeOptions, group.batch);
+        } catch (RocksDBException e) {
+            failure = e;
+            future.completeExceptionally(e);
+            return;
+        }
+        try {
+            for (Consumer<Group> listener : durableListeners) {
+                listener.accept(group);
+            }
+        } finally {
+            // 先更新缓存再移出内存，读取方总能看到最新的数据；
+            inflightGroups.remove(group);
+            group.batch.close();
+        }
+        future.complete(null);
+    }
+
+    /**
+     * 一个写入组，通常对应一个区块；
+     */
+    static final class Group {
+
+        private final WriteBatch batch = new WriteBatch();
+
+        /**
+         * 多版本存储中各个键在组内的最新版本；
+         */
+        final Map<Bytes, Long> versions = new ConcurrentHashMap<>();
+
+        /**
+         * 多版本存储的数据，以编码后的数据键为键；
+         */
+        final Map<Bytes, byte[]> data = new ConcurrentHashMap<>();
+
+        /**
+         * 存在性策略存储的数据；
+         */
+        final Map<Bytes, byte[]> exData = new ConcurrentHashMap<>();
+
+        /**
+         * 两个存储可能在不同线程中并行写入；
+         */
+        synchronized void put(ColumnFamilyHandle family, byte[] key, byte[] value) throws RocksDBException {
+            batch.put(family, key, value);
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.jd.blockchain.storage.service.impl.rocksdb;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.Weigher;
+
+import utils.Bytes;
+
+/**
+ * RocksDB 存储的读缓存；
+ * <p>
+ * 一个节点内全部账本数据库共享同一个按字节数计量的内存预算，通过系统属性配置：<br>
+ * 1. rocksdb.cache.size ：缓存的内存预算，单位 MB ，默认 256 ；<br>
+ * 2. rocksdb.cache.version-ratio ：版本号缓存占用预算的百分比，默认 10 ；<br>
+ * 3. rocksdb.cache.max-value-size ：允许缓存的单个数据的最大字节数，默认 1 MB ；超出的数据不进入缓存，避免大数据冲掉热点数据；
+ * <p>
+ * 版本号和数据分别缓存，以免大量的数据淘汰掉体积很小但访问频繁的版本号；
+ * 缓存的键由数据库序号、原始键和版本组成，命中时不需要拼接前缀和复制键的字节；
+ */
+public class RocksDBStorageCache {
+
+	public static final String CACHE_SIZE = "rocksdb.cache.size";
+
+	public static final String VERSION_RATIO = "rocksdb.cache.version-ratio";
+
+	public static final String MAX_VALUE_SIZE = "rocksdb.cache.max-value-size";
+
+	/**
+	 * 每个缓存项除键值之外的估算开销；
+	 */
+	private static final int ENTRY_OVERHEAD = 64;
+
+	private static final byte VERSION_KEY = 0;
+
+	private static final byte DATA_KEY = 1;
+
+	private static final byte EXPOLICY_KEY = 2;
+
+	private static volatile RocksDBStorageCache shared;
+
+	private final AtomicInteger dbSequence = new AtomicInteger();
+
+	private final Cache<CacheKey, Long> versions;
+
+	private final Cache<CacheKey, byte[]> values;
+
+	private final int maxValueSize;
+
+	private final long budget;
+
+	public RocksDBStorageCache(long budget, int versionRatio, int maxValueSize) {
+		if (budget <= 0) {
+			throw new IllegalArgumentException("Cache budget must be positive!");
+		}
+		if (versionRatio <= 0 || versionRatio >= 100) {
+			throw new IllegalArgumentException("Version cache ratio must be in (0, 100)!");
+		}
+		this.budget = budget;
+		this.maxValueSize = maxValueSize;
+		long versionBudget = budget * versionRatio / 100;
+		this.versions = CacheBuilder.newBuilder()
+				.maximumWeight(versionBudget)
+				.weigher((Weigher<CacheKey, Long>) (key, value) -> key.weight() + 8)
+				.recordStats()
+				.build();
+		this.values = CacheBuilder.newBuilder()
+				.maximumWeight(budget - versionBudget)
+				.weigher((Weigher<CacheKey, byte[]>) (key, value) -> key.weight() + value.length)
+				.recordStats()
+				.build();
+	}
+
+	/**
+	 * 节点内共享的缓存实例；
+	 *
+	 * @return
+	 */
+	public static RocksDBStorageCache getShared() {
+		if (shared == null) {
+			synchronized (RocksDBStorageCache.class) {
+				if (shared == null) {
+					shared = new RocksDBStorageCache(Long.getLong(CACHE_SIZE, 256) * 1024 * 1024,
+							Integer.getInteger(VERSION_RATIO, 10), Integer.getInteger(MAX_VALUE_SIZE, 1024 * 1024));
+				}
+			}
+		}
+		return shared;
+	}
+
+	/**
+	 * 为一个数据库分配缓存序号；
+	 *
+	 * @return
+	 */
+	public int register() {
+		return dbSequence.incrementAndGet();
+	}
+
+	/**
+	 * 缓存的内存预算，单位字节；
+	 */
+	public long getBudget() {
+		return budget;
+	}
+
+	/**
+	 * 版本号缓存；用于导出指标；
+	 */
+	public Cache<?, ?> getVersionCache() {
+		return versions;
+	}
+
+	/**
+	 * 数据缓存；用于导出指标；
+	 */
+	public Cache<?, ?> getValueCache() {
+		return values;
+	}
+
+	public CacheStats getVersionStats() {
+		return versions.stats();
+	}
+
+	public CacheStats getValueStats() {
+		return values.stats();
+	}
+
+	Long getVersion(int db, Bytes key) {
+		return versions.getIfPresent(new CacheKey(db, VERSION_KEY, key, -1));
+	}
+
+	void putVersion(int db, Bytes key, long version) {
+		versions.put(new CacheKey(db, VERSION_KEY, key, -1), version);
+	}
+
+	byte[] getData(int db, Bytes key, long version) {
+		return values.getIfPresent(new CacheKey(db, DATA_KEY, key, version));
+	}
+
+	void putData(int db, Bytes key, long version, byte[] value) {
+		put(new CacheKey(db, DATA_KEY, key, version), value);
+	}
+
+	void invalidateData(int db, Bytes key, long version) {
+		values.invalidate(new CacheKey(db, DATA_KEY, key, version));
+	}
+
+	byte[] getExPolicyData(int db, Bytes key) {
+		return values.getIfPresent(new CacheKey(db, EXPOLICY_KEY, key, 0));
+	}
+
+	void putExPolicyData(int db, Bytes key, byte[] value) {
+		put(new CacheKey(db, EXPOLICY_KEY, key, 0), value);
+	}
+
+	private void put(CacheKey key, byte[] value) {
+		if (value != null && value.length <= maxValueSize) {
+			values.put(key, value);
+		} else {
+			// 不缓存的数据覆盖写时需要移除旧值；
+			values.invalidate(key);
+		}
+	}
+
+	/**
+	 * 缓存的键；直接引用原始键，不拼接前缀；
+	 */
+	private static final class CacheKey {
+
+		private final int db;
+
+		private final byte type;
+
+		private final Bytes key;
+
+		private final long version;
+
+		private final int hashCode;
+
+		CacheKey(int db, byte type, Bytes key, long version) {
+			this.db = db;
+			this.type = type;
+			this.key = key;
+			this.version = version;
+			int h = 31 * db + type;
+			h = 31 * h + key.hashCode();
+			this.hashCode = 31 * h + Long.hashCode(version);
+		}
+
+		int weight() {
+			return key.size() + ENTRY_OVERHEAD;
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof CacheKey)) {
+				return false;
+			}
+			CacheKey other = (CacheKey) obj;
+			return hashCode == other.hashCode && db == other.db && type == other.type && version == other.version
+					&& key.equals(other.key);
+		}
+	}
+}
@@ -1,47 +1,138 @@
 package com.jd.blockchain.storage.service.impl.rocksdb;
 
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
 import com.google.common.hash.BloomFilter;
 import com.google.common.hash.Funnels;
 import com.jd.blockchain.storage.service.CacheConfig;
 import com.jd.blockchain.storage.service.ExPolicyKVStorage;
 import com.jd.blockchain.storage.service.KVStorageService;
 import com.jd.blockchain.storage.service.VersioningKVStorage;
+import org.rocksdb.ColumnFamilyHandle;
+import org.rocksdb.EnvOptions;
+import org.rocksdb.IngestExternalFileOptions;
+import org.rocksdb.Options;
+import org.rocksdb.ReadOptions;
 import org.rocksdb.RocksDB;
+import org.rocksdb.RocksDBException;
 import org.rocksdb.RocksIterator;
+import org.rocksdb.Snapshot;
+import org.rocksdb.SstFileWriter;
+import org.rocksdb.WriteOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import utils.Bytes;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
 public class RocksDBStorageService implements KVStorageService {
 
-    private ExPolicyKVStorage exStorage;
+    private static final Logger LOGGER = LoggerFactory.getLogger(RocksDBStorageService.class);
+
+    /**
+     * 是否启用写入组提交，参见 {@link #beginGroup()}；<br>
+     * 写入组只接收打开它的线程的写入，与并行写库（parallel-dbwrite）不兼容，两者同时配置时不启用写入组；
+     */
+    public static final String GROUP_COMMIT = "rocksdb.group-commit";
+
+    private static final String PARALLEL_DB_WRITE = "parallel-dbwrite";
+
+    /**
+     * 写入时是否同步刷新 WAL 到磁盘；默认不同步，进程崩溃不会丢失数据，但主机掉电可能丢失最近的写入；
+     */
+    public static final String WRITE_SYNC = "rocksdb.write.sync";
+
+    /**
+     * 写入时是否跳过 WAL ；跳过后进程崩溃会丢失尚未刷入 SST 文件的写入，只适用于可以从其它节点重新同步的场景；
+     */
+    public static final String WRITE_DISABLE_WAL = "rocksdb.write.disable-wal";
+
+    /**
+     * 检查点中记录源数据库全部列族名称的文件；
+     */
+    private static final String FAMILIES_FILE = "FAMILIES";
+
+    private static final String SST_SUFFIX = ".sst";
+
+    private final RocksDB db;
+
+    private final Map<String, ColumnFamilyHandle> families;
 
-    private VersioningKVStorage verStorage;
+    private final BloomFilter<byte[]> bloomFilter;
+
+    private RocksDBExPolicyStorage exStorage;
+
+    private RocksDBVersioningStorage verStorage;
+
+    private RocksDBGroupCommit groupCommit;
+
+    private RocksDBVersionPruner pruner;
 
     public RocksDBStorageService(RocksDB db, CacheConfig cacheConfig) {
+        this(db, Collections.singletonMap(RocksDBConfig.DEFAULT_FAMILY, db.getDefaultColumnFamily()), cacheConfig);
+    }
+
+    /**
+     * @param db
+     * @param families    数据库已打开的全部列族；包含 merkle 列族时采用列族布局，否则全部数据存储在 default 列族；
+     * @param cacheConfig
+     */
+    public RocksDBStorageService(RocksDB db, Map<String, ColumnFamilyHandle> families, CacheConfig cacheConfig) {
+        this.db = db;
+        this.families = families;
         BloomFilter<byte[]> bloomFilter = null;
         if (cacheConfig.getBloomConfig().isEnable()) {
             bloomFilter = BloomFilter.create(
                     Funnels.byteArrayFunnel(),
                     cacheConfig.getBloomConfig().getExpectedInsertions(),
                     cacheConfig.getBloomConfig().getFpp());
-            try (RocksIterator iterator = db.newIterator()) {
-                for (iterator.seekToFirst(); iterator.isValid(); iterator.next()) {
-                    bloomFilter.put(iterator.key());
+            try {
+                for (ColumnFamilyHandle family : families.values()) {
+                    try (RocksIterator iterator = db.newIterator(family)) {
+                        for (iterator.seekToFirst(); iterator.isValid(); iterator.next()) {
+                            bloomFilter.put(iterator.key());
+                        }
+                    }
                 }
             } catch (Exception e) {
                 bloomFilter = null;
             }
         }
-        Cache<Bytes, byte[]> lruCache = null;
+        // 启用缓存时使用节点内共享的按字节数计量的缓存，不再按条目数限制；
+        RocksDBStorageCache lruCache = null;
         if (cacheConfig.getLruCacheConfig().isEnable()) {
-            lruCache = CacheBuilder.newBuilder()
-                    .initialCapacity(cacheConfig.getLruCacheConfig().getInitialCapacity())
-                    .maximumSize(cacheConfig.getLruCacheConfig().getMaximumSize())
-                    .build();
+            lruCache = RocksDBStorageCache.getShared();
+        }
+        ColumnFamilyHandle defaultFamily = families.get(RocksDBConfig.DEFAULT_FAMILY);
+        ColumnFamilyHandle merkleFamily = families.getOrDefault(RocksDBConfig.MERKLE_FAMILY, defaultFamily);
+        ColumnFamilyHandle dataFamily = families.getOrDefault(RocksDBConfig.DATA_FAMILY, defaultFamily);
+        ColumnFamilyHandle versionFamily = families.getOrDefault(RocksDBConfig.VERSION_FAMILY, defaultFamily);
+        this.bloomFilter = bloomFilter;
+        this.verStorage = new RocksDBVersioningStorage(db, versionFamily, dataFamily, bloomFilter, lruCache);
+        this.exStorage = new RocksDBExPolicyStorage(db, merkleFamily, bloomFilter, lruCache);
+
+        WriteOptions writeOptions = new WriteOptions()
+                .setSync(Boolean.getBoolean(WRITE_SYNC))
+                .setDisableWAL(Boolean.getBoolean(WRITE_DISABLE_WAL));
+        this.verStorage.setWriteOptions(writeOptions);
+        this.exStorage.setWriteOptions(writeOptions);
+        if (Boolean.getBoolean(GROUP_COMMIT) && Boolean.getBoolean(PARALLEL_DB_WRITE)) {
+            LOGGER.warn("{} is ignored because {} is enabled, blocks are written from multiple threads!",
+                    GROUP_COMMIT, PARALLEL_DB_WRITE);
+        } else if (Boolean.getBoolean(GROUP_COMMIT)) {
+            this.groupCommit = new RocksDBGroupCommit(db, writeOptions);
+            this.verStorage.setGroupCommit(groupCommit);
+            this.exStorage.setGroupCommit(groupCommit);
         }
-        this.verStorage = new RocksDBVersioningStorage(db, bloomFilter, lruCache);
-        this.exStorage = new RocksDBExPolicyStorage(db, bloomFilter, lruCache);
+        this.pruner = new RocksDBVersionPruner(db, verStorage, versionFamily, dataFamily,
+                Integer.getInteger(RocksDBVersionPruner.BATCH_SIZE, 1000),
+                Long.getLong(RocksDBVersionPruner.PAUSE_MILLIS, 10));
+        this.pruner.startIfConfigured();
     }
 
     @Override
@@ -54,4 +145,244 @@ public class RocksDBStorageService implements KVStorageService {
         return verStorage;
     }
 
+    public boolean isGroupCommitEnabled() {
+        return groupCommit != null;
+    }
+
+    /**
+     * 开始一个写入组；
+     * <p>
+     * 直到 {@link #commitGroup()} 之前，两个存储的全部写入合并到同一个写批次中，提交后由持久化线程原子地写入数据库；
+     * 写入组落盘之前，其中的数据对读取可见；同一时刻只能有一个打开的写入组，其它线程在此等待当前的写入组提交或丢弃；<br>
+     * 未启用写入组提交时不做任何处理；
+     */
+    public void beginGroup() {
+        if (null != groupCommit) {
+            groupCommit.begin();
+        }
+    }
+
+    /**
+     * 提交当前的写入组；
+     *
+     * @return 写入组落盘之后完成；未启用写入组提交时返回已完成的结果；
+     */
+    public CompletableFuture<Void> commitGroup() {
+        if (null == groupCommit) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return groupCommit.commit();
+    }
+
+    /**
+     * 丢弃当前的写入组；
+     */
+    public void abortGroup() {
+        if (null != groupCommit) {
+            groupCommit.abort();
+        }
+    }
+
+    /**
+     * 等待已提交的全部写入组落盘；
+     */
+    public void awaitDurable() {
+        if (null != groupCommit) {
+            groupCommit.awaitDurable();
+        }
+    }
+
+    /**
+     * 清理以指定前缀开头的键的历史版本，参见 {@link RocksDBVersionPruner}；
+     * <p>
+     * 保留最近 retainBlocks 个区块内可见的全部版本；已清理的版本读取为 null ；
+     *
+     * @param keyPrefix    键前缀；
+     * @param heightKey    以区块高度为版本的键，即账本的区块索引；
+     * @param retainBlocks 保留最近多少个区块内可见的版本；
+     * @return 删除的版本数量；
+     */
+    public long prune(Bytes keyPrefix, Bytes heightKey, long retainBlocks) {
+        try {
+            return pruner.prune(keyPrefix, heightKey, retainBlocks);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Pruning was interrupted!", e);
+        }
+    }
+
+    /**
+     * 停止后台清理；在关闭数据库之前调用；
+     */
+    void stopPruning() {
+        pruner.close();
+    }
+
+    /**
+     * 将数据库中以指定前缀开头的数据导出为检查点；
+     * <p>
+     * 在数据库的一致性快照上读取，每个列族导出为一个以列族名称命名的 SST 文件，只包含该前缀的数据；
+     * 多个账本共享同一个数据库时，检查点中不包含其它账本的数据；
+     *
+     * @param checkpointDir 检查点目录；目录不能已存在；
+     * @param keyPrefix     数据键的前缀，即账本的存储前缀；
+     * @return 导出的键值对数量；
+     */
+    public long checkpoint(String checkpointDir, Bytes keyPrefix) {
+        awaitDurable();
+        File dir = new File(checkpointDir);
+        if (dir.exists() || !dir.mkdirs()) {
+            throw new IllegalStateException("Checkpoint directory already exists or cannot be created! --" + checkpointDir);
+        }
+        byte[] prefix = keyPrefix.toBytes();
+        long count = 0;
+        Snapshot snapshot = db.getSnapshot();
+        try (ReadOptions readOptions = new ReadOptions().setSnapshot(snapshot);
+             EnvOptions envOptions = new EnvOptions();
+             Options options = new Options()) {
+            for (Map.Entry<String, ColumnFamilyHandle> family : families.entrySet()) {
+                SstFileWriter writer = null;
+                try (RocksIterator iterator = db.newIterator(family.getValue(), readOptions)) {
+                    for (iterator.seekToFirst(); seekPrefix(iterator, prefix); iterator.next()) {
+                        if (null == writer) {
+                            writer = new SstFileWriter(envOptions, options);
+                            writer.open(new File(dir, family.getKey() + SST_SUFFIX).getAbsolutePath());
+                        }
+                        writer.put(iterator.key(), iterator.value());
+                        count++;
+                    }
+                    // 没有数据的列族不生成文件；
+                    if (null != writer) {
+                        writer.finish();
+                    }
+                } finally {
+                    if (null != writer) {
+                        writer.close();
+                    }
+                }
+            }
+            Files.write(new File(dir, FAMILIES_FILE).toPath(), families.keySet(), StandardCharsets.UTF_8);
+        } catch (RocksDBException | IOException e) {
+            throw new IllegalStateException("Create rocksdb checkpoint error! --" + e.getMessage(), e);
+        } finally {
+            db.releaseSnapshot(snapshot);
+        }
+        return count;
+    }
+
+    /**
+     * 将 {@link #checkpoint(String, Bytes)} 导出的检查点导入当前数据库，覆盖已有的值；
+     * <p>
+     * 用于安装其它节点的账本快照；检查点和当前数据库必须采用相同的列族布局；
+     * SST 文件以复制的方式导入，检查点目录保持不变；导入期间不能有其它写入，导入完成后当前存储的读缓存全部失效；
+     *
+     * @param checkpointDir 检查点目录；
+     * @param keyPrefix     检查点导出时的数据键前缀，即账本的存储前缀；
+     * @return 导入后当前数据库中以该前缀开头的键值对数量；
+     */
+    public long ingest(String checkpointDir, Bytes keyPrefix) {
+        awaitDurable();
+        List<String> names;
+        try {
+            names = Files.readAllLines(new File(checkpointDir, FAMILIES_FILE).toPath(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalStateException("Read rocksdb checkpoint error! --" + e.getMessage(), e);
+        }
+        for (String family : names) {
+            if (!families.containsKey(family)) {
+                throw new IllegalStateException(String.format(
+                        "Column family[%s] of checkpoint does not exist in current database!", family));
+            }
+        }
+        if (families.containsKey(RocksDBConfig.MERKLE_FAMILY) != names.contains(RocksDBConfig.MERKLE_FAMILY)) {
+            throw new IllegalStateException("Column family layout of checkpoint does not match current database!");
+        }
+
+        byte[] prefix = keyPrefix.toBytes();
+        long count = 0;
+        try (IngestExternalFileOptions ingestOptions = new IngestExternalFileOptions()) {
+            ingestOptions.setMoveFiles(false);
+            for (String family : names) {
+                File sstFile = new File(checkpointDir, family + SST_SUFFIX);
+                if (!sstFile.isFile()) {
+                    continue;
+                }
+                ColumnFamilyHandle handle = families.get(family);
+                db.ingestExternalFile(handle, Collections.singletonList(sstFile.getAbsolutePath()), ingestOptions);
+
+                try (RocksIterator iterator = db.newIterator(handle)) {
+                    for (iterator.seekToFirst(); seekPrefix(iterator, prefix); iterator.next()) {
+                        if (null != bloomFilter) {
+                            bloomFilter.put(iterator.key());
+                        }
+                        count++;
+                    }
+                }
+            }
+        } catch (RocksDBException e) {
+            throw new IllegalStateException("Ingest rocksdb checkpoint error! --" + e.getMessage(), e);
+        }
+        verStorage.resetCache();
+        exStorage.resetCache();
+        return count;
+    }
+
+    /**
+     * 从迭代器的当前位置向后查找第一个去掉存储类型字节之后以指定前缀开头的键；
+     * <p>
+     * 数据键的第一个字节是存储类型前缀，其后是原始键；同一类型下前缀相同的键是连续的，
+     * 因此直接定位到每个类型下的前缀，而不逐个遍历其它账本的数据；
+     *
+     * @param iterator
+     * @param prefix
+     * @return 迭代器停在符合条件的键上时返回 true ；没有更多符合条件的键时返回 false ；
+     */
+    private static boolean seekPrefix(RocksIterator iterator, byte[] prefix) {
+        while (iterator.isValid()) {
+            byte[] key = iterator.key();
+            if (startsWith(key, 1, prefix)) {
+                return true;
+            }
+            if (key.length == 0) {
+                iterator.next();
+                continue;
+            }
+            byte[] target = new byte[prefix.length + 1];
+            target[0] = key[0];
+            System.arraycopy(prefix, 0, target, 1, prefix.length);
+            if (compare(target, key) > 0) {
+                iterator.seek(target);
+            } else if (key[0] != (byte) 0xFF) {
+                // 当前类型下已越过前缀，转到下一个类型；
+                iterator.seek(new byte[]{(byte) (key[0] + 1)});
+            } else {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private static int compare(byte[] a, byte[] b) {
+        int len = Math.min(a.length, b.length);
+        for (int i = 0; i < len; i++) {
+            int c = (a[i] & 0xFF) - (b[i] & 0xFF);
+            if (c != 0) {
+                return c;
+            }
+        }
+        return a.length - b.length;
+    }
+
+    private static boolean startsWith(byte[] key, int offset, byte[] prefix) {
+        if (key.length < offset + prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (key[offset + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
 }
@@ -0,0 +1,312 @@
+package com.jd.blockchain.storage.service.impl.rocksdb;
+
+import org.rocksdb.ColumnFamilyHandle;
+import org.rocksdb.RocksDB;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.RocksIterator;
+import org.rocksdb.WriteBatch;
+import org.rocksdb.WriteOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import utils.Bytes;
+import utils.concurrent.NamedThreadFactory;
+import utils.io.BytesUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 多版本数据的历史版本清理；
+ * <p>
+ * 保留最近 retain-blocks 个区块内可见的全部版本，即在高度不低于“当前高度 - retain-blocks”的任一区块上
+ * 读取到的版本都不会被清理，更早的版本从数据库中删除；当前高度是 height-key 的最新版本，即账本的区块索引；
+ * <p>
+ * 多版本存储不记录每个版本写入时的区块高度，因此每次清理时为每个键记录一个水位：“在高度 h 时最新版本为 v”，
+ * 高度不低于 h 的区块读取到的版本都不低于 v ；当水位的高度 h 落到保留窗口之外时，低于 v 的版本可以删除，并以当前高度重新记录水位；
+ * 实际删除的时间因此比窗口晚最多一个水位周期，但不会删除窗口内可见的版本；
+ * <p>
+ * 每个键已清理到的版本和水位记录在“P”键中，与删除在同一个写批次中原子地写入；
+ * 已清理的版本与不存在的版本一样读取为 null ，可以通过 {@link RocksDBVersioningStorage#isPruned(Bytes, long)} 区分；
+ * 账本数据集读取历史版本时，指定版本不存在而存在更新的版本即视为已清理，向查询方返回明确的错误；
+ * 每个写批次写入之后立即使其中被删除的版本的读缓存失效；
+ * <p>
+ * 清理在后台线程中定期执行，每个写批次最多删除 batch-size 个版本，批次之间暂停 pause-ms ；
+ * 存储有正在写入的批次或写入组（即正在提交区块）时等待其完成，避免与区块提交争用数据库；
+ * <p>
+ * 通过系统属性配置，设置 {@link #KEY_PREFIXES} 之后启用：<br>
+ * 1. rocksdb.prune.key-prefixes ：参与清理的键前缀，多个前缀以逗号分隔，例如数据账户集的“L:/DS/”；
+ * 按区块高度索引的键（如账本的区块索引）不能配置在内；<br>
+ * 2. rocksdb.prune.retain-blocks ：保留最近多少个区块内可见的版本，默认 100000 ；<br>
+ * 3. rocksdb.prune.height-key ：以区块高度为版本的键，默认为账本的区块索引“IX/”；<br>
+ * 4. rocksdb.prune.interval-ms ：两次清理之间的间隔，默认 10 分钟；<br>
+ * 5. rocksdb.prune.batch-size / rocksdb.prune.pause-ms ：限流参数，默认 1000 / 10 ；
+ * <p>
+ * 只清理多版本数据；以哈希为键的默克尔节点在不同版本的树之间共享，不在清理范围内；
+ */
+class RocksDBVersionPruner {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RocksDBVersionPruner.class);
+
+    public static final String KEY_PREFIXES = "rocksdb.prune.key-prefixes";
+
+    public static final String RETAIN_BLOCKS = "rocksdb.prune.retain-blocks";
+
+    public static final String HEIGHT_KEY = "rocksdb.prune.height-key";
+
+    public static final String INTERVAL_MILLIS = "rocksdb.prune.interval-ms";
+
+    public static final String BATCH_SIZE = "rocksdb.prune.batch-size";
+
+    public static final String PAUSE_MILLIS = "rocksdb.prune.pause-ms";
+
+    public static final String DEFAULT_HEIGHT_KEY = "IX/";
+
+    private final RocksDB db;
+
+    private final RocksDBVersioningStorage storage;
+
+    private final ColumnFamilyHandle versionFamily;
+
+    private final ColumnFamilyHandle dataFamily;
+
+    private final int batchSize;
+
+    private final long pauseMillis;
+
+    private final WriteOptions writeOptions = new WriteOptions();
+
+    private ScheduledExecutorService executor;
+
+    private volatile boolean running = true;
+
+    RocksDBVersionPruner(RocksDB db, RocksDBVersioningStorage storage, ColumnFamilyHandle versionFamily,
+                         ColumnFamilyHandle dataFamily, int batchSize, long pauseMillis) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("The batch size of pruning must be positive!");
+        }
+        this.db = db;
+        this.storage = storage;
+        this.versionFamily = versionFamily;
+        this.dataFamily = dataFamily;
+        this.batchSize = batchSize;
+        this.pauseMillis = pauseMillis;
+    }
+
+    /**
+     * 按系统属性的配置启动后台清理；未配置键前缀时不做任何处理；
+     */
+    void startIfConfigured() {
+        String prefixes = System.getProperty(KEY_PREFIXES);
+        if (prefixes == null || prefixes.trim().isEmpty()) {
+            return;
+        }
+        List<Bytes> keyPrefixes = new ArrayList<>();
+        for (String prefix : prefixes.split(",")) {
+            if (!prefix.trim().isEmpty()) {
+                keyPrefixes.add(Bytes.fromString(prefix.trim()));
+            }
+        }
+        long retainBlocks = Long.getLong(RETAIN_BLOCKS, 100000);
+        Bytes heightKey = Bytes.fromString(System.getProperty(HEIGHT_KEY, DEFAULT_HEIGHT_KEY));
+        long interval = Long.getLong(INTERVAL_MILLIS, TimeUnit.MINUTES.toMillis(10));
+        executor = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("rocksdb-prune", true));
+        executor.scheduleWithFixedDelay(() -> {
+            for (Bytes prefix : keyPrefixes) {
+                if (!running) {
+                    return;
+                }
+                try {
+                    prune(prefix, heightKey, retainBlocks);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (Exception e) {
+                    // 本次清理失败，已写入的批次不受影响，下一次清理从记录的位置继续；
+                    LOGGER.error("Prune rocksdb versions of prefix [" + prefix.toUTF8String() + "] error! --"
+                            + e.getMessage(), e);
+                }
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 清理以指定前缀开头的键在保留窗口之外的历史版本；
+     *
+     * @param keyPrefix    键前缀；
+     * @param heightKey    以区块高度为版本的键；
+     * @param retainBlocks 保留最近多少个区块内可见的版本；
+     * @return 删除的版本数量；
+     * @throws InterruptedException
+     */
+    long prune(Bytes keyPrefix, Bytes heightKey, long retainBlocks) throws InterruptedException {
+        if (retainBlocks < 0) {
+            throw new IllegalArgumentException("The retained blocks of pruning must not be negative!");
+        }
+        byte[] seekKey = RocksDBVersioningStorage.encodeVersionKey(keyPrefix);
+        long count = 0;
+        int pending = 0;
+        List<PrunedRange> ranges = new ArrayList<>();
+        WriteBatch batch = new WriteBatch();
+        try (RocksIterator iterator = db.newIterator(versionFamily)) {
+            // 迭代器读取的是创建时的最新版本，在此之后读取的高度不低于这些版本写入时的高度，作为水位的高度是安全的；
+            long height = storage.getVersion(heightKey);
+            if (height < 0) {
+                return 0;
+            }
+            long boundary = height - retainBlocks;
+            for (iterator.seek(seekKey); iterator.isValid() && running; iterator.next()) {
+                byte[] vkbs = iterator.key();
+                if (!startsWith(vkbs, seekKey)) {
+                    break;
+                }
+                Bytes key = new Bytes(Arrays.copyOfRange(vkbs, 1, vkbs.length));
+                long latest = BytesUtils.toLong(iterator.value());
+                byte[] pkbs = RocksDBVersioningStorage.encodePrunedKey(key);
+                PrunedRecord record = PrunedRecord.resolve(db.get(versionFamily, pkbs));
+
+                long floor = record.prunedVersion;
+                if (record.markHeight < 0 || record.markHeight <= boundary) {
+                    // 水位已落到保留窗口之外，低于水位版本的数据不再可见；以当前高度重新记录水位；
+                    if (record.markHeight >= 0) {
+                        floor = Math.max(floor, record.markVersion);
+                    }
+                    record.markHeight = height;
+                    record.markVersion = latest;
+                } else {
+                    // 水位仍在保留窗口之内；
+                    continue;
+                }
+
+                long v = record.prunedVersion;
+                while (v < floor && running) {
+                    batch.delete(dataFamily, RocksDBVersioningStorage.encodeDataKey(key, v));
+                    v++;
+                    count++;
+                    if (++pending >= batchSize) {
+                        // 记录已清理到的版本，中断之后从此处继续；
+                        ranges.add(new PrunedRange(key, record.prunedVersion, v));
+                        record.prunedVersion = v;
+                        batch.put(versionFamily, pkbs, record.toBytes());
+                        write(batch, ranges);
+                        batch.close();
+                        batch = new WriteBatch();
+                        pending = 0;
+                    }
+                }
+                if (v > record.prunedVersion) {
+                    ranges.add(new PrunedRange(key, record.prunedVersion, v));
+                    record.prunedVersion = v;
+                }
+                batch.put(versionFamily, pkbs, record.toBytes());
+            }
+            write(batch, ranges);
+        } catch (RocksDBException e) {
+            throw new IllegalStateException("Prune rocksdb versions error! --" + e.getMessage(), e);
+        } finally {
+            batch.close();
+        }
+        return count;
+    }
+
+    void close() {
+        running = false;
+        if (null != executor) {
+            executor.shutdownNow();
+            try {
+                executor.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        writeOptions.close();
+    }
+
+    /**
+     * 写入批次，并使其中被删除的版本的读缓存失效；
+     */
+    private void write(WriteBatch batch, List<PrunedRange> ranges) throws RocksDBException, InterruptedException {
+        if (batch.count() == 0) {
+            return;
+        }
+        // 正在提交区块时让出数据库；
+        while (storage.isWriting()) {
+            Thread.sleep(Math.max(1, pauseMillis));
+        }
+        db.write(writeOptions, batch);
+        for (PrunedRange range : ranges) {
+            for (long v = range.from; v < range.to; v++) {
+                storage.invalidateCache(range.key, v);
+            }
+        }
+        ranges.clear();
+        if (pauseMillis > 0) {
+            Thread.sleep(pauseMillis);
+        }
+    }
+
+    private static boolean startsWith(byte[] key, byte[] prefix) {
+        if (key.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (key[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 一个键被删除的版本区间 [from, to) ；
+     */
+    private static class PrunedRange {
+
+        private final Bytes key;
+
+        private final long from;
+
+        private final long to;
+
+        PrunedRange(Bytes key, long from, long to) {
+            this.key = key;
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    /**
+     * 一个键的清理记录：已清理到的版本，以及水位的高度和版本；未记录水位时高度为 -1 ；
+     */
+    private static class PrunedRecord {
+
+        private long prunedVersion;
+
+        private long markHeight = -1;
+
+        private long markVersion = -1;
+
+        static PrunedRecord resolve(byte[] bytes) {
+            PrunedRecord record = new PrunedRecord();
+            if (null != bytes) {
+                record.prunedVersion = BytesUtils.toLong(bytes, 0);
+                if (bytes.length >= 24) {
+                    record.markHeight = BytesUtils.toLong(bytes, 8);
+                    record.markVersion = BytesUtils.toLong(bytes, 16);
+                }
+            }
+            return record;
+        }
+
+        byte[] toBytes() {
+            byte[] bytes = new byte[24];
+            BytesUtils.toBytes(prunedVersion, bytes, 0);
+            BytesUtils.toBytes(markHeight, bytes, 8);
+            BytesUtils.toBytes(markVersion, bytes, 16);
+            return bytes;
+        }
+    }
+}
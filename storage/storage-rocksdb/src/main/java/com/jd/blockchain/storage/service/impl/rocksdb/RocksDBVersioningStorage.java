@@ -1,6 +1,5 @@
 package com.jd.blockchain.storage.service.impl.rocksdb;
 
-import com.google.common.cache.Cache;
 import com.google.common.hash.BloomFilter;
 import com.jd.blockchain.storage.service.VersioningKVStorage;
 import org.rocksdb.*;
@@ -8,62 +7,120 @@ import utils.Bytes;
 import utils.DataEntry;
 import utils.io.BytesUtils;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class RocksDBVersioningStorage implements VersioningKVStorage {
 
-    private static Bytes VERSION_PREFIX = Bytes.fromString("V");
-    private static Bytes DATA_PREFIX = Bytes.fromString("D");
-    private final WriteOptions writeOptions = new WriteOptions();
+    private static final byte VERSION_PREFIX = 'V';
+    private static final byte DATA_PREFIX = 'D';
+    private static final byte PRUNED_PREFIX = 'P';
+    private WriteOptions writeOptions = new WriteOptions();
     private final ReadOptions readOptions = new ReadOptions().setFillCache(true).setVerifyChecksums(false);
-    private final Cache<Bytes, byte[]> cache;
-    private Map<Bytes, Long> batchVersions;
-    private Map<Bytes, byte[]> batchKVs;
+    private final RocksDBStorageCache cache;
+    private volatile int cacheId;
+    /**
+     * 各写入线程的批次；存储由共享同一数据库的多个账本并发写入，每个写入方使用自己的批次；
+     */
+    private final ThreadLocal<Batch> batches = new ThreadLocal<>();
+    private final AtomicInteger activeBatches = new AtomicInteger();
     private RocksDB db;
-    private WriteBatch writeBatch;
+    private ColumnFamilyHandle versionFamily;
+    private ColumnFamilyHandle dataFamily;
     private BloomFilter<byte[]> bloomFilter;
+    private RocksDBGroupCommit groupCommit;
 
-    public RocksDBVersioningStorage(RocksDB db, BloomFilter<byte[]> bloomFilter, Cache<Bytes, byte[]> cache) {
+    public RocksDBVersioningStorage(RocksDB db, BloomFilter<byte[]> bloomFilter, RocksDBStorageCache cache) {
+        this(db, db.getDefaultColumnFamily(), db.getDefaultColumnFamily(), bloomFilter, cache);
+    }
+
+    /**
+     * @param db
+     * @param versionFamily 存储最新版本号（“V”键）的列族；
+     * @param dataFamily    存储多版本数据（“D”键）的列族；
+     * @param bloomFilter
+     * @param cache
+     */
+    public RocksDBVersioningStorage(RocksDB db, ColumnFamilyHandle versionFamily, ColumnFamilyHandle dataFamily,
+                                    BloomFilter<byte[]> bloomFilter, RocksDBStorageCache cache) {
         this.db = db;
+        this.versionFamily = versionFamily;
+        this.dataFamily = dataFamily;
         this.bloomFilter = bloomFilter;
         this.cache = cache;
-        if (null != bloomFilter || null != cache) {
-            batchKVs = new HashMap<>();
-            batchVersions = new HashMap<>();
-        }
+        this.cacheId = null != cache ? cache.register() : 0;
+    }
+
+    protected static byte[] encodeVersionKey(Bytes dataKey) {
+        int size = dataKey.size();
+        byte[] bytes = new byte[1 + size];
+        bytes[0] = VERSION_PREFIX;
+        dataKey.copyTo(bytes, 1, size);
+        return bytes;
+    }
+
+    protected static byte[] encodeDataKey(Bytes dataKey, long version) {
+        int size = dataKey.size();
+        byte[] bytes = new byte[1 + size + 8];
+        bytes[0] = DATA_PREFIX;
+        dataKey.copyTo(bytes, 1, size);
+        BytesUtils.toBytes(version, bytes, 1 + size);
+        return bytes;
     }
 
-    protected static Bytes encodeVersionKey(Bytes dataKey) {
-        return VERSION_PREFIX.concat(dataKey);
+    /**
+     * 清理记录的键；值的前 8 个字节为该键已清理到的版本，低于此版本的数据已被删除，其后是 {@link RocksDBVersionPruner} 的水位记录；
+     */
+    protected static byte[] encodePrunedKey(Bytes dataKey) {
+        int size = dataKey.size();
+        byte[] bytes = new byte[1 + size];
+        bytes[0] = PRUNED_PREFIX;
+        dataKey.copyTo(bytes, 1, size);
+        return bytes;
     }
 
-    protected static Bytes encodeDataKey(Bytes dataKey, long version) {
-        return DATA_PREFIX.concat(dataKey).concat(Bytes.fromLong(version));
+    void setWriteOptions(WriteOptions writeOptions) {
+        this.writeOptions = writeOptions;
+    }
+
+    /**
+     * 启用写入组提交；
+     */
+    void setGroupCommit(RocksDBGroupCommit groupCommit) {
+        this.groupCommit = groupCommit;
+        groupCommit.addDurableListener(this::onGroupDurable);
     }
 
     @Override
     public long getVersion(Bytes key) {
         try {
-            Bytes vkb = encodeVersionKey(key);
-            byte[] vkbs = vkb.toBytes();
-            byte[] vBytes = null;
-            if (null != cache) {
-                vBytes = cache.getIfPresent(vkb);
+            if (null != groupCommit) {
+                Long v = groupCommit.getVersion(key);
+                if (null != v) {
+                    return v;
+                }
             }
-            if (null != vBytes) {
-                return BytesUtils.toLong(vBytes);
+            if (null != cache) {
+                Long v = cache.getVersion(cacheId, key);
+                if (null != v) {
+                    return v;
+                }
             }
+            byte[] vkbs = encodeVersionKey(key);
             if (null != bloomFilter && !bloomFilter.mightContain(vkbs)) {
                 return -1;
             }
-            vBytes = db.get(readOptions, vkbs);
+            byte[] vBytes = db.get(versionFamily, readOptions, vkbs);
             if (null != vBytes) {
+                long v = BytesUtils.toLong(vBytes);
                 if (null != cache) {
-                    cache.put(vkb, vBytes);
+                    cache.putVersion(cacheId, key, v);
                 }
-                return BytesUtils.toLong(vBytes);
+                return v;
             }
             return -1;
         } catch (RocksDBException e) {
@@ -83,30 +140,33 @@ public class RocksDBVersioningStorage implements VersioningKVStorage {
     @Override
     public byte[] get(Bytes key, long version) {
         try {
-            long latestVersion = getVersion(key);
-            if (latestVersion < 0) {
-                return null;
-            }
-            if (version > latestVersion) {
-                return null;
+            if (version < 0) {
+                version = getVersion(key);
+                if (version < 0) {
+                    return null;
+                }
             }
-            version = version < 0 ? latestVersion : version;
-            Bytes dkb = encodeDataKey(key, version);
+            // 指定版本的数据只在写入该版本时产生，数据存在即说明版本有效，不必先读取最新版本号；
+            byte[] dkbs = encodeDataKey(key, version);
             byte[] bytes = null;
-            if (null != cache) {
-                bytes = cache.getIfPresent(dkb);
+            if (null != groupCommit) {
+                bytes = groupCommit.getData(new Bytes(dkbs));
+            }
+            if (null == bytes && null != cache) {
+                bytes = cache.getData(cacheId, key, version);
             }
             if (null != bytes) {
                 return bytes;
             }
-            byte[] dkbs = dkb.toBytes();
             if (null != bloomFilter && !bloomFilter.mightContain(dkbs)) {
                 return null;
             }
-            bytes = this.db.get(readOptions, dkbs);
+            // 已清理的版本与不存在的版本一样返回 null ，可通过 isPruned 区分；
+            bytes = this.db.get(dataFamily, readOptions, dkbs);
             if (null == bytes) {
+                return null;
             } else if (null != cache) {
-                cache.put(dkb, bytes);
+                cache.putData(cacheId, key, version, bytes);
             }
             return bytes;
         } catch (RocksDBException e) {
@@ -118,30 +178,37 @@ public class RocksDBVersioningStorage implements VersioningKVStorage {
     public long set(Bytes key, byte[] value, long version) {
         long v = version + 1;
         try {
-            Bytes dkb = encodeDataKey(key, v);
-            byte[] dkbs = dkb.toBytes();
-            Bytes vkb = encodeVersionKey(key);
-            byte[] vkbs = vkb.toBytes();
+            byte[] dkbs = encodeDataKey(key, v);
+            byte[] vkbs = encodeVersionKey(key);
             byte[] vbs = BytesUtils.toBytes(v);
-            if (null != writeBatch) {
-                writeBatch.put(vkbs, vbs);
-                writeBatch.put(dkbs, value);
-                if (null != batchVersions) {
-                    batchVersions.put(vkb, v);
+            RocksDBGroupCommit.Group group = null != groupCommit ? groupCommit.getOwnedGroup() : null;
+            Batch batch = batches.get();
+            if (null != group) {
+                group.put(versionFamily, vkbs, vbs);
+                group.put(dataFamily, dkbs, value);
+                group.versions.merge(key, v, Math::max);
+                group.data.put(new Bytes(dkbs), value);
+            } else if (null != batch) {
+                batch.writeBatch.put(versionFamily, vkbs, vbs);
+                batch.writeBatch.put(dataFamily, dkbs, value);
+                if (null != batch.versions) {
+                    batch.versions.put(key, v);
+                    batch.kvs.put(key, value);
                 }
-                if (null != batchKVs) {
-                    batchKVs.put(dkb, value);
+                if (null != batch.bloomKeys) {
+                    batch.bloomKeys.add(vkbs);
+                    batch.bloomKeys.add(dkbs);
                 }
             } else {
-                db.put(vkbs, vbs);
-                db.put(dkbs, value);
+                db.put(versionFamily, vkbs, vbs);
+                db.put(dataFamily, dkbs, value);
                 if (null != bloomFilter) {
                     bloomFilter.put(vkbs);
                     bloomFilter.put(dkbs);
                 }
                 if (null != cache) {
-                    cache.put(vkb, vbs);
-                    cache.put(dkb, value);
+                    cache.putVersion(cacheId, key, v);
+                    cache.putData(cacheId, key, v, value);
                 }
             }
 
@@ -151,61 +218,144 @@ public class RocksDBVersioningStorage implements VersioningKVStorage {
         }
     }
 
+    /**
+     * 指定键的指定版本是否已被 {@link RocksDBVersionPruner} 清理；
+     * <p>
+     * 已清理的版本与不存在的版本一样，{@link #get(Bytes, long)} 返回 null ；需要区分两者时调用此方法；
+     *
+     * @param key
+     * @param version
+     * @return
+     */
+    public boolean isPruned(Bytes key, long version) {
+        return version >= 0 && version < getPrunedVersion(key);
+    }
+
+    /**
+     * 返回指定的键已清理到的版本；低于此版本的数据已被删除，未清理过时返回 0 ；
+     */
+    long getPrunedVersion(Bytes key) {
+        try {
+            byte[] bytes = db.get(versionFamily, encodePrunedKey(key));
+            return null == bytes ? 0 : BytesUtils.toLong(bytes, 0);
+        } catch (RocksDBException e) {
+            throw new IllegalStateException("rocksdb get pruned version error", e);
+        }
+    }
+
+    /**
+     * 是否有正在写入的批次或写入组；
+     */
+    boolean isWriting() {
+        return activeBatches.get() > 0 || (null != groupCommit && null != groupCommit.getOpenGroup());
+    }
+
+    /**
+     * 使指定键的指定版本的缓存失效；用于在存储之外删除了该版本之后；
+     */
+    void invalidateCache(Bytes key, long version) {
+        if (null != cache) {
+            cache.invalidateData(cacheId, key, version);
+        }
+    }
+
+    /**
+     * 使当前存储的全部缓存失效；用于在存储之外修改了数据库之后；
+     */
+    void resetCache() {
+        if (null != cache) {
+            cacheId = cache.register();
+        }
+    }
+
+    /**
+     * 写入组落盘之后更新布隆过滤器和读缓存；
+     */
+    private void onGroupDurable(RocksDBGroupCommit.Group group) {
+        if (null != bloomFilter) {
+            for (Bytes key : group.versions.keySet()) {
+                bloomFilter.put(encodeVersionKey(key));
+            }
+            for (Bytes dkbs : group.data.keySet()) {
+                bloomFilter.put(dkbs.toBytes());
+            }
+        }
+        if (null != cache) {
+            for (Map.Entry<Bytes, Long> entry : group.versions.entrySet()) {
+                Bytes key = entry.getKey();
+                long v = entry.getValue();
+                cache.putVersion(cacheId, key, v);
+                cache.putData(cacheId, key, v, group.data.get(new Bytes(encodeDataKey(key, v))));
+            }
+        }
+    }
+
     @Override
     public void batchBegin() {
-        writeBatch = new WriteBatch();
-        if (null != batchVersions) {
-            batchVersions.clear();
-        }
-        if (null != batchKVs) {
-            batchKVs.clear();
+        // 丢弃当前线程未提交的批次；
+        closeBatch();
+        if (null != groupCommit && null != groupCommit.getOwnedGroup()) {
+            // 写入合并到当前线程打开的写入组中；
+            return;
         }
+        batches.set(new Batch());
+        activeBatches.incrementAndGet();
     }
 
     @Override
     public void batchCommit() {
+        Batch batch = batches.get();
+        if (null == batch) {
+            return;
+        }
         try {
-            if (null == writeBatch) {
-                return;
-            }
-            db.write(writeOptions, writeBatch);
-            if (null != batchVersions && batchVersions.size() > 0) {
-                Iterator<Map.Entry<Bytes, Long>> iterator = batchVersions.entrySet().iterator();
-                while (iterator.hasNext()) {
-                    Map.Entry<Bytes, Long> entry = iterator.next();
-                    if (null != bloomFilter) {
-                        bloomFilter.put(entry.getKey().toBytes());
-                    }
-                    if (null != cache) {
-                        cache.put(entry.getKey(), BytesUtils.toBytes(entry.getValue()));
-                    }
+            db.write(writeOptions, batch.writeBatch);
+            if (null != batch.bloomKeys) {
+                for (byte[] kbs : batch.bloomKeys) {
+                    bloomFilter.put(kbs);
                 }
             }
-            if (null != batchKVs && batchKVs.size() > 0) {
-                Iterator<Map.Entry<Bytes, byte[]>> iterator = batchKVs.entrySet().iterator();
+            // 同一批次中对同一个键的多次写入，只缓存最新的版本和数据；
+            if (null != batch.versions && batch.versions.size() > 0) {
+                Iterator<Map.Entry<Bytes, Long>> iterator = batch.versions.entrySet().iterator();
                 while (iterator.hasNext()) {
-                    Map.Entry<Bytes, byte[]> entry = iterator.next();
-                    if (null != bloomFilter) {
-                        bloomFilter.put(entry.getKey().toBytes());
-                    }
-                    if (null != cache) {
-                        cache.put(entry.getKey(), entry.getValue());
-                    }
+                    Map.Entry<Bytes, Long> entry = iterator.next();
+                    Bytes key = entry.getKey();
+                    long v = entry.getValue();
+                    cache.putVersion(cacheId, key, v);
+                    cache.putData(cacheId, key, v, batch.kvs.get(key));
                 }
             }
         } catch (Exception e) {
             throw new IllegalStateException("rocksdb batch commit error", e);
         } finally {
-            writeBatch = null;
-            if (null != batchKVs) {
-                batchKVs.clear();
-            }
-            if (null != batchVersions) {
-                batchVersions.clear();
-            }
+            closeBatch();
         }
     }
 
+    private void closeBatch() {
+        Batch batch = batches.get();
+        if (null != batch) {
+            batches.remove();
+            activeBatches.decrementAndGet();
+            batch.writeBatch.close();
+        }
+    }
+
+    /**
+     * 一个写入线程的批次；
+     */
+    private class Batch {
+
+        private final WriteBatch writeBatch = new WriteBatch();
+
+        private final Map<Bytes, Long> versions = null != cache ? new HashMap<>() : null;
+
+        private final Map<Bytes, byte[]> kvs = null != cache ? new HashMap<>() : null;
+
+        private final List<byte[]> bloomKeys = null != bloomFilter ? new ArrayList<>() : null;
+    }
+
 
     private static class VersioningKVData implements DataEntry {
 
@@ -6,19 +6,32 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Test;
+import org.rocksdb.Options;
+import org.rocksdb.RocksDB;
 
 import com.jd.blockchain.storage.service.DbConnection;
 import com.jd.blockchain.storage.service.DbConnectionFactory;
 import com.jd.blockchain.storage.service.ExPolicy;
 import com.jd.blockchain.storage.service.ExPolicyKVStorage;
 import com.jd.blockchain.storage.service.VersioningKVStorage;
+import com.jd.blockchain.storage.service.impl.rocksdb.RocksDBConfig;
 import com.jd.blockchain.storage.service.impl.rocksdb.RocksDBConnectionFactory;
+import com.jd.blockchain.storage.service.impl.rocksdb.RocksDBStorageCache;
+import com.jd.blockchain.storage.service.impl.rocksdb.RocksDBStorageService;
+import com.jd.blockchain.storage.service.impl.rocksdb.RocksDBVersioningStorage;
 
 import utils.Bytes;
 import utils.io.BytesUtils;
@@ -52,6 +65,312 @@ public class RocksDBStorageTest {
 
 	}
 
+	@Test
+	public void testColumnFamilyLayout() throws Exception {
+		String dbUri = initEmptyDB("rocksdb_storage_cf_test");
+		long expectedVersion;
+		try (DbConnectionFactory dbConnFactory = new RocksDBConnectionFactory();) {
+			DbConnection conn = dbConnFactory.connect(dbUri + "?cf=true&merkle.compression=zstd&version.bloom-bits=0");
+			VersioningKVStorage verStorage = conn.getStorageService().getVersioningKVStorage();
+			ExPolicyKVStorage exStorage = conn.getStorageService().getExPolicyKVStorage();
+
+			expectedVersion = test(verStorage);
+
+			test(exStorage);
+		}
+
+		List<String> families = new ArrayList<>();
+		try (Options options = new Options()) {
+			for (byte[] family : RocksDB.listColumnFamilies(options, dbUri.substring("rocksdb://".length()))) {
+				families.add(BytesUtils.toString(family));
+			}
+		}
+		assertTrue(families.contains(RocksDBConfig.MERKLE_FAMILY));
+		assertTrue(families.contains(RocksDBConfig.DATA_FAMILY));
+		assertTrue(families.contains(RocksDBConfig.VERSION_FAMILY));
+
+		// 已存在的数据库沿用创建时的布局；
+		try (DbConnectionFactory dbConnFactory = new RocksDBConnectionFactory();) {
+			DbConnection conn = dbConnFactory.connect(dbUri);
+			VersioningKVStorage verStorage = conn.getStorageService().getVersioningKVStorage();
+			ExPolicyKVStorage exStorage = conn.getStorageService().getExPolicyKVStorage();
+
+			testAfterReload(verStorage, expectedVersion);
+
+			testAfterReload(exStorage);
+		}
+	}
+
+	@Test
+	public void testWeightedCache() throws Exception {
+		String dbUri = initEmptyDB("rocksdb_storage_cache_test");
+		RocksDBStorageCache cache = new RocksDBStorageCache(1024 * 1024, 10, 1024);
+		try (Options options = new Options().setCreateIfMissing(true);
+				RocksDB db = RocksDB.open(options, dbUri.substring("rocksdb://".length()))) {
+			VersioningKVStorage verStorage = new RocksDBVersioningStorage(db, null, cache);
+
+			Bytes smallKey = Bytes.fromString("small");
+			Bytes largeKey = Bytes.fromString("large");
+			byte[] smallValue = BytesUtils.toBytes("data");
+			byte[] largeValue = new byte[4096];
+			assertEquals(0, verStorage.set(smallKey, smallValue, -1));
+			assertEquals(0, verStorage.set(largeKey, largeValue, -1));
+
+			assertTrue(BytesUtils.equals(smallValue, verStorage.get(smallKey, -1)));
+			assertEquals(1, cache.getValueStats().hitCount());
+			assertEquals(0, cache.getValueStats().missCount());
+
+			// 超出单个数据大小上限的数据不进入缓存；
+			assertTrue(BytesUtils.equals(largeValue, verStorage.get(largeKey, -1)));
+			assertEquals(1, cache.getValueStats().hitCount());
+			assertEquals(1, cache.getValueStats().missCount());
+
+			assertEquals(2, cache.getVersionStats().hitCount());
+		}
+	}
+
+	@Test
+	public void testCheckpointIngest() {
+		String sourceUri = initEmptyDB("rocksdb_storage_checkpoint_source");
+		String targetUri = initEmptyDB("rocksdb_storage_checkpoint_target");
+		String checkpointDir = new File(FileUtils.getCurrentDir(), "rocksdb_storage_checkpoint").getAbsolutePath();
+		FileUtils.deleteFile(checkpointDir);
+
+		Bytes key1 = Bytes.fromString("LDG://A/k1");
+		Bytes key2 = Bytes.fromString("LDG://B/k2");
+		Bytes key3 = Bytes.fromString("LDG://A/ex");
+		try (DbConnectionFactory dbConnFactory = new RocksDBConnectionFactory();) {
+			RocksDBStorageService source = (RocksDBStorageService) dbConnFactory.connect(sourceUri).getStorageService();
+			source.getVersioningKVStorage().set(key1, BytesUtils.toBytes("v0"), -1);
+			source.getVersioningKVStorage().set(key1, BytesUtils.toBytes("v1"), 0);
+			source.getVersioningKVStorage().set(key2, BytesUtils.toBytes("v0"), -1);
+			assertTrue(source.getExPolicyKVStorage().set(key3, BytesUtils.toBytes("ex"), ExPolicy.NOT_EXISTING));
+			// 检查点中只包含指定前缀的数据；
+			assertEquals(4, source.checkpoint(checkpointDir, Bytes.fromString("LDG://A/")));
+
+			RocksDBStorageService target = (RocksDBStorageService) dbConnFactory.connect(targetUri).getStorageService();
+			assertEquals(-1, target.getVersioningKVStorage().getVersion(key1));
+
+			Bytes key4 = Bytes.fromString("LDG://C/k4");
+			target.getVersioningKVStorage().set(key4, BytesUtils.toBytes("v0"), -1);
+			assertEquals(4, target.ingest(checkpointDir, Bytes.fromString("LDG://A/")));
+
+			assertEquals(1, target.getVersioningKVStorage().getVersion(key1));
+			assertEquals("v0", BytesUtils.toString(target.getVersioningKVStorage().get(key1, 0)));
+			assertEquals("v1", BytesUtils.toString(target.getVersioningKVStorage().get(key1, 1)));
+			assertEquals("ex", BytesUtils.toString(target.getExPolicyKVStorage().get(key3)));
+			assertEquals(-1, target.getVersioningKVStorage().getVersion(key2));
+			// 当前数据库中其它账本的数据不受影响；
+			assertEquals("v0", BytesUtils.toString(target.getVersioningKVStorage().get(key4, 0)));
+		}
+	}
+
+	@Test
+	public void testGroupCommit() throws Exception {
+		String dbUri = initEmptyDB("rocksdb_storage_group_test");
+		Bytes verKey = Bytes.fromString("ver");
+		Bytes exKey = Bytes.fromString("ex");
+		System.setProperty(RocksDBStorageService.GROUP_COMMIT, "true");
+		try (DbConnectionFactory dbConnFactory = new RocksDBConnectionFactory();) {
+			RocksDBStorageService storage = (RocksDBStorageService) dbConnFactory.connect(dbUri).getStorageService();
+			assertTrue(storage.isGroupCommitEnabled());
+			VersioningKVStorage verStorage = storage.getVersioningKVStorage();
+			ExPolicyKVStorage exStorage = storage.getExPolicyKVStorage();
+
+			storage.beginGroup();
+			verStorage.batchBegin();
+			assertEquals(0, verStorage.set(verKey, BytesUtils.toBytes("v0"), -1));
+			assertEquals(1, verStorage.set(verKey, BytesUtils.toBytes("v1"), 0));
+			verStorage.batchCommit();
+			assertTrue(exStorage.set(exKey, BytesUtils.toBytes("ex"), ExPolicy.NOT_EXISTING));
+			storage.commitGroup();
+
+			// 写入组提交后立即可见，不需要等待落盘；
+			assertEquals(1, verStorage.getVersion(verKey));
+			assertEquals("v0", BytesUtils.toString(verStorage.get(verKey, 0)));
+			assertEquals("v1", BytesUtils.toString(verStorage.get(verKey, -1)));
+			assertTrue(exStorage.exist(exKey));
+			assertFalse(exStorage.set(exKey, BytesUtils.toBytes("ex2"), ExPolicy.NOT_EXISTING));
+
+			// 被丢弃的写入组不生效；
+			storage.beginGroup();
+			assertEquals(2, verStorage.set(verKey, BytesUtils.toBytes("v2"), 1));
+			storage.abortGroup();
+			assertEquals(1, verStorage.getVersion(verKey));
+
+			storage.beginGroup();
+			assertEquals(2, verStorage.set(verKey, BytesUtils.toBytes("v2"), 1));
+			storage.commitGroup().get();
+			storage.awaitDurable();
+		} finally {
+			System.clearProperty(RocksDBStorageService.GROUP_COMMIT);
+		}
+
+		try (DbConnectionFactory dbConnFactory = new RocksDBConnectionFactory();) {
+			DbConnection conn = dbConnFactory.connect(dbUri);
+			VersioningKVStorage verStorage = conn.getStorageService().getVersioningKVStorage();
+			assertEquals(2, verStorage.getVersion(verKey));
+			assertEquals("v1", BytesUtils.toString(verStorage.get(verKey, 1)));
+			assertEquals("ex", BytesUtils.toString(conn.getStorageService().getExPolicyKVStorage().get(exKey)));
+		}
+	}
+
+	@Test
+	public void testGroupCommitSerializedAcrossThreads() throws Exception {
+		String dbUri = initEmptyDB("rocksdb_storage_group_threads_test");
+		Bytes key1 = Bytes.fromString("L1/k");
+		Bytes key2 = Bytes.fromString("L2/k");
+		System.setProperty(RocksDBStorageService.GROUP_COMMIT, "true");
+		try (DbConnectionFactory dbConnFactory = new RocksDBConnectionFactory();) {
+			RocksDBStorageService storage = (RocksDBStorageService) dbConnFactory.connect(dbUri).getStorageService();
+			VersioningKVStorage verStorage = storage.getVersioningKVStorage();
+
+			storage.beginGroup();
+			verStorage.set(key1, BytesUtils.toBytes("v0"), -1);
+
+			// 其它线程（另一个账本）开始写入组时等待当前的写入组提交；
+			CountDownLatch begun = new CountDownLatch(1);
+			Thread other = new Thread(() -> {
+				storage.beginGroup();
+				begun.countDown();
+				verStorage.set(key2, BytesUtils.toBytes("v0"), -1);
+				storage.commitGroup();
+			});
+			other.start();
+			assertFalse(begun.await(200, TimeUnit.MILLISECONDS));
+
+			storage.commitGroup().get();
+			other.join(10000);
+			assertEquals(0, begun.getCount());
+			storage.awaitDurable();
+			assertEquals(0, verStorage.getVersion(key1));
+			assertEquals(0, verStorage.getVersion(key2));
+
+			// 只有打开写入组的线程可以提交；
+			storage.beginGroup();
+			CompletableFuture<Void> commitByOther = CompletableFuture.runAsync(() -> storage.commitGroup());
+			try {
+				commitByOther.get();
+				fail("Write group should only be committed by the thread which opened it!");
+			} catch (ExecutionException e) {
+				assertTrue(e.getCause() instanceof IllegalStateException);
+			}
+			storage.abortGroup();
+		} finally {
+			System.clearProperty(RocksDBStorageService.GROUP_COMMIT);
+		}
+	}
+
+	@Test
+	public void testBatchOutsideGroup() throws Exception {
+		String dbUri = initEmptyDB("rocksdb_storage_group_batch_test");
+		Bytes groupKey = Bytes.fromString("L1/k");
+		Bytes batchKey = Bytes.fromString("L2/k");
+		Bytes exKey = Bytes.fromString("L2/ex");
+		System.setProperty(RocksDBStorageService.GROUP_COMMIT, "true");
+		try (DbConnectionFactory dbConnFactory = new RocksDBConnectionFactory();) {
+			RocksDBStorageService storage = (RocksDBStorageService) dbConnFactory.connect(dbUri).getStorageService();
+			VersioningKVStorage verStorage = storage.getVersioningKVStorage();
+			ExPolicyKVStorage exStorage = storage.getExPolicyKVStorage();
+
+			storage.beginGroup();
+			verStorage.set(groupKey, BytesUtils.toBytes("v0"), -1);
+
+			// 其它线程（账本初始化、区块同步等）的批次不会并入当前线程打开的写入组；
+			CountDownLatch written = new CountDownLatch(1);
+			CountDownLatch commit = new CountDownLatch(1);
+			CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> {
+				verStorage.batchBegin();
+				exStorage.batchBegin();
+				verStorage.set(batchKey, BytesUtils.toBytes("v0"), -1);
+				exStorage.set(exKey, BytesUtils.toBytes("ex"), ExPolicy.NOT_EXISTING);
+				written.countDown();
+				try {
+					commit.await();
+				} catch (InterruptedException e) {
+					throw new IllegalStateException(e);
+				}
+				verStorage.batchCommit();
+				exStorage.batchCommit();
+			});
+			assertTrue(written.await(10, TimeUnit.SECONDS));
+			// 批次提交前不可见；
+			assertEquals(-1, verStorage.getVersion(batchKey));
+			assertFalse(exStorage.exist(exKey));
+			commit.countDown();
+			writer.get(10, TimeUnit.SECONDS);
+
+			// 写入组丢弃后，其它线程的批次仍然生效；
+			storage.abortGroup();
+			assertEquals(-1, verStorage.getVersion(groupKey));
+			assertEquals(0, verStorage.getVersion(batchKey));
+			assertTrue(exStorage.exist(exKey));
+		} finally {
+			System.clearProperty(RocksDBStorageService.GROUP_COMMIT);
+		}
+	}
+
+	@Test
+	public void testPruneVersions() {
+		String dbUri = initEmptyDB("rocksdb_storage_prune_test");
+		Bytes key1 = Bytes.fromString("L:/DS/k1");
+		Bytes key2 = Bytes.fromString("L:/DS/k2");
+		Bytes heightKey = Bytes.fromString("IX/");
+		Bytes prefix = Bytes.fromString("L:/DS/");
+		try (DbConnectionFactory dbConnFactory = new RocksDBConnectionFactory();) {
+			RocksDBStorageService storage = (RocksDBStorageService) dbConnFactory.connect(dbUri + "?cf=true").getStorageService();
+			RocksDBVersioningStorage verStorage = (RocksDBVersioningStorage) storage.getVersioningKVStorage();
+			// 区块 0 ~ 9 每个区块写入 key1 的一个版本；
+			for (int i = 0; i < 10; i++) {
+				verStorage.set(key1, BytesUtils.toBytes("v" + i), i - 1);
+				verStorage.set(heightKey, BytesUtils.toBytes("b" + i), i - 1);
+			}
+			verStorage.set(key2, BytesUtils.toBytes("v0"), -1);
+			assertEquals("v0", BytesUtils.toString(verStorage.get(key1, 0)));
+
+			// 第一次清理只记录水位：高度 9 时 key1 的最新版本为 9 ；
+			assertEquals(0, storage.prune(prefix, heightKey, 3));
+			assertEquals("v0", BytesUtils.toString(verStorage.get(key1, 0)));
+
+			// 区块 10 ~ 11 ：水位仍在保留的 3 个区块之内，不清理；
+			for (int i = 10; i < 12; i++) {
+				verStorage.set(key1, BytesUtils.toBytes("v" + i), i - 1);
+				verStorage.set(heightKey, BytesUtils.toBytes("b" + i), i - 1);
+			}
+			assertEquals(0, storage.prune(prefix, heightKey, 3));
+
+			// 区块 12 之后，高度 9 及以上的区块读取到的 key1 版本都不低于 9 ，删除版本 0 ~ 8 ；
+			verStorage.set(key1, BytesUtils.toBytes("v12"), 11);
+			verStorage.set(heightKey, BytesUtils.toBytes("b12"), 11);
+			assertEquals(9, storage.prune(prefix, heightKey, 3));
+			assertEquals(12, verStorage.getVersion(key1));
+			assertEquals("v9", BytesUtils.toString(verStorage.get(key1, 9)));
+			// 已清理的版本与不存在的版本一样读取为 null ，缓存中的旧值同样失效；
+			assertNull(verStorage.get(key1, 0));
+			assertTrue(verStorage.isPruned(key1, 0));
+			assertTrue(verStorage.isPruned(key1, 8));
+			assertFalse(verStorage.isPruned(key1, 9));
+			assertNull(verStorage.get(key1, 14));
+			assertFalse(verStorage.isPruned(key1, 14));
+			// 只有一个版本的键不受影响；
+			assertEquals("v0", BytesUtils.toString(verStorage.get(key2, 0)));
+			// 其它前缀的键不被清理；
+			assertEquals("b0", BytesUtils.toString(verStorage.get(heightKey, 0)));
+
+			// 水位已重新记录在高度 12 ，再次清理不删除；
+			assertEquals(0, storage.prune(prefix, heightKey, 3));
+		}
+
+		// 重新加载之后清理记录仍然有效；
+		try (DbConnectionFactory dbConnFactory = new RocksDBConnectionFactory();) {
+			RocksDBVersioningStorage verStorage = (RocksDBVersioningStorage) dbConnFactory.connect(dbUri)
+					.getStorageService().getVersioningKVStorage();
+			assertEquals("v9", BytesUtils.toString(verStorage.get(key1, 9)));
+			assertNull(verStorage.get(key1, 8));
+			assertTrue(verStorage.isPruned(key1, 8));
+		}
+	}
+
 	private void test(ExPolicyKVStorage exStorage) {
 		Bytes key = Bytes.fromString("kex");
 		assertFalse(exStorage.exist(key));
@@ -127,6 +446,11 @@ public class RocksDBStorageTest {
 		byte[] data = verStorage.get(key, -1);
 		String strData = BytesUtils.toString(data);
 		assertEquals("data", strData);
+
+		// 指定版本的读取；
+		assertEquals("data", BytesUtils.toString(verStorage.get(key, 0)));
+		assertEquals("data", BytesUtils.toString(verStorage.get(key, expectedVersion)));
+		assertNull(verStorage.get(key, expectedVersion + 1));
 	}
 
 	private String initEmptyDB(String name) {
@@ -0,0 +1,179 @@
+package com.jd.blockchain.tools.cluster;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.jd.blockchain.crypto.HashDigest;
+import com.jd.blockchain.ledger.BlockchainKeypair;
+import com.jd.blockchain.ledger.LedgerBlock;
+import com.jd.blockchain.ledger.core.LedgerRepository;
+import com.jd.blockchain.peer.PeerServerBooter;
+import com.jd.blockchain.tools.initializer.LedgerBindingConfig;
+
+/**
+ * 本地集群中的一个节点；
+ * <p>
+ * 节点可以运行在当前 JVM 中，也可以作为子进程运行；子进程使用当前 JVM 的类路径启动 {@link PeerServerBooter}；
+ */
+public class ClusterNode {
+
+	private static final long PROCESS_STOP_TIMEOUT_SECONDS = 30;
+
+	private final int id;
+
+	private final BlockchainKeypair keypair;
+
+	private final File homeDir;
+
+	private final String host;
+
+	private final int initializerPort;
+
+	private final int managePort;
+
+	private final int consensusPort;
+
+	private LedgerBindingConfig bindingConfig;
+
+	private volatile PeerServerBooter booter;
+
+	private volatile Process process;
+
+	ClusterNode(int id, BlockchainKeypair keypair, File homeDir, String host, int initializerPort, int managePort,
+			int consensusPort) {
+		this.id = id;
+		this.keypair = keypair;
+		this.homeDir = homeDir;
+		this.host = host;
+		this.initializerPort = initializerPort;
+		this.managePort = managePort;
+		this.consensusPort = consensusPort;
+	}
+
+	public int getId() {
+		return id;
+	}
+
+	public BlockchainKeypair getKeypair() {
+		return keypair;
+	}
+
+	public File getHomeDir() {
+		return homeDir;
+	}
+
+	public String getHost() {
+		return host;
+	}
+
+	public int getInitializerPort() {
+		return initializerPort;
+	}
+
+	public int getManagePort() {
+		return managePort;
+	}
+
+	public int getConsensusPort() {
+		return consensusPort;
+	}
+
+	/**
+	 * 账本绑定配置文件；
+	 */
+	public File getBindingConfigFile() {
+		return new File(homeDir, PeerServerBooter.LEDGER_BIND_CONFIG_NAME);
+	}
+
+	void setBindingConfig(LedgerBindingConfig bindingConfig) {
+		this.bindingConfig = bindingConfig;
+		bindingConfig.store(getBindingConfigFile());
+	}
+
+	public boolean isRunning() {
+		Process proc = process;
+		return booter != null || (proc != null && proc.isAlive());
+	}
+
+	/**
+	 * 在当前 JVM 中启动节点；
+	 */
+	synchronized void startInProcess() {
+		if (isRunning()) {
+			throw new IllegalStateException("Node[" + id + "] is running already!");
+		}
+		PeerServerBooter peerBooter = new PeerServerBooter(bindingConfig, host, managePort);
+		peerBooter.start();
+		booter = peerBooter;
+	}
+
+	/**
+	 * 以子进程方式启动节点；
+	 *
+	 * @param javaOptions 子进程的 JVM 参数；
+	 */
+	synchronized void startAsProcess(List<String> javaOptions) {
+		if (isRunning()) {
+			throw new IllegalStateException("Node[" + id + "] is running already!");
+		}
+		List<String> command = new ArrayList<>();
+		command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+		command.addAll(javaOptions);
+		String logConfig = System.getProperty(PeerServerBooter.LOG_CONFIG_FILE);
+		if (logConfig != null) {
+			command.add("-D" + PeerServerBooter.LOG_CONFIG_FILE + "=" + logConfig);
+		}
+		command.add("-cp");
+		command.add(System.getProperty("java.class.path"));
+		command.add(PeerServerBooter.class.getName());
+		command.add(PeerServerBooter.LEDGERBIND_ARG);
+		command.add(getBindingConfigFile().getAbsolutePath());
+		command.add("-p");
+		command.add(String.valueOf(managePort));
+
+		ProcessBuilder builder = new ProcessBuilder(command);
+		builder.directory(homeDir);
+		builder.redirectErrorStream(true);
+		builder.redirectOutput(ProcessBuilder.Redirect.appendTo(new File(homeDir, "peer.out")));
+		try {
+			process = builder.start();
+		} catch (Exception e) {
+			throw new IllegalStateException("Start node[" + id + "] process error! --" + e.getMessage(), e);
+		}
+	}
+
+	synchronized void stop() {
+		PeerServerBooter peerBooter = booter;
+		if (peerBooter != null) {
+			booter = null;
+			peerBooter.close();
+		}
+		Process proc = process;
+		if (proc != null) {
+			process = null;
+			proc.destroy();
+			try {
+				if (!proc.waitFor(PROCESS_STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+					proc.destroyForcibly();
+				}
+			} catch (InterruptedException e) {
+				proc.destroyForcibly();
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	NodeMetrics collectMetrics(HashDigest ledgerHash) {
+		String address = keypair.getAddress().toBase58();
+		PeerServerBooter peerBooter = booter;
+		if (peerBooter == null) {
+			return new NodeMetrics(id, address, isRunning(), -1, -1, -1);
+		}
+		LedgerRepository ledger = peerBooter.getLedgerService().getLedger(ledgerHash);
+		LedgerBlock latestBlock = ledger.retrieveLatestBlock();
+		return new NodeMetrics(id, address, true, latestBlock.getHeight(),
+				ledger.getTransactionSet(latestBlock).getTotalCount(), latestBlock.getTimestamp());
+	}
+}
@@ -0,0 +1,64 @@
+package com.jd.blockchain.tools.cluster;
+
+import org.apache.activemq.broker.BrokerService;
+
+/**
+ * 嵌入式的 ActiveMQ 消息服务，用于在本地运行 MQ 共识的集群；
+ * <p>
+ * 消息不持久化，仅用于测试和压测；
+ */
+public class EmbeddedBroker {
+
+	private final String host;
+
+	private final int port;
+
+	private BrokerService broker;
+
+	public EmbeddedBroker(String host, int port) {
+		this.host = host;
+		this.port = port;
+	}
+
+	/**
+	 * MQ 共识配置中使用的服务地址；
+	 *
+	 * @return
+	 */
+	public String getServerUri() {
+		return String.format("activemq://tcp://%s:%s", host, port);
+	}
+
+	public synchronized void start() {
+		if (broker != null) {
+			throw new IllegalStateException("Embedded broker is running already!");
+		}
+		try {
+			BrokerService brokerService = new BrokerService();
+			brokerService.setBrokerName("jdchain-cluster-" + port);
+			brokerService.setPersistent(false);
+			brokerService.setUseJmx(false);
+			brokerService.setUseShutdownHook(false);
+			brokerService.addConnector(String.format("tcp://%s:%s", host, port));
+			brokerService.start();
+			brokerService.waitUntilStarted();
+			broker = brokerService;
+		} catch (Exception e) {
+			throw new IllegalStateException("Start embedded broker error! --" + e.getMessage(), e);
+		}
+	}
+
+	public synchronized void stop() {
+		if (broker == null) {
+			return;
+		}
+		try {
+			broker.stop();
+			broker.waitUntilStopped();
+		} catch (Exception e) {
+			throw new IllegalStateException("Stop embedded broker error! --" + e.getMessage(), e);
+		} finally {
+			broker = null;
+		}
+	}
+}
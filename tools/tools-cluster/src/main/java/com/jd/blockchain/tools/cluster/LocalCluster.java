@@ -0,0 +1,632 @@
+package com.jd.blockchain.tools.cluster;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.jd.blockchain.crypto.HashDigest;
+import com.jd.blockchain.crypto.KeyGenUtils;
+import com.jd.blockchain.gateway.GatewayConfigProperties;
+import com.jd.blockchain.gateway.GatewayServerBooter;
+import com.jd.blockchain.ledger.BlockchainKeyGenerator;
+import com.jd.blockchain.ledger.BlockchainKeypair;
+import com.jd.blockchain.ledger.ConsensusTypeEnum;
+import com.jd.blockchain.ledger.LedgerDataStructure;
+import com.jd.blockchain.ledger.LedgerInitProperties;
+import com.jd.blockchain.ledger.PreparedTransaction;
+import com.jd.blockchain.ledger.TransactionResponse;
+import com.jd.blockchain.ledger.TransactionTemplate;
+import com.jd.blockchain.sdk.BlockchainService;
+import com.jd.blockchain.sdk.client.GatewayServiceFactory;
+import com.jd.blockchain.tools.initializer.LedgerBindingConfig;
+import com.jd.blockchain.tools.initializer.LedgerInitCommand;
+import com.jd.blockchain.tools.initializer.LocalConfig;
+import com.jd.blockchain.tools.initializer.LogPrompter;
+import com.jd.blockchain.transaction.SignatureUtils;
+
+import utils.io.FileUtils;
+
+/**
+ * 本地多节点集群；
+ * <p>
+ * 在本机启动 N 个共识节点和一个网关，用于基准测试和长稳测试：<br>
+ * 1. 生成节点密钥、共识配置和账本初始化配置，数据库使用工作目录下的 RocksDB ；<br>
+ * 2. 在当前 JVM 中并行完成账本初始化；<br>
+ * 3. 在当前 JVM 中或者以子进程方式启动节点，然后在当前 JVM 中启动网关；<br>
+ * MQ 共识使用嵌入式的 ActiveMQ 代替外部的消息服务；
+ *
+ * <pre>
+ * try (LocalCluster cluster = LocalCluster.builder().consensus(ConsensusTypeEnum.RAFT).nodes(4).build()) {
+ * 	cluster.start();
+ * 	TransactionTemplate tx = cluster.newTransaction();
+ * 	tx.dataAccounts().register(...);
+ * 	cluster.commit(tx);
+ * 	List&lt;NodeMetrics&gt; metrics = cluster.collectMetrics();
+ * }
+ * </pre>
+ */
+public class LocalCluster implements Closeable {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(LocalCluster.class);
+
+	private static final String LOCALHOST = "127.0.0.1";
+
+	private static final String DEFAULT_PASSWORD = "jdchain-cluster";
+
+	private static final String CRYPTO_PROVIDERS = "com.jd.blockchain.crypto.service.classic.ClassicCryptoService,"
+			+ "com.jd.blockchain.crypto.service.sm.SMCryptoService,"
+			+ "com.jd.blockchain.crypto.service.adv.AdvCryptoService";
+
+	/**
+	 * 每个节点占用的端口数：初始化、管理、共识（BFT-SMaRt 占用两个）；
+	 */
+	private static final int PORTS_PER_NODE = 10;
+
+	private final ConsensusTypeEnum consensus;
+
+	private final LedgerDataStructure dataStructure;
+
+	private final int nodeCount;
+
+	private final int basePort;
+
+	private final int gatewayPort;
+
+	private final File workDir;
+
+	private final boolean deleteOnClose;
+
+	private final boolean forkProcesses;
+
+	private final List<String> javaOptions;
+
+	private final long startTimeoutMillis;
+
+	private final String base58Password = KeyGenUtils.encodePasswordAsBase58(DEFAULT_PASSWORD);
+
+	private final List<ClusterNode> nodes = new ArrayList<>();
+
+	private EmbeddedBroker broker;
+
+	private GatewayServerBooter gateway;
+
+	private GatewayServiceFactory gatewayServiceFactory;
+
+	private HashDigest ledgerHash;
+
+	private volatile boolean started;
+
+	private LocalCluster(Builder builder) {
+		this.consensus = builder.consensus;
+		this.dataStructure = builder.dataStructure;
+		this.nodeCount = builder.nodes;
+		this.basePort = builder.basePort;
+		this.gatewayPort = builder.gatewayPort > 0 ? builder.gatewayPort : builder.basePort + nodeCount * PORTS_PER_NODE;
+		this.forkProcesses = builder.forkProcesses;
+		this.javaOptions = Collections.unmodifiableList(new ArrayList<>(builder.javaOptions));
+		this.startTimeoutMillis = builder.startTimeoutMillis;
+		if (builder.workDir == null) {
+			try {
+				this.workDir = Files.createTempDirectory("jdchain-cluster-").toFile();
+			} catch (IOException e) {
+				throw new IllegalStateException("Create work directory error! --" + e.getMessage(), e);
+			}
+			this.deleteOnClose = true;
+		} else {
+			this.workDir = builder.workDir;
+			this.deleteOnClose = false;
+		}
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * 初始化账本并启动全部节点和网关；
+	 */
+	public synchronized void start() {
+		if (started) {
+			throw new IllegalStateException("Local cluster is running already!");
+		}
+		FileUtils.makeDirectory(workDir.getAbsolutePath());
+		LOGGER.info("Starting local cluster... --[Consensus={}][Nodes={}][WorkDir={}]", consensus, nodeCount,
+				workDir.getAbsolutePath());
+
+		if (consensus == ConsensusTypeEnum.MQ) {
+			broker = new EmbeddedBroker(LOCALHOST, gatewayPort + 1);
+			broker.start();
+		}
+
+		createNodes();
+		File consensusConfig = writeConsensusConfig();
+		File ledgerInit = writeLedgerInit(consensusConfig);
+		ledgerHash = initLedger(ledgerInit);
+
+		for (ClusterNode node : nodes) {
+			startNode(node);
+		}
+		startGateway();
+		awaitLedgerReady();
+		started = true;
+		LOGGER.info("Local cluster started. --[LedgerHash={}][Gateway={}:{}]", ledgerHash, LOCALHOST, gatewayPort);
+	}
+
+	public HashDigest getLedgerHash() {
+		return ledgerHash;
+	}
+
+	public ConsensusTypeEnum getConsensus() {
+		return consensus;
+	}
+
+	public File getWorkDir() {
+		return workDir;
+	}
+
+	public String getGatewayHost() {
+		return LOCALHOST;
+	}
+
+	public int getGatewayPort() {
+		return gatewayPort;
+	}
+
+	public List<ClusterNode> getNodes() {
+		return Collections.unmodifiableList(nodes);
+	}
+
+	/**
+	 * 账本中拥有全部权限的用户，即第 0 个节点的参与方密钥；
+	 *
+	 * @return
+	 */
+	public BlockchainKeypair getAdminKeypair() {
+		return nodes.get(0).getKeypair();
+	}
+
+	/**
+	 * 连接网关的区块链服务；
+	 *
+	 * @return
+	 */
+	public BlockchainService getBlockchainService() {
+		checkStarted();
+		return gatewayServiceFactory.getBlockchainService();
+	}
+
+	public TransactionTemplate newTransaction() {
+		return getBlockchainService().newTransaction(ledgerHash);
+	}
+
+	/**
+	 * 使用 {@link #getAdminKeypair()} 签名并提交交易；
+	 *
+	 * @param txTemplate
+	 * @return
+	 */
+	public TransactionResponse commit(TransactionTemplate txTemplate) {
+		PreparedTransaction ptx = txTemplate.prepare();
+		ptx.addSignature(SignatureUtils.sign(ptx.getTransactionHash(), getAdminKeypair()));
+		return ptx.commit();
+	}
+
+	/**
+	 * 采集全部节点的指标；
+	 *
+	 * @return
+	 */
+	public List<NodeMetrics> collectMetrics() {
+		checkStarted();
+		List<NodeMetrics> metrics = new ArrayList<>(nodes.size());
+		for (ClusterNode node : nodes) {
+			metrics.add(node.collectMetrics(ledgerHash));
+		}
+		return metrics;
+	}
+
+	/**
+	 * 停止指定节点，用于模拟节点故障；
+	 *
+	 * @param id 节点序号；
+	 */
+	public void stopNode(int id) {
+		checkStarted();
+		nodes.get(id).stop();
+	}
+
+	/**
+	 * 重新启动已停止的节点；
+	 *
+	 * @param id 节点序号；
+	 */
+	public void restartNode(int id) {
+		checkStarted();
+		startNode(nodes.get(id));
+	}
+
+	@Override
+	public synchronized void close() {
+		started = false;
+		if (gatewayServiceFactory != null) {
+			gatewayServiceFactory.close();
+			gatewayServiceFactory = null;
+		}
+		if (gateway != null) {
+			gateway.close();
+			gateway = null;
+		}
+		for (ClusterNode node : nodes) {
+			try {
+				node.stop();
+			} catch (Exception e) {
+				LOGGER.warn("Stop node[" + node.getId() + "] error! --" + e.getMessage(), e);
+			}
+		}
+		if (broker != null) {
+			broker.stop();
+			broker = null;
+		}
+		if (deleteOnClose) {
+			FileUtils.deleteFile(workDir.getAbsolutePath());
+		}
+	}
+
+	private void checkStarted() {
+		if (!started) {
+			throw new IllegalStateException("Local cluster is not running!");
+		}
+	}
+
+	private void createNodes() {
+		nodes.clear();
+		for (int i = 0; i < nodeCount; i++) {
+			File homeDir = new File(workDir, "peer" + i);
+			FileUtils.makeDirectory(homeDir.getAbsolutePath());
+			int port = basePort + i * PORTS_PER_NODE;
+			nodes.add(new ClusterNode(i, BlockchainKeyGenerator.getInstance().generate(), homeDir, LOCALHOST, port,
+					port + 1, port + 2));
+		}
+	}
+
+	private void startNode(ClusterNode node) {
+		if (forkProcesses) {
+			node.startAsProcess(javaOptions);
+		} else {
+			node.startInProcess();
+		}
+	}
+
+	/**
+	 * 以共识模块自带的配置为模板，生成全部节点共用的共识配置；
+	 */
+	private File writeConsensusConfig() {
+		Properties props;
+		switch (consensus) {
+		case BFTSMART:
+			props = loadTemplate("bftsmart.config");
+			removeServerProperties(props);
+			props.setProperty("system.servers.num", String.valueOf(nodeCount));
+			props.setProperty("system.servers.f", String.valueOf((nodeCount - 1) / 3));
+			StringBuilder view = new StringBuilder();
+			for (ClusterNode node : nodes) {
+				if (view.length() > 0) {
+					view.append(",");
+				}
+				view.append(node.getId());
+				setServerAddress(props, node);
+			}
+			props.setProperty("system.initial.view", view.toString());
+			break;
+		case RAFT:
+			props = loadTemplate("raft.config");
+			removeServerProperties(props);
+			for (ClusterNode node : nodes) {
+				setServerAddress(props, node);
+			}
+			break;
+		case MQ:
+			props = new Properties();
+			props.setProperty("system.msg.queue.server", broker.getServerUri());
+			props.setProperty("system.msg.queue.topic.tx", "tx");
+			props.setProperty("system.msg.queue.topic.tx-result", "tx-result");
+			props.setProperty("system.msg.queue.topic.msg", "msg");
+			props.setProperty("system.msg.queue.topic.msg-result", "msg-result");
+			props.setProperty("system.msg.queue.topic.block", "block");
+			props.setProperty("system.msg.queue.block.txsize", "1000");
+			props.setProperty("system.msg.queue.block.maxdelay", "1");
+			props.setProperty("system.server.ping", "60000");
+			props.setProperty("system.servers.num", String.valueOf(nodeCount));
+			for (ClusterNode node : nodes) {
+				props.setProperty("system.server." + node.getId() + ".pubkey",
+						KeyGenUtils.encodePubKey(node.getKeypair().getPubKey()));
+				props.setProperty("system.server." + node.getId() + ".host", node.getHost());
+			}
+			break;
+		default:
+			throw new IllegalArgumentException("Unsupported consensus[" + consensus + "]!");
+		}
+		File file = new File(workDir, consensus.name().toLowerCase() + ".config");
+		storeProperties(props, file);
+		return file;
+	}
+
+	private static void removeServerProperties(Properties props) {
+		props.stringPropertyNames().stream().filter(key -> key.matches("system\\.server\\.\\d+\\..*"))
+				.forEach(props::remove);
+	}
+
+	private static void setServerAddress(Properties props, ClusterNode node) {
+		String prefix = "system.server." + node.getId() + ".network.";
+		props.setProperty(prefix + "host", node.getHost());
+		props.setProperty(prefix + "port", String.valueOf(node.getConsensusPort()));
+		props.setProperty(prefix + "secure", "false");
+	}
+
+	private File writeLedgerInit(File consensusConfig) {
+		Properties props = new Properties();
+		props.setProperty("ledger.seed", UUID.randomUUID().toString() + UUID.randomUUID().toString());
+		props.setProperty("ledger.name", "cluster");
+		props.setProperty("identity-mode", "KEYPAIR");
+		props.setProperty("root-ca-path", "");
+		props.setProperty("created-time", new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSSZ").format(new Date()));
+		props.setProperty("ledger.data.structure", dataStructure.name());
+		props.setProperty("consensus.service-provider", consensus.getProvider());
+		props.setProperty("consensus.conf", consensusConfig.getAbsolutePath());
+		props.setProperty("crypto.service-providers", CRYPTO_PROVIDERS);
+		props.setProperty("crypto.verify-hash", "true");
+		props.setProperty("crypto.hash-algorithm", "SHA256");
+		props.setProperty("cons_parti.count", String.valueOf(nodeCount));
+		for (ClusterNode node : nodes) {
+			String prefix = "cons_parti." + node.getId() + ".";
+			props.setProperty(prefix + "name", "peer" + node.getId());
+			props.setProperty(prefix + "pubkey-path", "");
+			props.setProperty(prefix + "pubkey", KeyGenUtils.encodePubKey(node.getKeypair().getPubKey()));
+			props.setProperty(prefix + "ca-path", "");
+			props.setProperty(prefix + "initializer.host", node.getHost());
+			props.setProperty(prefix + "initializer.port", String.valueOf(node.getInitializerPort()));
+			props.setProperty(prefix + "initializer.secure", "false");
+		}
+		File file = new File(workDir, "ledger.init");
+		storeProperties(props, file);
+		return file;
+	}
+
+	private File writeLocalConfig(ClusterNode node) {
+		Properties props = new Properties();
+		props.setProperty(LocalConfig.LOCAL_PARTI_PUBKEY, KeyGenUtils.encodePubKey(node.getKeypair().getPubKey()));
+		props.setProperty(LocalConfig.LOCAL_PARTI_PRIVKEY,
+				KeyGenUtils.encodePrivKey(node.getKeypair().getPrivKey(), base58Password));
+		props.setProperty(LocalConfig.LOCAL_PARTI_PWD, base58Password);
+		props.setProperty(LocalConfig.LEDGER_BINDING_OUT, node.getHomeDir().getAbsolutePath());
+		props.setProperty(LocalConfig.LEDGER_DB_URI,
+				"rocksdb://" + new File(node.getHomeDir(), "db").getAbsolutePath());
+		props.setProperty(LocalConfig.LEDGER_DB_PWD, "");
+		if (consensus == ConsensusTypeEnum.RAFT) {
+			props.setProperty(LocalConfig.EXTRA_PROPERTIES_PREFIX + "raft.path",
+					new File(node.getHomeDir(), "raft").getAbsolutePath());
+		}
+		File file = new File(node.getHomeDir(), "local.conf");
+		storeProperties(props, file);
+		return file;
+	}
+
+	/**
+	 * 全部节点并行执行账本初始化，返回新账本的哈希；
+	 */
+	private HashDigest initLedger(File ledgerInit) {
+		LedgerInitProperties initProps = LedgerInitProperties.resolve(ledgerInit.getAbsolutePath());
+		ExecutorService executor = Executors.newFixedThreadPool(nodeCount);
+		try {
+			List<Future<HashDigest>> futures = new ArrayList<>();
+			for (ClusterNode node : nodes) {
+				LocalConfig localConfig = LocalConfig.resolve(writeLocalConfig(node).getAbsolutePath());
+				futures.add(executor.submit(() -> {
+					LedgerBindingConfig bindingConfig = new LedgerBindingConfig();
+					HashDigest hash = new LedgerInitCommand().startInit(node.getId(), node.getKeypair().getPrivKey(),
+							base58Password, initProps, localConfig, new LogPrompter(), bindingConfig);
+					if (hash != null) {
+						node.setBindingConfig(bindingConfig);
+					}
+					return hash;
+				}));
+			}
+			HashDigest hash = null;
+			for (Future<HashDigest> future : futures) {
+				HashDigest nodeHash = future.get();
+				if (nodeHash == null || (hash != null && !hash.equals(nodeHash))) {
+					throw new IllegalStateException("Ledger initialization failed!");
+				}
+				hash = nodeHash;
+			}
+			return hash;
+		} catch (IllegalStateException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new IllegalStateException("Ledger initialization failed! --" + e.getMessage(), e);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private void startGateway() {
+		ClusterNode peer = nodes.get(0);
+		Properties props = new Properties();
+		props.setProperty(GatewayConfigProperties.HTTP_HOST, LOCALHOST);
+		props.setProperty(GatewayConfigProperties.HTTP_PORT, String.valueOf(gatewayPort));
+		props.setProperty(GatewayConfigProperties.HTTP_SECURE, "false");
+		props.setProperty(GatewayConfigProperties.PEER_HOST_FORMAT, peer.getHost());
+		props.setProperty(GatewayConfigProperties.PEER_PORT_FORMAT, String.valueOf(peer.getManagePort()));
+		props.setProperty(GatewayConfigProperties.PEER_SECURE_FORMAT, "false");
+		props.setProperty(GatewayConfigProperties.PEER_CONSENSUS_SECURE, "false");
+		props.setProperty(GatewayConfigProperties.TOPOLOGY_STORE, "false");
+		props.setProperty(GatewayConfigProperties.TOPOLOGY_AWARE, "true");
+		props.setProperty(GatewayConfigProperties.DEFAULT_PUBKEY,
+				KeyGenUtils.encodePubKey(peer.getKeypair().getPubKey()));
+		props.setProperty(GatewayConfigProperties.DEFAULT_PRIVKEY,
+				KeyGenUtils.encodePrivKey(peer.getKeypair().getPrivKey(), base58Password));
+		props.setProperty(GatewayConfigProperties.DEFAULT_PK_PWD, base58Password);
+
+		gateway = new GatewayServerBooter(GatewayConfigProperties.resolve(props), null);
+		gateway.start();
+		gatewayServiceFactory = GatewayServiceFactory.connect(LOCALHOST, gatewayPort, false);
+	}
+
+	/**
+	 * 等待网关连接到节点并可以访问新账本；
+	 */
+	private void awaitLedgerReady() {
+		long deadline = System.currentTimeMillis() + startTimeoutMillis;
+		Exception lastError = null;
+		while (System.currentTimeMillis() < deadline) {
+			try {
+				HashDigest[] ledgers = gatewayServiceFactory.getBlockchainService().getLedgerHashs();
+				if (ledgers != null && Arrays.asList(ledgers).contains(ledgerHash)) {
+					return;
+				}
+			} catch (Exception e) {
+				lastError = e;
+			}
+			try {
+				Thread.sleep(500);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while waiting for the local cluster!", e);
+			}
+		}
+		throw new IllegalStateException("Local cluster is not ready in " + startTimeoutMillis + " ms!", lastError);
+	}
+
+	private static Properties loadTemplate(String resource) {
+		Properties props = new Properties();
+		try (InputStream in = LocalCluster.class.getClassLoader().getResourceAsStream(resource)) {
+			if (in == null) {
+				throw new IllegalStateException("Consensus config template[" + resource + "] is not found!");
+			}
+			props.load(in);
+		} catch (IOException e) {
+			throw new IllegalStateException("Load consensus config template[" + resource + "] error!", e);
+		}
+		return props;
+	}
+
+	private static void storeProperties(Properties props, File file) {
+		try (OutputStream out = Files.newOutputStream(file.toPath())) {
+			props.store(out, null);
+		} catch (IOException e) {
+			throw new IllegalStateException("Write file[" + file.getAbsolutePath() + "] error!", e);
+		}
+	}
+
+	/**
+	 * 本地集群的构建器；
+	 */
+	public static class Builder {
+
+		private ConsensusTypeEnum consensus = ConsensusTypeEnum.BFTSMART;
+
+		private LedgerDataStructure dataStructure = LedgerDataStructure.MERKLE_TREE;
+
+		private int nodes = 4;
+
+		private int basePort = 17000;
+
+		private int gatewayPort;
+
+		private File workDir;
+
+		private boolean forkProcesses;
+
+		private List<String> javaOptions = new ArrayList<>();
+
+		private long startTimeoutMillis = 120000;
+
+		public Builder consensus(ConsensusTypeEnum consensus) {
+			this.consensus = consensus;
+			return this;
+		}
+
+		public Builder dataStructure(LedgerDataStructure dataStructure) {
+			this.dataStructure = dataStructure;
+			return this;
+		}
+
+		/**
+		 * 节点数；
+		 */
+		public Builder nodes(int nodes) {
+			this.nodes = nodes;
+			return this;
+		}
+
+		/**
+		 * 起始端口；第 i 个节点使用 [basePort + 10 * i, basePort + 10 * i + 10) 区间内的端口；
+		 */
+		public Builder basePort(int basePort) {
+			this.basePort = basePort;
+			return this;
+		}
+
+		/**
+		 * 网关端口；默认为全部节点之后的第一个端口；MQ 共识的嵌入式消息服务使用网关端口 + 1 ；
+		 */
+		public Builder gatewayPort(int gatewayPort) {
+			this.gatewayPort = gatewayPort;
+			return this;
+		}
+
+		/**
+		 * 工作目录；未指定时使用临时目录，并在关闭集群时删除；
+		 */
+		public Builder workDir(File workDir) {
+			this.workDir = workDir;
+			return this;
+		}
+
+		/**
+		 * 是否以子进程方式运行节点；默认在当前 JVM 中运行；
+		 */
+		public Builder forkProcesses(boolean forkProcesses) {
+			this.forkProcesses = forkProcesses;
+			return this;
+		}
+
+		/**
+		 * 子进程的 JVM 参数；
+		 */
+		public Builder javaOptions(String... javaOptions) {
+			this.javaOptions = Arrays.asList(javaOptions);
+			return this;
+		}
+
+		public Builder startTimeoutMillis(long startTimeoutMillis) {
+			this.startTimeoutMillis = startTimeoutMillis;
+			return this;
+		}
+
+		public LocalCluster build() {
+			if (nodes < consensus.getMinimalNodeSize()) {
+				throw new IllegalArgumentException(String.format("Consensus %s requires at least %s nodes!",
+						consensus, consensus.getMinimalNodeSize()));
+			}
+			return new LocalCluster(this);
+		}
+	}
+}
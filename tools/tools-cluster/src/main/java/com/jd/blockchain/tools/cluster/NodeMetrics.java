@@ -0,0 +1,86 @@
+package com.jd.blockchain.tools.cluster;
+
+/**
+ * 集群中单个节点的指标快照；
+ * <p>
+ * 以子进程方式运行的节点无法直接读取账本，只报告运行状态，其账本相关的指标为 -1 ；
+ */
+public class NodeMetrics {
+
+	private final int id;
+
+	private final String address;
+
+	private final boolean running;
+
+	private final long blockHeight;
+
+	private final long transactionCount;
+
+	private final long latestBlockTime;
+
+	private final long timestamp;
+
+	public NodeMetrics(int id, String address, boolean running, long blockHeight, long transactionCount,
+			long latestBlockTime) {
+		this.id = id;
+		this.address = address;
+		this.running = running;
+		this.blockHeight = blockHeight;
+		this.transactionCount = transactionCount;
+		this.latestBlockTime = latestBlockTime;
+		this.timestamp = System.currentTimeMillis();
+	}
+
+	/**
+	 * 节点在参与方列表中的序号；
+	 */
+	public int getId() {
+		return id;
+	}
+
+	/**
+	 * 节点的参与方地址；
+	 */
+	public String getAddress() {
+		return address;
+	}
+
+	public boolean isRunning() {
+		return running;
+	}
+
+	/**
+	 * 最新区块高度；
+	 */
+	public long getBlockHeight() {
+		return blockHeight;
+	}
+
+	/**
+	 * 账本的交易总数；
+	 */
+	public long getTransactionCount() {
+		return transactionCount;
+	}
+
+	/**
+	 * 最新区块的生成时间；
+	 */
+	public long getLatestBlockTime() {
+		return latestBlockTime;
+	}
+
+	/**
+	 * 采集指标的时间；
+	 */
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("[Node=%s][Address=%s][Running=%s][BlockHeight=%s][TxCount=%s]", id, address, running,
+				blockHeight, transactionCount);
+	}
+}
@@ -0,0 +1,42 @@
+package test.com.jd.blockchain.tools.cluster;
+
+import com.jd.blockchain.ledger.BlockchainKeyGenerator;
+import com.jd.blockchain.ledger.ConsensusTypeEnum;
+import com.jd.blockchain.ledger.TransactionTemplate;
+import com.jd.blockchain.tools.cluster.LocalCluster;
+import com.jd.blockchain.tools.cluster.NodeMetrics;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class LocalClusterTest {
+
+	@Test
+	public void testStartAndStop() {
+		File workDir;
+		try (LocalCluster cluster = LocalCluster.builder().consensus(ConsensusTypeEnum.BFTSMART).nodes(4)
+				.basePort(19000).build()) {
+			cluster.start();
+			workDir = cluster.getWorkDir();
+			assertNotNull(cluster.getLedgerHash());
+
+			TransactionTemplate tx = cluster.newTransaction();
+			tx.users().register(BlockchainKeyGenerator.getInstance().generate().getIdentity());
+			assertTrue(cluster.commit(tx).isSuccess());
+
+			List<NodeMetrics> metrics = cluster.collectMetrics();
+			assertEquals(4, metrics.size());
+			for (NodeMetrics node : metrics) {
+				assertTrue(node.isRunning());
+			}
+		}
+		// 使用临时工作目录时关闭集群后删除；
+		assertFalse(workDir.exists());
+	}
+}
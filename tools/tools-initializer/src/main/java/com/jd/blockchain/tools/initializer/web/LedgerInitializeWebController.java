@@ -236,7 +236,7 @@ public class LedgerInitializeWebController implements LedgerInitProcess, LedgerI
 	}
 
 	private void initLedgerStructureVersion(LedgerInitConfiguration initConfig) {
-		initConfig.getLedgerSettings().setLedgerStructureVersion(LedgerStructureConfig.VERSION);
+		initConfig.getLedgerSettings().setLedgerStructureVersion(LedgerStructureConfig.initVersion());
 	}
 
 	public HashDigest consensusDecisions(PrivKey privKey) {
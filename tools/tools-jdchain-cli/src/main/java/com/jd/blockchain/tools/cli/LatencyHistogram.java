@@ -0,0 +1,138 @@
+package com.jd.blockchain.tools.cli;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * @description: 对数-线性分桶的延迟直方图（微秒），线程安全；
+ * 每个 2 的幂区间内等分为 64 个桶，记录的误差不超过 1/64；
+ * @date: 2026/10/19
+ **/
+class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 6;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * 小于 2^(MAX_SHIFT + 7) 即 2^47 微秒的值按精度分桶，超过的记入最后一个桶；
+     */
+    private static final int MAX_SHIFT = 40;
+
+    private static final int BUCKETS = (MAX_SHIFT + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    private final AtomicLong totalCount = new AtomicLong();
+
+    private final AtomicLong totalValue = new AtomicLong();
+
+    private final AtomicLong minValue = new AtomicLong(Long.MAX_VALUE);
+
+    private final AtomicLong maxValue = new AtomicLong(0);
+
+    public void record(long micros) {
+        long value = Math.max(0, micros);
+        counts.incrementAndGet(indexOf(value));
+        totalCount.incrementAndGet();
+        totalValue.addAndGet(value);
+        long min;
+        while (value < (min = minValue.get()) && !minValue.compareAndSet(min, value)) {
+        }
+        long max;
+        while (value > (max = maxValue.get()) && !maxValue.compareAndSet(max, value)) {
+        }
+    }
+
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            long c = other.counts.get(i);
+            if (c > 0) {
+                counts.addAndGet(i, c);
+            }
+        }
+        totalCount.addAndGet(other.totalCount.get());
+        totalValue.addAndGet(other.totalValue.get());
+        long min;
+        long otherMin = other.minValue.get();
+        while (otherMin < (min = minValue.get()) && !minValue.compareAndSet(min, otherMin)) {
+        }
+        long max;
+        long otherMax = other.maxValue.get();
+        while (otherMax > (max = maxValue.get()) && !maxValue.compareAndSet(max, otherMax)) {
+        }
+    }
+
+    public long getCount() {
+        return totalCount.get();
+    }
+
+    /**
+     * 返回指定百分位的延迟，取所在桶的上界，与 HDR Histogram 的 highest equivalent value 一致；
+     *
+     * @param percentile 0 ~ 100
+     * @return
+     */
+    public long getValueAtPercentile(double percentile) {
+        long count = totalCount.get();
+        if (count == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(Math.min(percentile, 100.0) / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                // 最后一个桶记录全部超出范围的值，没有上界；
+                return i == BUCKETS - 1 ? maxValue.get() : Math.min(highestEquivalentValue(i), maxValue.get());
+            }
+        }
+        return maxValue.get();
+    }
+
+    /**
+     * 输出统计结果，延迟单位为毫秒；
+     *
+     * @return
+     */
+    public Map<String, Object> summary() {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        long count = totalCount.get();
+        summary.put("count", count);
+        summary.put("min", toMillis(count == 0 ? 0 : minValue.get()));
+        summary.put("mean", count == 0 ? 0 : toMillis(totalValue.get() / count));
+        summary.put("p50", toMillis(getValueAtPercentile(50)));
+        summary.put("p90", toMillis(getValueAtPercentile(90)));
+        summary.put("p99", toMillis(getValueAtPercentile(99)));
+        summary.put("p99.9", toMillis(getValueAtPercentile(99.9)));
+        summary.put("p99.99", toMillis(getValueAtPercentile(99.99)));
+        summary.put("max", toMillis(maxValue.get()));
+        return summary;
+    }
+
+    private static double toMillis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static int indexOf(long value) {
+        if (value < (SUB_BUCKETS << 1)) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        if (shift > MAX_SHIFT) {
+            return BUCKETS - 1;
+        }
+        return shift * SUB_BUCKETS + (int) (value >>> shift);
+    }
+
+    private static long highestEquivalentValue(int index) {
+        if (index < (SUB_BUCKETS << 1)) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long mantissa = index - (long) shift * SUB_BUCKETS;
+        return ((mantissa + 1) << shift) - 1;
+    }
+}
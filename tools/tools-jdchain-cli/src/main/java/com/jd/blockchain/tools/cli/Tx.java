@@ -62,6 +62,7 @@ import java.util.concurrent.atomic.AtomicLong;
                 TxSign.class,
                 TxSend.class,
                 TxTestKV.class,
+                TxPerf.class,
                 TxConsensusSwitch.class,
                 TxHashAlgorithmSwitch.class,
                 CommandLine.HelpCommand.class
@@ -123,17 +124,26 @@ public class Tx implements Runnable {
 
     GatewayBlockchainServiceProxy getChainService() {
         if (null == blockchainService) {
-            if (gwSecure) {
-                GmSSLProvider.enableGMSupport(protocol);
-                blockchainService = (GatewayBlockchainServiceProxy) GatewayServiceFactory.connect(gwHost, gwPort, gwSecure, new SSLSecurity(keyStoreType, keyStore, keyAlias, keyStorePassword,
-                        trustStore, trustStorePassword, trustStoreType, protocol, enabledProtocols, ciphers, hostNameVerifier)).getBlockchainService();
-            } else {
-                blockchainService = (GatewayBlockchainServiceProxy) GatewayServiceFactory.connect(gwHost, gwPort, gwSecure).getBlockchainService();
-            }
+            blockchainService = connect();
         }
         return blockchainService;
     }
 
+    /**
+     * 创建新的网关连接
+     *
+     * @return
+     */
+    GatewayBlockchainServiceProxy connect() {
+        if (gwSecure) {
+            GmSSLProvider.enableGMSupport(protocol);
+            return (GatewayBlockchainServiceProxy) GatewayServiceFactory.connect(gwHost, gwPort, gwSecure, new SSLSecurity(keyStoreType, keyStore, keyAlias, keyStorePassword,
+                    trustStore, trustStorePassword, trustStoreType, protocol, enabledProtocols, ciphers, hostNameVerifier)).getBlockchainService();
+        } else {
+            return (GatewayBlockchainServiceProxy) GatewayServiceFactory.connect(gwHost, gwPort, gwSecure).getBlockchainService();
+        }
+    }
+
     HashDigest selectLedger() {
         HashDigest[] ledgers = getChainService().getLedgerHashs();
 
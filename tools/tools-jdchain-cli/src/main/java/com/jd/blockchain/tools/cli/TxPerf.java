@@ -0,0 +1,675 @@
+package com.jd.blockchain.tools.cli;
+
+import com.jd.blockchain.crypto.HashDigest;
+import com.jd.blockchain.ledger.*;
+import com.jd.blockchain.sdk.client.GatewayBlockchainServiceProxy;
+import com.jd.blockchain.transaction.*;
+import picocli.CommandLine;
+import utils.Bytes;
+import utils.StringUtils;
+import utils.serialize.json.JSONSerializeUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * @description: 开环压测工具；
+ * 按照固定速率（或逐级递增的速率）发出交易，延迟从计划发送时刻开始计算，避免闭环压测的协同遗漏（coordinated omission）；
+ * @date: 2026/10/19
+ **/
+@CommandLine.Command(name = "perf", mixinStandardHelpOptions = true, showDefaultValues = true,
+        header = "Open-loop load test, reporting latency percentiles.")
+class TxPerf implements Runnable {
+
+    @CommandLine.Option(names = "--rate", description = "Target transactions per second of the first step", defaultValue = "100")
+    int rate;
+
+    @CommandLine.Option(names = "--duration", description = "Duration seconds of each step", defaultValue = "60")
+    int duration;
+
+    @CommandLine.Option(names = "--ramp-steps", description = "Number of steps, 1 for constant rate", defaultValue = "1")
+    int rampSteps;
+
+    @CommandLine.Option(names = "--ramp-rate", description = "Transactions per second increased by each step", defaultValue = "0")
+    int rampRate;
+
+    @CommandLine.Option(names = "--connections", description = "Number of gateway connections", defaultValue = "1")
+    int connections;
+
+    @CommandLine.Option(names = "--concurrency", description = "Max in-flight transactions of all connections", defaultValue = "64")
+    int concurrency;
+
+    @CommandLine.Option(names = "--mix", split = ",", description = "Operation mix as name:weight, names: kv,contract,user,data-account,event", defaultValue = "kv:100")
+    String[] mix;
+
+    @CommandLine.Option(names = "--key-distribution", description = "Key distribution, options: ${COMPLETION-CANDIDATES}", defaultValue = "UNIFORM")
+    KeyDistribution keyDistribution;
+
+    @CommandLine.Option(names = "--keys", description = "Size of the key space", defaultValue = "100000")
+    int keys;
+
+    @CommandLine.Option(names = "--key-prefix", description = "Prefix of the keys, random by default; versions of existing keys are read from the ledger")
+    String keyPrefix;
+
+    @CommandLine.Option(names = "--zipf-theta", description = "Skew of the ZIPFIAN distribution", defaultValue = "0.99")
+    double zipfTheta;
+
+    @CommandLine.Option(names = "--hot-keys", description = "Fraction of hot keys of the HOTSET distribution", defaultValue = "0.01")
+    double hotKeys;
+
+    @CommandLine.Option(names = "--hot-access", description = "Fraction of accesses to hot keys of the HOTSET distribution", defaultValue = "0.9")
+    double hotAccess;
+
+    @CommandLine.Option(names = "--address", description = "Data account address for kv")
+    String address;
+
+    @CommandLine.Option(names = "--contract-address", description = "Contract address")
+    String contractAddress;
+
+    @CommandLine.Option(names = "--contract-method", description = "Contract method")
+    String contractMethod;
+
+    @CommandLine.Option(names = "--contract-args", split = ",", description = "Contract method arguments, {key} will be replaced by the chosen key")
+    String[] contractArgs;
+
+    @CommandLine.Option(names = "--event-address", description = "Event account address")
+    String eventAddress;
+
+    @CommandLine.Option(names = "--output", description = "Json result file, print to console if absent")
+    String output;
+
+    @CommandLine.ParentCommand
+    private Tx txCommand;
+
+    private HashDigest ledger;
+
+    private BlockchainKeypair signer;
+
+    private GatewayBlockchainServiceProxy[] services;
+
+    private OperationMix operations;
+
+    private KeyChooser keyChooser;
+
+    /**
+     * 已写入的键（事件名）的最新版本，用于构造正确的写入版本；
+     * <p>
+     * 每个键只由一个工作槽位写入（见 {@link #partitionKey(long, int, int, int)}），同一个键不会同时有两笔交易，客户端维护的版本不会相互冲突；
+     * 交易失败或结果未知时版本记为 {@link #UNKNOWN_VERSION} ，下次写入前从账本读取；
+     */
+    private final Map<String, Long> versions = new ConcurrentHashMap<>();
+
+    private static final long UNKNOWN_VERSION = Long.MIN_VALUE;
+
+    /**
+     * 空闲的工作槽位，数量与 concurrency 相同；
+     */
+    private final Queue<Integer> freeSlots = new ConcurrentLinkedQueue<>();
+
+    /**
+     * 使用指定的键前缀时键可能已经存在，首次写入前从账本读取版本；
+     */
+    private boolean existingKeys;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Override
+    public void run() {
+        if (rate <= 0 || duration <= 0 || rampSteps <= 0 || connections <= 0 || concurrency <= 0 || keys <= 0) {
+            System.err.println("rate, duration, ramp-steps, connections, concurrency and keys must be positive");
+            return;
+        }
+        try {
+            operations = OperationMix.parse(mix);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            return;
+        }
+        if (operations.contains(Operation.KV) && StringUtils.isEmpty(address)) {
+            System.err.println("address is required by kv operation");
+            return;
+        }
+        if (operations.contains(Operation.CONTRACT) && (StringUtils.isEmpty(contractAddress) || StringUtils.isEmpty(contractMethod))) {
+            System.err.println("contract-address and contract-method are required by contract operation");
+            return;
+        }
+        if (operations.contains(Operation.EVENT) && StringUtils.isEmpty(eventAddress)) {
+            System.err.println("event-address is required by event operation");
+            return;
+        }
+        if ((operations.contains(Operation.KV) || operations.contains(Operation.EVENT)) && keys < concurrency) {
+            System.err.println("keys must not be less than concurrency for kv and event operations");
+            return;
+        }
+        existingKeys = !StringUtils.isEmpty(keyPrefix);
+        if (!existingKeys) {
+            keyPrefix = "perf-" + UUID.randomUUID().toString().substring(0, 8) + "-";
+        }
+        for (int i = 0; i < concurrency; i++) {
+            freeSlots.add(i);
+        }
+        keyChooser = KeyChooser.create(keyDistribution, keys, zipfTheta, hotKeys, hotAccess);
+
+        ledger = txCommand.selectLedger();
+        signer = txCommand.signer();
+        if (null == signer) {
+            return;
+        }
+        services = new GatewayBlockchainServiceProxy[connections];
+        for (int i = 0; i < connections; i++) {
+            services[i] = txCommand.connect();
+        }
+
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        Semaphore inflight = new Semaphore(concurrency);
+        List<StepResult> steps = new ArrayList<>();
+        StepResult total = new StepResult(0);
+        try {
+            for (int i = 0; i < rampSteps; i++) {
+                StepResult step = runStep(rate + i * rampRate, workers, inflight);
+                steps.add(step);
+                total.add(step);
+                System.out.printf("step: %d, target tps: %d, achieved tps: %.1f, success: %d, failed: %d, errors: %d, p50: %.3f ms, p99: %.3f ms, max: %.3f ms%n",
+                        i + 1, step.targetRate, step.achievedRate(), step.success.sum(), step.failed.sum(), step.errors.sum(),
+                        step.latency.getValueAtPercentile(50) / 1000.0, step.latency.getValueAtPercentile(99) / 1000.0,
+                        step.latency.getValueAtPercentile(100) / 1000.0);
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("keyPrefix", keyPrefix);
+        result.put("keyDistribution", keyDistribution);
+        result.put("keys", keys);
+        result.put("effectiveKeyDistribution", effectiveKeyDistribution());
+        result.put("connections", connections);
+        result.put("concurrency", concurrency);
+        result.put("mix", operations.toMap());
+        List<Map<String, Object>> stepList = new ArrayList<>();
+        for (StepResult step : steps) {
+            stepList.add(step.toMap());
+        }
+        result.put("steps", stepList);
+        result.put("total", total.toMap());
+        String json = JSONSerializeUtils.serializeToJSON(result, txCommand.jdChainCli.pretty);
+        if (StringUtils.isEmpty(output)) {
+            System.out.println(json);
+        } else {
+            try {
+                Files.write(new File(output).toPath(), json.getBytes(StandardCharsets.UTF_8));
+                System.out.println("result: " + new File(output).getAbsolutePath());
+            } catch (IOException e) {
+                System.err.println("write result failed: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 以固定速率发出交易；
+     * <p>
+     * 发送时刻按照速率预先排定，不受应答快慢的影响；在途交易达到上限时推迟发送，但延迟仍从排定时刻开始计算；
+     * 每笔交易占用一个空闲的工作槽位，获得许可时必然有空闲的槽位；
+     */
+    private StepResult runStep(int targetRate, ExecutorService workers, Semaphore inflight) {
+        StepResult step = new StepResult(targetRate);
+        long periodNanos = 1_000_000_000L / targetRate;
+        long start = System.nanoTime();
+        long end = start + duration * 1_000_000_000L;
+        for (long n = 0; ; n++) {
+            final long intended = start + n * periodNanos;
+            if (intended >= end) {
+                break;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            inflight.acquireUninterruptibly();
+            final int slot = freeSlots.poll();
+            final Operation operation = operations.next();
+            final GatewayBlockchainServiceProxy service = services[(int) (sequence.getAndIncrement() % connections)];
+            step.sent.increment();
+            try {
+                workers.execute(() -> {
+                    try {
+                        execute(service, operation, slot, intended, step);
+                    } finally {
+                        freeSlots.add(slot);
+                        inflight.release();
+                    }
+                });
+            } catch (RuntimeException e) {
+                freeSlots.add(slot);
+                inflight.release();
+                throw e;
+            }
+        }
+        // 等待在途交易全部完成；
+        inflight.acquireUninterruptibly(concurrency);
+        inflight.release(concurrency);
+        step.elapsedNanos = System.nanoTime() - start;
+        return step;
+    }
+
+    private void execute(GatewayBlockchainServiceProxy service, Operation operation, int slot, long intended, StepResult step) {
+        String versionKey = null;
+        long version = -1;
+        try {
+            TransactionTemplate txTemp = service.newTransaction(ledger);
+            String key = keyPrefix + partitionKey(keyChooser.next(), slot, concurrency, keys);
+            switch (operation) {
+                case KV:
+                    versionKey = key;
+                    version = currentVersion(service, operation, key, versionKey);
+                    txTemp.dataAccount(address).setText(key, String.valueOf(intended), version);
+                    break;
+                case CONTRACT:
+                    TypedValue[] tvs = new TypedValue[null != contractArgs ? contractArgs.length : 0];
+                    for (int i = 0; i < tvs.length; i++) {
+                        tvs[i] = TypedValue.fromText(contractArgs[i].replace("{key}", key));
+                    }
+                    txTemp.contract(Bytes.fromBase58(contractAddress)).invoke(contractMethod, new BytesDataList(tvs), -1);
+                    break;
+                case USER:
+                    txTemp.users().register(BlockchainKeyGenerator.getInstance().generate().getIdentity());
+                    break;
+                case DATA_ACCOUNT:
+                    txTemp.dataAccounts().register(BlockchainKeyGenerator.getInstance().generate().getIdentity());
+                    break;
+                case EVENT:
+                    versionKey = "event:" + key;
+                    version = currentVersion(service, operation, key, versionKey);
+                    txTemp.eventAccount(eventAddress).publish(key, String.valueOf(intended), version);
+                    break;
+                default:
+                    throw new IllegalArgumentException("unsupported operation: " + operation);
+            }
+            PreparedTransaction ptx = txTemp.prepare();
+            ptx.addSignature(SignatureUtils.sign(ptx.getTransactionHash(), signer));
+            TransactionResponse response = ptx.commit();
+            long latency = (System.nanoTime() - intended) / 1000;
+            step.record(operation, latency, response.getExecutionState().toString());
+            if (response.isSuccess()) {
+                step.success.increment();
+                if (null != versionKey) {
+                    versions.put(versionKey, version + 1);
+                }
+            } else {
+                step.failed.increment();
+                if (null != versionKey) {
+                    versions.put(versionKey, UNKNOWN_VERSION);
+                }
+            }
+        } catch (Exception e) {
+            step.recordError((System.nanoTime() - intended) / 1000);
+            if (null != versionKey) {
+                versions.put(versionKey, UNKNOWN_VERSION);
+            }
+        }
+    }
+
+    /**
+     * 键的当前版本；版本未知时从账本读取；
+     */
+    private long currentVersion(GatewayBlockchainServiceProxy service, Operation operation, String key, String versionKey) {
+        Long version = versions.get(versionKey);
+        if (null == version) {
+            if (!existingKeys) {
+                return -1;
+            }
+        } else if (version != UNKNOWN_VERSION) {
+            return version;
+        }
+        if (operation == Operation.KV) {
+            TypedKVEntry[] entries = service.getDataEntries(ledger, address, key);
+            return null != entries && entries.length > 0 && null != entries[0] ? entries[0].getVersion() : -1;
+        }
+        Event event = service.getLatestEvent(ledger, eventAddress, key);
+        return null != event ? event.getSequence() : -1;
+    }
+
+    /**
+     * 实际生效的键分布，见 {@link #partitionKey(long, int, int, int)}；
+     */
+    private Map<String, Object> effectiveKeyDistribution() {
+        Map<String, Object> distribution = new LinkedHashMap<>();
+        distribution.put("distribution", keyDistribution);
+        distribution.put("groups", (keys + concurrency - 1) / concurrency);
+        distribution.put("groupSize", concurrency);
+        return distribution;
+    }
+
+    /**
+     * 把选中的键序号映射为工作槽位独占的键：槽位 slot 只使用序号模 partitions 等于 slot 的键；
+     * <p>
+     * 所选分布只决定键所在的组（连续 partitions 个键为一组），组内的键由槽位决定，因此实际的分布是按组粒度的所选分布，组内均匀；
+     * 例如 ZIPFIAN 下最热的键 0 的访问会分散到第一组的 partitions 个键上，单个键上的冲突比所选分布低；
+     * 实际分布在结果的 effectiveKeyDistribution 中输出；
+     *
+     * @param index      按分布选中的键序号；
+     * @param slot       工作槽位，小于 partitions ；
+     * @param partitions 槽位数，不大于 keys ；
+     * @param keys       键空间的大小；
+     * @return
+     */
+    static long partitionKey(long index, int slot, int partitions, int keys) {
+        long key = index - index % partitions + slot;
+        return key < keys ? key : key - partitions;
+    }
+
+    enum Operation {
+        KV("kv"),
+        CONTRACT("contract"),
+        USER("user"),
+        DATA_ACCOUNT("data-account"),
+        EVENT("event");
+
+        private final String name;
+
+        Operation(String name) {
+            this.name = name;
+        }
+
+        static Operation of(String name) {
+            for (Operation operation : values()) {
+                if (operation.name.equalsIgnoreCase(name)) {
+                    return operation;
+                }
+            }
+            throw new IllegalArgumentException("unknown operation: " + name);
+        }
+    }
+
+    enum KeyDistribution {
+        UNIFORM,
+        ZIPFIAN,
+        HOTSET
+    }
+
+    /**
+     * 按权重选择操作；
+     */
+    static class OperationMix {
+
+        private final Operation[] operations;
+
+        private final int[] cumulativeWeights;
+
+        private OperationMix(Operation[] operations, int[] cumulativeWeights) {
+            this.operations = operations;
+            this.cumulativeWeights = cumulativeWeights;
+        }
+
+        static OperationMix parse(String[] mix) {
+            Operation[] operations = new Operation[mix.length];
+            int[] cumulativeWeights = new int[mix.length];
+            int total = 0;
+            for (int i = 0; i < mix.length; i++) {
+                String[] nameAndWeight = mix[i].trim().split(":");
+                operations[i] = Operation.of(nameAndWeight[0].trim());
+                int weight;
+                try {
+                    weight = nameAndWeight.length > 1 ? Integer.parseInt(nameAndWeight[1].trim()) : 1;
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("invalid weight: " + mix[i]);
+                }
+                if (weight < 0) {
+                    throw new IllegalArgumentException("invalid weight: " + mix[i]);
+                }
+                total += weight;
+                cumulativeWeights[i] = total;
+            }
+            if (total <= 0) {
+                throw new IllegalArgumentException("total weight of the mix must be positive");
+            }
+            return new OperationMix(operations, cumulativeWeights);
+        }
+
+        boolean contains(Operation operation) {
+            for (int i = 0; i < operations.length; i++) {
+                int weight = cumulativeWeights[i] - (i > 0 ? cumulativeWeights[i - 1] : 0);
+                if (operations[i] == operation && weight > 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        Operation next() {
+            int r = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+            for (int i = 0; i < cumulativeWeights.length; i++) {
+                if (r < cumulativeWeights[i]) {
+                    return operations[i];
+                }
+            }
+            return operations[operations.length - 1];
+        }
+
+        Map<String, Integer> toMap() {
+            Map<String, Integer> map = new LinkedHashMap<>();
+            for (int i = 0; i < operations.length; i++) {
+                map.merge(operations[i].name, cumulativeWeights[i] - (i > 0 ? cumulativeWeights[i - 1] : 0), Integer::sum);
+            }
+            return map;
+        }
+    }
+
+    /**
+     * 按照指定分布选择键的序号；
+     */
+    abstract static class KeyChooser {
+
+        protected final int keys;
+
+        KeyChooser(int keys) {
+            this.keys = keys;
+        }
+
+        abstract long next();
+
+        static KeyChooser create(KeyDistribution distribution, int keys, double theta, double hotKeys, double hotAccess) {
+            switch (distribution) {
+                case ZIPFIAN:
+                    return new ZipfianKeyChooser(keys, theta);
+                case HOTSET:
+                    return new HotSetKeyChooser(keys, hotKeys, hotAccess);
+                default:
+                    return new UniformKeyChooser(keys);
+            }
+        }
+    }
+
+    static class UniformKeyChooser extends KeyChooser {
+
+        UniformKeyChooser(int keys) {
+            super(keys);
+        }
+
+        @Override
+        long next() {
+            return ThreadLocalRandom.current().nextInt(keys);
+        }
+    }
+
+    /**
+     * 小部分热点键承担大部分访问；
+     */
+    static class HotSetKeyChooser extends KeyChooser {
+
+        private final int hotCount;
+
+        private final double hotAccess;
+
+        HotSetKeyChooser(int keys, double hotKeys, double hotAccess) {
+            super(keys);
+            this.hotCount = (int) Math.min(keys, Math.max(1, Math.round(keys * hotKeys)));
+            this.hotAccess = hotAccess;
+        }
+
+        @Override
+        long next() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            if (hotCount >= keys || random.nextDouble() < hotAccess) {
+                return random.nextInt(hotCount);
+            }
+            return hotCount + random.nextInt(keys - hotCount);
+        }
+    }
+
+    /**
+     * Zipf 分布，算法参考 Gray 等人的 "Quickly Generating Billion-Record Synthetic Databases"；序号越小越热；
+     */
+    static class ZipfianKeyChooser extends KeyChooser {
+
+        private final double theta;
+
+        private final double zetan;
+
+        private final double alpha;
+
+        private final double eta;
+
+        ZipfianKeyChooser(int keys, double theta) {
+            super(keys);
+            if (theta <= 0 || theta >= 1) {
+                throw new IllegalArgumentException("zipf-theta must be in (0, 1)");
+            }
+            this.theta = theta;
+            this.zetan = zeta(keys, theta);
+            this.alpha = 1.0 / (1.0 - theta);
+            this.eta = (1 - Math.pow(2.0 / keys, 1 - theta)) / (1 - zeta(2, theta) / zetan);
+        }
+
+        private static double zeta(long n, double theta) {
+            double sum = 0;
+            for (long i = 1; i <= n; i++) {
+                sum += 1 / Math.pow(i, theta);
+            }
+            return sum;
+        }
+
+        @Override
+        long next() {
+            double u = ThreadLocalRandom.current().nextDouble();
+            double uz = u * zetan;
+            if (uz < 1.0) {
+                return 0;
+            }
+            if (uz < 1.0 + Math.pow(0.5, theta)) {
+                return Math.min(1, keys - 1);
+            }
+            return Math.min(keys - 1, (long) (keys * Math.pow(eta * u - eta + 1, alpha)));
+        }
+    }
+
+    /**
+     * 单个速率阶段的统计结果；
+     */
+    static class StepResult {
+
+        private final int targetRate;
+
+        private long elapsedNanos;
+
+        private final LongAdder sent = new LongAdder();
+
+        private final LongAdder success = new LongAdder();
+
+        private final LongAdder failed = new LongAdder();
+
+        private final LongAdder errors = new LongAdder();
+
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        /**
+         * 出错（未拿到交易结果）的请求从计划发送时间到出错的耗时，不计入 {@link #latency} ；
+         */
+        private final LatencyHistogram errorLatency = new LatencyHistogram();
+
+        private final Map<Operation, LatencyHistogram> operationLatencies = new ConcurrentHashMap<>();
+
+        private final Map<String, LongAdder> states = new ConcurrentHashMap<>();
+
+        StepResult(int targetRate) {
+            this.targetRate = targetRate;
+        }
+
+        void record(Operation operation, long latencyMicros, String state) {
+            latency.record(latencyMicros);
+            operationLatencies.computeIfAbsent(operation, k -> new LatencyHistogram()).record(latencyMicros);
+            states.computeIfAbsent(state, k -> new LongAdder()).increment();
+        }
+
+        void recordError(long latencyMicros) {
+            errors.increment();
+            errorLatency.record(latencyMicros);
+        }
+
+        void add(StepResult other) {
+            elapsedNanos += other.elapsedNanos;
+            sent.add(other.sent.sum());
+            success.add(other.success.sum());
+            failed.add(other.failed.sum());
+            errors.add(other.errors.sum());
+            latency.add(other.latency);
+            errorLatency.add(other.errorLatency);
+            for (Map.Entry<Operation, LatencyHistogram> entry : other.operationLatencies.entrySet()) {
+                operationLatencies.computeIfAbsent(entry.getKey(), k -> new LatencyHistogram()).add(entry.getValue());
+            }
+            for (Map.Entry<String, LongAdder> entry : other.states.entrySet()) {
+                states.computeIfAbsent(entry.getKey(), k -> new LongAdder()).add(entry.getValue().sum());
+            }
+        }
+
+        double achievedRate() {
+            return elapsedNanos > 0 ? latency.getCount() * 1_000_000_000.0 / elapsedNanos : 0;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            if (targetRate > 0) {
+                map.put("targetTps", targetRate);
+            }
+            map.put("achievedTps", achievedRate());
+            map.put("elapsedMillis", elapsedNanos / 1_000_000);
+            map.put("sent", sent.sum());
+            map.put("success", success.sum());
+            map.put("failed", failed.sum());
+            map.put("errors", errors.sum());
+            Map<String, Long> stateCounts = new LinkedHashMap<>();
+            for (Map.Entry<String, LongAdder> entry : states.entrySet()) {
+                stateCounts.put(entry.getKey(), entry.getValue().sum());
+            }
+            map.put("states", stateCounts);
+            map.put("latency", latency.summary());
+            map.put("errorLatency", errorLatency.summary());
+            Map<String, Object> operations = new LinkedHashMap<>();
+            for (Operation operation : Operation.values()) {
+                LatencyHistogram histogram = operationLatencies.get(operation);
+                if (null != histogram) {
+                    operations.put(operation.name, histogram.summary());
+                }
+            }
+            map.put("operations", operations);
+            return map;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.jd.blockchain.tools.cli;
+
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testEmpty() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getValueAtPercentile(50));
+        assertEquals(0, histogram.getValueAtPercentile(100));
+    }
+
+    /**
+     * 小于 128 的值精确分桶；
+     */
+    @Test
+    public void testExactPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+        assertEquals(100, histogram.getCount());
+        assertEquals(1, histogram.getValueAtPercentile(0));
+        assertEquals(50, histogram.getValueAtPercentile(50));
+        assertEquals(90, histogram.getValueAtPercentile(90));
+        assertEquals(99, histogram.getValueAtPercentile(99));
+        assertEquals(100, histogram.getValueAtPercentile(100));
+    }
+
+    /**
+     * 返回值不小于实际的百分位值，误差不超过 1/64 ；
+     */
+    @Test
+    public void testPercentileError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1_000_000; i++) {
+            histogram.record(i);
+        }
+        double[] percentiles = {50, 90, 99, 99.9, 99.99};
+        for (double percentile : percentiles) {
+            long expected = (long) Math.ceil(percentile / 100 * 1_000_000);
+            long actual = histogram.getValueAtPercentile(percentile);
+            assertTrue(percentile + ": " + actual, actual >= expected);
+            assertTrue(percentile + ": " + actual, actual <= expected + expected / 64);
+        }
+        assertEquals(1_000_000, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void testOutOfRange() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE / 2);
+        assertEquals(0, histogram.getValueAtPercentile(50));
+        assertEquals(Long.MAX_VALUE / 2, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void testAdd() {
+        LatencyHistogram h1 = new LatencyHistogram();
+        LatencyHistogram h2 = new LatencyHistogram();
+        for (int i = 1; i <= 50; i++) {
+            h1.record(i);
+            h2.record(i + 50);
+        }
+        h1.add(h2);
+        assertEquals(100, h1.getCount());
+        assertEquals(50, h1.getValueAtPercentile(50));
+        assertEquals(100, h1.getValueAtPercentile(100));
+
+        Map<String, Object> summary = h1.summary();
+        assertEquals(100L, summary.get("count"));
+        assertEquals(0.001, (Double) summary.get("min"), 0);
+        assertEquals(0.05, (Double) summary.get("p50"), 0);
+        assertEquals(0.1, (Double) summary.get("max"), 0);
+    }
+}
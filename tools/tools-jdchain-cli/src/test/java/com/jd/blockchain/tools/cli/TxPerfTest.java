@@ -0,0 +1,45 @@
+package com.jd.blockchain.tools.cli;
+
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TxPerfTest {
+
+    /**
+     * 每个工作槽位只使用自己的键，且键在键空间之内；
+     */
+    @Test
+    public void testPartitionKey() {
+        int partitions = 8;
+        int keys = 100;
+        for (long index = 0; index < keys; index++) {
+            for (int slot = 0; slot < partitions; slot++) {
+                long key = TxPerf.partitionKey(index, slot, partitions, keys);
+                assertTrue(key >= 0 && key < keys);
+                assertEquals(slot, key % partitions);
+                assertTrue(Math.abs(key - index) < partitions * 2);
+            }
+        }
+    }
+
+    /**
+     * 出错的请求记录耗时，但不计入成功拿到结果的延迟；
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testErrorLatency() {
+        TxPerf.StepResult step = new TxPerf.StepResult(0);
+        step.recordError(2000);
+
+        Map<String, Object> map = step.toMap();
+        assertEquals(1L, map.get("errors"));
+        assertEquals(0L, ((Map<String, Object>) map.get("latency")).get("count"));
+        Map<String, Object> errorLatency = (Map<String, Object>) map.get("errorLatency");
+        assertEquals(1L, errorLatency.get("count"));
+        assertEquals(2.0, (Double) errorLatency.get("max"), 0);
+    }
+}